@@ -7,10 +7,13 @@ import javax.ws.rs.ApplicationPath;
 
 import org.glassfish.jersey.server.ResourceConfig;
 
+import edu.utexas.tacc.tapis.jobs.api.utils.JobSubmitPipeline;
+import edu.utexas.tacc.tapis.jobs.api.utils.ResubmitBlobMaintenance;
 import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.events.NotificationLiveness;
 import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.security.ServiceContext;
 import edu.utexas.tacc.tapis.shared.security.TenantManager;
@@ -98,6 +101,9 @@ extends ResourceConfig
        // Enable more detailed SSH logging if the node name is not null.
        SSHConnection.setLocalNodeName(parms.getLocalNodeName());
        
+       // Enable tracing if configured.
+       JobTracing.initialize(TapisConstants.SERVICE_NAME_JOBS + "-api");
+       
        // ---------------- Initialize Security Filter --------------
        // Required to process any requests.
        JWTValidateRequestFilter.setService(TapisConstants.SERVICE_NAME_JOBS);
@@ -189,6 +195,15 @@ extends ResourceConfig
     	   System.out.println("****  Not running DB migration ****. \n");
        }
        
+       // ----- Fail asynchronous submissions abandoned by stopped instances.
+       int abandoned = JobSubmitPipeline.failAbandonedJobs();
+       if (abandoned > 0) 
+           System.out.println("**** Failed " + abandoned + " abandoned asynchronous job submissions ****\n");
+       JobSubmitPipeline.getInstance().startAbandonedJobSweep();
+       
+       // ----- Convert old saved requests and remove unreferenced ones.
+       ResubmitBlobMaintenance.start();
+       
        // ----- Start the notification liveness thread.
        startNotificationLiveness();  
    }
@@ -37,7 +37,9 @@ import edu.utexas.tacc.tapis.jobs.api.requestBody.ReqSubscribe;
 import edu.utexas.tacc.tapis.jobs.api.utils.JobParmSetMarshaller;
 import edu.utexas.tacc.tapis.jobs.api.utils.JobParmSetMarshaller.ArgTypeEnum;
 import edu.utexas.tacc.tapis.jobs.api.utils.JobsApiUtils;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobTemplateVariables;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobType;
 import edu.utexas.tacc.tapis.jobs.model.submit.JobArgSpec;
@@ -47,6 +49,7 @@ import edu.utexas.tacc.tapis.jobs.model.submit.JobSharedAppCtx;
 import edu.utexas.tacc.tapis.jobs.model.submit.JobSharedAppCtx.JobSharedAppCtxEnum;
 import edu.utexas.tacc.tapis.jobs.model.submit.LogConfig;
 import edu.utexas.tacc.tapis.jobs.queue.SelectQueueName;
+import edu.utexas.tacc.tapis.jobs.stagers.AbstractJobExecStager;
 import edu.utexas.tacc.tapis.jobs.utils.MacroResolver;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
@@ -67,6 +70,7 @@ import edu.utexas.tacc.tapis.systems.client.SystemsClient.AuthnMethod;
 import edu.utexas.tacc.tapis.systems.client.gen.model.LogicalQueue;
 import edu.utexas.tacc.tapis.systems.client.gen.model.ReqMatchConstraints;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerProfile;
+import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerTypeEnum;
 import edu.utexas.tacc.tapis.systems.client.gen.model.TapisSystem;
 
 /** This class orchestrates the job submission process, which includes incorporating
@@ -124,7 +128,8 @@ public final class SubmitContext
     /* **************************************************************************** */
     // Constructor input.
     private final ReqSubmitJob       _submitReq;
-    private final TapisThreadContext _threadContext;
+    private final String             _oboUser;
+    private final String             _oboTenant;
     private final Job                _job;
     
     // The raw sources of job information.
@@ -137,10 +142,15 @@ public final class SubmitContext
     private JobSharedAppCtx _sharedAppCtx;
     
     // Macro values.  The resolver is configured ONLY for the execution system.
-    // If you need to access the archive system, use a different resolver.
+    // If you need to access the archive system, use a different resolver.  The
+    // resolver caches resolved macro values for the life of this context, so it
+    // must be told when the value of an existing macro changes.
     private final TreeMap<String,String> _macros = new TreeMap<String,String>();
     private MacroResolver _macroResolver;
     
+    // Set when the owner and tenant have been assigned and authorized.
+    private boolean _ownerAssigned;
+    
     /* **************************************************************************** */
     /*                                Constructors                                  */
     /* **************************************************************************** */
@@ -150,7 +160,11 @@ public final class SubmitContext
     public SubmitContext(ReqSubmitJob submitReq)
     {
         _submitReq = submitReq;
-        _threadContext = TapisThreadLocal.tapisThreadContext.get();
+        
+        // Capture the requestor so the job can be initialized on another thread.
+        TapisThreadContext threadContext = TapisThreadLocal.tapisThreadContext.get();
+        _oboUser   = threadContext.getOboUser();
+        _oboTenant = threadContext.getOboTenantId();
         
         // Create the new job.
         _job = new Job();
@@ -166,7 +180,7 @@ public final class SubmitContext
     {
         // Assign the owner and tenant in the request.
         // Many methods depend on assignment made here.
-        assignOwnerAndTenant();
+        if (!_ownerAssigned) assignOwnerAndTenant();
         
         // Get the app.
         assignApp();
@@ -187,6 +201,53 @@ public final class SubmitContext
         return _job;
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* initPendingJob:                                                              */
+    /* ---------------------------------------------------------------------------- */
+    /** Create the placeholder job recorded when an asynchronous submission is
+     * accepted.  The owner and tenant are assigned and authorized here, but no
+     * other service is consulted, so fields that depend on the application and 
+     * systems contain the request's values or empty placeholders.  The placeholder
+     * has the same uuid and creation time as the job later returned by initNewJob().
+     * 
+     * @return a new job in the PENDING_VALIDATION status
+     * @throws TapisImplException if the owner or tenant are invalid
+     */
+    public Job initPendingJob() throws TapisImplException
+    {
+        // Authorize the requested owner now so that only jobs that 
+        // belong to their owners are ever recorded.
+        assignOwnerAndTenant();
+        _ownerAssigned = true;
+        
+        // Identify the job.
+        var job = new Job();
+        job.setUuid(_job.getUuid());
+        job.setCreated(_job.getCreated());
+        job.setLastUpdated(_job.getLastUpdated());
+        job.setStatus(JobStatusType.PENDING_VALIDATION);
+        job.setLastMessage(MsgUtils.getMsg("JOBS_SUBMIT_ACCEPTED", _job.getUuid()));
+        
+        // Assign the values known from the request.
+        job.setName(_submitReq.getName());
+        job.setOwner(_submitReq.getOwner());
+        job.setTenant(_submitReq.getTenant());
+        job.setCreatedby(_oboUser);
+        job.setCreatedbyTenant(_oboTenant);
+        job.setAppId(_submitReq.getAppId());
+        job.setAppVersion(_submitReq.getAppVersion());
+        job.setDescription(StringUtils.defaultString(_submitReq.getDescription()));
+        job.setExecSystemId(StringUtils.defaultString(_submitReq.getExecSystemId()));
+        job.setArchiveSystemId(StringUtils.defaultString(_submitReq.getArchiveSystemId()));
+        job.setTapisQueue("");
+        
+        // The job type is usually defined by the application.
+        if (StringUtils.isBlank(_submitReq.getJobType())) job.setJobType(JobType.FORK);
+          else job.setJobType(JobType.valueOf(_submitReq.getJobType()));
+        
+        return job;
+    }
+    
     /* **************************************************************************** */
     /*                                  Accessors                                   */
     /* **************************************************************************** */
@@ -216,8 +277,8 @@ public final class SubmitContext
     private void assignOwnerAndTenant() throws TapisImplException
     {
         // Get the verified request information.
-        var oboUser   = _threadContext.getOboUser();
-        var oboTenant = _threadContext.getOboTenantId();
+        var oboUser   = _oboUser;
+        var oboTenant = _oboTenant;
         
         // Make sure we are in the correct tenant.
         if (StringUtils.isBlank(_submitReq.getTenant())) _submitReq.setTenant(oboTenant);
@@ -434,6 +495,9 @@ public final class SubmitContext
         // Add any file inputs that have a user assigned envKey to the env 
         // variables list that will be passed to the application.
         mergeFileInputsEnvKeys();
+        
+        // Validate the job array now that all environment variables are known.
+        validateJobArray();
     }
     
     /* ---------------------------------------------------------------------------- */
@@ -1112,6 +1176,9 @@ public final class SubmitContext
         
         // Final fix up for macro path definitions.
         assignCleanMacroPaths();
+        
+        // Existing macro definitions changed, so cached values are stale.
+        if (_macroResolver != null) _macroResolver.clearResolvedValues();
     }
     
     /* ---------------------------------------------------------------------------- */
@@ -2950,6 +3017,84 @@ public final class SubmitContext
         }
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* validateJobArray:                                                            */
+    /* ---------------------------------------------------------------------------- */
+    /** Job arrays are only supported on Slurm batch jobs.  Each task's environment 
+     * variables must have valid, unreserved names that do not collide with the 
+     * job's other environment variables, since the task values are exported into 
+     * the same environment.  The Slurm --array option is reserved for Tapis when
+     * a job array is specified.
+     * 
+     * @throws TapisImplException when validation fails
+     */
+    private void validateJobArray() throws TapisImplException
+    {
+        // Most jobs aren't job arrays.
+        var parmSet = _submitReq.getParameterSet();
+        if (parmSet.getJobArray() == null) return;
+        if (!parmSet.isJobArray()) {
+            String msg = "The jobArray in job request " + _submitReq.getName() + 
+                         " must specify at least one task.";
+            throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+        }
+        
+        // Only slurm batch jobs can be job arrays.
+        if (!JobType.BATCH.name().equals(_submitReq.getJobType()) ||
+            _execSystem.getBatchScheduler() != SchedulerTypeEnum.SLURM) 
+        {
+            String msg = "Job arrays are only supported on BATCH jobs running under SLURM, " +
+                         "but job request " + _submitReq.getName() + " specifies a " + 
+                         _submitReq.getJobType() + " job on system " + _execSystem.getId() + ".";
+            throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+        }
+        
+        // Limit the array size.
+        var jobArray  = parmSet.getJobArray();
+        int taskCount = jobArray.getTaskCount();
+        int maxTasks  = RuntimeParameters.getInstance().getMaxArrayTasks();
+        if (taskCount > maxTasks) {
+            String msg = "Job request " + _submitReq.getName() + " specifies " + taskCount +
+                         " job array tasks, which exceeds the maximum of " + maxTasks + ".";
+            throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+        }
+        
+        // Tapis assigns the array directive.
+        for (var opt : parmSet.getSchedulerOptions()) {
+            var m = AbstractJobExecStager._optionPattern.matcher(opt.getArg());
+            if (m.matches() && ("--array".equals(m.group(1)) || "-a".equals(m.group(1)))) {
+                String msg = "The " + m.group(1) + " scheduler option cannot be used in job request " + 
+                             _submitReq.getName() + " because it specifies a jobArray.";
+                throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+            }
+        }
+        
+        // Validate each task's environment variables.
+        var jobEnvNames = parmSet.getEnvVariables().stream().map(x -> x.getKey())
+                                 .collect(Collectors.toSet());
+        for (var task : jobArray.getTasks()) {
+            if (task == null) continue;
+            var taskNames = new HashSet<String>(1 + task.size() * 2);
+            for (var kv : task) {
+                String name = kv.getKey();
+                if (name.startsWith(Job.TAPIS_ENV_VAR_PREFIX)) {
+                    String msg = MsgUtils.getMsg("JOBS_RESERVED_ENV_VAR", name, 
+                                                 Job.TAPIS_ENV_VAR_PREFIX, "jobArray");
+                    throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+                }
+                if (!JobParmSetMarshaller._envKeyPattern.matcher(name).matches()) {
+                    String msg = MsgUtils.getMsg("JOBS_INVALID_ENV_VAR_CHAR", name);
+                    throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+                }
+                if (!taskNames.add(name) || jobEnvNames.contains(name)) {
+                    String msg = MsgUtils.getMsg("JOBS_DUPLICATE_ENV_VAR", "jobArray", name);
+                    throw new TapisImplException(msg, Status.BAD_REQUEST.getStatusCode());
+                }
+                if (kv.getValue() == null) kv.setValue("");
+            }
+        }
+    }
+    
     /* ---------------------------------------------------------------------------- */
     /* validateLogConfig:                                                           */
     /* ---------------------------------------------------------------------------- */
@@ -3009,8 +3154,8 @@ public final class SubmitContext
         _job.setJobType(JobType.valueOf(_submitReq.getJobType()));
         
         // Creator fields already validated.
-        _job.setCreatedby(_threadContext.getOboUser());
-        _job.setCreatedbyTenant(_threadContext.getOboTenantId());
+        _job.setCreatedby(_oboUser);
+        _job.setCreatedbyTenant(_oboTenant);
         
         // Already validated.
         _job.setAppId(_submitReq.getAppId());
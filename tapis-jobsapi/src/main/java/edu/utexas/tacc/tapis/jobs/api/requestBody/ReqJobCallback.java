@@ -0,0 +1,33 @@
+package edu.utexas.tacc.tapis.jobs.api.requestBody;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+public class ReqJobCallback 
+ implements IReqBody
+{
+    // Fields.
+    private String token;
+
+	@Override
+	public String validate()
+	{
+	    // The token authenticates the request.
+	    if (StringUtils.isBlank(token)) 
+	        return MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "validate", "token");
+	    
+		// Success.
+		return null; 
+	}
+
+    @Schema(required = true)
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+}
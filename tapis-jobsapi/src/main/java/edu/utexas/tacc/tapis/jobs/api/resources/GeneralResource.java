@@ -33,6 +33,7 @@ import com.google.gson.JsonObject;
 import edu.utexas.tacc.tapis.jobs.api.responses.RespProbe;
 import edu.utexas.tacc.tapis.jobs.events.NotificationLiveness;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.security.TenantManager;
@@ -299,6 +300,30 @@ public final class GeneralResource
           MsgUtils.getMsg("TAPIS_READY", "Jobs Service"), false, r)).build();
   }
 
+  /* ---------------------------------------------------------------------------- */
+  /* metrics:                                                                     */
+  /* ---------------------------------------------------------------------------- */
+  /** Return this process's metrics in the Prometheus text exposition format.  
+   * Like the other probes, this method does no logging and requires no JWT.
+   * 
+   * @return the current metrics
+   */
+  @GET
+  @Path("/metrics")
+  @Produces(MediaType.TEXT_PLAIN)
+  @PermitAll
+  @Operation(
+          description = "Prometheus metrics for this service instance. No authorization required.",
+          tags = "general",
+          hidden = true,
+          responses = 
+              {@ApiResponse(responseCode = "200", description = "Metrics returned.")}
+      )
+  public Response metrics()
+  {
+      return Response.status(Status.OK).entity(JobMetrics.scrape()).build();
+  }
+
   /* ---------------------------------------------------------------------------- */
   /* notificationsLiveness:                                                       */
   /* ---------------------------------------------------------------------------- */
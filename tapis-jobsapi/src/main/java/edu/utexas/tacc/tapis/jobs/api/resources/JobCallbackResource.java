@@ -0,0 +1,149 @@
+package edu.utexas.tacc.tapis.jobs.api.resources;
+
+import java.io.InputStream;
+
+import javax.annotation.security.PermitAll;
+import javax.servlet.http.HttpServletRequest;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.Context;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.Status;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.api.requestBody.ReqJobCallback;
+import edu.utexas.tacc.tapis.jobs.api.utils.JobsApiUtils;
+import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.sharedapi.responses.RespBasic;
+import edu.utexas.tacc.tapis.sharedapi.utils.TapisRestUtils;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.parameters.RequestBody;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+
+/** This resource receives the completion notices that job wrapper scripts send
+ * when their applications complete.  Wrapper scripts run on execution systems
+ * without a JWT, so requests are authenticated by the job-specific callback
+ * token that was installed with the script when the job was staged.
+ * 
+ * The JWT validation filter lets requests to @PermitAll resource methods 
+ * through without a JWT, as it does for the eventLiveness webhook, so the
+ * callback method must keep that annotation.
+ *
+ * @author rcardone
+ */
+@Path("/")
+public class JobCallbackResource
+ extends AbstractResource
+{
+    /* **************************************************************************** */
+    /*                                   Constants                                  */
+    /* **************************************************************************** */
+    // Local logger.
+    private static final Logger _log = LoggerFactory.getLogger(JobCallbackResource.class);
+
+    // Json schema resource files.
+    private static final String FILE_JOB_CALLBACK_REQUEST =
+        "/edu/utexas/tacc/tapis/jobs/api/jsonschema/JobCallbackRequest.json";
+
+    /* **************************************************************************** */
+    /*                                    Fields                                    */
+    /* **************************************************************************** */
+    // See JobCancelResource for the complete list of injectable types.
+    @Context
+    private HttpServletRequest _request;
+
+    /* **************************************************************************** */
+    /*                                Public Methods                                */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* completionCallback:                                                          */
+    /* ---------------------------------------------------------------------------- */
+    @POST
+    @Path("/{jobUuid}/callback")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    @PermitAll
+    @Operation(
+            description = "Notify the Jobs service that a job's application has completed. "
+                          + "This endpoint is called by the wrapper scripts that Jobs generates "
+                          + "and is authenticated by the job's callback token rather than a JWT. "
+                          + "The notice causes the job's status to be checked immediately on the "
+                          + "execution system instead of at the next scheduled check.",
+            tags = "jobs",
+            requestBody =
+                @RequestBody(
+                    required = true,
+                    content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.jobs.api.requestBody.ReqJobCallback.class))),
+            responses =
+                {
+                 @ApiResponse(responseCode = "200", description = "Notice accepted.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "400", description = "Input error.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "403", description = "Forbidden.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                 @ApiResponse(responseCode = "500", description = "Server error.",
+                     content = @Content(schema = @Schema(
+                        implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
+    )
+    public Response completionCallback(@PathParam("jobUuid") String jobUuid,
+                                       @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                       InputStream payloadStream)
+    {
+      // Trace this request.
+      if (_log.isTraceEnabled()) {
+        String msg = MsgUtils.getMsg("TAPIS_TRACE_REQUEST", getClass().getSimpleName(),
+                                     "completionCallback", "  " + _request.getRequestURL());
+        _log.trace(msg);
+      }
+
+      // ------------------------- Input Processing -------------------------
+      if (StringUtils.isBlank(jobUuid)) {
+          String msg = MsgUtils.getMsg("SK_MISSING_PARAMETER", "jobUuid");
+          _log.error(msg);
+          return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+      }
+
+      // Parse and validate the json in the request payload, which must exist.
+      ReqJobCallback payload = null;
+      try {payload = getPayload(payloadStream, FILE_JOB_CALLBACK_REQUEST, ReqJobCallback.class);}
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("NET_REQUEST_PAYLOAD_ERROR", "completionCallback", e.getMessage());
+          _log.error(msg, e);
+          return Response.status(Status.BAD_REQUEST).
+                  entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+      }
+
+      // ------------------------- Forward Notice ---------------------------
+      try {JobsImpl.getInstance().doCompletionCallback(jobUuid, payload.getToken());}
+      catch (TapisImplException e) {
+          _log.error(e.getMessage(), e);
+          return Response.status(JobsApiUtils.toHttpStatus(e.condition)).
+                  entity(TapisRestUtils.createErrorResponse(e.getMessage(), prettyPrint)).build();
+      }
+
+      // ---------------------------- Success -------------------------------
+      String msg = MsgUtils.getMsg("JOBS_CALLBACK_ACCEPTED", jobUuid);
+      RespBasic r = new RespBasic(msg);
+      return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+              msg, prettyPrint, r)).build();
+    }
+}
@@ -26,6 +26,7 @@ import edu.utexas.tacc.tapis.jobs.api.utils.JobsApiUtils;
 import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.dto.JobCancelDisplay;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.threadlocal.TapisThreadContext;
@@ -201,8 +202,12 @@ public class JobCancelResource extends AbstractResource {
        }
        
        //------------------------- Cancel the Job  -----------------------------
-       // initiate the cancellation.
-       if (!jobsImpl.doCancelJob(jobUuid, threadContext))
+       // initiate the cancellation.  Jobs that are still pending validation
+       // have not been queued and are cancelled directly.
+       boolean cancelled = job.getStatus() == JobStatusType.PENDING_VALIDATION ?
+                           jobsImpl.doCancelPendingValidationJob(job, threadContext) :
+                           jobsImpl.doCancelJob(jobUuid, threadContext);
+       if (!cancelled)
            return Response.status(Status.INTERNAL_SERVER_ERROR).
                    entity(TapisRestUtils.createErrorResponse(MsgUtils.getMsg("JOBS_QMGR_POST_CANCEL", jobUuid),
                        prettyPrint)).build();
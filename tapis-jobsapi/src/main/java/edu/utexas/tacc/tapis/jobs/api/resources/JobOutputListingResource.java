@@ -24,12 +24,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.files.client.gen.model.FileInfo;
-import edu.utexas.tacc.tapis.jobs.api.responses.RespGetJobOutputList;
+import edu.utexas.tacc.tapis.jobs.api.responses.JobOutputListStreamer;
 import edu.utexas.tacc.tapis.jobs.api.utils.JobsApiUtils;
 import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobResourceShare;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobTapisPermission;
+import edu.utexas.tacc.tapis.jobs.utils.FilesListingPager;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.threadlocal.SearchParameters;
@@ -234,11 +235,16 @@ public class JobOutputListingResource extends AbstractResource{
        }
        else recursiveFlag = false;
              
+       // The listing is retrieved from Files and written to the client one page
+       // at a time.  The first page is retrieved here so that errors can still
+       // be reported with the appropriate status.
+       FilesListingPager pager = null;
        List<FileInfo> filesList = null;
        
        try {
-		filesList = jobsImpl.getJobOutputList(job, threadContext.getOboTenantId(), threadContext.getOboUser(), outputPath, 
+		pager = jobsImpl.getJobOutputPager(job, threadContext.getOboTenantId(), threadContext.getOboUser(), outputPath, 
 				srchParms.getLimit(),skip, JobResourceShare.JOB_OUTPUT.name(), JobTapisPermission.READ.name(),recursiveFlag);
+		filesList = jobsImpl.getNextJobOutputPage(job, pager, srchParms.getLimit(), skip);
 	   } catch (TapisImplException e) {
 		   _log.error(e.getMessage(), e);
            return Response.status(JobsApiUtils.toHttpStatus(e.condition)).
@@ -256,10 +262,10 @@ public class JobOutputListingResource extends AbstractResource{
       
        
        // Success.
-       RespGetJobOutputList r = new RespGetJobOutputList(filesList,srchParms.getLimit(),srchParms.getSkip());
-       return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+       var streamer = new JobOutputListStreamer(job, pager, filesList, 
                MsgUtils.getMsg("JOBS_OUTPUT_FILES_LIST_RETRIEVED", jobUuid, threadContext.getOboUser(),
-            		   threadContext.getOboTenantId()), prettyPrint, r)).build();
+            		   threadContext.getOboTenantId()), prettyPrint, srchParms.getLimit(), srchParms.getSkip());
+       return Response.status(Status.OK).type(MediaType.APPLICATION_JSON).entity(streamer).build();
      }
      
      
@@ -32,6 +32,9 @@ import edu.utexas.tacc.tapis.jobs.api.requestBody.ReqSubmitJob;
 import edu.utexas.tacc.tapis.jobs.api.requestBody.ReqUserEvent;
 import edu.utexas.tacc.tapis.jobs.api.responses.RespGetResubmit;
 import edu.utexas.tacc.tapis.jobs.api.responses.RespSubmitJob;
+import edu.utexas.tacc.tapis.jobs.api.utils.AdmissionController;
+import edu.utexas.tacc.tapis.jobs.api.utils.JobSubmitPipeline;
+import edu.utexas.tacc.tapis.jobs.api.utils.JobSubscriptionCreator;
 import edu.utexas.tacc.tapis.jobs.api.utils.JobsApiUtils;
 import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.dao.JobResubmitDao;
@@ -42,7 +45,10 @@ import edu.utexas.tacc.tapis.jobs.model.JobEvent;
 import edu.utexas.tacc.tapis.jobs.model.JobResubmit;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobEventType;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisNotFoundException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
@@ -53,6 +59,9 @@ import edu.utexas.tacc.tapis.shared.threadlocal.TapisThreadLocal;
 import edu.utexas.tacc.tapis.shared.utils.HTMLizer;
 import edu.utexas.tacc.tapis.sharedapi.responses.RespBasic;
 import edu.utexas.tacc.tapis.sharedapi.utils.TapisRestUtils;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -76,6 +85,10 @@ public class JobSubmitResource
     private static final String FILE_USER_EVENT_REQUEST = 
             "/edu/utexas/tacc/tapis/jobs/api/jsonschema/UserEventRequest.json";
     
+    // The RFC 7240 preference that requests asynchronous submission.
+    private static final String PREFER_HEADER = "Prefer";
+    private static final String RESPOND_ASYNC = "respond-async";
+    
     /* **************************************************************************** */
     /*                                    Fields                                    */
     /* **************************************************************************** */
@@ -153,7 +166,14 @@ public class JobSubmitResource
                            + ""
                            + "See the "
                            + "[Job Submission Request](https://tapis.readthedocs.io/en/latest/technical/jobs.html#the-job-submission-request) "
-                           + "documentation for details."
+                           + "documentation for details.\n\n"
+                           + ""
+                           + "When the *async* query parameter is true or the request has a "
+                           + "*Prefer: respond-async* header, only the syntax of the request is "
+                           + "validated before the job is recorded in the PENDING_VALIDATION status "
+                           + "and a 202 response containing the job is returned. The rest of the "
+                           + "validation, subscription creation and queuing take place in the "
+                           + "background. If they fail, the job's status becomes FAILED."
                            + "",
              tags = "jobs",
              security = {@SecurityRequirement(name = "TapisJWT")},
@@ -167,6 +187,9 @@ public class JobSubmitResource
                   @ApiResponse(responseCode = "200", description = "Job created.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.jobs.api.responses.RespSubmitJob.class))),
+                  @ApiResponse(responseCode = "202", description = "Job accepted for asynchronous validation.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.jobs.api.responses.RespSubmitJob.class))),
                   @ApiResponse(responseCode = "400", description = "Input error.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
@@ -176,11 +199,18 @@ public class JobSubmitResource
                   @ApiResponse(responseCode = "403", description = "Forbidden.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "429", description = "Too many submissions, retry later.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
                   @ApiResponse(responseCode = "500", description = "Server error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "503", description = "Asynchronous submissions temporarily unavailable.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
      )
      public Response submitJob(@DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                               @DefaultValue("false") @QueryParam("async") boolean async,
                                InputStream payloadStream)
      {
        // Trace this request.
@@ -191,7 +221,7 @@ public class JobSubmitResource
        }
        
        // The shared code takes it from here.
-       return doSubmit(prettyPrint, payloadStream);
+       return doSubmit(prettyPrint, async || isAsyncPreferred(), payloadStream);
      }
      
      /* ---------------------------------------------------------------------------- */
@@ -218,7 +248,10 @@ public class JobSubmitResource
                            + "UUID and does not reference or have any special access to the original "
                            + "job's information once the orginal job's request is copied. The resubmitted "
                            + "job's execution can differ from the original job's if the application, system "
-                           + "or other aspects of the execution environment have changed."
+                           + "or other aspects of the execution environment have changed.\n\n"
+                           + ""
+                           + "The *async* query parameter and the *Prefer: respond-async* header "
+                           + "have the same effect as on job submission."
                            + "",
              tags = "jobs",
              security = {@SecurityRequirement(name = "TapisJWT")},
@@ -227,6 +260,9 @@ public class JobSubmitResource
                   @ApiResponse(responseCode = "200", description = "Job created.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.jobs.api.responses.RespSubmitJob.class))),
+                  @ApiResponse(responseCode = "202", description = "Job accepted for asynchronous validation.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.jobs.api.responses.RespSubmitJob.class))),
                   @ApiResponse(responseCode = "400", description = "Input error.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
@@ -236,12 +272,19 @@ public class JobSubmitResource
                   @ApiResponse(responseCode = "403", description = "Forbidden.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "429", description = "Too many submissions, retry later.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
                   @ApiResponse(responseCode = "500", description = "Server error.",
+                      content = @Content(schema = @Schema(
+                         implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class))),
+                  @ApiResponse(responseCode = "503", description = "Asynchronous submissions temporarily unavailable.",
                       content = @Content(schema = @Schema(
                          implementation = edu.utexas.tacc.tapis.sharedapi.responses.RespBasic.class)))}
      )
      public Response resubmitJob(@PathParam("jobUuid") String jobUuid,
-                                 @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint)
+                                 @DefaultValue("false") @QueryParam("pretty") boolean prettyPrint,
+                                 @DefaultValue("false") @QueryParam("async") boolean async)
      {
     	 // Trace this request.
     	 if (_log.isTraceEnabled()) {
@@ -279,8 +322,18 @@ public class JobSubmitResource
                    entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
        }
        
+       // Decode the stored request.
+       String json;
+       try {json = jobResubmit.getJobDefinition();}
+       catch (Exception e) {
+           String msg = MsgUtils.getMsg("JOBS_JOBRESUBMIT_NOT_FOUND", jobUuid, e.getMessage());
+           _log.error(msg, e);
+           return Response.status(Status.INTERNAL_SERVER_ERROR).
+                   entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+       }
+       
        // The shared code takes it from here.
-       return doSubmit(prettyPrint, jobResubmit.getJobDefinition());
+       return doSubmit(prettyPrint, async || isAsyncPreferred(), json);
      }
      
      /* ---------------------------------------------------------------------------- */
@@ -527,6 +580,23 @@ public class JobSubmitResource
      /* **************************************************************************** */
      /*                               Private Methods                                */
      /* **************************************************************************** */
+     /* ---------------------------------------------------------------------------- */
+     /* isAsyncPreferred:                                                            */
+     /* ---------------------------------------------------------------------------- */
+     /** Determine whether the request includes the RFC 7240 respond-async preference.
+      * 
+      * @return true if asynchronous submission is requested by header
+      */
+     private boolean isAsyncPreferred()
+     {
+         var values = _httpHeaders.getRequestHeader(PREFER_HEADER);
+         if (values == null) return false;
+         for (var value : values) 
+             for (var pref : value.split(","))
+                 if (RESPOND_ASYNC.equalsIgnoreCase(pref.trim())) return true;
+         return false;
+     }
+     
      /* ---------------------------------------------------------------------------- */
      /* doSubmit:                                                                    */
      /* ---------------------------------------------------------------------------- */
@@ -534,10 +604,11 @@ public class JobSubmitResource
       * real doSubmit method.
       * 
       * @param prettyPrint the request's query parameter
+      * @param async whether to complete the submission in the background
       * @param payload the request's payload
       * @return the response to the user
       */
-     private Response doSubmit(boolean prettyPrint, InputStream payloadStream)
+     private Response doSubmit(boolean prettyPrint, boolean async, InputStream payloadStream)
      {
          // ------------------------- Validate Payload -------------------------
          // Read the payload into a string.
@@ -551,19 +622,77 @@ public class JobSubmitResource
            }
          
          // The real submit.
-         return doSubmit(prettyPrint, json);
+         return doSubmit(prettyPrint, async, json);
      }
      
      /* ---------------------------------------------------------------------------- */
      /* doSubmit:                                                                    */
      /* ---------------------------------------------------------------------------- */
+     /** The common entry point for both submit and resubmit.
+      * 
+      * @param prettyPrint the request's query parameter
+      * @param async whether to complete the submission in the background
+      * @param payload the request's payload as json
+      * @return the response to the user
+      */
+     private Response doSubmit(boolean prettyPrint, boolean async, String json)
+     {
+         // Trace the submission from here through queuing.  The trace is
+         // continued by the worker that processes the job.
+         // The jax-rs Context annotation is imported, so the otel Context is qualified.
+         Span span = JobTracing.startSpan(JobTracing.SPAN_SUBMIT, SpanKind.SERVER, 
+                                          io.opentelemetry.context.Context.current());
+         Response response = null;
+         try (Scope scope = span.makeCurrent()) {
+             // Shed load before doing any work when the workers are backed up.
+             response = checkAdmission(prettyPrint);
+             if (response != null) return response;
+             
+             response = async ? submitAsyncJob(prettyPrint, json) : submitNewJob(prettyPrint, json);
+             return response;
+         }
+         finally {
+             boolean success = response != null && response.getStatus() < 400;
+             if (response != null) span.setAttribute("http.status_code", response.getStatus());
+             JobTracing.endSpan(span, success);
+         }
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* checkAdmission:                                                              */
+     /* ---------------------------------------------------------------------------- */
+     /** Apply the obo tenant's submission rate limit, which tightens as the worker
+      * backlog grows.  Rejected requests receive a 429 response with a Retry-After
+      * header.
+      * 
+      * @param prettyPrint the request's query parameter
+      * @return the rejection response or null if the submission can proceed
+      */
+     private Response checkAdmission(boolean prettyPrint)
+     {
+         // Requests without a valid context are rejected later.
+         TapisThreadContext threadContext = TapisThreadLocal.tapisThreadContext.get();
+         String tenantId = threadContext.getOboTenantId();
+         int retryAfter = AdmissionController.getInstance().admit(tenantId);
+         if (retryAfter == 0) return null;
+         
+         String msg = MsgUtils.getMsg("JOBS_SUBMIT_THROTTLED", tenantId, retryAfter);
+         _log.warn(msg);
+         return Response.status(Status.TOO_MANY_REQUESTS).
+                 header(HttpHeaders.RETRY_AFTER, retryAfter).
+                 entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* submitNewJob:                                                                */
+     /* ---------------------------------------------------------------------------- */
      /** All the work gets done here from both submit and resubmit.
       * 
       * @param prettyPrint the request's query parameter
       * @param payload the request's payload as json
       * @return the response to the user
       */
-     private Response doSubmit(boolean prettyPrint, String json)
+     private Response submitNewJob(boolean prettyPrint, String json)
      {
          // ------------------------- Input Processing -------------------------
          // Parse and validate the json in the request payload, which must exist.
@@ -605,14 +734,18 @@ public class JobSubmitResource
              return Response.status(Status.INTERNAL_SERVER_ERROR).
                      entity(TapisRestUtils.createErrorResponse(e.getMessage(), prettyPrint)).build();
          }
+         JobTracing.setJobAttributes(Span.current(), job);
          
          // ------------------- Create User Subscriptions ----------------------
          // Subscribe to Notifications service on behalf of user.  The complete list
          // of subscriptions are guaranteed by context initialization to have been
          // calculated and non-null by this point. Subscriptions are created before
          // we make any database changes so the caller can access any events generated.
-         var response = createSubscriptions(reqCtx, job, prettyPrint);
-         if (response != null) return response;
+         try {createSubscriptions(reqCtx, job);}
+         catch (TapisImplException e) {
+             return Response.status(JobsApiUtils.toHttpStatus(e.condition)).
+                     entity(TapisRestUtils.createErrorResponse(e.getMessage(), prettyPrint)).build();
+         }
          
          // ------------------------- Save Job ---------------------------------
          // Write the job to the database.
@@ -622,6 +755,7 @@ public class JobSubmitResource
          }
          catch (Exception e) {
              _log.error(e.getMessage(), e);
+             deleteSubscriptions(reqCtx, job);
              return Response.status(Status.INTERNAL_SERVER_ERROR).
                      entity(TapisRestUtils.createErrorResponse(e.getMessage(), prettyPrint)).build();
          }
@@ -650,6 +784,221 @@ public class JobSubmitResource
          // table is indexed on id & uuid.  If the actual job submission below
          // fails after this database insertion succeeds, we will have a resubmit
          // record that can never be referenced--no big deal.
+         saveResubmitRequest(job, json);
+         
+         // Success.
+         RespSubmitJob r = new RespSubmitJob(job);
+         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
+                 MsgUtils.getMsg("JOBS_CREATED", job.getUuid()), prettyPrint, r)).build();
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* submitAsyncJob:                                                              */
+     /* ---------------------------------------------------------------------------- */
+     /** Accept a submission for background processing.  Only the request's syntax
+      * and owner are validated before the job is recorded in the PENDING_VALIDATION
+      * status.  The submission is then completed by the JobSubmitPipeline.
+      * 
+      * @param prettyPrint the request's query parameter
+      * @param payload the request's payload as json
+      * @return the response to the user
+      */
+     private Response submitAsyncJob(boolean prettyPrint, String json)
+     {
+         // ------------------------- Input Processing -------------------------
+         // Parse and validate the json in the request payload, which must exist.
+         ReqSubmitJob payload = null;
+         try {payload = getPayload(json, FILE_JOB_SUBMIT_REQUEST, ReqSubmitJob.class);} 
+         catch (Exception e) {
+             String msg = MsgUtils.getMsg("NET_REQUEST_PAYLOAD_ERROR", 
+                                          "submitJob", e.getMessage());
+             _log.error(msg, e);
+             return Response.status(Status.BAD_REQUEST).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+
+         // ------------------------- Create Context ---------------------------
+         // Validate the threadlocal content here so no subsequent code on this request needs to.
+         TapisThreadContext threadContext = TapisThreadLocal.tapisThreadContext.get();
+         if (!threadContext.validate()) {
+             var msg = MsgUtils.getMsg("TAPIS_INVALID_THREADLOCAL_VALUE", "validate");
+             _log.error(msg);
+             return Response.status(Status.INTERNAL_SERVER_ERROR).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // Don't record jobs that can't be processed.
+         var pipeline = JobSubmitPipeline.getInstance();
+         if (!pipeline.hasCapacity()) {
+             String msg = MsgUtils.getMsg("JOBS_SUBMIT_ASYNC_BUSY", pipeline.getWaitingSubmissions());
+             _log.warn(msg);
+             return Response.status(Status.SERVICE_UNAVAILABLE).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // Create the request context object.
+         var reqCtx = new SubmitContext(payload);
+         
+         // ------------------------- Record the Job ---------------------------
+         // Create the placeholder job and write it to the database.
+         Job pendingJob = null;
+         try {
+             pendingJob = reqCtx.initPendingJob();
+             var jobsDao = new JobsDao();
+             jobsDao.createJob(pendingJob);
+         }
+         catch (TapisImplException e) {
+             _log.error(e.getMessage(), e);
+             return Response.status(JobsApiUtils.toHttpStatus(e.condition)).
+                     entity(TapisRestUtils.createErrorResponse(e.getMessage(), prettyPrint)).build();
+         }
+         catch (Exception e) {
+             _log.error(e.getMessage(), e);
+             return Response.status(Status.INTERNAL_SERVER_ERROR).
+                     entity(TapisRestUtils.createErrorResponse(e.getMessage(), prettyPrint)).build();
+         }
+         JobTracing.setJobAttributes(Span.current(), pendingJob);
+         
+         // The request is saved now so that it can be resubmitted even if it fails validation.
+         saveResubmitRequest(pendingJob, json);
+         
+         // ------------------------- Schedule Processing ----------------------
+         // The background work continues the current trace.
+         final Job job = pendingJob;
+         final io.opentelemetry.context.Context parentCtx = io.opentelemetry.context.Context.current();
+         if (!pipeline.submit(() -> completeAsyncSubmission(reqCtx, job, parentCtx))) {
+             // We lost the race for the last slot.
+             String msg = MsgUtils.getMsg("JOBS_SUBMIT_ASYNC_BUSY", pipeline.getWaitingSubmissions());
+             _log.warn(msg);
+             failJob(job, msg);
+             return Response.status(Status.SERVICE_UNAVAILABLE).
+                     entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
+         }
+         
+         // Accepted.
+         RespSubmitJob r = new RespSubmitJob(job);
+         return Response.status(Status.ACCEPTED).entity(TapisRestUtils.createSuccessResponse(
+                 MsgUtils.getMsg("JOBS_SUBMIT_ACCEPTED", job.getUuid()), prettyPrint, r)).build();
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* completeAsyncSubmission:                                                     */
+     /* ---------------------------------------------------------------------------- */
+     /** Complete an asynchronous submission on a pipeline thread.  The job's 
+      * definition is resolved and validated, its placeholder record is replaced,
+      * its subscriptions are created and it's queued.  Failures are recorded in
+      * the job's status and events since there's no request to respond to.
+      * 
+      * @param reqCtx the context created when the submission was accepted
+      * @param pendingJob the placeholder job
+      * @param parentCtx the trace context of the accepting request
+      */
+     private static void completeAsyncSubmission(SubmitContext reqCtx, Job pendingJob,
+                                                 io.opentelemetry.context.Context parentCtx)
+     {
+         Span span = JobTracing.startSpan(JobTracing.SPAN_SUBMIT_ASYNC, SpanKind.INTERNAL, parentCtx);
+         boolean success = false;
+         try (Scope scope = span.makeCurrent()) {
+             // ------------------------- Initialize the Job -------------------
+             // Resolve the job's definition, which shares the placeholder's uuid.
+             Job job = null;
+             try {job = reqCtx.initNewJob();}
+             catch (Exception e) {
+                 String msg = MsgUtils.getMsg("JOBS_SUBMIT_ASYNC_INVALID", pendingJob.getUuid(), e.getMessage());
+                 _log.error(msg, e);
+                 failPendingJob(pendingJob, msg, JobConditionCode.JOB_INVALID_DEFINITION);
+                 return;
+             }
+             job.setCreated(pendingJob.getCreated());
+             JobTracing.setJobAttributes(span, job);
+             
+             // ------------------------- Save Job -----------------------------
+             // Replace the placeholder unless the job was cancelled in the meantime.
+             // Subscriptions are created afterwards so that none are left behind
+             // for a job that was cancelled during validation.
+             try {
+                 var jobsDao = new JobsDao();
+                 if (!jobsDao.replacePendingJob(job)) {
+                     _log.info(MsgUtils.getMsg("JOBS_NOT_PENDING_VALIDATION", job.getUuid(), job.getTenant()));
+                     success = true;
+                     return;
+                 }
+             }
+             catch (Exception e) {
+                 _log.error(e.getMessage(), e);
+                 failPendingJob(pendingJob, e.getMessage(), JobConditionCode.JOB_DATABASE_ERROR);
+                 return;
+             }
+             
+             // ------------------- Create User Subscriptions ------------------
+             // The job is now PENDING, so a failure here fails it normally.
+             try {createSubscriptions(reqCtx, job);}
+             catch (TapisImplException e) {
+                 failJob(job, e.getMessage());
+                 return;
+             }
+             
+             // Save and sent any initial subscription events.
+             createSubscriptionEvents(reqCtx, job);
+             
+             // -------------------------- Queue Request -----------------------
+             try {JobQueueManager.getInstance().queueJob(job);}
+             catch (Exception e) {
+                 String msg = MsgUtils.getMsg("JOBS_SUBMIT_ERROR1", job.getName(), job.getAppId(), e.getMessage());
+                 _log.error(msg, e);
+                 failJob(job, msg);
+                 return;
+             }
+             success = true;
+         }
+         catch (Exception e) {
+             // Defend against the unexpected so the job doesn't remain pending.
+             _log.error(e.getMessage(), e);
+             failPendingJob(pendingJob, e.getMessage(), JobConditionCode.JOB_INTERNAL_ERROR);
+         }
+         finally {
+             JobTracing.endSpan(span, success);
+         }
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* failPendingJob:                                                              */
+     /* ---------------------------------------------------------------------------- */
+     /** Fail a job whose asynchronous submission could not be completed unless the
+      * job is no longer pending validation, which happens when it's cancelled while
+      * being validated.
+      * 
+      * @param pendingJob the placeholder job
+      * @param failMsg the failure message
+      * @param cond the job's condition code
+      */
+     private static void failPendingJob(Job pendingJob, String failMsg, JobConditionCode cond)
+     {
+         try {
+             var status = new JobsDao().getStatusByUUID(pendingJob.getUuid());
+             if (status != JobStatusType.PENDING_VALIDATION) {
+                 _log.info(MsgUtils.getMsg("JOBS_NOT_PENDING_VALIDATION", pendingJob.getUuid(), 
+                                           pendingJob.getTenant()));
+                 return;
+             }
+         }
+         catch (Exception e) {_log.error(e.getMessage(), e);}
+         
+         // Fail the job.
+         failJob(pendingJob, failMsg, cond);
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* saveResubmitRequest:                                                         */
+     /* ---------------------------------------------------------------------------- */
+     /** Save the job's request for future resubmission.  This is a best-effort
+      * operation that never throws an exception.
+      * 
+      * @param job the submitted job
+      * @param json the job's request
+      */
+     private static void saveResubmitRequest(Job job, String json)
+     {
          try {
              // Create the resubmit object.
              JobResubmit jobResubmit = new JobResubmit();
@@ -663,53 +1012,40 @@ public class JobSubmitResource
              String msg = MsgUtils.getMsg("JOBS_JOBRESUBMIT_FAILED_PERSIST", "resubmit", e.getMessage());
              _log.error(msg);
          }
-         
-         // Success.
-         RespSubmitJob r = new RespSubmitJob(job);
-         return Response.status(Status.OK).entity(TapisRestUtils.createSuccessResponse(
-                 MsgUtils.getMsg("JOBS_CREATED", job.getUuid()), prettyPrint, r)).build();
      }
      
      /* ---------------------------------------------------------------------------- */
      /* createSubscriptions:                                                         */
      /* ---------------------------------------------------------------------------- */
-     /** Post subscription create messages to Notifications.  Return null on success,
-      * an error Response object when a subscription could not be created.
+     /** Post subscription create messages to Notifications.  An exception is thrown
+      * when a subscription could not be created, in which case none of the job's
+      * subscriptions are retained.
       * 
       * @param reqCtx submit request context
       * @param job the populated job object
-      * @param prettyPrint user output preference
-      * @return null if ok, a response object on error
+      * @throws TapisImplException if a subscription could not be created
       */
-     private Response createSubscriptions(SubmitContext reqCtx, Job job, boolean prettyPrint)
+     private static void createSubscriptions(SubmitContext reqCtx, Job job)
+      throws TapisImplException
      {
-         // Does the job have any subscriptions?
-         if (reqCtx.getSubmitReq().getSubscriptions().isEmpty()) return null;
-         
          // We assume the subscription requests are validated, so any failure create
          // a subscription in Notifications is a system problem that aborts the job.
-         for (var req : reqCtx.getSubmitReq().getSubscriptions()) {
-             String url = null;
-             try {url = JobsApiUtils.postSubscriptionRequest(req, job.getOwner(), job.getTenant(), job.getUuid());}
-             catch (Exception e) {
-                 String msg = MsgUtils.getMsg("JOBS_SUBSCRIPTION_ERROR", job.getUuid(), 
-                                              job.getOwner(), job.getTenant(), e.getMessage());
-                 _log.error(msg, e);
-                 return Response.status(Status.INTERNAL_SERVER_ERROR).
-                         entity(TapisRestUtils.createErrorResponse(msg, prettyPrint)).build();
-             }
-                 
-             // Log subscriptions created.
-             if (_log.isDebugEnabled()) {
-                 var typeFilter = JobsApiUtils.getNotifTypeFilter(req.getEventCategoryFilter(), 
-                                                                  JobsApiUtils.TYPE_FILTER_WILDCARD);
-                 var msg = MsgUtils.getMsg("NOTIFICATIONS_SUBSCRIPTION_CREATED", job.getUuid(), typeFilter);
-                 _log.debug(msg);
-             }
-         }
-         
-         // Success.
-         return null;
+         JobSubscriptionCreator.getInstance().createAll(reqCtx.getSubmitReq().getSubscriptions(), job);
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* deleteSubscriptions:                                                         */
+     /* ---------------------------------------------------------------------------- */
+     /** Undo createSubscriptions() when the job could not be saved.  This best-effort
+      * method never throws an exception.
+      * 
+      * @param reqCtx submit request context
+      * @param job the populated job object
+      */
+     private static void deleteSubscriptions(SubmitContext reqCtx, Job job)
+     {
+         if (reqCtx.getSubmitReq().getSubscriptions().isEmpty()) return;
+         JobSubscriptionCreator.getInstance().deleteAll(job);
      }
      
      /* ---------------------------------------------------------------------------- */
@@ -722,7 +1058,7 @@ public class JobSubmitResource
       * @param reqCtx submit request context
       * @param job the populated job object
       */
-     private void createSubscriptionEvents(SubmitContext reqCtx, Job job)
+     private static void createSubscriptionEvents(SubmitContext reqCtx, Job job)
      {
          // Does the job have any subscriptions?
          int count = reqCtx.getSubmitReq().getSubscriptions().size();
@@ -744,17 +1080,30 @@ public class JobSubmitResource
      /* ---------------------------------------------------------------------------- */
      /** Mark the job as failed in the database.
       * 
-      * @param jobDao the db access object
       * @param job the failed job
       * @param failMsg the failure message
      */
      private static void failJob(Job job, String failMsg)
+     {
+         failJob(job, failMsg, JobConditionCode.JOB_INTERNAL_ERROR);
+     }
+     
+     /* ---------------------------------------------------------------------------- */
+     /* failJob:                                                                     */
+     /* ---------------------------------------------------------------------------- */
+     /** Mark the job as failed in the database with the specified condition.
+      * 
+      * @param job the failed job
+      * @param failMsg the failure message
+      * @param cond the job's condition code
+     */
+     private static void failJob(Job job, String failMsg, JobConditionCode cond)
      {
          // Fail the job.  Note that current status used in the transition 
          // to FAILED is the status of the job as defined in the db.
          try {
         	 // Always set the job condition before calling any dao method.
-        	 job.setCondition(JobConditionCode.JOB_INTERNAL_ERROR);
+        	 job.setCondition(cond);
              var jobsDao = new JobsDao();
              jobsDao.failJob("submitJob", job, failMsg);
          }
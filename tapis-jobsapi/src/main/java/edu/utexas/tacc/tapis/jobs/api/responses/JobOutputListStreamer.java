@@ -0,0 +1,145 @@
+package edu.utexas.tacc.tapis.jobs.api.responses;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.StreamingOutput;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.utexas.tacc.tapis.files.client.gen.model.FileInfo;
+import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.jobs.utils.FilesListingPager;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+import edu.utexas.tacc.tapis.sharedapi.utils.TapisRestUtils;
+
+/** Write a job output listing response to the client as the listing pages
+ * are retrieved from Files.  The response has the same content as one built
+ * from RespGetJobOutputList, but the result array is written one page at a
+ * time and the metadata, whose record count is only known at the end, follows
+ * the result array.
+ *
+ * The first page is retrieved before the response is committed so that errors
+ * that prevent any listing are reported with the appropriate status code.  An
+ * error retrieving a later page terminates the response, which the client sees
+ * as truncated JSON.
+ *
+ * @author rcardone
+ */
+public final class JobOutputListStreamer
+ implements StreamingOutput
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobOutputListStreamer.class);
+
+    // Response field names.
+    private static final String RESULT_FIELD       = "result";
+    private static final String METADATA_FIELD     = "metadata";
+    private static final String RECORD_COUNT_FIELD = "recordCount";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    private final Job               _job;
+    private final FilesListingPager _pager;
+    private final List<FileInfo>    _firstPage;
+    private final String            _message;
+    private final boolean           _prettyPrint;
+    private final int               _limit;
+    private final int               _skip;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /**
+     * @param job the job whose output is listed
+     * @param pager the pager that retrieved the first page
+     * @param firstPage the non-null first page
+     * @param message the success message
+     * @param prettyPrint whether to format the json for readability
+     * @param limit the limit reported in the metadata
+     * @param skip the skip count reported in the metadata
+     */
+    public JobOutputListStreamer(Job job, FilesListingPager pager, List<FileInfo> firstPage,
+                                 String message, boolean prettyPrint, int limit, int skip)
+    {
+        _job = job;
+        _pager = pager;
+        _firstPage = firstPage;
+        _message = message;
+        _prettyPrint = prettyPrint;
+        _limit = limit;
+        _skip = skip;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* write:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void write(OutputStream output) throws IOException
+    {
+        // Use the standard response with an empty result as the envelope.
+        var resp = new RespGetJobOutputList(Collections.emptyList(), _limit, _skip);
+        JsonObject envelope = JsonParser.parseString(
+            TapisRestUtils.createSuccessResponse(_message, false, resp)).getAsJsonObject();
+        JsonElement metadata = envelope.remove(METADATA_FIELD);
+        envelope.remove(RESULT_FIELD);
+
+        // Write the envelope's other fields.
+        var gson = TapisGsonUtils.getGson(_prettyPrint);
+        var writer = gson.newJsonWriter(
+            new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8)));
+        writer.beginObject();
+        for (var entry : envelope.entrySet()) {
+            writer.name(entry.getKey());
+            gson.toJson(entry.getValue(), writer);
+        }
+
+        // Write each page as it's retrieved.
+        writer.name(RESULT_FIELD);
+        writer.beginArray();
+        long count = 0;
+        var page = _firstPage;
+        while (page != null && !page.isEmpty()) {
+            for (var fileInfo : page) gson.toJson(fileInfo, FileInfo.class, writer);
+            count += page.size();
+            writer.flush();
+            try {page = JobsImpl.getInstance().getNextJobOutputPage(_job, _pager, _limit, _skip);}
+            catch (TapisImplException e) {
+                _log.error(e.getMessage(), e);
+                throw new IOException(e.getMessage(), e);
+            }
+        }
+        writer.endArray();
+
+        // The record count is known now.
+        if (metadata != null && metadata.isJsonObject()) {
+            metadata.getAsJsonObject().addProperty(RECORD_COUNT_FIELD, count);
+            writer.name(METADATA_FIELD);
+            gson.toJson(metadata, writer);
+        }
+        writer.endObject();
+        writer.flush();
+    }
+}
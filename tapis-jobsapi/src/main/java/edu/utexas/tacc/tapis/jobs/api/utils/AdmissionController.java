@@ -0,0 +1,270 @@
+package edu.utexas.tacc.tapis.jobs.api.utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobBlockedDao;
+import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
+import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Limit the rate at which each tenant can submit jobs based on how backed up
+ * the workers are.  A background thread periodically samples the number of
+ * messages waiting on the submit queues, the number of blocked jobs in recovery
+ * and, optionally, the number of active jobs.  Each sample is compared to its
+ * configured limit and the largest ratio becomes the current pressure.
+ *
+ * Each tenant has a token bucket that refills at the configured tenant rate
+ * scaled by a factor derived from the pressure.  The factor is 1 until the
+ * pressure reaches one half, then decreases linearly to 0.1 as the pressure
+ * approaches 1.  At or above full pressure all submissions are rejected until
+ * the next sample shows the backlog has drained.  Rejected callers are told
+ * how long to wait before retrying.
+ *
+ * Sampling failures leave the previous sample in effect, so a database or
+ * broker outage neither opens nor closes the gate by itself.
+ *
+ * Token buckets are kept in memory, so the tenant rate and burst apply to each
+ * service instance separately.  A tenant can submit up to the configured rate
+ * times the number of replicas, with each replica's share depending on how
+ * the load balancer spreads its requests.  The pressure samples are global,
+ * so all instances throttle together as the workers back up.
+ *
+ * @author rcardone
+ */
+public final class AdmissionController
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(AdmissionController.class);
+
+    // Thread naming.
+    private static final String THREAD_NAME = "AdmissionSampler";
+
+    // Pressure at which tenant rates start to decrease.
+    static final double LOW_PRESSURE = 0.5;
+
+    // The smallest fraction of the tenant rate allowed below full pressure.
+    static final double MIN_FACTOR = 0.1;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance.
+    private static AdmissionController _instance;
+
+    // Configuration.
+    private final boolean _enabled;
+    private final double  _tokensPerSecond;
+    private final int     _burst;
+    private final int     _sampleSeconds;
+    private final long    _queueDepthLimit;
+    private final long    _recoveryLimit;
+    private final long    _activeLimit;
+
+    // The current fraction of the tenant rate allowed.
+    private volatile double _factor = 1.0;
+
+    // One bucket per tenant.
+    private final ConcurrentHashMap<String,TokenBucket> _buckets = new ConcurrentHashMap<>();
+
+    // The last successful samples.
+    private long _queueDepth;
+    private long _recoveryBacklog;
+    private long _activeJobs;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private AdmissionController()
+    {
+        var parms = RuntimeParameters.getInstance();
+        _enabled         = parms.getAdmissionTenantRate() > 0;
+        _tokensPerSecond = parms.getAdmissionTenantRate() / 60.0;
+        _burst           = Math.max(1, parms.getAdmissionTenantBurst());
+        _sampleSeconds   = Math.max(1, parms.getAdmissionSampleSeconds());
+        _queueDepthLimit = parms.getAdmissionQueueDepthLimit();
+        _recoveryLimit   = parms.getAdmissionRecoveryLimit();
+        _activeLimit     = parms.getAdmissionActiveLimit();
+
+        // Start sampling.
+        if (_enabled) {
+            JobMetrics.registerAdmissionGauge(() -> _factor);
+            var thread = new Thread(this::sampleLoop, THREAD_NAME);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static synchronized AdmissionController getInstance()
+    {
+        if (_instance == null) _instance = new AdmissionController();
+        return _instance;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* admit:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Decide whether a tenant's submission can proceed now.
+     *
+     * @param tenantId the submitting tenant
+     * @return 0 if the submission is admitted, otherwise the number of seconds
+     *         the caller should wait before retrying
+     */
+    public int admit(String tenantId)
+    {
+        // Is admission control turned off?
+        if (!_enabled || tenantId == null) return 0;
+
+        // Nothing is admitted at full pressure.
+        double factor = _factor;
+        int retryAfter;
+        if (factor <= 0) retryAfter = _sampleSeconds;
+        else {
+            var bucket = _buckets.computeIfAbsent(tenantId, k -> new TokenBucket(_burst));
+            retryAfter = bucket.tryAcquire(_tokensPerSecond * factor, System.nanoTime());
+            if (retryAfter == 0) return 0;
+        }
+
+        JobMetrics.countAdmissionRejected(tenantId);
+        return retryAfter;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getFactor:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** The fraction of the configured tenant rate currently allowed. */
+    public double getFactor() {return _factor;}
+
+    /* ********************************************************************** */
+    /*                        Package-Private Methods                         */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getRateFactor:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Calculate the fraction of the tenant rate allowed at a given pressure.
+     *
+     * @param pressure the largest ratio of a backlog sample to its limit
+     * @return the rate factor between 0 and 1
+     */
+    static double getRateFactor(double pressure)
+    {
+        if (pressure < LOW_PRESSURE) return 1.0;
+        if (pressure >= 1.0) return 0;
+        return 1.0 - (pressure - LOW_PRESSURE) / (1.0 - LOW_PRESSURE) * (1.0 - MIN_FACTOR);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPressure:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Calculate the ratio of a sample to its limit.  Non-positive limits are
+     * ignored.
+     */
+    static double getPressure(long sample, long limit)
+    {
+        return limit > 0 ? (double) sample / limit : 0;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* sampleLoop:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private void sampleLoop()
+    {
+        while (true) {
+            sample();
+            try {Thread.sleep(_sampleSeconds * 1000L);}
+                catch (InterruptedException e) {return;}
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* sample:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Read the current backlogs and recalculate the rate factor.  This method
+     * never throws an exception.
+     */
+    private void sample()
+    {
+        // Each sample is read independently.
+        if (_queueDepthLimit > 0)
+            try {_queueDepth = JobQueueManager.getInstance().getSubmitBacklog();}
+                catch (Exception e) {_log.error(e.getMessage(), e);}
+        if (_recoveryLimit > 0)
+            try {_recoveryBacklog = new JobBlockedDao().countBlockedJobs();}
+                catch (Exception e) {_log.error(e.getMessage(), e);}
+        if (_activeLimit > 0)
+            try {_activeJobs = new JobsDao().countAllActiveJobs();}
+                catch (Exception e) {_log.error(e.getMessage(), e);}
+
+        // The most backed up resource determines the factor.
+        double pressure = Math.max(getPressure(_queueDepth, _queueDepthLimit),
+                          Math.max(getPressure(_recoveryBacklog, _recoveryLimit),
+                                   getPressure(_activeJobs, _activeLimit)));
+        double factor = getRateFactor(pressure);
+
+        // Log changes.
+        if (factor != _factor)
+            _log.info(MsgUtils.getMsg("JOBS_ADMISSION_FACTOR_CHANGED", _factor, factor,
+                                      _queueDepth, _recoveryBacklog, _activeJobs));
+        _factor = factor;
+    }
+
+    /* ********************************************************************** */
+    /*                             TokenBucket Class                          */
+    /* ********************************************************************** */
+    /** A token bucket whose refill rate is supplied on each request so that
+     * rate changes take effect immediately.
+     */
+    static final class TokenBucket
+    {
+        private final int _capacity;
+        private double    _tokens;
+        private long      _lastNanos;
+        private boolean   _started;
+
+        TokenBucket(int capacity)
+        {
+            _capacity = capacity;
+            _tokens   = capacity;
+        }
+
+        /** Take a token if one is available.
+         *
+         * @param tokensPerSecond the current refill rate
+         * @param nowNanos the current time in nanoseconds
+         * @return 0 if a token was taken, otherwise the whole seconds until one is available
+         */
+        synchronized int tryAcquire(double tokensPerSecond, long nowNanos)
+        {
+            // Refill based on the time since the last request.
+            if (_started) {
+                double elapsed = (nowNanos - _lastNanos) / 1_000_000_000.0;
+                _tokens = Math.min(_capacity, _tokens + elapsed * tokensPerSecond);
+            }
+            _started   = true;
+            _lastNanos = nowNanos;
+
+            // Take a token or calculate the wait.
+            if (_tokens >= 1) {_tokens -= 1; return 0;}
+            return (int) Math.max(1, Math.ceil((1 - _tokens) / tokensPerSecond));
+        }
+    }
+}
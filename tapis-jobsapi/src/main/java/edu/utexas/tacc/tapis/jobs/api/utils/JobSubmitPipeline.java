@@ -0,0 +1,200 @@
+package edu.utexas.tacc.tapis.jobs.api.utils;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** The bounded pool of threads that completes asynchronous job submissions.
+ * An asynchronous submission is recorded in the PENDING_VALIDATION status and
+ * acknowledged before its application and systems are retrieved, its macros are
+ * resolved, its subscriptions are created and it's queued.  Those steps run on
+ * the threads of this pipeline so that slow services don't delay the response.
+ *
+ * The number of accepted submissions waiting for a thread is limited.  Callers
+ * check for capacity before recording a job and reject the request when the
+ * pipeline is full.
+ *
+ * Submissions abandoned by stopped service instances are failed at startup and
+ * then periodically by a sweeper thread, so they don't wait for a restart.
+ *
+ * @author rcardone
+ */
+public final class JobSubmitPipeline
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobSubmitPipeline.class);
+
+    // Thread naming.
+    private static final String THREAD_PREFIX = "JobSubmitPipeline-";
+    private static final String SWEEPER_THREAD_NAME = "JobSubmitPipelineSweeper";
+
+    // Idle threads are released after this many seconds.
+    private static final long KEEP_ALIVE_SECS = 60;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance.
+    private static JobSubmitPipeline _instance;
+
+    // The bounded executor.
+    private final ThreadPoolExecutor _executor;
+
+    // Thread numbering.
+    private final AtomicInteger _threadSeqno = new AtomicInteger();
+    
+    // Lazily started abandoned job sweeper.
+    private ScheduledExecutorService _sweeper;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private JobSubmitPipeline(int threads, int queueSize)
+    {
+        _executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+                                           new ArrayBlockingQueue<Runnable>(queueSize),
+                                           this::newThread);
+        _executor.allowCoreThreadTimeOut(true);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static synchronized JobSubmitPipeline getInstance()
+    {
+        if (_instance == null) {
+            var parms = RuntimeParameters.getInstance();
+            _instance = new JobSubmitPipeline(Math.max(1, parms.getSubmitAsyncThreads()),
+                                              Math.max(1, parms.getSubmitAsyncQueueSize()));
+        }
+        return _instance;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* hasCapacity:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether another submission can be accepted.  Concurrent
+     * callers can still be rejected by submit() after this method returns true.
+     *
+     * @return true if the pipeline is not full
+     */
+    public boolean hasCapacity() {return _executor.getQueue().remainingCapacity() > 0;}
+
+    /* ---------------------------------------------------------------------- */
+    /* submit:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Schedule the completion of an accepted submission.
+     *
+     * @param task the work that completes the submission
+     * @return true if the task was scheduled, false if the pipeline is full
+     */
+    public boolean submit(Runnable task)
+    {
+        try {_executor.execute(task);}
+            catch (RejectedExecutionException e) {return false;}
+        return true;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getWaitingSubmissions:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** The number of accepted submissions waiting for a thread. */
+    public int getWaitingSubmissions() {return _executor.getQueue().size();}
+
+    /* ---------------------------------------------------------------------- */
+    /* startAbandonedJobSweep:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Periodically fail abandoned submissions.  The sweep runs once every 
+     * stale interval, starting one interval from now since callers fail the 
+     * abandoned jobs found at startup directly.  Calls after the first have no
+     * effect.
+     */
+    public synchronized void startAbandonedJobSweep()
+    {
+        if (_sweeper != null) return;
+        long minutes = Math.max(1, RuntimeParameters.getInstance().getSubmitAsyncStaleMinutes());
+        _sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, SWEEPER_THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        _sweeper.scheduleWithFixedDelay(JobSubmitPipeline::failAbandonedJobs, 
+                                        minutes, minutes, TimeUnit.MINUTES);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* failAbandonedJobs:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Fail the jobs that have been pending validation longer than the configured
+     * limit.  Such jobs were accepted by a service instance that stopped before
+     * completing their submissions.  This method is called during startup and 
+     * by the sweeper thread, and it never throws an exception.
+     *
+     * @return the number of jobs failed
+     */
+    public static int failAbandonedJobs()
+    {
+        int failed = 0;
+        try {
+            // Get the jobs that have waited too long.
+            int minutes = RuntimeParameters.getInstance().getSubmitAsyncStaleMinutes();
+            Instant cutoff = Instant.now().minus(minutes, ChronoUnit.MINUTES);
+            var jobsDao = new JobsDao();
+            var uuids = jobsDao.getPendingValidationJobUuids(cutoff);
+
+            // Fail each job independently.
+            for (var uuid : uuids) {
+                try {
+                    var job = jobsDao.getJobByUUID(uuid);
+                    if (job == null || job.getStatus() != JobStatusType.PENDING_VALIDATION) continue;
+                    String msg = MsgUtils.getMsg("JOBS_SUBMIT_ASYNC_ABANDONED", uuid, minutes);
+                    job.setCondition(JobConditionCode.JOB_INTERNAL_ERROR);
+                    if (!jobsDao.endPendingJob(job, JobStatusType.FAILED, msg)) continue;
+                    _log.warn(msg);
+                    failed++;
+                }
+                catch (Exception e) {_log.error(e.getMessage(), e);}
+            }
+        }
+        catch (Exception e) {_log.error(e.getMessage(), e);}
+
+        return failed;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* newThread:                                                             */
+    /* ---------------------------------------------------------------------- */
+    private Thread newThread(Runnable r)
+    {
+        var thread = new Thread(r, THREAD_PREFIX + _threadSeqno.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
@@ -0,0 +1,250 @@
+package edu.utexas.tacc.tapis.jobs.api.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.api.requestBody.ReqSubscribe;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.notifications.client.gen.model.ReqPostSubscription;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException.Condition;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import io.opentelemetry.context.Context;
+
+/** Create the Notifications subscriptions of a submitted job.  When a job has
+ * more than one subscription, the requests are posted concurrently on a bounded
+ * pool of threads and must all complete within a configured deadline.  Either
+ * all of a job's subscriptions are created or, after a failure or timeout, all
+ * subscriptions of the job are deleted.  Since a failed or timed out request
+ * may still have created its subscription, the deletion doesn't depend on
+ * which requests are known to have succeeded.
+ *
+ * Requests that can't be queued when the pool is saturated are posted on the
+ * caller's thread, so submissions slow down rather than fail under load.
+ *
+ * @author rcardone
+ */
+public final class JobSubscriptionCreator
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobSubscriptionCreator.class);
+
+    // Thread naming.
+    private static final String THREAD_PREFIX = "JobSubscriptionCreator-";
+
+    // Idle threads are released after this many seconds.
+    private static final long KEEP_ALIVE_SECS = 60;
+
+    // Number of queued requests allowed per thread.
+    private static final int QUEUE_FACTOR = 16;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance.
+    private static JobSubscriptionCreator _instance;
+
+    // The bounded executor and its context propagating wrapper.
+    private final ThreadPoolExecutor _executor;
+    private final Executor           _tracedExecutor;
+
+    // Time allowed for all of a job's subscriptions.
+    private final long _timeoutMillis;
+
+    // Thread numbering.
+    private final AtomicInteger _threadSeqno = new AtomicInteger();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private JobSubscriptionCreator(int threads, long timeoutMillis)
+    {
+        _executor = new ThreadPoolExecutor(threads, threads, KEEP_ALIVE_SECS, TimeUnit.SECONDS,
+                                           new ArrayBlockingQueue<Runnable>(threads * QUEUE_FACTOR),
+                                           this::newThread, new ThreadPoolExecutor.CallerRunsPolicy());
+        _executor.allowCoreThreadTimeOut(true);
+        _tracedExecutor = Context.taskWrapping(_executor);
+        _timeoutMillis  = timeoutMillis;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static synchronized JobSubscriptionCreator getInstance()
+    {
+        if (_instance == null) {
+            var parms = RuntimeParameters.getInstance();
+            _instance = new JobSubscriptionCreator(Math.max(1, parms.getSubscriptionThreads()),
+                                                   Math.max(1, parms.getSubscriptionTimeoutMillis()));
+        }
+        return _instance;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* createAll:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Create all the subscriptions of a job.  On failure, no subscription
+     * remains after the subscriptions still in progress complete.
+     *
+     * @param reqs the job's validated subscription requests
+     * @param job the populated job object
+     * @throws TapisImplException if any subscription could not be created in time
+     */
+    public void createAll(List<ReqSubscribe> reqs, Job job)
+     throws TapisImplException
+    {
+        // Does the job have any subscriptions?
+        if (reqs == null || reqs.isEmpty()) return;
+
+        // Convert all requests before calling Notifications so that input
+        // errors are detected before any subscription exists.
+        var notifReqs = new ArrayList<ReqPostSubscription>(reqs.size());
+        for (var req : reqs) {
+            try {notifReqs.add(JobsApiUtils.makeSubscriptionRequest(req, job.getOwner(), job.getUuid()));}
+            catch (Exception e) {throw subscriptionError(job, e);}
+        }
+
+        // There's nothing to gain by handing off a single request.
+        if (notifReqs.size() == 1) {
+            try {post(notifReqs.get(0), job);}
+            catch (Exception e) {
+                deleteAll(job);
+                throw subscriptionError(job, e);
+            }
+            return;
+        }
+
+        // Post the requests concurrently.  Requests that haven't started when
+        // the batch is abandoned are skipped.
+        var abandoned = new AtomicBoolean();
+        var futures   = new ArrayList<CompletableFuture<String>>(notifReqs.size());
+        for (var notifReq : notifReqs)
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                if (abandoned.get()) return null;
+                try {return post(notifReq, job);}
+                catch (Exception e) {throw new CompletionException(e);}
+            }, _tracedExecutor));
+
+        // Wait until all requests succeed, one fails or the deadline passes.
+        var allDone = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+        var firstFailure = new CompletableFuture<Object>();
+        for (var future : futures)
+            future.whenComplete((url, e) -> {if (e != null) firstFailure.completeExceptionally(e);});
+        try {CompletableFuture.anyOf(allDone, firstFailure).get(_timeoutMillis, TimeUnit.MILLISECONDS);}
+        catch (Exception e) {
+            // Delete what was created once the outstanding requests finish.
+            abandoned.set(true);
+            allDone.whenComplete((v, e2) -> deleteAll(job));
+
+            // Report the original problem.
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            if (e instanceof TimeoutException) {
+                String msg = MsgUtils.getMsg("JOBS_SUBSCRIPTION_TIMEOUT", job.getUuid(),
+                                             notifReqs.size(), _timeoutMillis);
+                _log.error(msg);
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+            throw subscriptionError(job, unwrap(e));
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* deleteAll:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Delete all subscriptions whose subject is the job.  This idempotent,
+     * best-effort method is used to undo createAll() when it fails or when the
+     * job could not be saved and never throws an exception.
+     *
+     * @param job the job whose subscriptions are deleted
+     */
+    public void deleteAll(Job job)
+    {
+        try {
+            int deleted = JobsImpl.getInstance().deleteJobSubscriptions(job.getUuid(),
+                                                  job.getOwner(), job.getTenant());
+            _log.warn(MsgUtils.getMsg("JOBS_SUBSCRIPTION_ROLLBACK", job.getUuid(), deleted));
+        }
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("JOBS_SUBSCRIPTION_ROLLBACK_ERROR", job.getUuid(),
+                                         job.getOwner(), job.getTenant(), e.getMessage());
+            _log.error(msg, e);
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* post:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    private String post(ReqPostSubscription notifReq, Job job)
+     throws Exception
+    {
+        // Send the request to Notifications.
+        String url = JobsImpl.getInstance().postSubscription(notifReq, job.getOwner(), job.getTenant());
+
+        // Log subscriptions created.
+        if (_log.isDebugEnabled())
+            _log.debug(MsgUtils.getMsg("NOTIFICATIONS_SUBSCRIPTION_CREATED", job.getUuid(),
+                                       notifReq.getTypeFilter()));
+        return url;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* subscriptionError:                                                     */
+    /* ---------------------------------------------------------------------- */
+    private TapisImplException subscriptionError(Job job, Throwable e)
+    {
+        // Any failure to create a validated subscription is a system problem.
+        String msg = MsgUtils.getMsg("JOBS_SUBSCRIPTION_ERROR", job.getUuid(),
+                                     job.getOwner(), job.getTenant(), e.getMessage());
+        _log.error(msg, e);
+        return new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* unwrap:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Get the exception thrown by a request from its future's wrappers. */
+    private static Throwable unwrap(Throwable e)
+    {
+        while ((e instanceof ExecutionException || e instanceof CompletionException)
+               && e.getCause() != null)
+            e = e.getCause();
+        return e;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* newThread:                                                             */
+    /* ---------------------------------------------------------------------- */
+    private Thread newThread(Runnable r)
+    {
+        var thread = new Thread(r, THREAD_PREFIX + _threadSeqno.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    }
+}
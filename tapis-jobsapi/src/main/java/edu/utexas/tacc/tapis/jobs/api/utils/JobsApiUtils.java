@@ -124,6 +124,28 @@ public class JobsApiUtils
     public static String postSubscriptionRequest(ReqSubscribe reqSubscribe, String user,
                                                  String tenant, String jobUuid) 
      throws TapisClientException, RuntimeException, TapisException, ExecutionException
+    {
+        // Send request to Notifications.
+        var notifReq = makeSubscriptionRequest(reqSubscribe, user, jobUuid);
+        var jobsImpl = JobsImpl.getInstance();
+        return jobsImpl.postSubscription(notifReq, user, tenant);
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* makeSubscriptionRequest:                                                     */
+    /* ---------------------------------------------------------------------------- */
+    /** Convert a subscribe request into the Notification ReqPostSubscription object
+     * that creates the subscription.  No remote calls are made.
+     * 
+     * @param reqSubscribe an incoming subscription request
+     * @param user the owner of the subscription    
+     * @param jobUuid the target job's uuid
+     * @return the request to post to Notifications
+     * @throws JobException if the request contains an unknown delivery method
+     */
+    public static ReqPostSubscription makeSubscriptionRequest(ReqSubscribe reqSubscribe, 
+                                                              String user, String jobUuid) 
+     throws JobException
     {
         // Populate the request object.  The subjectFilter is always the jobEventType.
         var notifReq = new ReqPostSubscription();
@@ -156,10 +178,7 @@ public class JobsApiUtils
         // tenant unassigned allowing Notifications to assign them.
         notifReq.setTypeFilter(getNotifTypeFilter(reqSubscribe.getEventCategoryFilter(), TYPE_FILTER_WILDCARD));
         notifReq.setOwner(user);
-        
-        // Send request to Notifications.
-        var jobsImpl = JobsImpl.getInstance();
-        return jobsImpl.postSubscription(notifReq, user, tenant);
+        return notifReq;
     }
     
     /* ---------------------------------------------------------------------------- */
@@ -0,0 +1,120 @@
+package edu.utexas.tacc.tapis.jobs.api.utils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.dao.JobResubmitDao;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Background maintenance of the saved job requests in job_resubmit_blobs.
+ * Shortly after startup and then periodically, a single daemon thread converts
+ * the job_resubmit rows written before migration V024 to blobs, one committed
+ * batch at a time, clearing each converted row's inline job_definition, and
+ * then deletes the blobs that are no longer referenced.
+ *
+ * The conversion resumes where it left off after a restart or an error since
+ * only rows without a blob reference are selected.  Service instances that
+ * run concurrently skip each other's locked rows.
+ *
+ * @author rcardone
+ */
+public final class ResubmitBlobMaintenance
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(ResubmitBlobMaintenance.class);
+
+    // Thread naming.
+    private static final String THREAD_NAME = "ResubmitBlobMaintenance";
+
+    // Rows converted per transaction.
+    private static final int BATCH_SIZE = 1000;
+
+    // The pause between batches so that conversion doesn't monopolize the database.
+    private static final long BATCH_PAUSE_MILLIS = 100;
+
+    // When maintenance runs.
+    private static final long INITIAL_DELAY_MINUTES = 5;
+    private static final long INTERVAL_HOURS = 24;
+
+    // Unreferenced blobs are kept this long after their last use.
+    private static final int GRACE_HOURS = 24;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance.
+    private static ResubmitBlobMaintenance _instance;
+
+    // The maintenance thread.
+    private final ScheduledExecutorService _executor;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private ResubmitBlobMaintenance()
+    {
+        _executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, THREAD_NAME);
+            thread.setDaemon(true);
+            return thread;
+        });
+        _executor.scheduleWithFixedDelay(this::run, INITIAL_DELAY_MINUTES,
+                                         INTERVAL_HOURS * 60, TimeUnit.MINUTES);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* start:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Schedule maintenance.  Calls after the first have no effect. */
+    public static synchronized void start()
+    {
+        if (_instance == null) _instance = new ResubmitBlobMaintenance();
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* run:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Convert the remaining old rows and then sweep unreferenced blobs.  This
+     * method never throws an exception so that later runs are not cancelled.
+     */
+    private void run()
+    {
+        try {
+            var dao = new JobResubmitDao();
+
+            // Convert old rows until a short batch shows none are left.
+            int converted = 0;
+            while (true) {
+                int count = dao.convertJobResubmits(BATCH_SIZE);
+                converted += count;
+                if (count < BATCH_SIZE) break;
+                Thread.sleep(BATCH_PAUSE_MILLIS);
+            }
+            if (converted > 0)
+                _log.info(MsgUtils.getMsg("JOBS_JOBRESUBMIT_CONVERTED", converted));
+
+            // Remove blobs of deleted jobs.
+            int deleted = dao.deleteUnreferencedBlobs(GRACE_HOURS);
+            if (deleted > 0)
+                _log.info(MsgUtils.getMsg("JOBS_JOBRESUBMIT_BLOBS_DELETED", deleted));
+        }
+        catch (InterruptedException e) {Thread.currentThread().interrupt();}
+        catch (Exception e) {_log.error(e.getMessage(), e);}
+    }
+}
@@ -0,0 +1,54 @@
+package edu.utexas.tacc.tapis.jobs.api.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class AdmissionControllerTest
+{
+    // One second in nanoseconds.
+    private static final long SECOND = 1_000_000_000L;
+
+    @Test
+    public void rateFactorTest()
+    {
+        // Full rate until half pressure, then linear to the minimum, then nothing.
+        Assert.assertEquals(AdmissionController.getRateFactor(0), 1.0);
+        Assert.assertEquals(AdmissionController.getRateFactor(0.49), 1.0);
+        Assert.assertEquals(AdmissionController.getRateFactor(0.5), 1.0, 1e-9);
+        Assert.assertEquals(AdmissionController.getRateFactor(0.75), 0.55, 1e-9);
+        Assert.assertEquals(AdmissionController.getRateFactor(0.9999),
+                            AdmissionController.MIN_FACTOR, 1e-3);
+        Assert.assertEquals(AdmissionController.getRateFactor(1.0), 0.0);
+        Assert.assertEquals(AdmissionController.getRateFactor(3.0), 0.0);
+    }
+
+    @Test
+    public void pressureTest()
+    {
+        Assert.assertEquals(AdmissionController.getPressure(50, 100), 0.5);
+        Assert.assertEquals(AdmissionController.getPressure(50, 0), 0.0);
+        Assert.assertEquals(AdmissionController.getPressure(50, -1), 0.0);
+    }
+
+    @Test
+    public void tokenBucketTest()
+    {
+        // The burst is available immediately.
+        var bucket = new AdmissionController.TokenBucket(3);
+        long now = 0;
+        for (int i = 0; i < 3; i++) Assert.assertEquals(bucket.tryAcquire(1.0, now), 0);
+
+        // The next token arrives after a second at one token per second.
+        Assert.assertEquals(bucket.tryAcquire(1.0, now), 1);
+        Assert.assertEquals(bucket.tryAcquire(1.0, now + SECOND), 0);
+
+        // A lower rate means a longer wait.
+        Assert.assertEquals(bucket.tryAcquire(0.1, now + SECOND), 10);
+
+        // Idle time refills to capacity only.
+        now += 100 * SECOND;
+        for (int i = 0; i < 3; i++) Assert.assertEquals(bucket.tryAcquire(1.0, now), 0);
+        Assert.assertTrue(bucket.tryAcquire(1.0, now) > 0);
+    }
+}
@@ -70,6 +70,152 @@ public final class RuntimeParameters
     // DB run migration default
     private static final boolean DEFAULT_RUN_DB_MIGRATION = false;
     
+    // Read replica defaults.  Replica reads are only performed when the 
+    // replica's replay lag is no more than the maximum lag seconds.
+    private static final int DEFAULT_REPLICA_MAX_LAG_SECONDS = 30;
+    
+    // Partition maintenance defaults.  A non-positive archiver interval
+    // disables partition maintenance in this worker.
+    private static final int DEFAULT_PARTITION_COLD_DAYS       = 90;
+    private static final int DEFAULT_PARTITION_MONTHS_AHEAD    = 3;
+    private static final int DEFAULT_PARTITION_ARCHIVER_MINUTES = 60;
+    
+    // The port on which non-web processes expose metrics.  A non-positive
+    // value disables the metrics server.  
+    private static final int DEFAULT_METRICS_PORT = 9464;
+    
+    // Tracing defaults.  Tracing is disabled unless an exporter is configured.
+    private static final String DEFAULT_TRACING_EXPORTER = "none";
+    private static final String DEFAULT_TRACING_FILE = "/tmp/tapis-jobs-spans.json";
+    private static final String DEFAULT_TRACING_OTLP_ENDPOINT = "http://localhost:4318/v1/traces";
+    
+    // Launch throttle defaults.  Each execution host can receive a burst of up
+    // to capacity launches, which are replenished at a rate of capacity per 
+    // window seconds across all workers.  Launches that would wait longer than 
+    // the maximum wait are redelivered after the redelivery delay.
+    private static final int DEFAULT_LAUNCH_THROTTLE_CAPACITY       = 8;
+    private static final int DEFAULT_LAUNCH_THROTTLE_WINDOW_SECONDS = 2;
+    private static final int DEFAULT_LAUNCH_THROTTLE_MAX_WAIT_MS    = 5000;
+    private static final int DEFAULT_THROTTLE_REDELIVERY_SECONDS    = 15;
+    
+    // The maximum age of the process table snapshots shared by monitors of
+    // jobs running on the same host as the same user.  A non-positive value 
+    // disables snapshot sharing.
+    private static final int DEFAULT_MONITOR_SNAPSHOT_MAX_AGE_MS = 10000;
+    
+    // The largest tar bundle of generated job files that is uploaded and unpacked
+    // as a unit.  Larger bundles and a non-positive value upload each file.
+    private static final int DEFAULT_STAGE_BUNDLE_MAX_BYTES = 65536;
+    
+    // The maximum number of tasks in a job array.
+    private static final int DEFAULT_MAX_ARRAY_TASKS = 10000;
+    
+    // Number of entries requested from Files in each page of a directory listing.
+    private static final int DEFAULT_FILES_LIST_PAGE_SIZE = 1000;
+    
+    // The number of completed jobs with the same execution system, logical
+    // queue and application required before monitoring adapts to their
+    // queue wait and run times.  Zero disables adaptive monitoring.
+    private static final int DEFAULT_MONITOR_ADAPTIVE_MIN_SAMPLES = 10;
+    
+    // Milliseconds between writes of accumulated remote status check counters.
+    // This bounds the counter updates lost if a worker crashes.  Zero or less
+    // writes each status check immediately.
+    private static final int DEFAULT_MONITOR_CHECK_FLUSH_MS = 5000;
+    
+    // The number of threads that complete asynchronous job submissions.
+    private static final int DEFAULT_SUBMIT_ASYNC_THREADS = 8;
+    
+    // The maximum number of accepted asynchronous submissions waiting for a thread.
+    private static final int DEFAULT_SUBMIT_ASYNC_QUEUE_SIZE = 1000;
+    
+    // Jobs still pending validation after this many minutes are failed at startup.
+    private static final int DEFAULT_SUBMIT_ASYNC_STALE_MINUTES = 60;
+    
+    // Threads that create the subscriptions of submitted jobs concurrently.
+    private static final int DEFAULT_SUBSCRIPTION_THREADS = 8;
+    
+    // Milliseconds allowed for creating all the subscriptions of a submitted job.
+    private static final int DEFAULT_SUBSCRIPTION_TIMEOUT_MS = 30000;
+    
+    // Maximum milliseconds the polling thread of a fair share worker waits after 
+    // finding all tenant sub-queues empty.  Waits start short and double up to 
+    // this limit while idle.
+    private static final int DEFAULT_FAIR_SHARE_POLL_MS = 2000;
+    
+    // Submissions per minute allowed for each tenant by each Jobs service
+    // instance when the workers are not backed up, so a tenant's limit across
+    // the deployment is this rate times the number of replicas.  A non-positive
+    // value disables admission control.
+    private static final int DEFAULT_ADMISSION_TENANT_RATE = 600;
+    
+    // Submissions a tenant can make at once to each instance after being idle.
+    private static final int DEFAULT_ADMISSION_TENANT_BURST = 300;
+    
+    // Seconds between samples of the worker backlog.
+    private static final int DEFAULT_ADMISSION_SAMPLE_SECONDS = 15;
+    
+    // Submit queue messages at which all submissions are rejected.
+    // A non-positive value ignores queue depth.
+    private static final int DEFAULT_ADMISSION_QUEUE_DEPTH_LIMIT = 100000;
+    
+    // Blocked jobs in recovery at which all submissions are rejected.
+    // A non-positive value ignores the recovery backlog.
+    private static final int DEFAULT_ADMISSION_RECOVERY_LIMIT = 10000;
+    
+    // Active jobs at which all submissions are rejected.
+    // A non-positive value ignores the number of active jobs.
+    private static final int DEFAULT_ADMISSION_ACTIVE_LIMIT = 0;
+    
+    // Number of partitions among which recovery records are divided.  All
+    // processes that post recovery messages must use the same value.
+    private static final int DEFAULT_RECOVERY_PARTITIONS = 1;
+    
+    // Seconds a recovery reader owns a partition without renewing its lease.
+    private static final int DEFAULT_RECOVERY_LEASE_SECONDS = 60;
+    
+    // Parameters that are not part of the shared TapisEnv.EnvVar enumeration.
+    // Each can be set in the service properties file or in the environment
+    // using the upper case, underscore separated version of the name.
+    public static final String PARM_DB_REPLICA_JDBC_URL       = "tapis.db.replica.jdbc.url";
+    public static final String PARM_DB_REPLICA_USER           = "tapis.db.replica.user";
+    public static final String PARM_DB_REPLICA_PASSWORD       = "tapis.db.replica.password";
+    public static final String PARM_DB_REPLICA_POOL_SIZE      = "tapis.db.replica.connection.pool.size";
+    public static final String PARM_DB_REPLICA_MAX_LAG_SECONDS = "tapis.db.replica.max.lag.seconds";
+    public static final String PARM_PARTITION_COLD_DAYS       = "tapis.jobs.partition.cold.days";
+    public static final String PARM_PARTITION_COLD_TABLESPACE = "tapis.jobs.partition.cold.tablespace";
+    public static final String PARM_PARTITION_MONTHS_AHEAD    = "tapis.jobs.partition.months.ahead";
+    public static final String PARM_PARTITION_ARCHIVER_MINUTES = "tapis.jobs.partition.archiver.minutes";
+    public static final String PARM_METRICS_PORT              = "tapis.jobs.metrics.port";
+    public static final String PARM_TRACING_EXPORTER          = "tapis.jobs.tracing.exporter";
+    public static final String PARM_TRACING_FILE              = "tapis.jobs.tracing.file";
+    public static final String PARM_TRACING_OTLP_ENDPOINT     = "tapis.jobs.tracing.otlp.endpoint";
+    public static final String PARM_LAUNCH_THROTTLE_CAPACITY  = "tapis.jobs.launch.throttle.capacity";
+    public static final String PARM_LAUNCH_THROTTLE_WINDOW_SECONDS = "tapis.jobs.launch.throttle.window.seconds";
+    public static final String PARM_LAUNCH_THROTTLE_MAX_WAIT_MS = "tapis.jobs.launch.throttle.max.wait.ms";
+    public static final String PARM_THROTTLE_REDELIVERY_SECONDS = "tapis.jobs.throttle.redelivery.seconds";
+    public static final String PARM_MONITOR_SNAPSHOT_MAX_AGE_MS = "tapis.jobs.monitor.snapshot.max.age.ms";
+    public static final String PARM_STAGE_BUNDLE_MAX_BYTES = "tapis.jobs.stage.bundle.max.bytes";
+    public static final String PARM_MAX_ARRAY_TASKS = "tapis.jobs.array.max.tasks";
+    public static final String PARM_FILES_LIST_PAGE_SIZE = "tapis.jobs.files.list.page.size";
+    public static final String PARM_MONITOR_ADAPTIVE_MIN_SAMPLES = "tapis.jobs.monitor.adaptive.min.samples";
+    public static final String PARM_CALLBACK_SECRET = "tapis.jobs.callback.secret";
+    public static final String PARM_MONITOR_CHECK_FLUSH_MS = "tapis.jobs.monitor.check.flush.ms";
+    public static final String PARM_SUBMIT_ASYNC_THREADS = "tapis.jobs.submit.async.threads";
+    public static final String PARM_SUBMIT_ASYNC_QUEUE_SIZE = "tapis.jobs.submit.async.queue.size";
+    public static final String PARM_SUBMIT_ASYNC_STALE_MINUTES = "tapis.jobs.submit.async.stale.minutes";
+    public static final String PARM_SUBSCRIPTION_THREADS = "tapis.jobs.subscription.threads";
+    public static final String PARM_SUBSCRIPTION_TIMEOUT_MS = "tapis.jobs.subscription.timeout.ms";
+    public static final String PARM_FAIR_SHARE_POLL_MS = "tapis.jobs.fairshare.poll.ms";
+    public static final String PARM_ADMISSION_TENANT_RATE = "tapis.jobs.admission.tenant.rate";
+    public static final String PARM_ADMISSION_TENANT_BURST = "tapis.jobs.admission.tenant.burst";
+    public static final String PARM_ADMISSION_SAMPLE_SECONDS = "tapis.jobs.admission.sample.seconds";
+    public static final String PARM_ADMISSION_QUEUE_DEPTH_LIMIT = "tapis.jobs.admission.queue.depth.limit";
+    public static final String PARM_ADMISSION_RECOVERY_LIMIT = "tapis.jobs.admission.recovery.limit";
+    public static final String PARM_ADMISSION_ACTIVE_LIMIT = "tapis.jobs.admission.active.limit";
+    public static final String PARM_RECOVERY_PARTITIONS = "tapis.jobs.recovery.partitions";
+    public static final String PARM_RECOVERY_LEASE_SECONDS = "tapis.jobs.recovery.lease.seconds";
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
@@ -102,6 +248,96 @@ public final class RuntimeParameters
 	private String  jdbcURL;
 	private int     dbMeterMinutes;
 	
+	// Optional read replica configuration.  A blank url disables replica reads.
+	private String  replicaJdbcURL;
+	private String  replicaDbUser;
+	private String  replicaDbPassword;
+	private int     replicaDbConnectionPoolSize;
+	private int     replicaMaxLagSeconds;
+	
+	// Jobs and job_events partition maintenance.
+	private int     partitionColdDays;
+	private String  partitionColdTablespace;
+	private int     partitionMonthsAhead;
+	private int     partitionArchiverMinutes;
+	
+	// Metrics http server port used by workers and readers.
+	private int     metricsPort;
+	
+	// Tracing exporter configuration: none, file or otlp.
+	private String  tracingExporter;
+	private String  tracingFile;
+	private String  tracingOtlpEndpoint;
+	
+	// Cluster-wide launch throttling per execution host.
+	private int     launchThrottleCapacity;
+	private int     launchThrottleWindowSeconds;
+	private int     launchThrottleMaxWaitMs;
+	private int     throttleRedeliverySeconds;
+	
+	// Shared process snapshot age limit used by fork job monitors.
+	private int     monitorSnapshotMaxAgeMs;
+	
+	// Exec directory staging.
+	private int     stageBundleMaxBytes;
+	
+	// Largest job array accepted on submission.
+	private int     maxArrayTasks;
+	
+	// The page size used when streaming Files directory listings.
+	private int     filesListPageSize;
+	
+	// Minimum job history for adaptive monitoring, zero to disable.
+	private int     monitorAdaptiveMinSamples;
+	
+	// Key used to sign job completion callbacks, null to disable callbacks.
+	private String  callbackSecret;
+	
+	// Interval at which status check counters are written, zero to disable.
+	private int     monitorCheckFlushMillis;
+	
+	// Threads that resolve, validate and queue asynchronously submitted jobs.
+	private int     submitAsyncThreads;
+	
+	// Asynchronous submissions are rejected when this many are waiting.
+	private int     submitAsyncQueueSize;
+	
+	// Age at which jobs pending validation are considered abandoned.
+	private int     submitAsyncStaleMinutes;
+	
+	// Maximum number of concurrent subscription requests to Notifications.
+	private int     subscriptionThreads;
+	
+	// Deadline for creating all of a job's subscriptions.
+	private int     subscriptionTimeoutMillis;
+	
+	// Idle wait of worker threads on fair share queues.
+	private int     fairSharePollMillis;
+	
+	// Per-tenant submission rate limit in submissions per minute.
+	private int     admissionTenantRate;
+	
+	// Per-tenant submission burst size.
+	private int     admissionTenantBurst;
+	
+	// Worker backlog sampling interval.
+	private int     admissionSampleSeconds;
+	
+	// Submit queue backlog at which submissions stop.
+	private int     admissionQueueDepthLimit;
+	
+	// Recovery backlog at which submissions stop.
+	private int     admissionRecoveryLimit;
+	
+	// Active job count at which submissions stop.
+	private int     admissionActiveLimit;
+	
+	// Number of recovery partitions shared by the recovery readers.
+	private int     recoveryPartitions;
+	
+	// Recovery partition lease duration.
+	private int     recoveryLeaseSeconds;
+	
     // RabbitMQ configuration.
     private String  queueAdminUser;
     private String  queueAdminPassword;
@@ -332,6 +568,197 @@ public final class RuntimeParameters
           }
       }
     
+    // --------------------- DB Replica Parameters --------------------
+    // The replica url is optional; without it all reads go to the primary.
+    parm = getJobsParm(inputProperties, PARM_DB_REPLICA_JDBC_URL);
+    if (!StringUtils.isBlank(parm)) setReplicaJdbcURL(parm);
+    
+    // Replica credentials default to the primary's credentials.
+    parm = getJobsParm(inputProperties, PARM_DB_REPLICA_USER);
+    if (!StringUtils.isBlank(parm)) setReplicaDbUser(parm);
+      else setReplicaDbUser(getDbUser());
+    parm = getJobsParm(inputProperties, PARM_DB_REPLICA_PASSWORD);
+    if (!StringUtils.isBlank(parm)) setReplicaDbPassword(parm);
+      else setReplicaDbPassword(getDbPassword());
+    
+    // The replica pool size defaults to the primary pool size.
+    parm = getJobsParm(inputProperties, PARM_DB_REPLICA_POOL_SIZE);
+    if (StringUtils.isBlank(parm)) setReplicaDbConnectionPoolSize(getDbConnectionPoolSize());
+      else {
+        try {setReplicaDbConnectionPoolSize(Integer.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_JOBS,
+                                         "replicaDbConnectionPoolSize",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // The bounded staleness we tolerate on replica reads.
+    parm = getJobsParm(inputProperties, PARM_DB_REPLICA_MAX_LAG_SECONDS);
+    if (StringUtils.isBlank(parm)) setReplicaMaxLagSeconds(DEFAULT_REPLICA_MAX_LAG_SECONDS);
+      else {
+        try {setReplicaMaxLagSeconds(Integer.valueOf(parm));}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_JOBS,
+                                         "replicaMaxLagSeconds",
+                                         e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+      }
+    
+    // --------------------- Partition Parameters ---------------------
+    // Partitions older than the cold days with no active jobs become cold.
+    setPartitionColdDays(getJobsIntParm(inputProperties, PARM_PARTITION_COLD_DAYS, 
+                                        DEFAULT_PARTITION_COLD_DAYS, "partitionColdDays"));
+    
+    // Cold partitions are optionally moved to a cheaper tablespace.
+    parm = getJobsParm(inputProperties, PARM_PARTITION_COLD_TABLESPACE);
+    if (!StringUtils.isBlank(parm)) setPartitionColdTablespace(parm.trim());
+    
+    // Future partitions are created ahead of time by the archiver.
+    setPartitionMonthsAhead(getJobsIntParm(inputProperties, PARM_PARTITION_MONTHS_AHEAD, 
+                                           DEFAULT_PARTITION_MONTHS_AHEAD, "partitionMonthsAhead"));
+    setPartitionArchiverMinutes(getJobsIntParm(inputProperties, PARM_PARTITION_ARCHIVER_MINUTES, 
+                                               DEFAULT_PARTITION_ARCHIVER_MINUTES, 
+                                               "partitionArchiverMinutes"));
+    
+    // --------------------- Metrics Parameters -----------------------
+    // The api exposes metrics through its own endpoint. 
+    setMetricsPort(getJobsIntParm(inputProperties, PARM_METRICS_PORT, 
+                                  DEFAULT_METRICS_PORT, "metricsPort"));
+    
+    // --------------------- Tracing Parameters -----------------------
+    parm = getJobsParm(inputProperties, PARM_TRACING_EXPORTER);
+    setTracingExporter(StringUtils.isBlank(parm) ? DEFAULT_TRACING_EXPORTER : parm.trim());
+    parm = getJobsParm(inputProperties, PARM_TRACING_FILE);
+    setTracingFile(StringUtils.isBlank(parm) ? DEFAULT_TRACING_FILE : parm.trim());
+    parm = getJobsParm(inputProperties, PARM_TRACING_OTLP_ENDPOINT);
+    setTracingOtlpEndpoint(StringUtils.isBlank(parm) ? DEFAULT_TRACING_OTLP_ENDPOINT : parm.trim());
+    
+    // --------------------- Throttle Parameters ----------------------
+    // Non-positive capacity or window values revert to the defaults.
+    setLaunchThrottleCapacity(getJobsIntParm(inputProperties, PARM_LAUNCH_THROTTLE_CAPACITY, 
+                                             DEFAULT_LAUNCH_THROTTLE_CAPACITY, "launchThrottleCapacity"));
+    if (getLaunchThrottleCapacity() <= 0) setLaunchThrottleCapacity(DEFAULT_LAUNCH_THROTTLE_CAPACITY);
+    setLaunchThrottleWindowSeconds(getJobsIntParm(inputProperties, PARM_LAUNCH_THROTTLE_WINDOW_SECONDS, 
+                                                  DEFAULT_LAUNCH_THROTTLE_WINDOW_SECONDS, 
+                                                  "launchThrottleWindowSeconds"));
+    if (getLaunchThrottleWindowSeconds() <= 0) 
+        setLaunchThrottleWindowSeconds(DEFAULT_LAUNCH_THROTTLE_WINDOW_SECONDS);
+    
+    // Throttled jobs wait in-thread up to the maximum, otherwise they're redelivered.
+    setLaunchThrottleMaxWaitMs(getJobsIntParm(inputProperties, PARM_LAUNCH_THROTTLE_MAX_WAIT_MS, 
+                                              DEFAULT_LAUNCH_THROTTLE_MAX_WAIT_MS, 
+                                              "launchThrottleMaxWaitMs"));
+    setThrottleRedeliverySeconds(getJobsIntParm(inputProperties, PARM_THROTTLE_REDELIVERY_SECONDS, 
+                                                DEFAULT_THROTTLE_REDELIVERY_SECONDS, 
+                                                "throttleRedeliverySeconds"));
+    if (getThrottleRedeliverySeconds() <= 0) 
+        setThrottleRedeliverySeconds(DEFAULT_THROTTLE_REDELIVERY_SECONDS);
+    
+    // --------------------- Monitor Parameters -----------------------
+    setMonitorSnapshotMaxAgeMs(getJobsIntParm(inputProperties, PARM_MONITOR_SNAPSHOT_MAX_AGE_MS, 
+                                              DEFAULT_MONITOR_SNAPSHOT_MAX_AGE_MS, 
+                                              "monitorSnapshotMaxAgeMs"));
+    
+    // --------------------- Staging Parameters -----------------------
+    setStageBundleMaxBytes(getJobsIntParm(inputProperties, PARM_STAGE_BUNDLE_MAX_BYTES, 
+                                          DEFAULT_STAGE_BUNDLE_MAX_BYTES, 
+                                          "stageBundleMaxBytes"));
+    
+    // --------------------- Job Array Parameters ---------------------
+    setMaxArrayTasks(getJobsIntParm(inputProperties, PARM_MAX_ARRAY_TASKS, 
+                                    DEFAULT_MAX_ARRAY_TASKS, 
+                                    "maxArrayTasks"));
+    
+    // --------------------- Files Listing Parameters -----------------
+    setFilesListPageSize(getJobsIntParm(inputProperties, PARM_FILES_LIST_PAGE_SIZE, 
+                                        DEFAULT_FILES_LIST_PAGE_SIZE, 
+                                        "filesListPageSize"));
+    
+    // --------------------- Adaptive Monitor Parameters --------------
+    setMonitorAdaptiveMinSamples(getJobsIntParm(inputProperties, PARM_MONITOR_ADAPTIVE_MIN_SAMPLES, 
+                                                DEFAULT_MONITOR_ADAPTIVE_MIN_SAMPLES, 
+                                                "monitorAdaptiveMinSamples"));
+    
+    // --------------------- Callback Parameters ----------------------
+    // Wrapper scripts only post completion callbacks when a secret is set.
+    parm = getJobsParm(inputProperties, PARM_CALLBACK_SECRET);
+    if (!StringUtils.isBlank(parm)) setCallbackSecret(parm.trim());
+    
+    // --------------------- Status Check Parameters ------------------
+    setMonitorCheckFlushMillis(getJobsIntParm(inputProperties, PARM_MONITOR_CHECK_FLUSH_MS, 
+                                              DEFAULT_MONITOR_CHECK_FLUSH_MS, 
+                                              "monitorCheckFlushMillis"));
+    
+    // --------------------- Asynchronous Submission Parameters -------
+    setSubmitAsyncThreads(getJobsIntParm(inputProperties, PARM_SUBMIT_ASYNC_THREADS, 
+                                         DEFAULT_SUBMIT_ASYNC_THREADS, 
+                                         "submitAsyncThreads"));
+    
+    setSubmitAsyncQueueSize(getJobsIntParm(inputProperties, PARM_SUBMIT_ASYNC_QUEUE_SIZE, 
+                                           DEFAULT_SUBMIT_ASYNC_QUEUE_SIZE, 
+                                           "submitAsyncQueueSize"));
+    
+    setSubmitAsyncStaleMinutes(getJobsIntParm(inputProperties, PARM_SUBMIT_ASYNC_STALE_MINUTES, 
+                                              DEFAULT_SUBMIT_ASYNC_STALE_MINUTES, 
+                                              "submitAsyncStaleMinutes"));
+    
+    // --------------------- Subscription Creation Parameters ---------
+    setSubscriptionThreads(getJobsIntParm(inputProperties, PARM_SUBSCRIPTION_THREADS, 
+                                          DEFAULT_SUBSCRIPTION_THREADS, 
+                                          "subscriptionThreads"));
+    
+    setSubscriptionTimeoutMillis(getJobsIntParm(inputProperties, PARM_SUBSCRIPTION_TIMEOUT_MS, 
+                                                DEFAULT_SUBSCRIPTION_TIMEOUT_MS, 
+                                                "subscriptionTimeoutMillis"));
+    
+    // --------------------- Fair Share Parameters --------------------
+    setFairSharePollMillis(getJobsIntParm(inputProperties, PARM_FAIR_SHARE_POLL_MS, 
+                                          DEFAULT_FAIR_SHARE_POLL_MS, 
+                                          "fairSharePollMillis"));
+    
+    // --------------------- Admission Control Parameters -------------
+    setAdmissionTenantRate(getJobsIntParm(inputProperties, PARM_ADMISSION_TENANT_RATE, 
+                                          DEFAULT_ADMISSION_TENANT_RATE, 
+                                          "admissionTenantRate"));
+    
+    setAdmissionTenantBurst(getJobsIntParm(inputProperties, PARM_ADMISSION_TENANT_BURST, 
+                                           DEFAULT_ADMISSION_TENANT_BURST, 
+                                           "admissionTenantBurst"));
+    
+    setAdmissionSampleSeconds(getJobsIntParm(inputProperties, PARM_ADMISSION_SAMPLE_SECONDS, 
+                                             DEFAULT_ADMISSION_SAMPLE_SECONDS, 
+                                             "admissionSampleSeconds"));
+    
+    setAdmissionQueueDepthLimit(getJobsIntParm(inputProperties, PARM_ADMISSION_QUEUE_DEPTH_LIMIT, 
+                                               DEFAULT_ADMISSION_QUEUE_DEPTH_LIMIT, 
+                                               "admissionQueueDepthLimit"));
+    
+    setAdmissionRecoveryLimit(getJobsIntParm(inputProperties, PARM_ADMISSION_RECOVERY_LIMIT, 
+                                             DEFAULT_ADMISSION_RECOVERY_LIMIT, 
+                                             "admissionRecoveryLimit"));
+    
+    setAdmissionActiveLimit(getJobsIntParm(inputProperties, PARM_ADMISSION_ACTIVE_LIMIT, 
+                                           DEFAULT_ADMISSION_ACTIVE_LIMIT, 
+                                           "admissionActiveLimit"));
+    
+    // --------------------- Recovery Partition Parameters ------------
+    setRecoveryPartitions(getJobsIntParm(inputProperties, PARM_RECOVERY_PARTITIONS, 
+                                         DEFAULT_RECOVERY_PARTITIONS, 
+                                         "recoveryPartitions"));
+    
+    setRecoveryLeaseSeconds(getJobsIntParm(inputProperties, PARM_RECOVERY_LEASE_SECONDS, 
+                                           DEFAULT_RECOVERY_LEASE_SECONDS, 
+                                           "recoveryLeaseSeconds"));
+    
     // --------------------- RabbitMQ Parameters ----------------------
     // The broker's administrator credentials used to set up vhost.
     parm = inputProperties.getProperty(EnvVar.TAPIS_QUEUE_ADMIN_USER.getEnvName());
@@ -618,6 +1045,100 @@ public final class RuntimeParameters
 	    buf.append(this.getDbConnectionPoolSize());
 	    buf.append("\ntapis.db.meter.minutes: ");
 	    buf.append(this.getDbMeterMinutes());
+	    buf.append("\n" + PARM_DB_REPLICA_JDBC_URL + ": ");
+	    buf.append(this.getReplicaJdbcURL());
+	    buf.append("\n" + PARM_DB_REPLICA_USER + ": ");
+	    buf.append(this.getReplicaDbUser());
+	    buf.append("\n" + PARM_DB_REPLICA_POOL_SIZE + ": ");
+	    buf.append(this.getReplicaDbConnectionPoolSize());
+	    buf.append("\n" + PARM_DB_REPLICA_MAX_LAG_SECONDS + ": ");
+	    buf.append(this.getReplicaMaxLagSeconds());
+	    buf.append("\n" + PARM_PARTITION_COLD_DAYS + ": ");
+	    buf.append(this.getPartitionColdDays());
+	    buf.append("\n" + PARM_PARTITION_COLD_TABLESPACE + ": ");
+	    buf.append(this.getPartitionColdTablespace());
+	    buf.append("\n" + PARM_PARTITION_MONTHS_AHEAD + ": ");
+	    buf.append(this.getPartitionMonthsAhead());
+	    buf.append("\n" + PARM_PARTITION_ARCHIVER_MINUTES + ": ");
+	    buf.append(this.getPartitionArchiverMinutes());
+	    buf.append("\n" + PARM_METRICS_PORT + ": ");
+	    buf.append(this.getMetricsPort());
+	    buf.append("\n" + PARM_TRACING_EXPORTER + ": ");
+	    buf.append(this.getTracingExporter());
+	    buf.append("\n" + PARM_TRACING_FILE + ": ");
+	    buf.append(this.getTracingFile());
+	    buf.append("\n" + PARM_TRACING_OTLP_ENDPOINT + ": ");
+	    buf.append(this.getTracingOtlpEndpoint());
+	    buf.append("\n" + PARM_LAUNCH_THROTTLE_CAPACITY + ": ");
+	    buf.append(this.getLaunchThrottleCapacity());
+	    buf.append("\n" + PARM_LAUNCH_THROTTLE_WINDOW_SECONDS + ": ");
+	    buf.append(this.getLaunchThrottleWindowSeconds());
+	    buf.append("\n" + PARM_LAUNCH_THROTTLE_MAX_WAIT_MS + ": ");
+	    buf.append(this.getLaunchThrottleMaxWaitMs());
+	    buf.append("\n" + PARM_THROTTLE_REDELIVERY_SECONDS + ": ");
+	    buf.append(this.getThrottleRedeliverySeconds());
+	    buf.append("\n" + PARM_MONITOR_SNAPSHOT_MAX_AGE_MS + ": ");
+	    buf.append(this.getMonitorSnapshotMaxAgeMs());
+	    
+	    buf.append("\n" + PARM_STAGE_BUNDLE_MAX_BYTES + ": ");
+	    buf.append(this.getStageBundleMaxBytes());
+	    
+	    buf.append("\n" + PARM_MAX_ARRAY_TASKS + ": ");
+	    buf.append(this.getMaxArrayTasks());
+	    
+	    buf.append("\n" + PARM_FILES_LIST_PAGE_SIZE + ": ");
+	    buf.append(this.getFilesListPageSize());
+	    
+	    buf.append("\n" + PARM_MONITOR_ADAPTIVE_MIN_SAMPLES + ": ");
+	    buf.append(this.getMonitorAdaptiveMinSamples());
+	    
+	    buf.append("\n" + PARM_CALLBACK_SECRET + ": ");
+	    buf.append(this.getCallbackSecret() == null ? "not set" : "set");
+	    
+	    buf.append("\n" + PARM_MONITOR_CHECK_FLUSH_MS + ": ");
+	    buf.append(this.getMonitorCheckFlushMillis());
+	    
+	    buf.append("\n" + PARM_SUBMIT_ASYNC_THREADS + ": ");
+	    buf.append(this.getSubmitAsyncThreads());
+	    
+	    buf.append("\n" + PARM_SUBMIT_ASYNC_QUEUE_SIZE + ": ");
+	    buf.append(this.getSubmitAsyncQueueSize());
+	    
+	    buf.append("\n" + PARM_SUBMIT_ASYNC_STALE_MINUTES + ": ");
+	    buf.append(this.getSubmitAsyncStaleMinutes());
+	    
+	    buf.append("\n" + PARM_SUBSCRIPTION_THREADS + ": ");
+	    buf.append(this.getSubscriptionThreads());
+	    
+	    buf.append("\n" + PARM_SUBSCRIPTION_TIMEOUT_MS + ": ");
+	    buf.append(this.getSubscriptionTimeoutMillis());
+	    
+	    buf.append("\n" + PARM_FAIR_SHARE_POLL_MS + ": ");
+	    buf.append(this.getFairSharePollMillis());
+	    
+	    buf.append("\n" + PARM_ADMISSION_TENANT_RATE + ": ");
+	    buf.append(this.getAdmissionTenantRate());
+	    
+	    buf.append("\n" + PARM_ADMISSION_TENANT_BURST + ": ");
+	    buf.append(this.getAdmissionTenantBurst());
+	    
+	    buf.append("\n" + PARM_ADMISSION_SAMPLE_SECONDS + ": ");
+	    buf.append(this.getAdmissionSampleSeconds());
+	    
+	    buf.append("\n" + PARM_ADMISSION_QUEUE_DEPTH_LIMIT + ": ");
+	    buf.append(this.getAdmissionQueueDepthLimit());
+	    
+	    buf.append("\n" + PARM_ADMISSION_RECOVERY_LIMIT + ": ");
+	    buf.append(this.getAdmissionRecoveryLimit());
+	    
+	    buf.append("\n" + PARM_ADMISSION_ACTIVE_LIMIT + ": ");
+	    buf.append(this.getAdmissionActiveLimit());
+	    
+	    buf.append("\n" + PARM_RECOVERY_PARTITIONS + ": ");
+	    buf.append(this.getRecoveryPartitions());
+	    
+	    buf.append("\n" + PARM_RECOVERY_LEASE_SECONDS + ": ");
+	    buf.append(this.getRecoveryLeaseSeconds());
 	    
         buf.append("\n------- RabbitMQ Configuration --------------------");
         buf.append("\ntapis.queue.host: ");
@@ -723,6 +1244,57 @@ public final class RuntimeParameters
 		return _instance;
 	}
 	
+    /* ---------------------------------------------------------------------- */
+    /* getJobsParm:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Look up a jobs-specific parameter that is not defined in the shared
+     * TapisEnv.EnvVar enumeration.  The environment takes precedence over the
+     * input properties, just as TapisInput does for enumerated parameters. 
+     * The environment variable name is the property name in upper case with 
+     * dots replaced by underscores (e.g., tapis.db.replica.jdbc.url becomes
+     * TAPIS_DB_REPLICA_JDBC_URL).
+     * 
+     * @param inputProperties the properties assembled by TapisInput
+     * @param propName the dot-separated parameter name
+     * @return the parameter value or null
+     */
+    private static String getJobsParm(Properties inputProperties, String propName)
+    {
+        String envName = propName.toUpperCase().replace('.', '_');
+        String value = System.getenv(envName);
+        if (StringUtils.isBlank(value)) value = inputProperties.getProperty(propName);
+        return value;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getJobsIntParm:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Look up an integer jobs-specific parameter using getJobsParm().  The
+     * default value is returned when the parameter is not set.  Unparsable 
+     * values stop initialization.
+     * 
+     * @param inputProperties the properties assembled by TapisInput
+     * @param propName the dot-separated parameter name
+     * @param defaultValue the value used when the parameter is not set
+     * @param fieldName the field name used in error messages
+     * @return the parameter value or the default
+     */
+    private static int getJobsIntParm(Properties inputProperties, String propName,
+                                      int defaultValue, String fieldName)
+    {
+        String parm = getJobsParm(inputProperties, propName);
+        if (StringUtils.isBlank(parm)) return defaultValue;
+        try {return Integer.valueOf(parm.trim());}
+          catch (Exception e) {
+            // Stop on bad input.
+            String msg = MsgUtils.getMsg("TAPIS_SERVICE_PARM_INITIALIZATION_FAILED",
+                                         TapisConstants.SERVICE_NAME_JOBS,
+                                         fieldName, e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+          }
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getNetworkAddresses:                                                   */
     /* ---------------------------------------------------------------------- */
@@ -881,6 +1453,314 @@ public final class RuntimeParameters
 	    this.dbMeterMinutes = dbMeterMinutes;
 	}
 
+    public String getReplicaJdbcURL() {
+        return replicaJdbcURL;
+    }
+
+    private void setReplicaJdbcURL(String replicaJdbcURL) {
+        this.replicaJdbcURL = replicaJdbcURL;
+    }
+
+    public boolean isReplicaEnabled() {
+        return !StringUtils.isBlank(replicaJdbcURL);
+    }
+
+    public String getReplicaDbUser() {
+        return replicaDbUser;
+    }
+
+    private void setReplicaDbUser(String replicaDbUser) {
+        this.replicaDbUser = replicaDbUser;
+    }
+
+    public String getReplicaDbPassword() {
+        return replicaDbPassword;
+    }
+
+    private void setReplicaDbPassword(String replicaDbPassword) {
+        this.replicaDbPassword = replicaDbPassword;
+    }
+
+    public int getReplicaDbConnectionPoolSize() {
+        return replicaDbConnectionPoolSize;
+    }
+
+    private void setReplicaDbConnectionPoolSize(int replicaDbConnectionPoolSize) {
+        this.replicaDbConnectionPoolSize = replicaDbConnectionPoolSize;
+    }
+
+    public int getReplicaMaxLagSeconds() {
+        return replicaMaxLagSeconds;
+    }
+
+    private void setReplicaMaxLagSeconds(int replicaMaxLagSeconds) {
+        this.replicaMaxLagSeconds = replicaMaxLagSeconds;
+    }
+
+    public int getPartitionColdDays() {
+        return partitionColdDays;
+    }
+
+    private void setPartitionColdDays(int partitionColdDays) {
+        this.partitionColdDays = partitionColdDays;
+    }
+
+    public String getPartitionColdTablespace() {
+        return partitionColdTablespace;
+    }
+
+    private void setPartitionColdTablespace(String partitionColdTablespace) {
+        this.partitionColdTablespace = partitionColdTablespace;
+    }
+
+    public int getPartitionMonthsAhead() {
+        return partitionMonthsAhead;
+    }
+
+    private void setPartitionMonthsAhead(int partitionMonthsAhead) {
+        this.partitionMonthsAhead = partitionMonthsAhead;
+    }
+
+    public int getPartitionArchiverMinutes() {
+        return partitionArchiverMinutes;
+    }
+
+    private void setPartitionArchiverMinutes(int partitionArchiverMinutes) {
+        this.partitionArchiverMinutes = partitionArchiverMinutes;
+    }
+
+    public int getMetricsPort() {
+        return metricsPort;
+    }
+
+    private void setMetricsPort(int metricsPort) {
+        this.metricsPort = metricsPort;
+    }
+
+    public String getTracingExporter() {
+        return tracingExporter;
+    }
+
+    private void setTracingExporter(String tracingExporter) {
+        this.tracingExporter = tracingExporter;
+    }
+
+    public String getTracingFile() {
+        return tracingFile;
+    }
+
+    private void setTracingFile(String tracingFile) {
+        this.tracingFile = tracingFile;
+    }
+
+    public String getTracingOtlpEndpoint() {
+        return tracingOtlpEndpoint;
+    }
+
+    private void setTracingOtlpEndpoint(String tracingOtlpEndpoint) {
+        this.tracingOtlpEndpoint = tracingOtlpEndpoint;
+    }
+
+    public int getLaunchThrottleCapacity() {
+        return launchThrottleCapacity;
+    }
+
+    private void setLaunchThrottleCapacity(int launchThrottleCapacity) {
+        this.launchThrottleCapacity = launchThrottleCapacity;
+    }
+
+    public int getLaunchThrottleWindowSeconds() {
+        return launchThrottleWindowSeconds;
+    }
+
+    private void setLaunchThrottleWindowSeconds(int launchThrottleWindowSeconds) {
+        this.launchThrottleWindowSeconds = launchThrottleWindowSeconds;
+    }
+
+    public int getLaunchThrottleMaxWaitMs() {
+        return launchThrottleMaxWaitMs;
+    }
+
+    private void setLaunchThrottleMaxWaitMs(int launchThrottleMaxWaitMs) {
+        this.launchThrottleMaxWaitMs = launchThrottleMaxWaitMs;
+    }
+
+    public int getThrottleRedeliverySeconds() {
+        return throttleRedeliverySeconds;
+    }
+
+    private void setThrottleRedeliverySeconds(int throttleRedeliverySeconds) {
+        this.throttleRedeliverySeconds = throttleRedeliverySeconds;
+    }
+
+    public int getMonitorSnapshotMaxAgeMs() {
+        return monitorSnapshotMaxAgeMs;
+    }
+
+    private void setMonitorSnapshotMaxAgeMs(int monitorSnapshotMaxAgeMs) {
+        this.monitorSnapshotMaxAgeMs = monitorSnapshotMaxAgeMs;
+    }
+
+    public int getStageBundleMaxBytes() {
+        return stageBundleMaxBytes;
+    }
+
+    private void setStageBundleMaxBytes(int stageBundleMaxBytes) {
+        this.stageBundleMaxBytes = stageBundleMaxBytes;
+    }
+
+    public int getMaxArrayTasks() {
+        return maxArrayTasks;
+    }
+
+    private void setMaxArrayTasks(int maxArrayTasks) {
+        this.maxArrayTasks = maxArrayTasks;
+    }
+
+    public int getFilesListPageSize() {
+        return filesListPageSize;
+    }
+
+    private void setFilesListPageSize(int filesListPageSize) {
+        this.filesListPageSize = filesListPageSize;
+    }
+
+    public int getMonitorAdaptiveMinSamples() {
+        return monitorAdaptiveMinSamples;
+    }
+
+    private void setMonitorAdaptiveMinSamples(int monitorAdaptiveMinSamples) {
+        this.monitorAdaptiveMinSamples = monitorAdaptiveMinSamples;
+    }
+
+    public String getCallbackSecret() {
+        return callbackSecret;
+    }
+
+    private void setCallbackSecret(String callbackSecret) {
+        this.callbackSecret = callbackSecret;
+    }
+
+    public int getMonitorCheckFlushMillis() {
+        return monitorCheckFlushMillis;
+    }
+
+    private void setMonitorCheckFlushMillis(int monitorCheckFlushMillis) {
+        this.monitorCheckFlushMillis = monitorCheckFlushMillis;
+    }
+
+    public int getSubmitAsyncThreads() {
+        return submitAsyncThreads;
+    }
+
+    private void setSubmitAsyncThreads(int submitAsyncThreads) {
+        this.submitAsyncThreads = submitAsyncThreads;
+    }
+
+    public int getSubmitAsyncQueueSize() {
+        return submitAsyncQueueSize;
+    }
+
+    private void setSubmitAsyncQueueSize(int submitAsyncQueueSize) {
+        this.submitAsyncQueueSize = submitAsyncQueueSize;
+    }
+
+    public int getSubmitAsyncStaleMinutes() {
+        return submitAsyncStaleMinutes;
+    }
+
+    private void setSubmitAsyncStaleMinutes(int submitAsyncStaleMinutes) {
+        this.submitAsyncStaleMinutes = submitAsyncStaleMinutes;
+    }
+
+    public int getSubscriptionThreads() {
+        return subscriptionThreads;
+    }
+
+    private void setSubscriptionThreads(int subscriptionThreads) {
+        this.subscriptionThreads = subscriptionThreads;
+    }
+
+    public int getSubscriptionTimeoutMillis() {
+        return subscriptionTimeoutMillis;
+    }
+
+    private void setSubscriptionTimeoutMillis(int subscriptionTimeoutMillis) {
+        this.subscriptionTimeoutMillis = subscriptionTimeoutMillis;
+    }
+
+    public int getFairSharePollMillis() {
+        return fairSharePollMillis;
+    }
+
+    private void setFairSharePollMillis(int fairSharePollMillis) {
+        this.fairSharePollMillis = fairSharePollMillis;
+    }
+
+    public int getAdmissionTenantRate() {
+        return admissionTenantRate;
+    }
+
+    private void setAdmissionTenantRate(int admissionTenantRate) {
+        this.admissionTenantRate = admissionTenantRate;
+    }
+
+    public int getAdmissionTenantBurst() {
+        return admissionTenantBurst;
+    }
+
+    private void setAdmissionTenantBurst(int admissionTenantBurst) {
+        this.admissionTenantBurst = admissionTenantBurst;
+    }
+
+    public int getAdmissionSampleSeconds() {
+        return admissionSampleSeconds;
+    }
+
+    private void setAdmissionSampleSeconds(int admissionSampleSeconds) {
+        this.admissionSampleSeconds = admissionSampleSeconds;
+    }
+
+    public int getAdmissionQueueDepthLimit() {
+        return admissionQueueDepthLimit;
+    }
+
+    private void setAdmissionQueueDepthLimit(int admissionQueueDepthLimit) {
+        this.admissionQueueDepthLimit = admissionQueueDepthLimit;
+    }
+
+    public int getAdmissionRecoveryLimit() {
+        return admissionRecoveryLimit;
+    }
+
+    private void setAdmissionRecoveryLimit(int admissionRecoveryLimit) {
+        this.admissionRecoveryLimit = admissionRecoveryLimit;
+    }
+
+    public int getAdmissionActiveLimit() {
+        return admissionActiveLimit;
+    }
+
+    private void setAdmissionActiveLimit(int admissionActiveLimit) {
+        this.admissionActiveLimit = admissionActiveLimit;
+    }
+
+    public int getRecoveryPartitions() {
+        return recoveryPartitions;
+    }
+
+    private void setRecoveryPartitions(int recoveryPartitions) {
+        this.recoveryPartitions = recoveryPartitions;
+    }
+
+    public int getRecoveryLeaseSeconds() {
+        return recoveryLeaseSeconds;
+    }
+
+    private void setRecoveryLeaseSeconds(int recoveryLeaseSeconds) {
+        this.recoveryLeaseSeconds = recoveryLeaseSeconds;
+    }
+
     public String getQueueAdminUser() {
         return queueAdminUser;
     }
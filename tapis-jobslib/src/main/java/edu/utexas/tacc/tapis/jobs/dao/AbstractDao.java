@@ -1,16 +1,22 @@
 package edu.utexas.tacc.tapis.jobs.dao;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 
 import javax.sql.DataSource;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.zaxxer.hikari.HikariDataSource;
+
 import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.recoverable.TapisDBConnectionException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shareddb.datasource.HikariDSGenerator;
 import edu.utexas.tacc.tapis.shareddb.datasource.TapisDataSource;
 
 public abstract class AbstractDao 
@@ -21,12 +27,28 @@ public abstract class AbstractDao
     // Tracing.
     private static final Logger _log = LoggerFactory.getLogger(AbstractDao.class);
     
+    // Read replica datasource name.
+    private static final String REPLICA_DATASOURCE_NAME = "JobsReplicaDS";
+    
+    // Minimum time between replica lag checks.
+    private static final long REPLICA_LAG_CHECK_MILLIS = 10 * 1000;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
     // The database datasource provided by clients.
     protected final DataSource _ds;
     
+    // The lazily initialized read replica datasource, null if not configured
+    // or if initialization failed.  Initialization is only attempted once.
+    private static HikariDataSource _replicaDs;
+    private static boolean          _replicaInitialized;
+    
+    // The outcome and time of the last replica lag check.  When the replica
+    // is not current, replica reads are redirected to the primary.
+    private static volatile boolean _replicaCurrent;
+    private static volatile long    _replicaLastCheck;
+    
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
@@ -77,6 +99,45 @@ public abstract class AbstractDao
       return ds;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* getReplicaDataSource:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Get the read replica datasource if one is configured.  The datasource
+     * is created on first use; if creation fails the failure is logged and 
+     * all subsequent replica reads use the primary.
+     * 
+     * @return the replica datasource or null if there isn't one
+     */
+    public static synchronized DataSource getReplicaDataSource()
+    {
+      // Only try once.
+      if (_replicaInitialized) return _replicaDs;
+      _replicaInitialized = true;
+      
+      // Is a replica configured?
+      RuntimeParameters parms = RuntimeParameters.getInstance();
+      if (!parms.isReplicaEnabled()) return null;
+      
+      // Create the replica's connection pool.
+      try {
+          HikariDSGenerator dsgen = new HikariDSGenerator();
+          _replicaDs = dsgen.getDataSource(parms.getInstanceName(), 
+                                           REPLICA_DATASOURCE_NAME, 
+                                           parms.getReplicaJdbcURL(), 
+                                           parms.getReplicaDbUser(), 
+                                           parms.getReplicaDbPassword(), 
+                                           parms.getReplicaDbConnectionPoolSize());
+          _replicaDs.setReadOnly(true);
+      }
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("DB_FAILED_DATASOURCE");
+          _log.error(msg + " [" + REPLICA_DATASOURCE_NAME + "]", e);
+          _replicaDs = null;
+      }
+      
+      return _replicaDs;
+    }
+    
     /* ********************************************************************** */
     /*                           Protected Methods                            */
     /* ********************************************************************** */
@@ -97,4 +158,77 @@ public abstract class AbstractDao
       
       return conn;
     }
+
+    /* ---------------------------------------------------------------------- */
+    /* getReplicaConnection:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Get a connection for a read-only query that tolerates bounded staleness.
+     * Methods that call this method should be annotated with @ReplicaRead.
+     * 
+     * The connection comes from the read replica when one is configured and
+     * its replay lag was no greater than the configured maximum at the last
+     * check.  In all other cases, including any failure to reach the replica,
+     * a primary connection is returned so that callers never fail because of
+     * the replica.
+     * 
+     * @return a connection to the replica or primary database
+     * @throws TapisException when no primary connection can be acquired
+     */
+    protected Connection getReplicaConnection()
+      throws TapisException
+    {
+      // Use the primary if there's no replica.
+      DataSource replicaDs = getReplicaDataSource();
+      if (replicaDs == null) return getConnection();
+      
+      // Periodically determine if the replica is current enough.
+      long now = System.currentTimeMillis();
+      if (now - _replicaLastCheck > REPLICA_LAG_CHECK_MILLIS) {
+          _replicaLastCheck = now;
+          _replicaCurrent = isReplicaCurrent(replicaDs);
+      }
+      if (!_replicaCurrent) return getConnection();
+      
+      // Fall back to the primary on replica failures.
+      try {return replicaDs.getConnection();}
+        catch (Exception e) {
+          String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION");
+          _log.warn(msg + " [" + REPLICA_DATASOURCE_NAME + "]", e);
+          _replicaCurrent = false;
+          return getConnection();
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* isReplicaCurrent:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Query the replica for its replay lag and compare it to the configured
+     * maximum lag.  Any failure is treated as the replica not being current.
+     * 
+     * @param replicaDs the replica datasource
+     * @return true if replica reads are acceptable, false otherwise
+     */
+    private static boolean isReplicaCurrent(DataSource replicaDs)
+    {
+      int maxLag = RuntimeParameters.getInstance().getReplicaMaxLagSeconds();
+      try (Connection conn = replicaDs.getConnection();
+           PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_REPLICA_LAG_SECONDS);
+           ResultSet rs = pstmt.executeQuery()) 
+      {
+          double lag = rs.next() ? rs.getDouble(1) : Double.MAX_VALUE;
+          conn.commit();
+          if (lag > maxLag) 
+              _log.warn(MsgUtils.getMsg("DB_FAILED_CONNECTION") + " [" + REPLICA_DATASOURCE_NAME + 
+                        "] replica lag of " + lag + " seconds exceeds " + maxLag + " seconds.");
+          return lag <= maxLag;
+      }
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION");
+          _log.warn(msg + " [" + REPLICA_DATASOURCE_NAME + "]", e);
+          return false;
+      }
+    }
 }
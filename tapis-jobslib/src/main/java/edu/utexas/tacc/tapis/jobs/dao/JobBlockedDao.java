@@ -116,6 +116,66 @@ public final class JobBlockedDao
       return list;
   }
 
+  /* ---------------------------------------------------------------------- */
+  /* countBlockedJobs:                                                      */
+  /* ---------------------------------------------------------------------- */
+  /** Count the jobs waiting in recovery.
+   * 
+   * @return the number of blocked jobs
+   * @throws TapisException on database error
+   */
+  public int countBlockedJobs() 
+    throws TapisException
+  {
+      // Initialize result.
+      int count = 0;
+
+      // ------------------------- Call SQL ----------------------------
+      Connection conn = null;
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Prepare the statement.
+          PreparedStatement pstmt = conn.prepareStatement(SqlStatements.COUNT_BLOCKED_JOBS);
+                      
+          // Issue the call for the 1 row result set.
+          ResultSet rs = pstmt.executeQuery();
+          if (rs.next()) count = rs.getInt(1);
+          
+          // Close the result and statement.
+          rs.close();
+          pstmt.close();
+    
+          // Commit the transaction.
+          conn.commit();
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+              catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "JobBlocked", "count", e.getMessage());
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Always return the connection back to the connection pool.
+          try {if (conn != null) conn.close();}
+            catch (Exception e) 
+            {
+              // If commit worked, we can swallow the exception.  
+              // If not, the commit exception will be thrown.
+              String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+              _log.error(msg, e);
+            }
+      }
+      
+      return count;
+  }
+
   /* ---------------------------------------------------------------------- */
   /* getBlockedJobs:                                                        */
   /* ---------------------------------------------------------------------- */
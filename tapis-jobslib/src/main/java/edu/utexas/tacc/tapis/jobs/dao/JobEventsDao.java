@@ -119,6 +119,7 @@ public final class JobEventsDao
   /* ---------------------------------------------------------------------- */
   /* getJobEventsByJobUuid:                                                 */
   /* ---------------------------------------------------------------------- */
+  @ReplicaRead
   public List<JobEvent> getJobEventsByJobUUID(String jobUuid, int limit, int skip) 
     throws TapisException
   {
@@ -130,7 +131,7 @@ public final class JobEventsDao
       try
       {
           // Get a database connection.
-          conn = getConnection();
+          conn = getReplicaConnection();
           
           // Get the select command.
           String sql = SqlStatements.SELECT_JOBEVENTS_BY_JOB_UUID;
@@ -138,8 +139,9 @@ public final class JobEventsDao
           // Prepare the statement and fill in the placeholders.
           PreparedStatement pstmt = conn.prepareStatement(sql);
           pstmt.setString(1, jobUuid);
-          pstmt.setInt(2, limit);
-          pstmt.setInt(3, skip);
+          pstmt.setString(2, jobUuid);
+          pstmt.setInt(3, limit);
+          pstmt.setInt(4, skip);
          
                       
           // Issue the call for the 1 row result set.
@@ -0,0 +1,178 @@
+package edu.utexas.tacc.tapis.jobs.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Access to the job_launch_throttles table, which implements a token bucket
+ * per execution host that's shared by all workers.  See the V019 migration
+ * script in tapis-jobsmigrate for details.
+ *
+ * @author rcardone
+ */
+public final class JobLaunchThrottlesDao
+ extends AbstractDao
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobLaunchThrottlesDao.class);
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** The superclass initializes the datasource.
+     *
+     * @throws TapisException on database errors
+     */
+    public JobLaunchThrottlesDao() throws TapisException {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* reserveLaunch:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Reserve a launch slot on the host.  The host's bucket holds up to
+     * capacity tokens and is refilled at capacity tokens per window.  If a
+     * token is available the launch can proceed immediately.  Otherwise, the
+     * launch is scheduled for when the next unreserved token will be available,
+     * but only if that time is no more than maxWaitMillis in the future.  When
+     * no reservation is made the bucket is left unchanged.
+     *
+     * @param host the execution host
+     * @param capacity the maximum number of tokens in the bucket
+     * @param windowSeconds the time to completely refill the bucket
+     * @param maxWaitMillis the longest acceptable wait for a reservation
+     * @return the reservation result
+     * @throws JobException on error
+     */
+    public LaunchReservation reserveLaunch(String host, int capacity, int windowSeconds,
+                                           long maxWaitMillis)
+     throws JobException
+    {
+        // Check input.
+        if (StringUtils.isBlank(host)) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "reserveLaunch", "host");
+            throw new JobException(msg);
+        }
+        if (capacity <= 0 || windowSeconds <= 0) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "reserveLaunch",
+                                         "capacity/windowSeconds", capacity + "/" + windowSeconds);
+            throw new JobException(msg);
+        }
+
+        // Tokens per second.
+        final double rate = (double) capacity / windowSeconds;
+
+        // Result.
+        LaunchReservation reservation = null;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Make sure the host's bucket exists.
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.CREATE_LAUNCH_THROTTLE);
+            pstmt.setString(1, host);
+            pstmt.setDouble(2, capacity);
+            pstmt.executeUpdate();
+            pstmt.close();
+
+            // Lock the bucket until the transaction completes.
+            pstmt = conn.prepareStatement(SqlStatements.SELECT_LAUNCH_THROTTLE_FOR_UPDATE);
+            pstmt.setString(1, host);
+            ResultSet rs = pstmt.executeQuery();
+            if (!rs.next()) {
+                String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_launch_throttles",
+                                             host, "no row");
+                throw new JobException(msg);
+            }
+            double tokens  = rs.getDouble(1);
+            double elapsed = Math.max(0, rs.getDouble(2));
+            Timestamp now  = rs.getTimestamp(3);
+            rs.close();
+            pstmt.close();
+
+            // Refill the bucket and take a token, which may put the bucket in debt.
+            double remaining = Math.min(capacity, tokens + elapsed * rate) - 1;
+            long waitMillis = remaining >= 0 ? 0 : (long) Math.ceil(-remaining / rate * 1000);
+
+            // Only save the reservation if its wait is acceptable.
+            if (waitMillis <= maxWaitMillis) {
+                pstmt = conn.prepareStatement(SqlStatements.UPDATE_LAUNCH_THROTTLE);
+                pstmt.setDouble(1, remaining);
+                pstmt.setTimestamp(2, now);
+                pstmt.setString(3, host);
+                pstmt.executeUpdate();
+                pstmt.close();
+                reservation = new LaunchReservation(true, waitMillis);
+            }
+            else reservation = new LaunchReservation(false, waitMillis);
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            if (e instanceof JobException) throw (JobException) e;
+            String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_launch_throttles",
+                                         host, e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            if (conn != null)
+                try {conn.close();}
+                  catch (Exception e)
+                  {
+                      // If commit worked, we can swallow the exception.
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+
+        return reservation;
+    }
+
+    /* ********************************************************************** */
+    /*                        LaunchReservation Class                         */
+    /* ********************************************************************** */
+    /** The outcome of a reservation request.  When reserved is true, the launch
+     * can take place after waitMillis.  When reserved is false, waitMillis is
+     * the estimated wait that exceeded the caller's maximum.
+     */
+    public static final class LaunchReservation
+    {
+        public final boolean reserved;
+        public final long    waitMillis;
+
+        private LaunchReservation(boolean reserved, long waitMillis)
+        {
+            this.reserved = reserved;
+            this.waitMillis = waitMillis;
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package edu.utexas.tacc.tapis.jobs.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.time.Instant;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Access to the job_monitor_stats table, which records the queue wait and run
+ * time statistics of completed jobs for each application on each execution
+ * system logical queue.  See the V020 migration script in tapis-jobsmigrate
+ * for details.
+ *
+ * @author rcardone
+ */
+public final class JobMonitorStatsDao
+ extends AbstractDao
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobMonitorStatsDao.class);
+
+    // The weight of each new sample once the number of samples exceeds its
+    // reciprocal.  Statistics effectively reflect the last couple dozen jobs.
+    public static final double SAMPLE_WEIGHT = 0.1;
+
+    // The key value used for jobs without a logical queue.
+    private static final String NO_QUEUE = "";
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** The superclass initializes the datasource.
+     *
+     * @throws TapisException on database errors
+     */
+    public JobMonitorStatsDao() throws TapisException {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getStats:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Get the timing statistics that apply to the job.
+     *
+     * @param job the job about to be monitored
+     * @return the statistics or null if no job like this one has completed
+     * @throws JobException on error
+     */
+    public MonitorStats getStats(Job job)
+     throws JobException
+    {
+        // Result.
+        MonitorStats stats = null;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Look up the key.
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_MONITOR_STATS);
+            setKey(pstmt, job);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next())
+                stats = new MonitorStats(rs.getInt(1), rs.getDouble(2), rs.getDouble(3),
+                                         rs.getInt(4), rs.getDouble(5), rs.getDouble(6));
+            rs.close();
+            pstmt.close();
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_monitor_stats",
+                                         job.getUuid(), e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            if (conn != null)
+                try {conn.close();}
+                  catch (Exception e)
+                  {
+                      // If commit worked, we can swallow the exception.
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+
+        return stats;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordJob:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Add the job's queue wait and run time to the statistics for jobs like
+     * it.  Each duration is only recorded if the job has the timestamps needed
+     * to calculate it.
+     *
+     * @param job a job whose remote execution has completed
+     * @throws JobException on error
+     */
+    public void recordJob(Job job)
+     throws JobException
+    {
+        // Calculate the available durations.
+        Double waitSecs = getSeconds(job.getRemoteSubmitted(), job.getRemoteStarted());
+        Double runSecs  = getSeconds(job.getRemoteStarted(), job.getRemoteEnded());
+        if (waitSecs == null && runSecs == null) return;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Update each available statistic.
+            if (waitSecs != null) upsert(conn, SqlStatements.UPSERT_MONITOR_WAIT_STATS, job, waitSecs);
+            if (runSecs  != null) upsert(conn, SqlStatements.UPSERT_MONITOR_RUN_STATS, job, runSecs);
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("JOBS_JOB_UPDATE_ERROR", job.getUuid(), job.getTenant(),
+                                         job.getOwner(), e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            if (conn != null)
+                try {conn.close();}
+                  catch (Exception e)
+                  {
+                      // If commit worked, we can swallow the exception.
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* upsert:                                                                */
+    /* ---------------------------------------------------------------------- */
+    private void upsert(Connection conn, String sql, Job job, double seconds)
+     throws Exception
+    {
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        setKey(pstmt, job);
+        pstmt.setDouble(5, seconds);
+        pstmt.setDouble(6, SAMPLE_WEIGHT);
+        pstmt.setDouble(7, SAMPLE_WEIGHT);
+        pstmt.setDouble(8, SAMPLE_WEIGHT);
+        pstmt.executeUpdate();
+        pstmt.close();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* setKey:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Fill in the first four placeholders with the job's statistics key. */
+    private void setKey(PreparedStatement pstmt, Job job)
+     throws Exception
+    {
+        String queue = job.getExecSystemLogicalQueue();
+        pstmt.setString(1, job.getTenant());
+        pstmt.setString(2, job.getExecSystemId());
+        pstmt.setString(3, StringUtils.isBlank(queue) ? NO_QUEUE : queue);
+        pstmt.setString(4, job.getAppId());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getSeconds:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Return the non-negative number of seconds between two times or null
+     * if either time is missing.
+     */
+    private static Double getSeconds(Instant start, Instant end)
+    {
+        if (start == null || end == null) return null;
+        return Math.max(0, Duration.between(start, end).toMillis()) / 1000.0;
+    }
+
+    /* ********************************************************************** */
+    /*                           MonitorStats Class                           */
+    /* ********************************************************************** */
+    /** The queue wait and run time statistics for jobs like a given job.
+     * A statistic with zero samples has zero mean and standard deviation.
+     */
+    public static final class MonitorStats
+    {
+        public final int    waitSamples;
+        public final double waitMeanSecs;
+        public final double waitStdDevSecs;
+        public final int    runSamples;
+        public final double runMeanSecs;
+        public final double runStdDevSecs;
+
+        public MonitorStats(int waitSamples, double waitMeanSecs, double waitVarSecs,
+                            int runSamples, double runMeanSecs, double runVarSecs)
+        {
+            this.waitSamples    = waitSamples;
+            this.waitMeanSecs   = waitMeanSecs;
+            this.waitStdDevSecs = Math.sqrt(Math.max(0, waitVarSecs));
+            this.runSamples     = runSamples;
+            this.runMeanSecs    = runMeanSecs;
+            this.runStdDevSecs  = Math.sqrt(Math.max(0, runVarSecs));
+        }
+    }
+}
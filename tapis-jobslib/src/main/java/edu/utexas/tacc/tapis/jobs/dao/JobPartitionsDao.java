@@ -0,0 +1,469 @@
+package edu.utexas.tacc.tapis.jobs.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobPartitionTier;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Access to the job_partitions catalog and the partition maintenance operations
+ * on the range partitioned jobs and job_events tables.  See the V018 migration
+ * script in tapis-jobsmigrate for the partitioning scheme.
+ *
+ * @author rcardone
+ */
+public final class JobPartitionsDao
+ extends AbstractDao
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobPartitionsDao.class);
+
+    // The partitioned tables.
+    public static final String JOBS_TABLE       = "jobs";
+    public static final String JOB_EVENTS_TABLE = "job_events";
+
+    // How long a hot boundary value is cached.
+    private static final long HOT_BOUNDARY_CACHE_MILLIS = 5 * 60 * 1000;
+
+    // Advisory lock key that serializes partition maintenance across processes.
+    private static final long PARTITION_MAINTENANCE_LOCK_KEY = 0x4a6f6250617274L; // "JobPart"
+
+    // Only names generated by job_create_month_partition() are used in dynamic sql.
+    private static final String PARTITION_NAME_REGEX = "^(jobs|job_events)_\\d{4}_\\d{2}$";
+    private static final String TABLESPACE_NAME_REGEX = "^[a-zA-Z_][a-zA-Z0-9_]*$";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Cached hot boundaries keyed by table name.
+    private static final ConcurrentHashMap<String,HotBoundary> _hotBoundaries =
+        new ConcurrentHashMap<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** The superclass initializes the datasource.
+     *
+     * @throws TapisException on database errors
+     */
+    public JobPartitionsDao() throws TapisException {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getHotBoundary:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Return the start of the oldest HOT partition of the specified table.  No
+     * active job can have been created before this time, so queries on active
+     * jobs can use it as a lower bound on the created column to prune all cold
+     * partitions.  The value is cached and periodically refreshed.  On error,
+     * the epoch is returned, which disables pruning but is always correct.
+     *
+     * @param tableName the partitioned table name
+     * @return the non-null lower bound on the creation time of active jobs
+     */
+    public static Instant getHotBoundary(String tableName)
+    {
+        // Use the cached value if it's fresh enough.
+        long now = System.currentTimeMillis();
+        HotBoundary boundary = _hotBoundaries.get(tableName);
+        if (boundary != null && now - boundary.retrieved < HOT_BOUNDARY_CACHE_MILLIS)
+            return boundary.start;
+
+        // Refresh the cached value.
+        Instant start = Instant.EPOCH;
+        try {start = new JobPartitionsDao().queryHotBoundary(tableName);}
+            catch (Exception e) {
+                _log.warn(MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_partitions",
+                                          tableName, e.getMessage()), e);
+            }
+        _hotBoundaries.put(tableName, new HotBoundary(start, now));
+        return start;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* maintainPartitions:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Perform one round of partition maintenance on the jobs and job_events
+     * tables.  Only one process at a time performs maintenance; if another
+     * process holds the maintenance lock this method returns -1 immediately.
+     *
+     * Maintenance consists of (1) creating monthly partitions for the current
+     * month and the specified number of months ahead, and (2) moving HOT
+     * partitions whose entire range is older than the cold age to the COLD
+     * tier.  A jobs partition is only moved if all of its jobs are in terminal
+     * states.  A job_events partition is moved based on age alone since events
+     * are always written to the partition of the current month.  If a cold
+     * tablespace is specified, cold partitions are then moved to it, each in
+     * its own transaction so that the long running storage moves don't hold
+     * up the catalog changes.  Partitions whose move fails or is skipped are
+     * moved in a later round.
+     *
+     * @param monthsAhead number of future monthly partitions to create
+     * @param coldAgeDays age in days after which partitions become cold
+     * @param coldTablespace tablespace for cold partitions or null
+     * @return the number of partitions moved to the cold tier or -1
+     * @throws JobException on error
+     */
+    public int maintainPartitions(int monthsAhead, int coldAgeDays, String coldTablespace)
+     throws JobException
+    {
+        // Validate the tablespace since it's used in dynamic sql.
+        if (StringUtils.isNotBlank(coldTablespace) && !coldTablespace.matches(TABLESPACE_NAME_REGEX)) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "maintainPartitions",
+                                         "coldTablespace", coldTablespace);
+            throw new JobException(msg);
+        }
+
+        // Result.
+        int coldCount = 0;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Only one process performs maintenance at a time.  The lock is
+            // released when the transaction completes.
+            if (!tryMaintenanceLock(conn)) {
+                conn.rollback();
+                return -1;
+            }
+
+            // ---- Create future partitions.
+            ZonedDateTime month = Instant.now().atZone(ZoneOffset.UTC).truncatedTo(ChronoUnit.DAYS)
+                                         .withDayOfMonth(1);
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.CREATE_MONTH_PARTITION);
+            for (int i = 0; i <= monthsAhead; i++) {
+                Timestamp ts = Timestamp.from(month.plusMonths(i).toInstant());
+                for (String table : new String[] {JOBS_TABLE, JOB_EVENTS_TABLE}) {
+                    pstmt.setString(1, table);
+                    pstmt.setTimestamp(2, ts);
+                    pstmt.executeQuery().close();
+                }
+            }
+            pstmt.close();
+
+            // ---- Move aged partitions to the cold tier.
+            Instant cutoff = Instant.now().minus(coldAgeDays, ChronoUnit.DAYS);
+            for (String table : new String[] {JOBS_TABLE, JOB_EVENTS_TABLE}) {
+                for (String partition : getAgedHotPartitions(conn, table, cutoff)) {
+                    // Active jobs keep their partition hot.
+                    if (JOBS_TABLE.equals(table) && countNonTerminalJobs(conn, partition) > 0)
+                        continue;
+
+                    // Update the catalog.
+                    pstmt = conn.prepareStatement(SqlStatements.UPDATE_PARTITION_TIER);
+                    pstmt.setString(1, JobPartitionTier.COLD.name());
+                    pstmt.setTimestamp(2, Timestamp.from(Instant.now()));
+                    pstmt.setString(3, partition);
+                    pstmt.executeUpdate();
+                    pstmt.close();
+                    coldCount++;
+                }
+            }
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_partitions",
+                                         "maintainPartitions", e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            if (conn != null)
+                try {conn.close();}
+                  catch (Exception e)
+                  {
+                      // If commit worked, we can swallow the exception.
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+
+        // Newly cold partitions shift the hot boundaries.
+        if (coldCount > 0) _hotBoundaries.clear();
+
+        // Move the storage of cold partitions outside of the catalog transaction.
+        if (StringUtils.isNotBlank(coldTablespace)) moveColdPartitions(coldTablespace);
+        return coldCount;
+    }
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* queryHotBoundary:                                                      */
+    /* ---------------------------------------------------------------------- */
+    private Instant queryHotBoundary(String tableName)
+     throws TapisException
+    {
+        // Default is no pruning.
+        Instant start = Instant.EPOCH;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Prepare the statement and fill in the placeholders.
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_HOT_PARTITION_BOUNDARY);
+            pstmt.setString(1, tableName);
+
+            // A null minimum means there are no hot partitions recorded.
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) {
+                Timestamp ts = rs.getTimestamp(1);
+                if (ts != null) start = ts.toInstant();
+            }
+
+            // Close the result and statement.
+            rs.close();
+            pstmt.close();
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_partitions",
+                                         tableName, e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            if (conn != null)
+                try {conn.close();}
+                  catch (Exception e)
+                  {
+                      // If commit worked, we can swallow the exception.
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+
+        return start;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* moveColdPartitions:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Move the cold partitions that are not yet in the cold tablespace to it.
+     * Each move runs in its own transaction under the maintenance lock and
+     * stops as soon as another process holds the lock.
+     *
+     * @param coldTablespace the validated tablespace name
+     * @return the number of partitions moved
+     * @throws JobException on error
+     */
+    private int moveColdPartitions(String coldTablespace)
+     throws JobException
+    {
+        // Result.
+        int moved = 0;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Get the cold partitions that still need to be moved.
+            if (!tryMaintenanceLock(conn)) {
+                conn.rollback();
+                return 0;
+            }
+            var partitions = getUnmovedColdPartitions(conn, coldTablespace);
+            conn.commit();
+
+            // Move each partition in its own transaction.
+            for (String partition : partitions) {
+                if (!tryMaintenanceLock(conn)) {
+                    conn.rollback();
+                    break;
+                }
+                String sql = SqlStatements.SET_PARTITION_TABLESPACE
+                               .replace(":partition", partition)
+                               .replace(":tablespace", coldTablespace);
+                Statement stmt = conn.createStatement();
+                stmt.execute(sql);
+                stmt.close();
+                conn.commit();
+                moved++;
+            }
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "job_partitions",
+                                         coldTablespace, e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            if (conn != null)
+                try {conn.close();}
+                  catch (Exception e)
+                  {
+                      // If commit worked, we can swallow the exception.
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+
+        return moved;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* tryMaintenanceLock:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Acquire the maintenance lock for the current transaction if it's free.
+     *
+     * @param conn the connection with the in-progress transaction
+     * @return true if the lock was acquired, false if another process holds it
+     */
+    private boolean tryMaintenanceLock(Connection conn)
+     throws Exception
+    {
+        PreparedStatement pstmt = conn.prepareStatement(SqlStatements.TRY_PARTITION_MAINTENANCE_LOCK);
+        pstmt.setLong(1, PARTITION_MAINTENANCE_LOCK_KEY);
+        ResultSet rs = pstmt.executeQuery();
+        boolean locked = rs.next() && rs.getBoolean(1);
+        rs.close();
+        pstmt.close();
+        return locked;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getUnmovedColdPartitions:                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Get the names of cold partitions that are not in the cold tablespace.
+     *
+     * @param conn the connection with the in-progress transaction
+     * @param coldTablespace the cold tablespace name
+     * @return the list of partition names, possibly empty
+     */
+    private List<String> getUnmovedColdPartitions(Connection conn, String coldTablespace)
+     throws Exception
+    {
+        var list = new ArrayList<String>();
+        PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_UNMOVED_COLD_PARTITIONS);
+        pstmt.setString(1, coldTablespace);
+        ResultSet rs = pstmt.executeQuery();
+        while (rs.next()) {
+            // Skip anything that isn't a generated partition name.
+            String name = rs.getString(1);
+            if (name != null && name.matches(PARTITION_NAME_REGEX)) list.add(name);
+              else _log.warn(MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "getUnmovedColdPartitions",
+                                             "partition_name", name));
+        }
+        rs.close();
+        pstmt.close();
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getAgedHotPartitions:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Get the names of hot partitions whose range ends at or before the cutoff.
+     *
+     * @param conn the connection with the in-progress transaction
+     * @param tableName the partitioned table name
+     * @param cutoff the cold age cutoff time
+     * @return the list of partition names, possibly empty
+     */
+    private List<String> getAgedHotPartitions(Connection conn, String tableName, Instant cutoff)
+     throws Exception
+    {
+        var list = new ArrayList<String>();
+        PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_AGED_HOT_PARTITIONS);
+        pstmt.setString(1, tableName);
+        pstmt.setTimestamp(2, Timestamp.from(cutoff));
+        ResultSet rs = pstmt.executeQuery();
+        while (rs.next()) {
+            // Skip anything that isn't a generated partition name.
+            String name = rs.getString(1);
+            if (name != null && name.matches(PARTITION_NAME_REGEX)) list.add(name);
+              else _log.warn(MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "getAgedHotPartitions",
+                                             "partition_name", name));
+        }
+        rs.close();
+        pstmt.close();
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* countNonTerminalJobs:                                                  */
+    /* ---------------------------------------------------------------------- */
+    private int countNonTerminalJobs(Connection conn, String partition)
+     throws Exception
+    {
+        String sql = SqlStatements.COUNT_PARTITION_NONTERMINAL_JOBS
+                       .replace(":partition", partition)
+                       .replace(":statusList", JobStatusType.getTerminalSQLString());
+        Statement stmt = conn.createStatement();
+        ResultSet rs = stmt.executeQuery(sql);
+        int count = rs.next() ? rs.getInt(1) : 0;
+        rs.close();
+        stmt.close();
+        return count;
+    }
+
+    /* ********************************************************************** */
+    /*                           HotBoundary Class                            */
+    /* ********************************************************************** */
+    private static final class HotBoundary
+    {
+        private final Instant start;
+        private final long    retrieved;
+        private HotBoundary(Instant start, long retrieved)
+        {this.start = start; this.retrieved = retrieved;}
+    }
+}
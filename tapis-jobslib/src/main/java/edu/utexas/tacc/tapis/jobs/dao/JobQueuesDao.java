@@ -20,6 +20,7 @@ import edu.utexas.tacc.tapis.jobs.exceptions.JobQueueException;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobQueueFilterException;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobQueuePriorityException;
 import edu.utexas.tacc.tapis.jobs.model.JobQueue;
+import edu.utexas.tacc.tapis.jobs.queue.DeficitRoundRobin;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
 import edu.utexas.tacc.tapis.jobs.queue.SelectorFilter;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
@@ -247,6 +248,7 @@ public final class JobQueuesDao
         pstmt.setString(4, queue.getUuid());
         pstmt.setTimestamp(5, Timestamp.from(queue.getCreated()));
         pstmt.setTimestamp(6, Timestamp.from(queue.getLastUpdated()));
+        pstmt.setString(7, queue.getTenantWeights());
         
         // Issue the call and clean up statement.
         int rows = pstmt.executeUpdate();
@@ -283,6 +285,77 @@ public final class JobQueuesDao
       }
   }
 
+  /* ---------------------------------------------------------------------- */
+  /* updateTenantWeights:                                                   */
+  /* ---------------------------------------------------------------------- */
+  /** Assign the fair share weights of a queue.  A null specification disables
+   * fair sharing, an empty one enables it with equal weights.  Workers pick up 
+   * weight changes periodically; the api and workers route new jobs to tenant
+   * sub-queues after their queue definitions are refreshed.
+   * 
+   * @param queueName the queue to update
+   * @param tenantWeights the weight specification or null
+   * @return true if the queue was updated, false if it doesn't exist
+   * @throws TapisException on error
+   */
+  public boolean updateTenantWeights(String queueName, String tenantWeights) 
+    throws TapisException
+  {
+      // ------------------------- Check Input -------------------------
+      if (StringUtils.isBlank(queueName)) {
+          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "updateTenantWeights", "queueName");
+          throw new TapisException(msg);
+      }
+      validateTenantWeights(queueName, tenantWeights);
+      
+      // ------------------------- Call SQL ----------------------------
+      int rows = 0;
+      Connection conn = null;
+      try
+      {
+        // Get a database connection.
+        conn = getConnection();
+
+        // Prepare the statement and fill in the placeholders.
+        String sql = SqlStatements.UPDATE_JOBQUEUE_TENANT_WEIGHTS;
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        pstmt.setString(1, tenantWeights);
+        pstmt.setTimestamp(2, Timestamp.from(Instant.now()));
+        pstmt.setString(3, queueName);
+        
+        // Issue the call and clean up statement.
+        rows = pstmt.executeUpdate();
+        pstmt.close();
+
+        // Commit the transaction.
+        conn.commit();
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+            catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+        
+          String msg = MsgUtils.getMsg("JOBS_JOB_QUEUE_UPDATE_ERROR", queueName, e.getMessage());
+          _log.error(msg, e);
+          throw new JobException(msg, e);
+      }
+      finally {
+          // Always return the connection back to the connection pool.
+          if (conn != null) 
+            try {conn.close();}
+              catch (Exception e) 
+              {
+                  // If commit worked, we can swallow the exception.  
+                  // If not, the commit exception will be thrown.
+                  String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                  _log.error(msg, e);
+              }
+      }
+      
+      return rows == 1;
+  }
+
   /* ********************************************************************** */
   /*                             Private Methods                            */
   /* ********************************************************************** */
@@ -330,6 +403,7 @@ public final class JobQueuesDao
         obj.setUuid(rs.getString(5));
         obj.setCreated(rs.getTimestamp(6).toInstant());
         obj.setLastUpdated(rs.getTimestamp(7).toInstant());
+        obj.setTenantWeights(rs.getString(8));
     } 
     catch (Exception e) {
       String msg = MsgUtils.getMsg("DB_TYPE_CAST_ERROR", e.getMessage());
@@ -398,6 +472,29 @@ public final class JobQueuesDao
       
       // Validate the filter.
       validateFilter(queue.getFilter());
+      
+      // Validate the optional fair share weights.
+      validateTenantWeights(queue.getName(), queue.getTenantWeights());
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* validateTenantWeights:                                                 */
+  /* ---------------------------------------------------------------------- */
+  /** Parse the tenant weights unless they are null, which disables fair 
+   * sharing on the queue.
+   * 
+   * @param queueName the queue being validated
+   * @param tenantWeights the weight specification or null
+   */
+  private void validateTenantWeights(String queueName, String tenantWeights)
+   throws JobQueueException
+  {
+      if (tenantWeights == null) return;
+      try {DeficitRoundRobin.parseWeights(tenantWeights);}
+      catch (IllegalArgumentException e) {
+          String msg = MsgUtils.getMsg("JOBS_QUEUE_INVALID_WEIGHTS", queueName, e.getMessage());
+          throw new JobQueueException(msg, e);
+      }
   }
   
   /* ---------------------------------------------------------------------- */
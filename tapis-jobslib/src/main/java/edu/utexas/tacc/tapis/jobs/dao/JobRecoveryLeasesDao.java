@@ -0,0 +1,388 @@
+package edu.utexas.tacc.tapis.jobs.dao;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.dao.sql.SqlStatements;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Access to the job_recovery_leases table, which records which recovery
+ * reader owns each recovery partition, and the job_recovery_readers table,
+ * which records the recovery readers that are running.  See the V023 migration
+ * script in tapis-jobsmigrate for details.  All lease times are calculated 
+ * using the database clock.
+ *
+ * @author rcardone
+ */
+public final class JobRecoveryLeasesDao
+ extends AbstractDao
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobRecoveryLeasesDao.class);
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** The superclass initializes the datasource.
+     *
+     * @throws TapisException on database errors
+     */
+    public JobRecoveryLeasesDao() throws TapisException {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* createLeases:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Create the unowned lease rows of partitions 0 through partitions - 1
+     * that don't already exist.
+     *
+     * @param partitions the number of recovery partitions
+     * @throws JobException on error
+     */
+    public void createLeases(int partitions)
+     throws JobException
+    {
+        executeUpdate(SqlStatements.CREATE_RECOVERY_LEASES, "createLeases", partitions);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* acquireLease:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Acquire or renew a partition's lease.  The lease is granted if it's
+     * unowned, expired or already held by the owner.
+     *
+     * @param partition the partition id
+     * @param owner the unique id of the requesting reader
+     * @param leaseSeconds the lease duration from now
+     * @return true if the owner holds the lease, false otherwise
+     * @throws JobException on error
+     */
+    public boolean acquireLease(int partition, String owner, int leaseSeconds)
+     throws JobException
+    {
+        // Check input.
+        if (StringUtils.isBlank(owner)) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "acquireLease", "owner");
+            throw new JobException(msg);
+        }
+        return executeUpdate(SqlStatements.ACQUIRE_RECOVERY_LEASE, "acquireLease",
+                             owner, leaseSeconds, partition, owner) > 0;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* releaseLease:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Give up a partition's lease so that another reader can acquire it
+     * immediately.
+     *
+     * @param partition the partition id
+     * @param owner the unique id of the reader holding the lease
+     * @return true if the lease was released, false if the owner didn't hold it
+     * @throws JobException on error
+     */
+    public boolean releaseLease(int partition, String owner)
+     throws JobException
+    {
+        return executeUpdate(SqlStatements.RELEASE_RECOVERY_LEASE, "releaseLease",
+                             partition, owner) > 0;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getAvailablePartitions:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Get the partitions whose leases are unowned or expired.
+     *
+     * @param partitions the number of recovery partitions
+     * @return the available partition ids in ascending order
+     * @throws JobException on error
+     */
+    public List<Integer> getAvailablePartitions(int partitions)
+     throws JobException
+    {
+        // Initialize result.
+        var list = new ArrayList<Integer>();
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Prepare the statement and fill in the placeholders.
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_AVAILABLE_RECOVERY_LEASES);
+            pstmt.setInt(1, partitions);
+
+            // Collect the ids.
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) list.add(rs.getInt(1));
+
+            // Close the result and statement.
+            rs.close();
+            pstmt.close();
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("JOBS_RECOVERY_LEASE_ERROR", "getAvailablePartitions", e.getMessage());
+            _log.error(msg, e);
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            try {if (conn != null) conn.close();}
+              catch (Exception e)
+              {
+                // If commit worked, we can swallow the exception.
+                // If not, the commit exception will be thrown.
+                String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                _log.error(msg, e);
+              }
+        }
+
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getOwnedPartitions:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Get the partitions whose unexpired leases are held by an owner.
+     *
+     * @param owner the unique id of the reader
+     * @return the owned partition ids in ascending order
+     * @throws JobException on error
+     */
+    public List<Integer> getOwnedPartitions(String owner)
+     throws JobException
+    {
+        // Initialize result.
+        var list = new ArrayList<Integer>();
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Prepare the statement and fill in the placeholders.
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_OWNED_RECOVERY_LEASES);
+            pstmt.setString(1, owner);
+
+            // Collect the ids.
+            ResultSet rs = pstmt.executeQuery();
+            while (rs.next()) list.add(rs.getInt(1));
+
+            // Close the result and statement.
+            rs.close();
+            pstmt.close();
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("JOBS_RECOVERY_LEASE_ERROR", "getOwnedPartitions", e.getMessage());
+            _log.error(msg, e);
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            try {if (conn != null) conn.close();}
+              catch (Exception e)
+              {
+                // If commit worked, we can swallow the exception.
+                // If not, the commit exception will be thrown.
+                String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                _log.error(msg, e);
+              }
+        }
+
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* registerReader:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Record that a reader is running for the next expireSeconds and remove
+     * the registrations of readers that have stopped refreshing theirs.
+     *
+     * @param owner the unique id of the reader
+     * @param expireSeconds the registration duration from now
+     * @throws JobException on error
+     */
+    public void registerReader(String owner, int expireSeconds)
+     throws JobException
+    {
+        // Check input.
+        if (StringUtils.isBlank(owner)) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "registerReader", "owner");
+            throw new JobException(msg);
+        }
+        executeUpdate(SqlStatements.UPSERT_RECOVERY_READER, "registerReader", owner, expireSeconds);
+        executeUpdate(SqlStatements.DELETE_EXPIRED_RECOVERY_READERS, "registerReader");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* unregisterReader:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Remove a reader's registration when it shuts down.
+     *
+     * @param owner the unique id of the reader
+     * @throws JobException on error
+     */
+    public void unregisterReader(String owner)
+     throws JobException
+    {
+        executeUpdate(SqlStatements.DELETE_RECOVERY_READER, "unregisterReader", owner);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* countReaders:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Count the readers with unexpired registrations.
+     *
+     * @return the number of running readers
+     * @throws JobException on error
+     */
+    public int countReaders()
+     throws JobException
+    {
+        // Initialize result.
+        int count = 0;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Issue the call for the 1 row result set.
+            PreparedStatement pstmt = conn.prepareStatement(SqlStatements.COUNT_RECOVERY_READERS);
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) count = rs.getInt(1);
+
+            // Close the result and statement.
+            rs.close();
+            pstmt.close();
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("JOBS_RECOVERY_LEASE_ERROR", "countReaders", e.getMessage());
+            _log.error(msg, e);
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            try {if (conn != null) conn.close();}
+              catch (Exception e)
+              {
+                // If commit worked, we can swallow the exception.
+                // If not, the commit exception will be thrown.
+                String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                _log.error(msg, e);
+              }
+        }
+
+        return count;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* executeUpdate:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Execute an update statement whose placeholders are integers or strings.
+     *
+     * @param sql the statement
+     * @param operation the calling method's name for messages
+     * @param parms the placeholder values in order
+     * @return the number of rows affected
+     * @throws JobException on error
+     */
+    private int executeUpdate(String sql, String operation, Object... parms)
+     throws JobException
+    {
+        int rows = 0;
+
+        // ------------------------- Call SQL ----------------------------
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+
+            // Prepare the statement and fill in the placeholders.
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            for (int i = 0; i < parms.length; i++)
+                if (parms[i] instanceof Integer) pstmt.setInt(i + 1, (Integer) parms[i]);
+                  else pstmt.setString(i + 1, (String) parms[i]);
+
+            // Issue the call.
+            rows = pstmt.executeUpdate();
+            pstmt.close();
+
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+
+            String msg = MsgUtils.getMsg("JOBS_RECOVERY_LEASE_ERROR", operation, e.getMessage());
+            _log.error(msg, e);
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Always return the connection back to the connection pool.
+            try {if (conn != null) conn.close();}
+              catch (Exception e)
+              {
+                // If commit worked, we can swallow the exception.
+                // If not, the commit exception will be thrown.
+                String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                _log.error(msg, e);
+              }
+        }
+
+        return rows;
+    }
+}
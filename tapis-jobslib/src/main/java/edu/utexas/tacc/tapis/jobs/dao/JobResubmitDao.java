@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.jobs.dao.sql.SqlStatements;
 import edu.utexas.tacc.tapis.jobs.model.JobResubmit;
+import edu.utexas.tacc.tapis.jobs.utils.ResubmitCodec;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisJDBCException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
@@ -180,23 +181,41 @@ public final class JobResubmitDao
   /* ---------------------------------------------------------------------- */
   /* createJobResubmit:                                                     */
   /* ---------------------------------------------------------------------- */
+  /** Save a job's request.  The request is stored once per distinct content
+   * in compressed form and the job references it by hash.  The inline request
+   * column is left null.  Errors are logged but not thrown.
+   * 
+   * @param jobResubmit the job and its request
+   */
   public void createJobResubmit(JobResubmit jobResubmit) 
   {
       // ------------------------- Call SQL ----------------------------
       Connection conn = null;
       try {
+          // Hash and compress the request before using a connection.
+          var encoded = ResubmitCodec.encode(jobResubmit.getJobDefinition());
+          
           // Get a database connection.
           conn = getConnection();
     
-          // Insert into the job_resubmit table first.
+          // Insert the blob first unless an identical request was already saved.
+          PreparedStatement pstmt = conn.prepareStatement(SqlStatements.CREATE_JOBRESUBMIT_BLOB);
+          pstmt.setString(1, encoded.hash);
+          pstmt.setString(2, encoded.codec);
+          pstmt.setInt(3, encoded.length);
+          pstmt.setBytes(4, encoded.content);
+          pstmt.executeUpdate();
+          pstmt.close();
+          
+          // Insert into the job_resubmit table.
           // Create the command using table definition field order.
           String sql = SqlStatements.CREATE_JOBRESUBMIT;
       
           // Prepare the statement and fill in the placeholders
           // The fields that the DB defaults are not set.
-          PreparedStatement pstmt = conn.prepareStatement(sql);
+          pstmt = conn.prepareStatement(sql);
           pstmt.setString(1, jobResubmit.getJobUuid());
-          pstmt.setString(2, jobResubmit.getJobDefinition());
+          pstmt.setString(2, encoded.hash);
       
           // Issue the call and clean up statement.
           int rows = pstmt.executeUpdate();
@@ -227,6 +246,144 @@ public final class JobResubmitDao
       }
   }
 
+  /* ---------------------------------------------------------------------- */
+  /* convertJobResubmits:                                                   */
+  /* ---------------------------------------------------------------------- */
+  /** Store the requests of up to limit rows written before migration V024 
+   * as blobs and reference them by hash.  Each call is committed separately,
+   * so callers can stop and resume the conversion at any time.  Rows locked
+   * by another caller are skipped.  The inline request of each converted row
+   * is cleared in the same transaction.
+   * 
+   * @param limit the maximum number of rows converted
+   * @return the number of rows converted
+   * @throws TapisException on error
+   */
+  public int convertJobResubmits(int limit)
+    throws TapisException
+  {
+      // ------------------------- Call SQL ----------------------------
+      int converted = 0;
+      Connection conn = null;
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Lock the next batch of unconverted rows.
+          PreparedStatement pstmt = conn.prepareStatement(SqlStatements.SELECT_UNCONVERTED_JOBRESUBMIT);
+          pstmt.setInt(1, limit);
+          ResultSet rs = pstmt.executeQuery();
+          
+          // Prepare the blob and row updates.
+          PreparedStatement blobStmt = conn.prepareStatement(SqlStatements.CREATE_JOBRESUBMIT_BLOB);
+          PreparedStatement hashStmt = conn.prepareStatement(SqlStatements.UPDATE_JOBRESUBMIT_HASH);
+          while (rs.next()) {
+              var encoded = ResubmitCodec.encode(rs.getString(2));
+              blobStmt.setString(1, encoded.hash);
+              blobStmt.setString(2, encoded.codec);
+              blobStmt.setInt(3, encoded.length);
+              blobStmt.setBytes(4, encoded.content);
+              blobStmt.executeUpdate();
+              
+              hashStmt.setString(1, encoded.hash);
+              hashStmt.setInt(2, rs.getInt(1));
+              hashStmt.executeUpdate();
+              converted++;
+          }
+          
+          // Close the result and statements.
+          rs.close();
+          pstmt.close();
+          blobStmt.close();
+          hashStmt.close();
+    
+          // Commit the batch.
+          conn.commit();
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+              catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("JOBS_JOBRESUBMIT_CONVERT_ERROR", e.getMessage());
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Always return the connection back to the connection pool.
+          try {if (conn != null) conn.close();}
+            catch (Exception e) 
+            {
+              // If commit worked, we can swallow the exception.  
+              // If not, the commit exception will be thrown.
+              String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+              _log.error(msg, e);
+            }
+      }
+      
+      return converted;
+  }
+
+  /* ---------------------------------------------------------------------- */
+  /* deleteUnreferencedBlobs:                                               */
+  /* ---------------------------------------------------------------------- */
+  /** Delete the blobs that no job_resubmit row references and that haven't
+   * been used for at least graceHours.  The grace period protects blobs that
+   * are about to be referenced by requests being saved.
+   * 
+   * @param graceHours the minimum hours since a blob was last used
+   * @return the number of blobs deleted
+   * @throws TapisException on error
+   */
+  public int deleteUnreferencedBlobs(int graceHours)
+    throws TapisException
+  {
+      // ------------------------- Call SQL ----------------------------
+      int rows = 0;
+      Connection conn = null;
+      try
+      {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Prepare the statement and fill in the placeholders.
+          PreparedStatement pstmt = conn.prepareStatement(SqlStatements.DELETE_UNREFERENCED_JOBRESUBMIT_BLOBS);
+          pstmt.setInt(1, graceHours);
+          
+          // Issue the call and clean up statement.
+          rows = pstmt.executeUpdate();
+          pstmt.close();
+    
+          // Commit the transaction.
+          conn.commit();
+      }
+      catch (Exception e)
+      {
+          // Rollback transaction.
+          try {if (conn != null) conn.rollback();}
+              catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+          
+          String msg = MsgUtils.getMsg("JOBS_JOBRESUBMIT_SWEEP_ERROR", e.getMessage());
+          _log.error(msg, e);
+          throw new TapisException(msg, e);
+      }
+      finally {
+          // Always return the connection back to the connection pool.
+          try {if (conn != null) conn.close();}
+            catch (Exception e) 
+            {
+              // If commit worked, we can swallow the exception.  
+              // If not, the commit exception will be thrown.
+              String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+              _log.error(msg, e);
+            }
+      }
+      
+      return rows;
+  }
+
   /* ********************************************************************** */
   /*                             Private Methods                            */
   /* ********************************************************************** */
@@ -238,7 +395,8 @@ public final class JobResubmitDao
    * position and, if a row exists, its data will be marshalled into a 
    * JobResubmit object.  The result set is not closed by this method.
    * 
-   * NOTE: This method assumes all fields are returned table definition order.
+   * NOTE: This method assumes the job_resubmit fields are returned in table 
+   *       definition order followed by the blob's codec, length and content.
    * 
    * NOTE: This method must be manually maintained whenever the table schema changes.  
    * 
@@ -269,7 +427,11 @@ public final class JobResubmitDao
     try {
         obj.setId(rs.getInt(1));
         obj.setJobUuid(rs.getString(2));
-        obj.setJobDefinition(rs.getString(3));
+        
+        // Blob content is decoded when the definition is first requested.
+        String codec = rs.getString(4);
+        if (codec == null) obj.setJobDefinition(rs.getString(3));
+          else obj.setEncodedDefinition(codec, rs.getInt(5), rs.getBytes(6));
     } 
     catch (Exception e) {
       String msg = MsgUtils.getMsg("DB_TYPE_CAST_ERROR", e.getMessage());
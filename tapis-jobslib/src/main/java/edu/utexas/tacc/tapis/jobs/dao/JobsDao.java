@@ -11,6 +11,7 @@ import java.sql.SQLException;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -36,6 +37,7 @@ import edu.utexas.tacc.tapis.jobs.events.JobEventManager;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.gen.jooq.Tables;
 import edu.utexas.tacc.tapis.jobs.gen.jooq.tables.records.JobsRecord;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.JobEvent;
 import edu.utexas.tacc.tapis.jobs.model.dto.JobListDTO;
@@ -243,6 +245,7 @@ public final class JobsDao
 	/* ---------------------------------------------------------------------- */
 	/* getJobsByUsername:                                                     */
 	/* ---------------------------------------------------------------------- */
+	@ReplicaRead
 	public List<JobListDTO> getJobsByUsername(String username, String tenant, 
 	                                          List<OrderBy> orderByList, 
 	                                          Integer limit, Integer skip)
@@ -256,7 +259,7 @@ public final class JobsDao
 	    try
 	    {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          // Get the select command.
 	          String sql = SqlStatements.SELECT_JOBS_BY_USERNAME;
@@ -373,6 +376,7 @@ public final class JobsDao
 	/* getJobsSearchListCountByUsername:                                      */
 	/* ---------------------------------------------------------------------- */
 	@SuppressWarnings("rawtypes")
+	@ReplicaRead
 	public int getJobsSearchListCountByUsername(String username, String tenant,
 	                                            List<String> searchList, List<OrderBy> orderByList,
 	                                            boolean sharedWithMe) 
@@ -421,7 +425,7 @@ public final class JobsDao
 	    try
 	      {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          DSLContext db = DSL.using(conn);
 
@@ -461,6 +465,7 @@ public final class JobsDao
 	/* getJobsSearchListCountByUsernameUsingSqlSearchStr                      */
 	/* ---------------------------------------------------------------------- */
 	@SuppressWarnings("rawtypes")
+	@ReplicaRead
 	public int getJobsSearchListCountByUsernameUsingSqlSearchStr(String username, String tenant, ASTNode searchAST, 
 			List<OrderBy> orderByList, boolean sharedWithMe) 
 			  throws TapisException
@@ -517,7 +522,7 @@ public final class JobsDao
 	    try
 	      {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          DSLContext db = DSL.using(conn);
 
@@ -557,6 +562,7 @@ public final class JobsDao
 	/*  summary attributes                                                    */
 	/* ---------------------------------------------------------------------- */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@ReplicaRead
 	public List<JobListDTO> getJobsSearchByUsername(String username, String tenant, 
 	                                  List<String>searchList, List<OrderBy> orderByList, 
 	                                  Integer limit, Integer skip, boolean sharedWithMe) 
@@ -631,7 +637,7 @@ public final class JobsDao
 	    try
 	      {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          DSLContext db = DSL.using(conn);
 
@@ -698,6 +704,7 @@ public final class JobsDao
 	/* summary attributes  post end-point                                     */
 	/* ---------------------------------------------------------------------- */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@ReplicaRead
 	public List<JobListDTO> getJobSearchListByUsernameUsingSqlSearchStr(
 	                         String username, String tenant, ASTNode searchAST, 
 			                 List<OrderBy> orderByList,Integer limit, Integer skip, boolean shared) 
@@ -775,7 +782,7 @@ public final class JobsDao
 	    try
 	      {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          DSLContext db = DSL.using(conn);
 
@@ -841,6 +848,7 @@ public final class JobsDao
 	/*  all attributes                                                        */
 	/* ---------------------------------------------------------------------- */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@ReplicaRead
 	public List<Job> getJobSearchAllAttributesByUsername(String username, String tenant, List<String>searchList, 
 			List<OrderBy> orderByList,Integer limit, Integer skip, boolean shared) 
 	  throws TapisException
@@ -898,7 +906,7 @@ public final class JobsDao
 	    try
 	      {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          DSLContext db = DSL.using(conn);
 
@@ -960,6 +968,7 @@ public final class JobsDao
 	/*  all attributes                                                        */
 	/* ---------------------------------------------------------------------- */
 	@SuppressWarnings({ "rawtypes", "unchecked" })
+	@ReplicaRead
 	public List<Job> getJobSearchAllAttributesByUsernameUsingSqlSearchStr(String username, String tenant, ASTNode searchAST, 
 			List<OrderBy> orderByList,Integer limit, Integer skip, boolean shared) 
 	  throws TapisException
@@ -1021,7 +1030,7 @@ public final class JobsDao
 	    try
 	      {
 	          // Get a database connection.
-	          conn = getConnection();
+	          conn = getReplicaConnection();
 	          
 	          DSLContext db = DSL.using(conn);
 
@@ -1125,6 +1134,7 @@ public final class JobsDao
 	    Job result = null;
 
 	    // ------------------------- Call SQL ----------------------------
+	    long dbStart = System.nanoTime();
 	    Connection conn = null;
 	    try
 	      {
@@ -1135,8 +1145,10 @@ public final class JobsDao
 	          String sql = SqlStatements.SELECT_JOBS_BY_UUID;
 	          
 	          // Prepare the statement and fill in the placeholders.
+	          // The uuid is also used to look up the job's partition.
 	          PreparedStatement pstmt = conn.prepareStatement(sql);
 	          pstmt.setString(1, uuid);
+	          pstmt.setString(2, uuid);
 	                      
 	          // Issue the call for the 1 row result set.
 	          ResultSet rs = pstmt.executeQuery();
@@ -1159,6 +1171,9 @@ public final class JobsDao
 	          throw new JobException(msg, e);
 	      }
 	      finally {
+	          // Record the time spent accessing the database.
+	          JobMetrics.recordDbCall("getJobByUUID", dbStart);
+
 	          // Always return the connection back to the connection pool.
 	          try {if (conn != null) conn.close();}
 	            catch (Exception e) 
@@ -1282,116 +1297,228 @@ public final class JobsDao
 	        job.setCreated(now);
 	        job.setLastUpdated(now);
 		}
+		
+		// The creation time is the partition key, so we make sure the in-memory
+		// value exactly matches the value stored in the database.
+		job.setCreated(job.getCreated().truncatedTo(ChronoUnit.MICROS));
         
         // ------------------------- Check Input -------------------------
-        // Exceptions can be throw from here.
-        validateNewJob(job);
+        // Exceptions can be throw from here.  Asynchronously submitted jobs 
+        // are first recorded before their definitions have been resolved.
+        if (job.getStatus() == JobStatusType.PENDING_VALIDATION) validatePendingJob(job);
+          else validateNewJob(job);
 	
         // ------------------------- Call SQL ----------------------------
-        JobEvent jobEvent = null;
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
           // Get a database connection.
           conn = getConnection();
 
-          // Insert into the jobs table first.
-          // Create the command using table definition field order.
-          String sql = SqlStatements.CREATE_JOB;
-          
-          // Prepare the statement and fill in the placeholders.
-          // The fields that the DB defaults are not set.
-          PreparedStatement pstmt = conn.prepareStatement(sql);
-          pstmt.setString(1, job.getName());
-          pstmt.setString(2, job.getOwner());
-          pstmt.setString(3, job.getTenant());
-          pstmt.setString(4, job.getDescription());
-              
-          pstmt.setString(5, job.getStatus().name());
-              
-          pstmt.setString(6, job.getLastMessage());
-          pstmt.setTimestamp(7, Timestamp.from(job.getCreated()));
-          pstmt.setTimestamp(8, Timestamp.from(job.getLastUpdated()));
-              
-          pstmt.setString(9, job.getUuid());
-            
-          pstmt.setString(10, job.getAppId().trim());
-          pstmt.setString(11, job.getAppVersion().trim());
-          pstmt.setBoolean(12, job.isArchiveOnAppError());
-          pstmt.setBoolean(13, job.isDynamicExecSystem());
-              
-          pstmt.setString(14, job.getExecSystemId());           
-          pstmt.setString(15, job.getExecSystemExecDir());      // could be null
-          pstmt.setString(16, job.getExecSystemInputDir());     // could be null
-          pstmt.setString(17, job.getExecSystemOutputDir());    // could be null
-          pstmt.setString(18, job.getExecSystemLogicalQueue()); // could be null
-          
-          pstmt.setString(19, job.getArchiveSystemId());        // could be null
-          pstmt.setString(20, job.getArchiveSystemDir());       // could be null
-              
-          pstmt.setString(21, job.getDtnSystemId());            // could be null       
-          pstmt.setString(22, job.getDtnSystemInputDir());      // could be null
-          pstmt.setString(23, job.getDtnSystemOutputDir());     // could be null
+          // Record the job's uuid and partition key first since the 
+          // job_events and other tables reference the job_uuids table.
+          String sql = SqlStatements.CREATE_JOB_UUID;
+          PreparedStatement uuidStmt = conn.prepareStatement(sql);
+          uuidStmt.setString(1, job.getUuid());
+          uuidStmt.setTimestamp(2, Timestamp.from(job.getCreated()));
+          uuidStmt.executeUpdate();
+          uuidStmt.close();
           
-          pstmt.setInt(24, job.getNodeCount());
-          pstmt.setInt(25, job.getCoresPerNode());
-          pstmt.setInt(26, job.getMemoryMB());
-          pstmt.setInt(27, job.getMaxMinutes());
-              
-          pstmt.setString(28, job.getFileInputs());                 
-          pstmt.setString(29, job.getParameterSet());             
-          pstmt.setString(30, job.getExecSystemConstraints());                 
-          pstmt.setString(31, job.getSubscriptions());             
-
-          pstmt.setString(32, job.getTapisQueue());
-          pstmt.setString(33, job.getCreatedby());
-          pstmt.setString(34, job.getCreatedbyTenant());
-          
-          var tags = job.getTags();
-          Array tagsArray;
-          if (tags == null || tags.isEmpty()) 
-              tagsArray = conn.createArrayOf("text", new String[0]);
-            else {
-                String[] sarray = tags.toArray(new String[tags.size()]);
-                tagsArray = conn.createArrayOf("text", sarray);
-            }
-          pstmt.setArray(35, tagsArray);
-          pstmt.setString(36, job.getJobType().name());
+          // Insert into the jobs table next.
+          insertJob(conn, job);
           
-          // MPI and command prefix.
-          pstmt.setBoolean(37, job.isMpi());
-          pstmt.setString(38,  job.getMpiCmd());                // could be null
-          pstmt.setString(39,  job.getCmdPrefix());             // could be null
-          
-          // Shared application context.
-          pstmt.setString(40, job.getSharedAppCtx());
+          // Write the event table and issue the notification.
+          var eventMgr = JobEventManager.getInstance();
+          eventMgr.recordStatusEvent(job, job.getStatus(), null, conn);
+    
+          // Commit the transaction that may include changes to both tables.
+          conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+            
+            String msg = MsgUtils.getMsg("JOBS_JOB_CREATE_ERROR", job.getName(), 
+                                         job.getTenant(), job.getOwner(), e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("createJob", dbStart);
+
+            // Always return the connection back to the connection pool.
+            if (conn != null) 
+                try {conn.close();}
+                  catch (Exception e) 
+                  {
+                      // If commit worked, we can swallow the exception.  
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+	}
+		   
+    /* ---------------------------------------------------------------------- */
+    /* endPendingJob:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Move an asynchronously submitted job from PENDING_VALIDATION directly to
+     * a terminal status.  The update is conditioned on the job still pending 
+     * validation in the database, so a job whose submission completes first is
+     * left unchanged and false is returned.  The in-memory job is only updated
+     * when the database is.
+     * 
+     * @param job the job pending validation
+     * @param newStatus the terminal status
+     * @param message the status message to be saved in the job record
+     * @return true if the job's status changed, false if it's no longer pending validation
+     * @throws JobException on error
+     */
+    public boolean endPendingJob(Job job, JobStatusType newStatus, String message)
+      throws JobException
+    {
+        // ------------------------- Check Input -------------------------
+        if (job == null) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "endPendingJob", "job");
+            throw new JobException(msg);
+        }
+        if (newStatus == null || !newStatus.isTerminal()) {
+            String msg = MsgUtils.getMsg("JOBS_STATE_NO_TRANSITION", job.getUuid(), 
+                                         JobStatusType.PENDING_VALIDATION.name(), newStatus);
+            throw new JobException(msg);
+        }
+        if (StringUtils.isBlank(message)) 
+            message = "Setting job status to " + newStatus.name() + ".";
+        if (message.length() > Job.MAX_LAST_MESSAGE_LEN) 
+            message = message.substring(0, Job.MAX_LAST_MESSAGE_LEN - 1);
+        
+        // ------------------------- Call SQL ----------------------------
+        Instant now = Instant.now();
+        Timestamp ts = Timestamp.from(now);
+        long dbStart = System.nanoTime();
+        Connection conn = null;
+        try
+        {
+          // Get a database connection.
+          conn = getConnection();
+
+          // Change the status only if the job is still pending validation.
+          String sql = SqlStatements.UPDATE_PENDING_VALIDATION_JOB_STATUS;
+          PreparedStatement pstmt = conn.prepareStatement(sql);
+          pstmt.setString(1, newStatus.name());
+          pstmt.setString(2, message);
+          pstmt.setTimestamp(3, ts);
+          pstmt.setString(4, job.getTenant());
+          pstmt.setString(5, job.getUuid());
+          pstmt.setString(6, job.getUuid());
+          int rows = pstmt.executeUpdate();
+          pstmt.close();
+          if (rows != 1) {
+              conn.rollback();
+              return false;
+          }
           
-          // Shared application context attributes.
-          var attribs = job.getSharedAppCtxAttribs();
-          Array attribsArray;
-          if (attribs == null || attribs.isEmpty()) 
-              attribsArray = conn.createArrayOf("text", new String[0]);
-            else {
-                String[] sarray = new String[attribs.size()];
-                for (int i = 0; i < attribs.size(); i++) sarray[i] = attribs.get(i).name();
-                attribsArray = conn.createArrayOf("text", sarray);
-            }
-          pstmt.setArray(41, attribsArray);
-              
-          // Notes is non-null json.
-          pstmt.setString(42, job.getNotes());
+          // Record the end time and condition, then the status event.
+          updateEnded(conn, job, ts, newStatus);
+          var eventMgr = JobEventManager.getInstance();
+          eventMgr.recordStatusEvent(job, newStatus, JobStatusType.PENDING_VALIDATION, conn);
+    
+          // Commit the transaction.
+          conn.commit();
           
-          // Issue the call and clean up statement.
+          // Update the in-memory job object.
+          job.setStatus(newStatus);
+          job.setLastMessage(message);
+          job.setLastUpdated(now);
+          return true;
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+            
+            String msg = MsgUtils.getMsg("JOBS_JOB_SELECT_UUID_ERROR", job.getUuid(), 
+                                         job.getTenant(), job.getOwner(), e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("endPendingJob", dbStart);
+
+            // Always return the connection back to the connection pool.
+            if (conn != null) 
+                try {conn.close();}
+                  catch (Exception e) 
+                  {
+                      // If commit worked, we can swallow the exception.  
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* replacePendingJob:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Replace the placeholder record of an asynchronously submitted job with 
+     * the job's fully resolved definition.  The new record must have the same
+     * uuid and creation time as the placeholder, and its status becomes the 
+     * status of the job.  The replacement only occurs if the placeholder is 
+     * still in the PENDING_VALIDATION status, so jobs cancelled or failed 
+     * while their definitions were being resolved are never resurrected.
+     * 
+     * @param job the validated job 
+     * @return true if the job was replaced, false if it's no longer pending validation
+     * @throws TapisException on error
+     */
+    public boolean replacePendingJob(Job job)
+      throws TapisException
+    {
+        // ------------------------- Complete Input ----------------------
+        // The creation time must match the placeholder's partition key.
+        if (StringUtils.isBlank(job.getLastMessage())) job.setLastMessage(JOB_CREATE_MSG);
+        job.setCreated(job.getCreated().truncatedTo(ChronoUnit.MICROS));
+        
+        // ------------------------- Check Input -------------------------
+        validateNewJob(job);
+        
+        // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
+        Connection conn = null;
+        try
+        {
+          // Get a database connection.
+          conn = getConnection();
+
+          // Remove the placeholder, which must still be pending validation.
+          // The job_uuids record written with the placeholder is retained.
+          String sql = SqlStatements.DELETE_PENDING_VALIDATION_JOB;
+          PreparedStatement pstmt = conn.prepareStatement(sql);
+          pstmt.setString(1, job.getTenant());
+          pstmt.setString(2, job.getUuid());
+          pstmt.setString(3, job.getUuid());
           int rows = pstmt.executeUpdate();
-          if (rows != 1) _log.warn(MsgUtils.getMsg("DB_INSERT_UNEXPECTED_ROWS", "jobs", rows, 1));
           pstmt.close();
+          if (rows != 1) {
+              conn.rollback();
+              return false;
+          }
+          
+          // Insert the resolved job.
+          insertJob(conn, job);
           
           // Write the event table and issue the notification.
           var eventMgr = JobEventManager.getInstance();
-          eventMgr.recordStatusEvent(job, job.getStatus(), null, conn);
+          eventMgr.recordStatusEvent(job, job.getStatus(), JobStatusType.PENDING_VALIDATION, conn);
     
           // Commit the transaction that may include changes to both tables.
           conn.commit();
+          return true;
         }
         catch (Exception e)
         {
@@ -1404,6 +1531,9 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("replacePendingJob", dbStart);
+
             // Always return the connection back to the connection pool.
             if (conn != null) 
                 try {conn.close();}
@@ -1415,8 +1545,74 @@ public final class JobsDao
                       _log.error(msg, e);
                   }
         }
-	}
-		   
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getPendingValidationJobUuids:                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Get the uuids of the jobs that have been pending validation since before
+     * the specified time.  These jobs were accepted by asynchronous submissions
+     * whose processing was interrupted.
+     * 
+     * @param createdBefore the creation time limit
+     * @return the possibly empty list of job uuids
+     * @throws JobException on error
+     */
+    public List<String> getPendingValidationJobUuids(Instant createdBefore)
+      throws JobException
+    {
+        // ------------------------- Call SQL ----------------------------
+        var uuids = new ArrayList<String>();
+        long dbStart = System.nanoTime();
+        Connection conn = null;
+        try
+        {
+          // Get a database connection.
+          conn = getConnection();
+
+          // Prepare the statement and fill in the placeholders.
+          String sql = SqlStatements.SELECT_PENDING_VALIDATION_JOB_UUIDS;
+          PreparedStatement pstmt = conn.prepareStatement(sql);
+          pstmt.setTimestamp(1, Timestamp.from(createdBefore));
+          
+          // Collect the results.
+          ResultSet rs = pstmt.executeQuery();
+          while (rs.next()) uuids.add(rs.getString(1));
+          rs.close();
+          pstmt.close();
+    
+          // Commit the transaction.
+          conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+            
+            String msg = MsgUtils.getMsg("DB_SELECT_UUID_ERROR", "Jobs", "pending validation", 
+                                         e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("getPendingValidationJobUuids", dbStart);
+
+            // Always return the connection back to the connection pool.
+            if (conn != null) 
+                try {conn.close();}
+                  catch (Exception e) 
+                  {
+                      // If commit worked, we can swallow the exception.  
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+        
+        return uuids;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getStatusByUUID:                                                       */
     /* ---------------------------------------------------------------------- */
@@ -1752,6 +1948,7 @@ public final class JobsDao
         var now = Instant.now();
 
         // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
@@ -1818,6 +2015,9 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("updateTransferValue", dbStart);
+
             // Always return the connection back to the connection pool.
             if (conn != null) 
                 try {conn.close();}
@@ -2042,6 +2242,80 @@ public final class JobsDao
         return countActiveJobs(tenantId, systemId, null, logicalQueue, pendingActive);
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* countAllActiveJobs:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Retrieve the number of jobs in active state across all tenants and 
+     * systems.  Pending jobs are considered active since they are waiting
+     * for a worker.
+     * 
+     * @return the number of tapis jobs that have not reached a terminal state
+     * @throws JobException 
+     */
+    public int countAllActiveJobs() 
+     throws JobException
+    {
+        // Substitute the comma-separated non-active 
+        // status list for the placeholder text.
+        String sql = SqlStatements.COUNT_ACTIVE_JOBS.replace(":statusList", 
+                                                             _nonActiveWithoutPendingJobStatuses);
+        
+        // The result.
+        int count = 0;
+        
+        // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
+        Connection conn = null;
+        try
+        {
+            // Get a database connection.
+            conn = getConnection();
+            
+            // Active jobs only reside in hot partitions, so restricting 
+            // the creation time lets postgres skip all cold partitions.
+            PreparedStatement pstmt = conn.prepareStatement(sql);
+            pstmt.setTimestamp(1, Timestamp.from(JobPartitionsDao.getHotBoundary(JOBS_TABLENAME)));
+                        
+            // Issue the call for the 1 row result set.
+            ResultSet rs = pstmt.executeQuery();
+            if (rs.next()) count = rs.getInt(1);
+            
+            // Close the result and statement.
+            rs.close();
+            pstmt.close();
+      
+            // Commit the transaction.
+            conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+            
+            String msg = MsgUtils.getMsg("JOBS_COUNT_ACTIVE_JOBS", e.getMessage());
+            _log.error(msg, e);
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("countAllActiveJobs", dbStart);
+
+            // Always return the connection back to the connection pool.
+            if (conn != null) 
+                try {conn.close();}
+                  catch (Exception e) 
+                  {
+                      // If commit worked, we can swallow the exception.  
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+        
+        return count;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* countActiveSystemUserQueueJobs:                                        */
     /* ---------------------------------------------------------------------- */
@@ -2256,6 +2530,7 @@ public final class JobsDao
         }
         
         // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
@@ -2307,6 +2582,93 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("incrementRemoteStatusCheck", dbStart);
+
+            // Always return the connection back to the connection pool.
+            if (conn != null) 
+                try {conn.close();}
+                  catch (Exception e) 
+                  {
+                      // If commit worked, we can swallow the exception.  
+                      // If not, the commit exception will be thrown.
+                      String msg = MsgUtils.getMsg("DB_FAILED_CONNECTION_CLOSE");
+                      _log.error(msg, e);
+                  }
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* addRemoteStatusChecks:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Add the accumulated status check counts of any number of jobs to their
+     * database records in a single statement.  Unlike incrementRemoteStatusCheck(),
+     * the in-memory jobs have already been updated by the caller.  Records of 
+     * jobs that no longer exist are silently skipped.
+     * 
+     * @param checks the non-null counts to be applied, at most one per job
+     * @return the number of job records updated
+     * @throws JobException on error
+     */
+    public int addRemoteStatusChecks(List<StatusCheckDelta> checks)
+     throws JobException
+    {
+        // ------------------------- Check Input -------------------------
+        if (checks.isEmpty()) return 0;
+        
+        // Unpack the counts into arrays ordered by job id so that concurrent
+        // batches lock rows in the same order.
+        var sorted = StatusCheckDelta.sortByJobId(checks);
+        int size = sorted.size();
+        var ids       = new Integer[size];
+        var created   = new Timestamp[size];
+        var successes = new Integer[size];
+        var failures  = new Integer[size];
+        var checked   = new Timestamp[size];
+        for (int i = 0; i < size; i++) {
+            var delta = sorted.get(i);
+            ids[i] = delta.jobId;
+            created[i] = Timestamp.from(delta.created);
+            successes[i] = delta.success;
+            failures[i] = delta.failed;
+            checked[i] = Timestamp.from(delta.lastCheck);
+        }
+        
+        // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
+        int rows = 0;
+        Connection conn = null;
+        try
+        {
+          // Get a database connection.
+          conn = getConnection();
+          
+          // Prepare and issue the statement.
+          PreparedStatement pstmt = conn.prepareStatement(SqlStatements.UPDATE_STATUS_CHECKS_BATCH);
+          pstmt.setArray(1, conn.createArrayOf("integer", ids));
+          pstmt.setArray(2, conn.createArrayOf("timestamp", created));
+          pstmt.setArray(3, conn.createArrayOf("integer", successes));
+          pstmt.setArray(4, conn.createArrayOf("integer", failures));
+          pstmt.setArray(5, conn.createArrayOf("timestamp", checked));
+          rows = pstmt.executeUpdate();
+          pstmt.close();
+        
+          // Commit the transaction.
+          conn.commit();
+        }
+        catch (Exception e)
+        {
+            // Rollback transaction.
+            try {if (conn != null) conn.rollback();}
+                catch (Exception e1){_log.error(MsgUtils.getMsg("DB_FAILED_ROLLBACK"), e1);}
+            
+            String msg = MsgUtils.getMsg("JOBS_STATUS_CHECK_BATCH_ERROR", size, e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("addRemoteStatusChecks", dbStart);
+
             // Always return the connection back to the connection pool.
             if (conn != null) 
                 try {conn.close();}
@@ -2318,6 +2680,8 @@ public final class JobsDao
                       _log.error(msg, e);
                   }
         }
+        
+        return rows;
     }
     
     /* ---------------------------------------------------------------------- */
@@ -2349,6 +2713,7 @@ public final class JobsDao
         }
         
         // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
@@ -2400,6 +2765,9 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("setRemoteOutcome", dbStart);
+
             // Always return the connection back to the connection pool.
             if (conn != null) 
                 try {conn.close();}
@@ -2544,6 +2912,7 @@ public final class JobsDao
         if (updateTime == null) updateTime = Instant.now();
         
         // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
@@ -2558,6 +2927,7 @@ public final class JobsDao
             PreparedStatement pstmt = conn.prepareStatement(sql);
             pstmt.setString(1, job.getTenant());
             pstmt.setString(2, job.getUuid());
+            pstmt.setString(3, job.getUuid());
             
             // Issue the call for the 1 row, 1 field result set.
             ResultSet rs = pstmt.executeQuery();
@@ -2605,6 +2975,7 @@ public final class JobsDao
             pstmt.setInt(4, blockedIncrement);
             pstmt.setString(5, job.getTenant());
             pstmt.setString(6, job.getUuid());
+            pstmt.setString(7, job.getUuid());
             
             // Issue the call.
             int rows = pstmt.executeUpdate();
@@ -2654,6 +3025,9 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("setStatus", dbStart);
+
             // Conditionally return the connection back to the connection pool.
             if (commit && (conn != null)) 
                 try {conn.close();}
@@ -2696,6 +3070,7 @@ public final class JobsDao
         PreparedStatement pstmt = conn.prepareStatement(sql);
         pstmt.setTimestamp(1, ts);
         pstmt.setString(2, job.getUuid());
+        pstmt.setString(3, job.getUuid());
             
         // Issue the call.
         int rows = pstmt.executeUpdate();
@@ -2729,6 +3104,7 @@ public final class JobsDao
         PreparedStatement pstmt = conn.prepareStatement(sql);
         pstmt.setTimestamp(1, ts);
         pstmt.setString(2, job.getUuid());
+        pstmt.setString(3, job.getUuid());
             
         // Issue the call.
         int rows = pstmt.executeUpdate();
@@ -2783,6 +3159,7 @@ public final class JobsDao
         pstmt.setTimestamp(1, ts);
         pstmt.setString(2, job.getCondition().name());
         pstmt.setString(3, job.getUuid());
+        pstmt.setString(4, job.getUuid());
             
         // Issue the call.
         int rows = pstmt.executeUpdate();
@@ -2848,6 +3225,7 @@ public final class JobsDao
         int count = 0;
         
         // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
@@ -2860,13 +3238,19 @@ public final class JobsDao
             pstmt.setString(2, systemId);
             
             // Conditional value assignments.
+            int nextIndex = 3;
             if (queryCase == 1) {/* do nothing */}
-            else if (queryCase == 2) pstmt.setString(3, owner);
-            else if (queryCase == 3) pstmt.setString(3, logicalQueue);
+            else if (queryCase == 2) pstmt.setString(nextIndex++, owner);
+            else if (queryCase == 3) pstmt.setString(nextIndex++, logicalQueue);
             else if (queryCase == 4) {
-                pstmt.setString(3, owner);
-                pstmt.setString(4, logicalQueue);
+                pstmt.setString(nextIndex++, owner);
+                pstmt.setString(nextIndex++, logicalQueue);
             }
+            
+            // Active jobs only reside in hot partitions, so restricting 
+            // the creation time lets postgres skip all cold partitions.
+            pstmt.setTimestamp(nextIndex, 
+                Timestamp.from(JobPartitionsDao.getHotBoundary(JOBS_TABLENAME)));
                         
             // Issue the call for the 1 row result set.
             ResultSet rs = pstmt.executeQuery();
@@ -2893,6 +3277,9 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("countActiveJobs", dbStart);
+
             // Always return the connection back to the connection pool.
             if (conn != null) 
                 try {conn.close();}
@@ -2928,6 +3315,7 @@ public final class JobsDao
         var now = Instant.now();
 
         // ------------------------- Call SQL ----------------------------
+        long dbStart = System.nanoTime();
         Connection conn = null;
         try
         {
@@ -2977,6 +3365,9 @@ public final class JobsDao
             throw new JobException(msg, e);
         }
         finally {
+            // Record the time spent accessing the database.
+            JobMetrics.recordDbCall("setRemoteJobId", dbStart);
+
             // Always return the connection back to the connection pool.
             if (conn != null) 
                 try {conn.close();}
@@ -2990,6 +3381,144 @@ public final class JobsDao
         }
     }
 
+	/* ---------------------------------------------------------------------- */
+	/* insertJob:                                                             */
+	/* ---------------------------------------------------------------------- */
+	/** Insert the job record using the caller's connection and transaction.
+	 * 
+	 * @param conn the connection with an in-progress transaction
+	 * @param job the job to insert
+	 * @throws SQLException on error
+	 */
+	private void insertJob(Connection conn, Job job) throws SQLException
+	{
+        // Create the command using table definition field order.
+        String sql = SqlStatements.CREATE_JOB;
+        
+        // Prepare the statement and fill in the placeholders.
+        // The fields that the DB defaults are not set.
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        pstmt.setString(1, job.getName());
+        pstmt.setString(2, job.getOwner());
+        pstmt.setString(3, job.getTenant());
+        pstmt.setString(4, job.getDescription());
+            
+        pstmt.setString(5, job.getStatus().name());
+            
+        pstmt.setString(6, job.getLastMessage());
+        pstmt.setTimestamp(7, Timestamp.from(job.getCreated()));
+        pstmt.setTimestamp(8, Timestamp.from(job.getLastUpdated()));
+            
+        pstmt.setString(9, job.getUuid());
+          
+        pstmt.setString(10, job.getAppId().trim());
+        pstmt.setString(11, job.getAppVersion().trim());
+        pstmt.setBoolean(12, job.isArchiveOnAppError());
+        pstmt.setBoolean(13, job.isDynamicExecSystem());
+            
+        pstmt.setString(14, job.getExecSystemId());           
+        pstmt.setString(15, job.getExecSystemExecDir());      // could be null
+        pstmt.setString(16, job.getExecSystemInputDir());     // could be null
+        pstmt.setString(17, job.getExecSystemOutputDir());    // could be null
+        pstmt.setString(18, job.getExecSystemLogicalQueue()); // could be null
+        
+        pstmt.setString(19, job.getArchiveSystemId());        // could be null
+        pstmt.setString(20, job.getArchiveSystemDir());       // could be null
+            
+        pstmt.setString(21, job.getDtnSystemId());            // could be null       
+        pstmt.setString(22, job.getDtnSystemInputDir());      // could be null
+        pstmt.setString(23, job.getDtnSystemOutputDir());     // could be null
+        
+        pstmt.setInt(24, job.getNodeCount());
+        pstmt.setInt(25, job.getCoresPerNode());
+        pstmt.setInt(26, job.getMemoryMB());
+        pstmt.setInt(27, job.getMaxMinutes());
+            
+        pstmt.setString(28, job.getFileInputs());                 
+        pstmt.setString(29, job.getParameterSet());             
+        pstmt.setString(30, job.getExecSystemConstraints());                 
+        pstmt.setString(31, job.getSubscriptions());             
+
+        pstmt.setString(32, job.getTapisQueue());
+        pstmt.setString(33, job.getCreatedby());
+        pstmt.setString(34, job.getCreatedbyTenant());
+        
+        var tags = job.getTags();
+        Array tagsArray;
+        if (tags == null || tags.isEmpty()) 
+            tagsArray = conn.createArrayOf("text", new String[0]);
+          else {
+              String[] sarray = tags.toArray(new String[tags.size()]);
+              tagsArray = conn.createArrayOf("text", sarray);
+          }
+        pstmt.setArray(35, tagsArray);
+        pstmt.setString(36, job.getJobType().name());
+        
+        // MPI and command prefix.
+        pstmt.setBoolean(37, job.isMpi());
+        pstmt.setString(38,  job.getMpiCmd());                // could be null
+        pstmt.setString(39,  job.getCmdPrefix());             // could be null
+        
+        // Shared application context.
+        pstmt.setString(40, job.getSharedAppCtx());
+        
+        // Shared application context attributes.
+        var attribs = job.getSharedAppCtxAttribs();
+        Array attribsArray;
+        if (attribs == null || attribs.isEmpty()) 
+            attribsArray = conn.createArrayOf("text", new String[0]);
+          else {
+              String[] sarray = new String[attribs.size()];
+              for (int i = 0; i < attribs.size(); i++) sarray[i] = attribs.get(i).name();
+              attribsArray = conn.createArrayOf("text", sarray);
+          }
+        pstmt.setArray(41, attribsArray);
+            
+        // Notes is non-null json.
+        pstmt.setString(42, job.getNotes());
+        
+        // Issue the call and clean up statement.
+        int rows = pstmt.executeUpdate();
+        if (rows != 1) _log.warn(MsgUtils.getMsg("DB_INSERT_UNEXPECTED_ROWS", "jobs", rows, 1));
+        pstmt.close();
+	}
+	
+	/* ---------------------------------------------------------------------- */
+	/* validatePendingJob:                                                    */
+	/* ---------------------------------------------------------------------- */
+	/** Validate a job accepted by an asynchronous submission.  Only the fields
+	 * known before the job's definition is resolved are required, the others
+	 * must contain non-null placeholder values.
+	 * 
+	 * @param job the job pending validation
+	 * @throws TapisException if a required field is missing
+	 */
+	private void validatePendingJob(Job job) throws TapisException
+	{
+		// Check the fields known when the submission is accepted.
+		String missing = null;
+		if (StringUtils.isBlank(job.getName())) missing = "name";
+		else if (StringUtils.isBlank(job.getOwner())) missing = "owner";
+		else if (StringUtils.isBlank(job.getTenant())) missing = "tenant";
+		else if (StringUtils.isBlank(job.getUuid())) missing = "uuid";
+		else if (StringUtils.isBlank(job.getAppId())) missing = "appId";
+		else if (StringUtils.isBlank(job.getAppVersion())) missing = "appVersion";
+		else if (job.getJobType() == null) missing = "jobType";
+		else if (StringUtils.isBlank(job.getCreatedby())) missing = "createdby";
+		else if (StringUtils.isBlank(job.getCreatedbyTenant())) missing = "createdbyTenant";
+		
+		// The placeholders of unresolved fields cannot be null.
+		else if (job.getDescription() == null) missing = "description";
+		else if (job.getExecSystemId() == null) missing = "execSystemId";
+		else if (job.getArchiveSystemId() == null) missing = "archiveSystemId";
+		else if (job.getTapisQueue() == null) missing = "tapisQueue";
+		
+		if (missing != null) {
+	          String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "validatePendingJob", missing);
+	          throw new TapisException(msg);
+		}
+	}
+	
 	/* ---------------------------------------------------------------------- */
 	/* validateNewJob:                                                        */
 	/* ---------------------------------------------------------------------- */
@@ -3645,6 +4174,43 @@ public final class JobsDao
         public String dtnOutputCorrelationId;
     }
 
+    /* ********************************************************************** */
+    /*                         StatusCheckDelta class                         */
+    /* ********************************************************************** */
+    // The status check counts accumulated for a job since they were last written.
+    public static final class StatusCheckDelta
+    {
+        public final int     jobId;
+        public final Instant created;   // partition key
+        public final int     success;
+        public final int     failed;
+        public final Instant lastCheck;
+        
+        public StatusCheckDelta(int jobId, Instant created, int success, int failed, Instant lastCheck)
+        {
+            this.jobId = jobId;
+            this.created = created;
+            this.success = success;
+            this.failed = failed;
+            this.lastCheck = lastCheck;
+        }
+        
+        // Combine two deltas for the same job.
+        public StatusCheckDelta add(StatusCheckDelta other)
+        {
+            Instant last = lastCheck.isAfter(other.lastCheck) ? lastCheck : other.lastCheck;
+            return new StatusCheckDelta(jobId, created, success + other.success, failed + other.failed, last);
+        }
+        
+        // Copy the deltas in the order that batch updates lock job rows.
+        public static List<StatusCheckDelta> sortByJobId(List<StatusCheckDelta> deltas)
+        {
+            var sorted = new ArrayList<StatusCheckDelta>(deltas);
+            sorted.sort((a, b) -> Integer.compare(a.jobId, b.jobId));
+            return sorted;
+        }
+    }
+
     /* ********************************************************************** */
     /*                           JobNameOwner class                           */
     /* ********************************************************************** */
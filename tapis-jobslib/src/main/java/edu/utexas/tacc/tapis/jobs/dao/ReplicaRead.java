@@ -0,0 +1,26 @@
+package edu.utexas.tacc.tapis.jobs.dao;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/** Marker for DAO methods that are read-only, do not participate in a caller's
+ * transaction and can tolerate bounded staleness.  Such methods acquire their
+ * connection with AbstractDao.getReplicaConnection(), which routes the query to
+ * the read replica when one is configured and is current enough, and to the 
+ * primary otherwise.
+ * 
+ * Do not place this annotation on methods whose results are subsequently used
+ * to write to the database or that require read-your-writes consistency, such
+ * as the lookups performed by workers when processing jobs. 
+ * 
+ * @author rcardone
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ReplicaRead 
+{
+}
@@ -2,11 +2,28 @@ package edu.utexas.tacc.tapis.jobs.dao.sql;
 
 public class SqlStatements 
 {
+    /* ---------------------------------------------------------------------- */
+    /* partitioning:                                                          */
+    /* ---------------------------------------------------------------------- */
+    // The jobs and job_events tables are range partitioned on their created
+    // columns.  Appending this subquery to a uuid predicate lets postgres prune
+    // all but the one jobs partition that contains the job.  The subquery takes
+    // the job uuid as its single placeholder.
+    private static final String JOB_PARTITION_KEY = 
+        "(SELECT created FROM job_uuids WHERE uuid = ?)";
+    
 	/* ---------------------------------------------------------------------- */
 	/* any table:                                                             */
 	/* ---------------------------------------------------------------------- */
 	public static final String SELECT_1 = "SELECT 1 FROM :table LIMIT 1";    
 
+	// Replay lag in seconds on a streaming replica, zero on a primary or a 
+	// replica that has replayed everything it has received.
+	public static final String SELECT_REPLICA_LAG_SECONDS =
+	    "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 "
+	        + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+	        + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
 	/* ---------------------------------------------------------------------- */
 	/* jobs table:                                                            */
 	/* ---------------------------------------------------------------------- */
@@ -57,7 +74,7 @@ public class SqlStatements
         	+ "dtn_in_transaction_id, dtn_in_correlation_id, dtn_out_transaction_id, dtn_out_correlation_id,"
         	+ "condition "
             + "FROM jobs "
-            + "WHERE uuid = ?";
+            + "WHERE uuid = ? AND created = " + JOB_PARTITION_KEY;
         
     public static final String SELECT_JOBS_BY_USERNAME =
         "SELECT uuid, tenant, name, owner, status, condition, "
@@ -108,21 +125,43 @@ public class SqlStatements
     		+ "?, ?, ?, ?, ?, "
     		+ "?::json)"; 
 
+    public static final String CREATE_JOB_UUID =
+        "INSERT INTO job_uuids (uuid, created) VALUES (?, ?)";
+    
+    // Remove the placeholder record of an asynchronously submitted job so that 
+    // the job's resolved definition can be inserted in the same transaction.
+    public static final String DELETE_PENDING_VALIDATION_JOB =
+        "DELETE FROM jobs WHERE tenant = ? AND uuid = ? AND created = " + JOB_PARTITION_KEY
+        + " AND status = 'PENDING_VALIDATION'";
+    
+    // End an asynchronously submitted job only if it's still pending validation.
+    public static final String UPDATE_PENDING_VALIDATION_JOB_STATUS =
+        "UPDATE jobs SET status = ?::job_status_enum, last_message = ?, last_updated = ?"
+        + " WHERE tenant = ? AND uuid = ? AND created = " + JOB_PARTITION_KEY
+        + " AND status = 'PENDING_VALIDATION'";
+    
+    public static final String SELECT_PENDING_VALIDATION_JOB_UUIDS =
+        "SELECT uuid FROM jobs WHERE status = 'PENDING_VALIDATION' AND created < ?";
+    
     public static final String SELECT_JOB_STATUS_FOR_UPDATE = 
-        "SELECT status FROM jobs WHERE tenant = ? AND uuid = ? FOR UPDATE";
+        "SELECT status FROM jobs WHERE tenant = ? AND uuid = ? AND created = " + JOB_PARTITION_KEY 
+        + " FOR UPDATE";
     
     public static final String UPDATE_JOB_STATUS =
         "UPDATE jobs SET status = ?::job_status_enum, last_message = ?, last_updated = ?, blocked_count = blocked_count + ?"
-        + " WHERE tenant = ? AND uuid = ?";
+        + " WHERE tenant = ? AND uuid = ? AND created = " + JOB_PARTITION_KEY;
     
     public static final String UPDATE_JOB_ENDED =
-        "UPDATE jobs SET ended = ?, condition = ? WHERE ended IS NULL AND uuid = ?";
+        "UPDATE jobs SET ended = ?, condition = ? WHERE ended IS NULL AND uuid = ?"
+        + " AND created = " + JOB_PARTITION_KEY;
       
     public static final String UPDATE_REMOTE_STARTED = 
-        "UPDATE jobs SET remote_started = ? WHERE remote_started IS NULL AND uuid = ?";
+        "UPDATE jobs SET remote_started = ? WHERE remote_started IS NULL AND uuid = ?"
+        + " AND created = " + JOB_PARTITION_KEY;
     
     public static final String UPDATE_REMOTE_SUBMITTED = 
-            "UPDATE jobs SET remote_submitted = ? WHERE remote_submitted IS NULL AND uuid = ?";
+            "UPDATE jobs SET remote_submitted = ? WHERE remote_submitted IS NULL AND uuid = ?"
+            + " AND created = " + JOB_PARTITION_KEY;
         
     public static final String UPDATE_JOB_LAST_MESSAGE =
         "UPDATE jobs SET last_message = ?, last_updated = ?"
@@ -131,22 +170,26 @@ public class SqlStatements
     public static final String COUNT_ACTIVE_SYSTEM_JOBS = 
         "SELECT count(*) FROM jobs"
         + " WHERE tenant = ? AND exec_system_id = ?"
-        + " AND status NOT IN (:statusList)";
+        + " AND status NOT IN (:statusList) AND created >= ?";
 
     public static final String COUNT_ACTIVE_SYSTEM_USER_JOBS = 
         "SELECT count(*) FROM jobs"
         + " WHERE tenant = ? AND exec_system_id = ? AND owner = ?"
-        + " AND status NOT IN (:statusList)";
+        + " AND status NOT IN (:statusList) AND created >= ?";
 
     public static final String COUNT_ACTIVE_SYSTEM_QUEUE_JOBS = 
         "SELECT count(*) FROM jobs"
         + " WHERE tenant = ? AND exec_system_id = ? AND exec_system_logical_queue = ?"
-        + " AND status NOT IN (:statusList)";
+        + " AND status NOT IN (:statusList) AND created >= ?";
 
     public static final String COUNT_ACTIVE_SYSTEM_USER_QUEUE_JOBS = 
         "SELECT count(*) FROM jobs"
         + " WHERE tenant = ? AND exec_system_id = ? AND owner = ? AND exec_system_logical_queue = ?"
-        + " AND status NOT IN (:statusList)";
+        + " AND status NOT IN (:statusList) AND created >= ?";
+
+    public static final String COUNT_ACTIVE_JOBS = 
+        "SELECT count(*) FROM jobs"
+        + " WHERE status NOT IN (:statusList) AND created >= ?";
     
     public static final String UPDATE_INPUT_TRANSFER_ID = 
         "UPDATE jobs SET last_updated = ?, input_transaction_id = ? WHERE id = ? AND tenant = ?";
@@ -190,6 +233,17 @@ public class SqlStatements
     public static final String UPDATE_FAILED_STATUS_CHECKS =
         "UPDATE jobs SET remote_checks_failed = remote_checks_failed + ?, last_updated = ?, remote_last_status_check = ? WHERE id = ?";
 
+    // Apply the accumulated status check counts of many jobs in one statement.  
+    // The arrays are the job ids, success and failure increments, and the last 
+    // check times.  GREATEST ignores nulls and never moves a timestamp back.
+    public static final String UPDATE_STATUS_CHECKS_BATCH =
+        "UPDATE jobs AS j SET remote_checks_success = j.remote_checks_success + v.success, "
+        + "remote_checks_failed = j.remote_checks_failed + v.failed, "
+        + "last_updated = GREATEST(j.last_updated, v.checked), "
+        + "remote_last_status_check = GREATEST(j.remote_last_status_check, v.checked) "
+        + "FROM unnest(?::integer[], ?::timestamp[], ?::integer[], ?::integer[], ?::timestamp[]) "
+        + "AS v(id, created, success, failed, checked) WHERE j.id = v.id AND j.created = v.created";
+
     public static final String UPDATE_REMOTE_JOB_ID = 
         "UPDATE jobs SET last_updated = ?, remote_job_id = ? WHERE id = ? AND tenant = ?";
     
@@ -210,18 +264,47 @@ public class SqlStatements
     /* ---------------------------------------------------------------------- */
 	/* job_resubmit table:                                                    */
 	/* ---------------------------------------------------------------------- */
+    // Requests are stored in job_resubmit_blobs and referenced by hash.  Rows 
+    // written before migration V024 that haven't been converted yet only have
+    // their inline job_definition, which is null for all other rows.
     public static final String SELECT_JOBRESUBMIT =
-        "SELECT id, job_uuid, job_definition"
-        + " FROM job_resubmit ORDER BY id";
+        "SELECT r.id, r.job_uuid, r.job_definition, b.codec, b.length, b.content"
+        + " FROM job_resubmit r"
+        + " LEFT JOIN job_resubmit_blobs b ON b.hash = r.definition_hash"
+        + " ORDER BY r.id";
     
     public static final String SELECT_JOBRESUBMIT_BY_UUID =
-        "SELECT id, job_uuid, job_definition"
-        + " FROM job_resubmit"
-        + " WHERE job_uuid = ?";
+        "SELECT r.id, r.job_uuid, r.job_definition, b.codec, b.length, b.content"
+        + " FROM job_resubmit r"
+        + " LEFT JOIN job_resubmit_blobs b ON b.hash = r.definition_hash"
+        + " WHERE r.job_uuid = ?";
         
     public static final String CREATE_JOBRESUBMIT =
-        "INSERT INTO job_resubmit (job_uuid, job_definition) "
+        "INSERT INTO job_resubmit (job_uuid, definition_hash) "
         + "VALUES (?, ?)";
+    
+    // Identical requests share one blob.  Reusing a blob refreshes its last 
+    // use time, which also locks it against the unreferenced blob sweep.
+    public static final String CREATE_JOBRESUBMIT_BLOB =
+        "INSERT INTO job_resubmit_blobs (hash, codec, length, content) "
+        + "VALUES (?, ?, ?, ?) ON CONFLICT (hash) DO UPDATE"
+        + " SET last_used = timezone('utc', clock_timestamp())";
+    
+    // Rows written before migration V024 are converted in batches.
+    public static final String SELECT_UNCONVERTED_JOBRESUBMIT =
+        "SELECT id, job_definition FROM job_resubmit"
+        + " WHERE definition_hash IS NULL ORDER BY id LIMIT ?"
+        + " FOR UPDATE SKIP LOCKED";
+    
+    // The inline request is cleared once the blob references it.
+    public static final String UPDATE_JOBRESUBMIT_HASH =
+        "UPDATE job_resubmit SET definition_hash = ?, job_definition = NULL WHERE id = ?";
+    
+    // Remove blobs that no row references and that haven't been used recently.
+    public static final String DELETE_UNREFERENCED_JOBRESUBMIT_BLOBS =
+        "DELETE FROM job_resubmit_blobs b"
+        + " WHERE b.last_used < timezone('utc', clock_timestamp()) - ?::integer * interval '1 hour'"
+        + " AND NOT EXISTS (SELECT 1 FROM job_resubmit r WHERE r.definition_hash = b.hash)";
         
     /* ---------------------------------------------------------------------- */
     /* job_recovery table:                                                    */
@@ -273,21 +356,26 @@ public class SqlStatements
     public static final String SELECT_JOBBLOCKED =
             "SELECT id, recovery_id, created, success_status, job_uuid, status_message"
             + " FROM job_blocked ORDER BY id";
+
+    public static final String COUNT_BLOCKED_JOBS = "SELECT count(*) FROM job_blocked";
     
     /* ---------------------------------------------------------------------- */
     /* job_queues table:                                                      */
     /* ---------------------------------------------------------------------- */
     public static final String SELECT_JOBQUEUES_BY_PRIORITY_DESC =
-        "SELECT id, name, priority, filter, uuid, created, last_updated"
+        "SELECT id, name, priority, filter, uuid, created, last_updated, tenant_weights"
         + " FROM job_queues ORDER BY priority desc";
 
     public static final String SELECT_JOBQUEUE_BY_NAME =
-            "SELECT id, name, priority, filter, uuid, created, last_updated"
+            "SELECT id, name, priority, filter, uuid, created, last_updated, tenant_weights"
             + " FROM job_queues WHERE name = ?";
 
     public static final String CREATE_JOBQUEUE =
-            "INSERT into job_queues (name, priority, filter, uuid, created, last_updated)"
-            + " VALUES (?, ?, ?, ?, ?, ?)";
+            "INSERT into job_queues (name, priority, filter, uuid, created, last_updated, tenant_weights)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    public static final String UPDATE_JOBQUEUE_TENANT_WEIGHTS =
+            "UPDATE job_queues SET tenant_weights = ?, last_updated = ? WHERE name = ?";
 
     /* ---------------------------------------------------------------------- */
     /* job_events table:                                                      */
@@ -302,8 +390,147 @@ public class SqlStatements
     public static final String SELECT_JOBEVENTS_BY_JOB_UUID =
             "SELECT id, event, created, job_uuid, event_detail, oth_uuid, description, tenant"
             + " FROM job_events "
-            + " WHERE job_uuid = ? "		
+            + " WHERE job_uuid = ? AND created >= " + JOB_PARTITION_KEY		
             + " ORDER BY id  LIMIT ? OFFSET ?";
     
+    /* ---------------------------------------------------------------------- */
+    /* job_partitions table:                                                  */
+    /* ---------------------------------------------------------------------- */
+    // Active jobs only reside in HOT partitions, so the start of the oldest hot
+    // partition is a safe lower bound on the creation time of any active job.
+    public static final String SELECT_HOT_PARTITION_BOUNDARY =
+        "SELECT min(range_start) FROM job_partitions WHERE table_name = ? AND tier = 'HOT'";
+    
+    public static final String CREATE_MONTH_PARTITION =
+        "SELECT job_create_month_partition(?, ?)";
+    
+    public static final String SELECT_AGED_HOT_PARTITIONS =
+        "SELECT partition_name, table_name, range_start, range_end, tier"
+        + " FROM job_partitions WHERE table_name = ? AND tier = 'HOT' AND range_end <= ?"
+        + " ORDER BY range_start";
+    
+    // The partition name placeholder is replaced with a name read from job_partitions.
+    public static final String COUNT_PARTITION_NONTERMINAL_JOBS =
+        "SELECT count(*) FROM :partition WHERE status NOT IN (:statusList)";
+    
+    public static final String UPDATE_PARTITION_TIER =
+        "UPDATE job_partitions SET tier = ?, last_updated = ? WHERE partition_name = ?";
+    
+    public static final String SET_PARTITION_TABLESPACE =
+        "ALTER TABLE :partition SET TABLESPACE :tablespace";
+    
+    // Cold partitions whose storage has not been moved to the cold tablespace.
+    public static final String SELECT_UNMOVED_COLD_PARTITIONS =
+        "SELECT p.partition_name FROM job_partitions p"
+        + " JOIN pg_class c ON c.oid = to_regclass(p.partition_name)"
+        + " LEFT JOIN pg_tablespace t ON t.oid = c.reltablespace"
+        + " WHERE p.tier = 'COLD' AND (t.spcname IS NULL OR t.spcname <> ?)"
+        + " ORDER BY p.range_start";
+    
+    // Serializes partition maintenance across all worker processes.
+    public static final String TRY_PARTITION_MAINTENANCE_LOCK =
+        "SELECT pg_try_advisory_xact_lock(?)";
+    
+    /* ---------------------------------------------------------------------- */
+    /* job_launch_throttles:                                                  */
+    /* ---------------------------------------------------------------------- */
+    // New hosts start with a full bucket.
+    public static final String CREATE_LAUNCH_THROTTLE =
+        "INSERT INTO job_launch_throttles (host, tokens, last_refill)"
+        + " VALUES (?, ?, timezone('utc', clock_timestamp())) ON CONFLICT (host) DO NOTHING";
+    
+    // The row lock serializes launch reservations for a host across all workers.
+    // The database clock is used so that worker clock skew doesn't matter.
+    public static final String SELECT_LAUNCH_THROTTLE_FOR_UPDATE =
+        "SELECT t.tokens, EXTRACT(EPOCH FROM (c.now - t.last_refill)), c.now"
+        + " FROM job_launch_throttles t, (SELECT timezone('utc', clock_timestamp()) AS now) c"
+        + " WHERE t.host = ? FOR UPDATE OF t";
+    
+    public static final String UPDATE_LAUNCH_THROTTLE =
+        "UPDATE job_launch_throttles SET tokens = ?, last_refill = ? WHERE host = ?";
+    
+    /* ---------------------------------------------------------------------- */
+    /* job_recovery_leases:                                                   */
+    /* ---------------------------------------------------------------------- */
+    // The database clock is used so that reader clock skew doesn't matter.
+    public static final String CREATE_RECOVERY_LEASES =
+        "INSERT INTO job_recovery_leases (partition_id)"
+        + " SELECT generate_series(0, ?::integer - 1) ON CONFLICT (partition_id) DO NOTHING";
+    
+    // Acquire an unowned or expired lease, or renew a lease already held.
+    public static final String ACQUIRE_RECOVERY_LEASE =
+        "UPDATE job_recovery_leases SET owner = ?,"
+        + " expires = timezone('utc', clock_timestamp()) + ?::integer * interval '1 second'"
+        + " WHERE partition_id = ? AND (owner = ? OR owner IS NULL"
+        + " OR expires < timezone('utc', clock_timestamp()))";
+    
+    public static final String RELEASE_RECOVERY_LEASE =
+        "UPDATE job_recovery_leases SET owner = NULL, expires = '1970-01-01 00:00:00'"
+        + " WHERE partition_id = ? AND owner = ?";
+    
+    public static final String SELECT_AVAILABLE_RECOVERY_LEASES =
+        "SELECT partition_id FROM job_recovery_leases"
+        + " WHERE partition_id < ? AND (owner IS NULL"
+        + " OR expires < timezone('utc', clock_timestamp()))"
+        + " ORDER BY partition_id";
+    
+    public static final String SELECT_OWNED_RECOVERY_LEASES =
+        "SELECT partition_id FROM job_recovery_leases"
+        + " WHERE owner = ? AND expires >= timezone('utc', clock_timestamp())"
+        + " ORDER BY partition_id";
+    
+    /* ---------------------------------------------------------------------- */
+    /* job_recovery_readers:                                                  */
+    /* ---------------------------------------------------------------------- */
+    public static final String UPSERT_RECOVERY_READER =
+        "INSERT INTO job_recovery_readers (owner, expires)"
+        + " VALUES (?, timezone('utc', clock_timestamp()) + ?::integer * interval '1 second')"
+        + " ON CONFLICT (owner) DO UPDATE SET expires = EXCLUDED.expires";
+    
+    public static final String DELETE_RECOVERY_READER =
+        "DELETE FROM job_recovery_readers WHERE owner = ?";
+    
+    public static final String DELETE_EXPIRED_RECOVERY_READERS =
+        "DELETE FROM job_recovery_readers WHERE expires < timezone('utc', clock_timestamp())";
+    
+    public static final String COUNT_RECOVERY_READERS =
+        "SELECT count(*) FROM job_recovery_readers"
+        + " WHERE expires >= timezone('utc', clock_timestamp())";
+    
+    /* ---------------------------------------------------------------------- */
+    /* job_monitor_stats:                                                     */
+    /* ---------------------------------------------------------------------- */
+    public static final String SELECT_MONITOR_STATS =
+        "SELECT wait_samples, wait_mean_secs, wait_var_secs, run_samples, run_mean_secs, run_var_secs"
+        + " FROM job_monitor_stats"
+        + " WHERE tenant = ? AND exec_system_id = ? AND queue = ? AND app_id = ?";
+    
+    // The sample weight is the larger of the configured weight and 1/(n+1), so
+    // the first samples are averaged equally.  The update expressions reference
+    // the existing row's values, which keeps concurrent updates consistent.
+    public static final String UPSERT_MONITOR_WAIT_STATS =
+        "INSERT INTO job_monitor_stats AS s (tenant, exec_system_id, queue, app_id,"
+        + " wait_samples, wait_mean_secs, wait_var_secs, last_updated)"
+        + " VALUES (?, ?, ?, ?, 1, ?, 0, timezone('utc', now()))"
+        + " ON CONFLICT (tenant, exec_system_id, queue, app_id) DO UPDATE SET"
+        + " wait_samples = s.wait_samples + 1,"
+        + " wait_mean_secs = s.wait_mean_secs + GREATEST(?, 1.0 / (s.wait_samples + 1))"
+        + " * (EXCLUDED.wait_mean_secs - s.wait_mean_secs),"
+        + " wait_var_secs = (1 - GREATEST(?, 1.0 / (s.wait_samples + 1))) * (s.wait_var_secs"
+        + " + GREATEST(?, 1.0 / (s.wait_samples + 1)) * power(EXCLUDED.wait_mean_secs - s.wait_mean_secs, 2)),"
+        + " last_updated = EXCLUDED.last_updated";
+    
+    public static final String UPSERT_MONITOR_RUN_STATS =
+        "INSERT INTO job_monitor_stats AS s (tenant, exec_system_id, queue, app_id,"
+        + " run_samples, run_mean_secs, run_var_secs, last_updated)"
+        + " VALUES (?, ?, ?, ?, 1, ?, 0, timezone('utc', now()))"
+        + " ON CONFLICT (tenant, exec_system_id, queue, app_id) DO UPDATE SET"
+        + " run_samples = s.run_samples + 1,"
+        + " run_mean_secs = s.run_mean_secs + GREATEST(?, 1.0 / (s.run_samples + 1))"
+        + " * (EXCLUDED.run_mean_secs - s.run_mean_secs),"
+        + " run_var_secs = (1 - GREATEST(?, 1.0 / (s.run_samples + 1))) * (s.run_var_secs"
+        + " + GREATEST(?, 1.0 / (s.run_samples + 1)) * power(EXCLUDED.run_mean_secs - s.run_mean_secs, 2)),"
+        + " last_updated = EXCLUDED.last_updated";
+    
 }	
 	
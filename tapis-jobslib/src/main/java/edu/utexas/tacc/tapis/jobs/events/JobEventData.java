@@ -7,7 +7,7 @@ import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
 import edu.utexas.tacc.tapis.jobs.events.JobEventManager.SubscriptionActions;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
-import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+import edu.utexas.tacc.tapis.jobs.queue.QueueMsgCodec;
 
 /** This class generates the event detail content for all event types.  All
  * event content except for that of USER events are generated by Jobs and are
@@ -33,7 +33,7 @@ public final class JobEventData
         d.setBaseFields(job, msg);
         if (transferStatus != null) d.transferStatus = transferStatus.name();
         d.transactionId = transactionId;
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -52,7 +52,7 @@ public final class JobEventData
         d.jobOwner = nameOwner.owner;
         d.message  = msg;
         if (status != null) d.jobStatus = status.name();
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -66,14 +66,14 @@ public final class JobEventData
             d.setExtendedFields(job, msg);
             d.newJobStatus = newStatus.name();
             if (oldStatus != null) d.oldJobStatus = oldStatus.name();
-            return TapisGsonUtils.getGson().toJson(d);
+            return QueueMsgCodec.toJson(d);
         }
         else {
             var d = new JobNewStatusData();
             d.setBaseFields(job, msg);
             if (newStatus != null) d.newJobStatus = newStatus.name();
             if (oldStatus != null) d.oldJobStatus = oldStatus.name();
-            return TapisGsonUtils.getGson().toJson(d);
+            return QueueMsgCodec.toJson(d);
         }
     }
 
@@ -85,7 +85,7 @@ public final class JobEventData
         var d = new JobFinalData();
         d.setExtendedFields(job, msg);
         d.jobStatus    = job.getStatus().name();
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
 
     /* ---------------------------------------------------------------------- */
@@ -99,7 +99,7 @@ public final class JobEventData
         d.setBaseFields(job, msg);
         if (action != null) d.action = action.name();
         d.numSubscriptions = numSubscriptions;
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -120,7 +120,7 @@ public final class JobEventData
         d.message  = msg;
         if (action != null) d.action = action.name();
         d.numSubscriptions = numSubscriptions;
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -143,7 +143,7 @@ public final class JobEventData
         d.shareType    = shareType;
         d.grantee      = grantee;
         d.grantor      = grantor;
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -160,7 +160,7 @@ public final class JobEventData
         d.message    = msg;
         d.eventnum   = eventnum;
         d.createtime = ts.toString(); // Zulu format
-        return TapisGsonUtils.getGson().toJson(d);
+        return QueueMsgCodec.toJson(d);
     }
     
     /* ********************************************************************** */
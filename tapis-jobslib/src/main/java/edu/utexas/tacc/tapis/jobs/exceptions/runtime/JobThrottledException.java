@@ -0,0 +1,24 @@
+package edu.utexas.tacc.tapis.jobs.exceptions.runtime;
+
+import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
+
+/** Thrown when a job can't proceed because its execution host is throttled.
+ * Like JobAsyncCmdException, this exception curtails job processing without
+ * changing the job's status.  The top-level job processor catches it and 
+ * redelivers the job's submit message after a delay.
+ */
+public class JobThrottledException extends TapisRuntimeException 
+{
+    private static final long serialVersionUID = 6259133412093877164L;
+
+    public JobThrottledException(String message)
+	{
+		super(message);
+	}
+
+	public JobThrottledException(String message, Throwable cause)
+	{
+		super(message, cause);
+	}
+
+}
@@ -22,12 +22,15 @@ import edu.utexas.tacc.tapis.jobs.model.JobEvent;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
 import edu.utexas.tacc.tapis.jobs.recover.RecoveryUtils;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
 import edu.utexas.tacc.tapis.shared.exceptions.recoverable.TapisServiceConnectionException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
 
 public final class PollingMonitor
  implements TransferMonitor
@@ -177,8 +180,10 @@ public final class PollingMonitor
      throws TapisImplException, TapisServiceConnectionException
     {
         TransferTask task = null;
+        Span span = JobTracing.startClientSpan(JobTracing.SPAN_FILES_GET_TRANSFER, job, transferId);
         try {task = filesClient.getTransferTask(transferId);}
             catch (Exception e) {
+                span.setStatus(StatusCode.ERROR);
                 
                 // Look for a recoverable error in the exception chain. Recoverable
                 // exceptions are those that might indicate a transient network
@@ -203,6 +208,7 @@ public final class PollingMonitor
                     throw new TapisImplException(msg, e, 0);
                  }
             }
+            finally {span.end();}
         
         // No exceptions.
         return task;
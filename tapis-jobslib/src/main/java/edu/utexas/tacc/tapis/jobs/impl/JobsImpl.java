@@ -23,14 +23,20 @@ import edu.utexas.tacc.tapis.jobs.model.dto.JobHistoryDisplayDTO;
 import edu.utexas.tacc.tapis.jobs.model.dto.JobListDTO;
 import edu.utexas.tacc.tapis.jobs.model.dto.JobShareListDTO;
 import edu.utexas.tacc.tapis.jobs.model.dto.JobStatusDTO;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobResourceShare;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobTapisPermission;
 import edu.utexas.tacc.tapis.jobs.model.submit.JobSharedAppCtx.JobSharedAppCtxEnum;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobCancelMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobStatusMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobCancelRecoverMsg;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.jobs.utils.DataLocator;
+import edu.utexas.tacc.tapis.jobs.utils.FilesListingPager;
+import edu.utexas.tacc.tapis.jobs.utils.JobCallbackToken;
 import edu.utexas.tacc.tapis.jobs.utils.JobOutputInfo;
 import edu.utexas.tacc.tapis.jobs.utils.SelectTuple;
 import edu.utexas.tacc.tapis.notifications.client.NotificationsClient;
@@ -58,6 +64,7 @@ import edu.utexas.tacc.tapis.shared.security.TenantManager;
 import edu.utexas.tacc.tapis.shared.threadlocal.OrderBy;
 import edu.utexas.tacc.tapis.shared.threadlocal.TapisThreadContext;
 import edu.utexas.tacc.tapis.shared.threadlocal.TapisThreadLocal;
+import io.opentelemetry.api.trace.Span;
 
 
 public final class JobsImpl 
@@ -699,27 +706,71 @@ public final class JobsImpl
      throws TapisImplException
     {
         // ----- Get the job output files list.
-        DataLocator dataLocator = new DataLocator(job);
-        
-        JobOutputInfo jobOutputFilesinfo = dataLocator.getJobOutputSystemInfo(pathName);
+        var access = getJobOutputAccess(job, tenant, user, pathName, jobResourceShareType, privilege);
+        List<FileInfo> outputList = access.dataLocator.getJobOutputListings(
+                access.outputInfo, tenant, user, limit, skip, access.impersonationId,
+                access.sharedAppCtx, recursiveFlag);
+               
+        return outputList;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getJobOutputPager:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Create a pager that retrieves the same files as getJobOutputList() one
+     * page at a time using getNextJobOutputPage().  Authorization checks are 
+     * performed here, but no files are listed.
+     */
+    public FilesListingPager getJobOutputPager(Job job, String tenant, String user, 
+                                               String pathName, int limit, int skip, 
+                                               String jobResourceShareType, String privilege,
+                                               boolean recursiveFlag) 
+     throws TapisImplException
+    {
+        var access = getJobOutputAccess(job, tenant, user, pathName, jobResourceShareType, privilege);
+        return access.dataLocator.getJobOutputListingPager(
+                access.outputInfo, tenant, user, limit, skip, access.impersonationId,
+                access.sharedAppCtx, recursiveFlag);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getNextJobOutputPage:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Get the next page of job output files.
+     * 
+     * @return the next page, empty when done, or null if the path was not found
+     */
+    public List<FileInfo> getNextJobOutputPage(Job job, FilesListingPager pager, int limit, int skip) 
+     throws TapisImplException
+    {
+        return new DataLocator(job).getNextJobOutputListingPage(pager, limit, skip);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getJobOutputAccess:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Determine the location of job output and how the requester accesses it. */
+    private JobOutputAccess getJobOutputAccess(Job job, String tenant, String user, 
+                                               String pathName, String jobResourceShareType, 
+                                               String privilege) 
+     throws TapisImplException
+    {
+        var access = new JobOutputAccess();
+        access.dataLocator = new DataLocator(job);
+        access.outputInfo = access.dataLocator.getJobOutputSystemInfo(pathName);
         
         // We checked if the job is shared within the method getJobByUuid(). We never return the value of the check. 
         // So, we need to check it again here if the job is shared and accordingly set the impersonationId
-        boolean isSharedAppCtx = checkSharedAppCtx(job, jobOutputFilesinfo);
+        boolean isSharedAppCtx = checkSharedAppCtx(job, access.outputInfo);
         
-        String sharedAppCtx = Job.DEFAULT_SHARED_APP_CTX;
-        if (isSharedAppCtx) sharedAppCtx = job.getSharedAppCtx();
+        access.sharedAppCtx = Job.DEFAULT_SHARED_APP_CTX;
+        if (isSharedAppCtx) access.sharedAppCtx = job.getSharedAppCtx();
         
         boolean skipTapisAuthorization = isJobShared(job.getUuid(), user, tenant, jobResourceShareType, privilege) || isSharedAppCtx;
-        String impersonationId =  null;
         if(skipTapisAuthorization == true) {
-        	impersonationId = job.getOwner();
+        	access.impersonationId = job.getOwner();
         }
-        List<FileInfo> outputList = dataLocator.getJobOutputListings(
-                jobOutputFilesinfo, tenant, user, limit, skip, impersonationId,
-                sharedAppCtx, recursiveFlag);
-               
-        return outputList;
+        return access;
     }
     
     /* ---------------------------------------------------------------------- */
@@ -877,6 +928,74 @@ public final class JobsImpl
         return result;
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* doCancelPendingValidationJob:                                                */
+    /* ---------------------------------------------------------------------------- */
+    /** Cancel a job accepted by an asynchronous submission that is still pending
+     * validation.  Such jobs have never been queued, so they are cancelled directly
+     * in the database, which also prevents the submission from being completed.  
+     * The update only succeeds if the job is still pending validation in the 
+     * database.  If validation completes first, the cancel command is sent to the 
+     * job as usual.
+     * 
+     * @param job the job to be cancelled
+     * @param threadContext the previously retrieved thread context
+     * @return true for success or false if an error was encountered 
+     */
+    public boolean doCancelPendingValidationJob(Job job, TapisThreadContext threadContext)
+    {
+        // Directly set the job's status if it's still pending validation.
+        try {
+            job.setCondition(JobConditionCode.CANCELLED_BY_USER);
+            String msg = MsgUtils.getMsg("JOBS_JOB_CANCEL_ACCEPTED", job.getUuid());
+            if (getJobsDao().endPendingJob(job, JobStatusType.CANCELLED, msg)) return true;
+        }
+        catch (Exception e) {
+            _log.warn(e.getMessage(), e);
+        }
+        
+        // Try the usual way if the job is no longer pending validation.
+        return doCancelJob(job.getUuid(), threadContext);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* doCompletionCallback:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Forward a completion notice sent by a job's wrapper script to the worker
+     * monitoring the job.  The notice only wakes up the job's monitor, which
+     * still reads the job's status and exit code on the execution system, so
+     * the job itself does not need to be read here.
+     * 
+     * @param jobUuid the job whose application completed
+     * @param token the job's callback token
+     * @throws TapisImplException if the token is invalid or the notice can't be sent
+     */
+    public void doCompletionCallback(String jobUuid, String token)
+     throws TapisImplException
+    {
+        // Callbacks are only accepted with a valid token.
+        if (!JobCallbackToken.isEnabled()) {
+            String msg = MsgUtils.getMsg("JOBS_CALLBACK_DISABLED", jobUuid);
+            throw new TapisImplException(msg, Condition.BAD_REQUEST);
+        }
+        if (!JobCallbackToken.verify(jobUuid, token)) {
+            String msg = MsgUtils.getMsg("JOBS_CALLBACK_INVALID_TOKEN", jobUuid);
+            throw new TapisImplException(msg, Condition.FORBIDDEN);
+        }
+        
+        // Post the notice to the job's command topic.
+        var statusMsg = new JobStatusMsg();
+        statusMsg.jobuuid = jobUuid;
+        statusMsg.completed = true;
+        statusMsg.correlationId = jobUuid;
+        statusMsg.senderId = getClass().getSimpleName() + "-completionCallback";
+        try {JobQueueManager.getInstance().postCmdToJob(statusMsg, jobUuid);}
+            catch (Exception e) {
+                String msg = MsgUtils.getMsg("JOBS_CALLBACK_POST_ERROR", jobUuid, e.getMessage());
+                throw new TapisImplException(msg, e, Condition.INTERNAL_SERVER_ERROR);
+            }
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* doHideJob:                                                             */
     /* ---------------------------------------------------------------------- */
@@ -1229,7 +1348,15 @@ public final class JobsImpl
             ServiceClients.getInstance().getClient(user, tenant, NotificationsClient.class);
       
         // Make the call to Notifications.
-        return notifClient.postSubscription(postReq);
+        Span span = JobTracing.startClientSpan(JobTracing.SPAN_NOTIF_POST_SUBSCRIPTION, null, 
+                                               postReq.getSubjectFilter());
+        boolean success = false;
+        try {
+            String url = notifClient.postSubscription(postReq);
+            success = true;
+            return url;
+        }
+        finally {JobTracing.endSpan(span, success);}
     }
     
     /* ---------------------------------------------------------------------- */
@@ -1274,7 +1401,14 @@ public final class JobsImpl
             ServiceClients.getInstance().getClient(user, tenant, NotificationsClient.class);
         
         // Delete all subscriptions on a job.
-        return notifClient.deleteSubscriptionsBySubjectForAllOwners(jobUuid);
+        Span span = JobTracing.startClientSpan(JobTracing.SPAN_NOTIF_DELETE_SUBSCRIPTIONS, null, jobUuid);
+        boolean success = false;
+        try {
+            int count = notifClient.deleteSubscriptionsBySubjectForAllOwners(jobUuid);
+            success = true;
+            return count;
+        }
+        finally {JobTracing.endSpan(span, success);}
     }
 
     /* ---------------------------------------------------------------------- */
@@ -1371,4 +1505,16 @@ public final class JobsImpl
 	          throw new JobException(msg);
 	      }
     }
+    
+    /* ********************************************************************** */
+    /*                         JobOutputAccess Class                          */
+    /* ********************************************************************** */
+    // Location of job output and the identities used to access it.
+    private static final class JobOutputAccess
+    {
+        private DataLocator   dataLocator;
+        private JobOutputInfo outputInfo;
+        private String        impersonationId;
+        private String        sharedAppCtx;
+    }
 }
@@ -2,11 +2,14 @@ package edu.utexas.tacc.tapis.jobs.launchers;
 
 import static edu.utexas.tacc.tapis.shared.utils.TapisUtils.alwaysSingleQuote;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobLaunchThrottlesDao;
+import edu.utexas.tacc.tapis.jobs.dao.JobLaunchThrottlesDao.LaunchReservation;
+import edu.utexas.tacc.tapis.jobs.exceptions.runtime.JobThrottledException;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
@@ -27,17 +30,15 @@ abstract class AbstractJobLauncher
     protected static final String UNKNOWN_CONTAINER_ID = "<Unknown-Container-ID>";
     protected static final String UNKNOWN_PROCESS_ID   = "<Unknown-Process-ID>";
     
-    // Thread group name used in ThrottleMap, throttle parameters and launch 
-    // delay parameters.  The duration of the throttle window and the limit on
-    // the number of launches within that window are chosen to avoid overwhelming
-    // a host with ssh connections and commands.  The delay is specified as a 
-    // minimum and a maximum skew.  The actual delay is the minimum plus a 
-    // randomized number of milliseconds up to the skew.
+    // Launches are paced per host by a token bucket shared by all workers (see
+    // JobLaunchThrottlesDao).  If the database is unavailable, each worker falls
+    // back to its own ThrottleMap with a sliding window of the configured size.
+    // In either case, jobs that would have to wait too long are redelivered
+    // rather than delayed on the worker thread.  The in-thread wait a job will
+    // accept grows with each redelivery up to the maximum wait, which gives
+    // jobs that have already been redelivered priority over newly arrived jobs.
     private static final String THROTTLEMAP_NAME = "LauncherThrottleMap";
-    private static final int    THROTTLE_SECONDS = 2;
-    private static final int    THROTTLE_LIMIT   = 8;
-    private static final int    JOB_LAUNCH_DELAY_MS    = 3000;
-    private static final int    JOB_LAUNCH_MAX_SKEW_MS = 60000;
+    private static final long   JOB_LAUNCH_MAX_WAIT_MS = 60000;
     
     /* ********************************************************************** */
     /*                                 Fields                                 */
@@ -46,8 +47,8 @@ abstract class AbstractJobLauncher
     protected final Job                 _job;
     
     // Map of host name to throttle entries used to control the number of launch 
-    // issued to a host within a time window.
-    private static final ThrottleMap    _hostThrottles = initHostThrottles();
+    // issued to a host within a time window when the shared throttle fails.
+    private static ThrottleMap          _hostThrottles;
 
     /* ********************************************************************** */
     /*                              Constructors                              */
@@ -80,45 +81,107 @@ abstract class AbstractJobLauncher
     /* ---------------------------------------------------------------------- */
     /* throttleLaunch:                                                        */
     /* ---------------------------------------------------------------------- */
-    /** Delay launches when too many have recently taken place on a host.
+    /** Pace launches to each host across all workers.  A launch either proceeds
+     * immediately, proceeds after a short wait for its reserved slot, or is
+     * abandoned by throwing a JobThrottledException, which causes the job to be
+     * redelivered to its submit queue after a delay.  Since the exception is
+     * thrown before any command is issued, the job simply resumes launching
+     * when it's redelivered.
+     * 
+     * @throws JobThrottledException when the job should be redelivered later
      */
     protected void throttleLaunch()
     {
         // Get the host on which the job will be launched.
         String host = null;
-        try {
-            // Return from here if there's room in the throttle's sliding
-            // window for this host.
-            host = _jobCtx.getExecutionSystem().getHost();
-            if (_hostThrottles.record(host)) return;
-        } catch (Exception e) {
+        try {host = _jobCtx.getExecutionSystem().getHost();}
+        catch (Exception e) {
             // Abort throttling if we hit an error.
             String msg = MsgUtils.getMsg("JOB_HOST_RETRIEVAL_ERROR", _job.getUuid());
             _log.error(msg);
             return;
         }
         
-        // This host needs to be throttled.
-        // Calculate a randomized but short delay in milliseconds.
-        var skewMs = ThreadLocalRandom.current().nextInt(JOB_LAUNCH_MAX_SKEW_MS);
-        skewMs += JOB_LAUNCH_DELAY_MS;
+        // Jobs accept longer waits each time they are redelivered.
+        var parms = RuntimeParameters.getInstance();
+        long maxWaitMs = Math.min(JOB_LAUNCH_MAX_WAIT_MS, 
+                            parms.getLaunchThrottleMaxWaitMs() * (1L + _jobCtx.getThrottleRedeliveries()));
+        
+        // Reserve a launch slot on the host.
+        LaunchReservation reservation = null;
+        try {
+            reservation = new JobLaunchThrottlesDao().reserveLaunch(host, 
+                                  parms.getLaunchThrottleCapacity(), 
+                                  parms.getLaunchThrottleWindowSeconds(), maxWaitMs);
+        }
+        catch (Exception e) {
+            // Use this worker's throttle when the shared one is unavailable.
+            _log.warn(e.getMessage(), e);
+            if (getHostThrottles().record(host)) {
+                JobMetrics.recordThrottleWait(_job, JobMetrics.THROTTLE_LAUNCH, 0, JobMetrics.OUTCOME_GRANTED);
+                return;
+            }
+            throw redeliver(host, JOB_LAUNCH_MAX_WAIT_MS);
+        }
+        
+        // Redeliver the job if its wait would be too long.
+        if (!reservation.reserved) throw redeliver(host, reservation.waitMillis);
+        
+        // Launch now if a token was available.
+        if (reservation.waitMillis <= 0) {
+            JobMetrics.recordThrottleWait(_job, JobMetrics.THROTTLE_LAUNCH, 0, JobMetrics.OUTCOME_GRANTED);
+            return;
+        }
         
         // Log the delay.
         if (_log.isDebugEnabled())
-            _log.debug(MsgUtils.getMsg("JOBS_DELAYED_LAUNCH", _job.getUuid(), skewMs, host));
+            _log.debug(MsgUtils.getMsg("JOBS_DELAYED_LAUNCH", _job.getUuid(), reservation.waitMillis, host));
         
-        // Delay for the randomized period.
-        try {Thread.sleep(skewMs);} catch (InterruptedException e) {}
+        // Wait for the reserved slot.
+        JobMetrics.recordThrottleWait(_job, JobMetrics.THROTTLE_LAUNCH, reservation.waitMillis, 
+                                      JobMetrics.OUTCOME_DELAYED);
+        try {Thread.sleep(reservation.waitMillis);} catch (InterruptedException e) {}
     }
     
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
     /* ---------------------------------------------------------------------- */
-    /* initHostThrottles:                                                     */
+    /* redeliver:                                                             */
     /* ---------------------------------------------------------------------- */
-    private static ThrottleMap initHostThrottles()
+    /** Record the throttled launch and create the exception that causes the job
+     * to be redelivered.
+     * 
+     * @param host the throttled host
+     * @param waitMillis the estimated wait that was rejected
+     * @return the exception to throw
+     */
+    private JobThrottledException redeliver(String host, long waitMillis)
     {
-        return new ThrottleMap(THROTTLEMAP_NAME, THROTTLE_SECONDS, THROTTLE_LIMIT);
+        JobMetrics.recordThrottleWait(_job, JobMetrics.THROTTLE_LAUNCH, waitMillis, 
+                                      JobMetrics.OUTCOME_REDELIVERED);
+        String msg = "Launch of job " + _job.getUuid() + " on host " + host + 
+                     " is throttled for an estimated " + waitMillis + 
+                     " milliseconds; the job will be redelivered.";
+        if (_log.isDebugEnabled()) _log.debug(msg);
+        return new JobThrottledException(msg);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getHostThrottles:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Lazily create the local throttle map, which is only used when the shared
+     * throttle is unavailable.
+     * 
+     * @return the worker-local host throttle map
+     */
+    private static synchronized ThrottleMap getHostThrottles()
+    {
+        if (_hostThrottles == null) {
+            var parms = RuntimeParameters.getInstance();
+            _hostThrottles = new ThrottleMap(THROTTLEMAP_NAME, parms.getLaunchThrottleWindowSeconds(), 
+                                             parms.getLaunchThrottleCapacity());
+        }
+        return _hostThrottles;
     }
-}    
+}
@@ -46,7 +46,7 @@ public final class DockerNativeLauncher
     @Override
     public void launch() throws TapisException
     {
-        // Throttling adds a randomized delay on heavily used hosts.
+        // Throttling paces launches to heavily used hosts across all workers.
         throttleLaunch();
         
         // Subclasses can override default implementation.
@@ -45,7 +45,7 @@ public final class SingularityRunLauncher
     @Override
     public void launch() throws TapisException
     {
-        // Throttling adds a randomized delay on heavily used hosts.
+        // Throttling paces launches to heavily used hosts across all workers.
         throttleLaunch();
         
         // -------------------- Launch Container --------------------
@@ -48,7 +48,7 @@ public final class SingularityRunSlurmLauncher
     @Override
     public void launch() throws TapisException
     {
-        // Throttling adds a randomized delay on heavily used hosts.
+        // Throttling paces launches to heavily used hosts across all workers.
         throttleLaunch();
         
         // -------------------- Launch Container --------------------
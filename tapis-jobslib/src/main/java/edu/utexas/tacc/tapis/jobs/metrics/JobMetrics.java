@@ -0,0 +1,360 @@
+package edu.utexas.tacc.tapis.jobs.metrics;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
+import edu.utexas.tacc.tapis.jobs.recover.RecoverConditionCode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.JvmGcMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmMemoryMetrics;
+import io.micrometer.core.instrument.binder.jvm.JvmThreadMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+
+/** This class holds the process-wide metrics registry used by both the jobs
+ * api and the jobs workers.  All recording methods are static, cheap and
+ * never throw, so they can be called on any job processing path.  The
+ * registry's contents are rendered in the Prometheus text exposition format
+ * by scrape(), which backs the /jobs/metrics endpoint in the api and the
+ * JobMetricsServer in workers.
+ *
+ * Meter names use Micrometer's dot notation and are converted to Prometheus
+ * names on output (e.g., tapis.jobs.phase becomes tapis_jobs_phase_seconds).
+ *
+ * @author rcardone
+ */
+public final class JobMetrics
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Meter names.
+    public static final String PHASE_TIMER       = "tapis.jobs.phase";
+    public static final String MONITOR_CMD_TIMER = "tapis.jobs.monitor.command";
+    public static final String QUEUE_PUBLISH_TIMER = "tapis.jobs.queue.publish";
+    public static final String DB_CALL_TIMER     = "tapis.jobs.db.call";
+    public static final String RECOVERABLE_COUNTER = "tapis.jobs.recoverable";
+    public static final String ACTIVE_JOBS_GAUGE = "tapis.jobs.worker.active";
+    public static final String RECOVERY_JOBS_GAUGE = "tapis.jobs.recovery.jobs";
+    public static final String THROTTLE_WAIT_TIMER = "tapis.jobs.throttle.wait";
+    public static final String QUEUE_WAIT_TIMER  = "tapis.jobs.queue.wait";
+    public static final String ADMISSION_REJECTED_COUNTER = "tapis.jobs.admission.rejected";
+    public static final String ADMISSION_FACTOR_GAUGE = "tapis.jobs.admission.factor";
+
+    // Tag names.
+    public static final String TAG_PHASE     = "phase";
+    public static final String TAG_TENANT    = "tenant";
+    public static final String TAG_SYSTEM    = "exec_system";
+    public static final String TAG_OUTCOME   = "outcome";
+    public static final String TAG_EXCHANGE  = "exchange";
+    public static final String TAG_OPERATION = "operation";
+    public static final String TAG_CONDITION = "condition";
+    public static final String TAG_THROTTLE  = "throttle";
+    public static final String TAG_QUEUE     = "queue";
+
+    // Tag values.
+    public static final String OUTCOME_SUCCESS = "success";
+    public static final String OUTCOME_ERROR   = "error";
+    public static final String OUTCOME_GRANTED = "granted";
+    public static final String OUTCOME_DELAYED = "delayed";
+    public static final String OUTCOME_REDELIVERED = "redelivered";
+    public static final String OUTCOME_THROTTLED   = "throttled";
+    
+    // Throttle names.
+    public static final String THROTTLE_LAUNCH = "launch";
+    public static final String THROTTLE_START  = "start";
+    private static final String UNKNOWN_TAG_VALUE = "unknown";
+
+    // Histogram bounds.  Phases can last from milliseconds to days.
+    private static final Duration PHASE_MIN_EXPECTED = Duration.ofMillis(10);
+    private static final Duration PHASE_MAX_EXPECTED = Duration.ofDays(7);
+    private static final Duration CALL_MIN_EXPECTED  = Duration.ofMillis(1);
+    private static final Duration CALL_MAX_EXPECTED  = Duration.ofMinutes(5);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The process-wide registry.
+    private static final PrometheusMeterRegistry _registry = initRegistry();
+
+    // The number of jobs this process is currently executing.
+    private static final AtomicInteger _activeJobs =
+        _registry.gauge(ACTIVE_JOBS_GAUGE, new AtomicInteger());
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private JobMetrics() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getRegistry:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static PrometheusMeterRegistry getRegistry() {return _registry;}
+
+    /* ---------------------------------------------------------------------- */
+    /* scrape:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Render all metrics in the Prometheus text format.
+     *
+     * @return the scrape response body
+     */
+    public static String scrape() {return _registry.scrape();}
+
+    /* ---------------------------------------------------------------------- */
+    /* recordPhase:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Record the time a job spent being processed in one of its active states.
+     * Phases interrupted by throttling use the throttled outcome so that they
+     * are not counted as errors.
+     *
+     * @param job the job being processed
+     * @param phase the status the job was in when processing began
+     * @param startNanos the System.nanoTime() value when processing began
+     * @param outcome success, error or throttled
+     */
+    public static void recordPhase(Job job, JobStatusType phase, long startNanos,
+                                   String outcome)
+    {
+        if (job == null || phase == null || !phase.isActive()) return;
+        Timer.builder(PHASE_TIMER)
+             .description("Time spent processing jobs in each active status")
+             .tag(TAG_PHASE, phase.name())
+             .tag(TAG_TENANT, safeTag(job.getTenant()))
+             .tag(TAG_SYSTEM, safeTag(job.getExecSystemId()))
+             .tag(TAG_OUTCOME, safeTag(outcome))
+             .publishPercentileHistogram()
+             .minimumExpectedValue(PHASE_MIN_EXPECTED)
+             .maximumExpectedValue(PHASE_MAX_EXPECTED)
+             .register(_registry)
+             .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordMonitorCmd:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Record the round trip time of a remote monitoring command.
+     *
+     * @param job the job being monitored
+     * @param startNanos the System.nanoTime() value when the command was issued
+     * @param success true if the command executed
+     */
+    public static void recordMonitorCmd(Job job, long startNanos, boolean success)
+    {
+        if (job == null) return;
+        Timer.builder(MONITOR_CMD_TIMER)
+             .description("Latency of remote job monitoring commands")
+             .tag(TAG_TENANT, safeTag(job.getTenant()))
+             .tag(TAG_SYSTEM, safeTag(job.getExecSystemId()))
+             .tag(TAG_OUTCOME, success ? OUTCOME_SUCCESS : OUTCOME_ERROR)
+             .publishPercentileHistogram()
+             .minimumExpectedValue(CALL_MIN_EXPECTED)
+             .maximumExpectedValue(CALL_MAX_EXPECTED)
+             .register(_registry)
+             .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordQueuePublish:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Record the time to publish a message to the broker.
+     *
+     * @param exchangeName the target exchange
+     * @param startNanos the System.nanoTime() value when publishing began
+     * @param success true if the message was published
+     */
+    public static void recordQueuePublish(String exchangeName, long startNanos,
+                                          boolean success)
+    {
+        Timer.builder(QUEUE_PUBLISH_TIMER)
+             .description("Latency of RabbitMQ message publication")
+             .tag(TAG_EXCHANGE, safeTag(exchangeName))
+             .tag(TAG_OUTCOME, success ? OUTCOME_SUCCESS : OUTCOME_ERROR)
+             .publishPercentileHistogram()
+             .minimumExpectedValue(CALL_MIN_EXPECTED)
+             .maximumExpectedValue(CALL_MAX_EXPECTED)
+             .register(_registry)
+             .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordDbCall:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Record the time spent in a database access method.
+     *
+     * @param operation the dao method name
+     * @param startNanos the System.nanoTime() value when the call began
+     */
+    public static void recordDbCall(String operation, long startNanos)
+    {
+        Timer.builder(DB_CALL_TIMER)
+             .description("Time spent in jobs database operations")
+             .tag(TAG_OPERATION, safeTag(operation))
+             .publishPercentileHistogram()
+             .minimumExpectedValue(CALL_MIN_EXPECTED)
+             .maximumExpectedValue(CALL_MAX_EXPECTED)
+             .register(_registry)
+             .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordThrottleWait:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Record the time a job waited because of throttling.  Granted requests
+     * record no wait, delayed requests record the in-thread wait, and 
+     * redelivered requests record the estimated wait that caused the job's
+     * message to be redelivered later.
+     *
+     * @param job the throttled job
+     * @param throttle the throttle name
+     * @param waitMillis the wait in milliseconds
+     * @param outcome granted, delayed or redelivered
+     */
+    public static void recordThrottleWait(Job job, String throttle, long waitMillis,
+                                          String outcome)
+    {
+        if (job == null) return;
+        Timer.builder(THROTTLE_WAIT_TIMER)
+             .description("Time jobs wait because of launch and start throttling")
+             .tag(TAG_THROTTLE, safeTag(throttle))
+             .tag(TAG_SYSTEM, safeTag(job.getExecSystemId()))
+             .tag(TAG_OUTCOME, safeTag(outcome))
+             .publishPercentileHistogram()
+             .minimumExpectedValue(CALL_MIN_EXPECTED)
+             .maximumExpectedValue(CALL_MAX_EXPECTED)
+             .register(_registry)
+             .record(Math.max(0, waitMillis), TimeUnit.MILLISECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* recordQueueWait:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Record the time from a job's creation until a worker first received it
+     * from its submit queue.  Tagging by tenant shows whether the backlog of
+     * one tenant delays the jobs of others.
+     *
+     * @param job the newly received job
+     */
+    public static void recordQueueWait(Job job)
+    {
+        if (job == null || job.getCreated() == null) return;
+        Timer.builder(QUEUE_WAIT_TIMER)
+             .description("Time jobs wait in submit queues before a worker receives them")
+             .tag(TAG_QUEUE, safeTag(job.getTapisQueue()))
+             .tag(TAG_TENANT, safeTag(job.getTenant()))
+             .publishPercentileHistogram()
+             .minimumExpectedValue(CALL_MIN_EXPECTED)
+             .maximumExpectedValue(PHASE_MAX_EXPECTED)
+             .register(_registry)
+             .record(Math.max(0, System.currentTimeMillis() - job.getCreated().toEpochMilli()),
+                     TimeUnit.MILLISECONDS);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* countRecoverable:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Count a job put into recovery because of the specified condition.
+     *
+     * @param code the recovery condition
+     */
+    public static void countRecoverable(RecoverConditionCode code)
+    {
+        if (code == null) return;
+        Counter.builder(RECOVERABLE_COUNTER)
+               .description("Jobs blocked by recoverable conditions")
+               .tag(TAG_CONDITION, code.name())
+               .register(_registry)
+               .increment();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* countAdmissionRejected:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Count a submission rejected by admission control.
+     *
+     * @param tenantId the submitting tenant
+     */
+    public static void countAdmissionRejected(String tenantId)
+    {
+        Counter.builder(ADMISSION_REJECTED_COUNTER)
+               .description("Job submissions rejected by admission control")
+               .tag(TAG_TENANT, tenantId == null ? UNKNOWN_TAG_VALUE : tenantId)
+               .register(_registry)
+               .increment();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* jobStarted:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Increment the number of jobs actively being processed by this process. */
+    public static void jobStarted() {_activeJobs.incrementAndGet();}
+
+    /* ---------------------------------------------------------------------- */
+    /* jobEnded:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Decrement the number of jobs actively being processed by this process. */
+    public static void jobEnded() {_activeJobs.decrementAndGet();}
+
+    /* ---------------------------------------------------------------------- */
+    /* registerRecoveryGauge:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Register the gauge that reports the number of jobs in recovery.  The
+     * supplier should not block since it's called on every scrape.
+     *
+     * @param supplier the source of the recovery job count
+     */
+    public static void registerRecoveryGauge(Supplier<Number> supplier)
+    {
+        Gauge.builder(RECOVERY_JOBS_GAUGE, supplier)
+             .description("Jobs currently managed by the recovery manager")
+             .register(_registry);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* registerAdmissionGauge:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Register the gauge that reports the fraction of the configured tenant
+     * submission rate currently allowed by admission control.
+     *
+     * @param supplier the source of the current rate factor
+     */
+    public static void registerAdmissionGauge(Supplier<Number> supplier)
+    {
+        Gauge.builder(ADMISSION_FACTOR_GAUGE, supplier)
+             .description("Fraction of the tenant submission rate currently admitted")
+             .register(_registry);
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* initRegistry:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private static PrometheusMeterRegistry initRegistry()
+    {
+        var registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        new JvmMemoryMetrics().bindTo(registry);
+        new JvmGcMetrics().bindTo(registry);
+        new JvmThreadMetrics().bindTo(registry);
+        return registry;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* safeTag:                                                               */
+    /* ---------------------------------------------------------------------- */
+    private static String safeTag(String value)
+    {
+        return StringUtils.isBlank(value) ? UNKNOWN_TAG_VALUE : value;
+    }
+}
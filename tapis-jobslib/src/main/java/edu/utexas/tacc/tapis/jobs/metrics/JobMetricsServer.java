@@ -0,0 +1,114 @@
+package edu.utexas.tacc.tapis.jobs.metrics;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/** A minimal http server that exposes the contents of the JobMetrics registry
+ * to Prometheus in processes that don't otherwise run a web server, such as
+ * the jobs workers.  The api exposes the same registry through its
+ * /jobs/metrics endpoint.
+ *
+ * @author rcardone
+ */
+public final class JobMetricsServer
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobMetricsServer.class);
+
+    // The scrape path.
+    public static final String METRICS_PATH = "/metrics";
+
+    // Prometheus text format content type.
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The single server in this process.
+    private static HttpServer _server;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private JobMetricsServer() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* start:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Start the metrics server on the specified port if it's not already
+     * running.  A non-positive port disables the server.  Failure to start the
+     * server is logged but doesn't affect the caller since metrics are not
+     * required for job processing.
+     *
+     * @param port the listening port
+     * @return true if the server is running, false otherwise
+     */
+    public static synchronized boolean start(int port)
+    {
+        // Already running or disabled.
+        if (_server != null) return true;
+        if (port <= 0) return false;
+
+        try {
+            _server = HttpServer.create(new InetSocketAddress(port), 0);
+            _server.createContext(METRICS_PATH, JobMetricsServer::handleScrape);
+            _server.setExecutor(Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "JobMetricsServer");
+                t.setDaemon(true);
+                return t;
+            }));
+            _server.start();
+        }
+        catch (Exception e) {
+            _log.error("Unable to start the metrics server on port " + port + ": " + e.getMessage(), e);
+            _server = null;
+            return false;
+        }
+
+        if (_log.isInfoEnabled())
+            _log.info("Metrics server listening on port " + port + " at path " + METRICS_PATH + ".");
+        return true;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* stop:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    public static synchronized void stop()
+    {
+        if (_server == null) return;
+        _server.stop(0);
+        _server = null;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* handleScrape:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private static void handleScrape(HttpExchange exchange) throws IOException
+    {
+        try {
+            byte[] body = JobMetrics.scrape().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {out.write(body);}
+        }
+        finally {exchange.close();}
+    }
+}
@@ -171,6 +171,10 @@ public final class Job
     @Schema(hidden = true)
     private final transient AtomicReference<CmdMsg> _cmdMsg = new AtomicReference<>(null);
     
+    // Set while the request fields not needed for monitoring are released.
+    @Schema(hidden = true)
+    private transient boolean _compacted;
+    
     /* **************************************************************************** */
     /*                                 Constructors                                 */
     /* **************************************************************************** */
@@ -224,6 +228,72 @@ public final class Job
         return _parameterSetModel;
     }
 
+    /* ---------------------------------------------------------------------------- */
+    /* compactForMonitoring:                                                        */
+    /* ---------------------------------------------------------------------------- */
+    /** Release the request fields that are not used while the remote job is queued
+     * or running.  The json file inputs, parameter set, subscriptions, notes and 
+     * constraints, and the parsed file inputs, are dropped.  The parsed parameter 
+     * set is replaced by one that contains only the job array specification, which 
+     * is the only part that monitors use.  The released fields are restored by
+     * restoreFromMonitoring() before the job is archived.
+     */
+    public void compactForMonitoring()
+    {
+        // Only the first call has any effect.
+        if (_compacted) return;
+        
+        // Keep what the monitors need from the parameter set.
+        var parmSet = new JobParameterSet(false);
+        if (getParameterSetModel() != null) parmSet.setJobArray(getParameterSetModel().getJobArray());
+        _parameterSetModel = parmSet;
+        
+        // Release everything else.
+        fileInputs = null;
+        parameterSet = null;
+        execSystemConstraints = null;
+        subscriptions = null;
+        notes = null;
+        _fileInputsSpec = null;
+        _compacted = true;
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* restoreFromMonitoring:                                                       */
+    /* ---------------------------------------------------------------------------- */
+    /** Restore the fields released by compactForMonitoring() from a copy of this
+     * job read from the database.  All other fields of this job are left as is.
+     * 
+     * @param stored this job as currently saved in the database
+     * @throws JobException if the stored job is not this job
+     */
+    public void restoreFromMonitoring(Job stored) throws JobException
+    {
+        // Nothing to do if we haven't compacted.
+        if (!_compacted) return;
+        if (stored == null || !uuid.equals(stored.getUuid())) {
+            String msg = MsgUtils.getMsg("JOBS_RESTORE_JOB_ERROR", uuid, 
+                                         stored == null ? null : stored.getUuid());
+            throw new JobException(msg);
+        }
+        
+        // Replace the released fields and let the parsed versions be recreated.
+        fileInputs = stored.getFileInputs();
+        parameterSet = stored.getParameterSet();
+        execSystemConstraints = stored.getExecSystemConstraints();
+        subscriptions = stored.getSubscriptions();
+        notes = stored.getNotes();
+        _fileInputsSpec = null;
+        _parameterSetModel = null;
+        _compacted = false;
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* isCompacted:                                                                 */
+    /* ---------------------------------------------------------------------------- */
+    @Schema(hidden = true)
+    public boolean isCompacted() {return _compacted;}
+    
     /* ---------------------------------------------------------------------------- */
     /* isArchiveSameAsOutput:                                                       */
     /* ---------------------------------------------------------------------------- */
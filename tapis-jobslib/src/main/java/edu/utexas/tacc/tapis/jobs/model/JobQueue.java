@@ -10,6 +10,7 @@ public final class JobQueue
     private int     priority;
     private String  filter;
     private String  uuid;
+    private String  tenantWeights; // null when fair sharing is disabled
     private Instant created;
     private Instant lastUpdated;
 
@@ -56,6 +57,14 @@ public final class JobQueue
 		this.uuid = uuid;
 	}
 
+	public String getTenantWeights() {
+		return tenantWeights;
+	}
+
+	public void setTenantWeights(String tenantWeights) {
+		this.tenantWeights = tenantWeights;
+	}
+
 	public Instant getCreated() {
 		return created;
 	}
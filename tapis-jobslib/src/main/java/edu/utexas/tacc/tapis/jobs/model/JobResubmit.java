@@ -1,12 +1,24 @@
 package edu.utexas.tacc.tapis.jobs.model;
 
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.utils.ResubmitCodec;
+import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
 
+/** A job's saved submission request.  Requests read from the database are 
+ * kept in their stored encoding and only decoded when the job definition
+ * is first requested.
+ */
 public final class JobResubmit
 {
     private int     id;
     private String  jobUuid;
     private String  jobDefinition;
+    
+    // The stored request until it's decoded.
+    private transient String  codec;
+    private transient int     length;
+    private transient byte[]  content;
 
     @Override
     public String toString() {return TapisUtils.toString(this);}
@@ -28,10 +40,23 @@ public final class JobResubmit
 	}
 
 	public String getJobDefinition() {
+	    // Decode the stored request on first use.
+	    if (jobDefinition == null && content != null) {
+	        try {jobDefinition = ResubmitCodec.decode(codec, length, content);}
+	            catch (JobException e) {throw new TapisRuntimeException(e.getMessage(), e);}
+	        content = null;
+	    }
 		return jobDefinition;
 	}
 
 	public void setJobDefinition(String jobDefinition) {
 		this.jobDefinition = jobDefinition;
 	}
+
+	public void setEncodedDefinition(String codec, int length, byte[] content) {
+	    this.jobDefinition = null;
+	    this.codec = codec;
+	    this.length = length;
+	    this.content = content;
+	}
 }
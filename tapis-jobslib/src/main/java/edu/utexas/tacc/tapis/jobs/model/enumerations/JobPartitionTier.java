@@ -0,0 +1,10 @@
+package edu.utexas.tacc.tapis.jobs.model.enumerations;
+
+/** The storage tier of a jobs or job_events table partition.  HOT partitions
+ * can contain active jobs; COLD partitions contain only terminal jobs and are 
+ * never accessed by workers.
+ */
+public enum JobPartitionTier 
+{
+    HOT, COLD;
+}
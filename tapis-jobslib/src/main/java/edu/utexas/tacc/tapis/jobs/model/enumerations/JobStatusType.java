@@ -2,6 +2,7 @@ package edu.utexas.tacc.tapis.jobs.model.enumerations;
 
 public enum JobStatusType
 {
+    PENDING_VALIDATION("Job accepted and awaiting validation"),
     PENDING("Job processing beginning"),
   
     PROCESSING_INPUTS("Identifying input files for staging"),
@@ -63,19 +64,22 @@ public enum JobStatusType
 	               + FAILED.name()    + "', '"
 	               + CANCELLED.name() + "', '"
 	               + PENDING.name() + "', '"
+	               + PENDING_VALIDATION.name() + "', '"
 	               + BLOCKED.name()   + "', '" 
 	               + PAUSED.name()    + "'";
 	}
 
     // Construct the string on non-active to be used 
     // SQL IN clauses.  Note PENDING is considered 
-    // active in this context.
+    // active in this context, but PENDING_VALIDATION
+    // jobs have not yet been assigned their systems.
     public static String getNonActiveWithoutPendingSQLString()
     {
         // Construct the quoted string with commas.
         return "'" + FINISHED.name()  + "', '"
                    + FAILED.name()    + "', '"
                    + CANCELLED.name() + "', '"
+                   + PENDING_VALIDATION.name() + "', '"
                    + BLOCKED.name()   + "', '" 
                    + PAUSED.name()    + "'";
     }
@@ -86,7 +90,7 @@ public enum JobStatusType
 	{
 		// Construct the quoted string with commas.
 		return "'"  + FINISHED.name()  + "', '"
-					+ FAILED.name()    + ", '"
+					+ FAILED.name()    + "', '"
 					+ CANCELLED.name() + "'";
 	}
 
@@ -0,0 +1,35 @@
+package edu.utexas.tacc.tapis.jobs.model.submit;
+
+import java.util.List;
+
+import edu.utexas.tacc.tapis.shared.model.KeyValuePair;
+
+/** This is the java model for the parameterSet.jobArray JSON value defined in 
+ * SubmitJobRequest.json.  A job array runs the application once for each task
+ * in a single Slurm array job.  Each task is assigned the environment variables
+ * at its position in the tasks list, so the task with SLURM_ARRAY_TASK_ID=0 
+ * receives the variables in the first element, and so on.  
+ * 
+ * @author rcardone
+ */
+public class JobArraySpec 
+{
+    private List<List<KeyValuePair>> tasks;
+    private Integer                  maxConcurrentTasks;
+    
+    // Convenience method that tolerates a missing task list.
+    public int getTaskCount() {return tasks == null ? 0 : tasks.size();}
+    
+    public List<List<KeyValuePair>> getTasks() {
+        return tasks;
+    }
+    public void setTasks(List<List<KeyValuePair>> tasks) {
+        this.tasks = tasks;
+    }
+    public Integer getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+    public void setMaxConcurrentTasks(Integer maxConcurrentTasks) {
+        this.maxConcurrentTasks = maxConcurrentTasks;
+    }
+}
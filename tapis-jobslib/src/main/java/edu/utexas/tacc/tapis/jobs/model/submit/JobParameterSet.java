@@ -19,6 +19,7 @@ public class JobParameterSet
     private List<KeyValuePair>   envVariables;
     private IncludeExcludeFilter archiveFilter;
     private LogConfig            logConfig; 
+    private JobArraySpec         jobArray;  // null unless running a job array
     
     // Constructors.
     public JobParameterSet() {this(true);}
@@ -72,4 +73,13 @@ public class JobParameterSet
 	public void setLogConfig(LogConfig logConfig) {
 		this.logConfig = logConfig;
 	}
+    public JobArraySpec getJobArray() {
+        return jobArray;
+    }
+    public void setJobArray(JobArraySpec jobArray) {
+        this.jobArray = jobArray;
+    }
+    
+    // Job arrays require at least one task.
+    public boolean isJobArray() {return jobArray != null && jobArray.getTaskCount() > 0;}
 }
@@ -5,7 +5,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.jobs.cancellers.JobCancelerFactory;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobRemoteOutcome;
@@ -16,6 +18,7 @@ import edu.utexas.tacc.tapis.jobs.monitors.policies.MonitorPolicy;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobCancelMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobCancelRecoverMsg;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
@@ -24,6 +27,8 @@ import edu.utexas.tacc.tapis.shared.exceptions.recoverable.TapisRecoverableExcep
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.ssh.apache.system.TapisRunCommand;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
 
 /** This clas implements the main monitoring loop when the job is both in the 
  * QUEUE and RUNNING states.  Connections to the execution system are closed
@@ -47,12 +52,25 @@ abstract class AbstractJobMonitor
     // The number of times we'll try a new connection after a channel error.
     private static final int CHANNEL_ERROR_RETRIES = 1;
     
+    // After a completion notice, the execution system may report the job as 
+    // active for a short time.  We check at this interval a limited number 
+    // of times before reverting to the policy's schedule.
+    private static final long NOTICE_RECHECK_MILLIS = 10000;
+    private static final int  NOTICE_RECHECKS       = 6;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
     protected final MonitorPolicy       _policy;
     protected final JobExecutionContext _jobCtx;
     protected final Job                 _job;
+    
+    // Creation time used to reject shared host snapshots taken before the
+    // job was launched.
+    private final long                  _createdMillis = System.currentTimeMillis();
+    
+    // Number of shortened waits remaining after a completion notice.
+    private int                         _noticeRechecks = NOTICE_RECHECKS;
 
     /* ********************************************************************** */
     /*                              Constructors                              */
@@ -252,11 +270,23 @@ abstract class AbstractJobMonitor
                     throw new JobException(msg);
                 }
                 
+                // Shorten the wait while the execution system catches up 
+                // with a completion notice.
+                if (_jobCtx.isCompletionNotified() && _noticeRechecks > 0) {
+                    _noticeRechecks--;
+                    waitMillis = Math.min(waitMillis, NOTICE_RECHECK_MILLIS);
+                }
+                
                 // *** Async command check ***
                 _jobCtx.checkCmdMsg();
             
-                // Wait the policy-determined number of milliseconds; exceptions are logged.
-                try {Thread.sleep(waitMillis);} 
+                // Wait the policy-determined number of milliseconds or until the
+                // job's wrapper script reports completion; exceptions are logged.
+                try {
+                    if (_jobCtx.awaitCompletionNotice(waitMillis) && _log.isDebugEnabled())
+                        _log.debug(MsgUtils.getMsg("JOBS_MONITOR_CALLBACK_WAKEUP", _job.getUuid(), 
+                                                   getClass().getSimpleName()));
+                } 
                     catch (InterruptedException e) {
                         if (_log.isDebugEnabled()) {
                             String msg = MsgUtils.getMsg("JOBS_MONITOR_INTERRUPTED", _job.getUuid(), 
@@ -293,19 +323,20 @@ abstract class AbstractJobMonitor
                     // Let's record this failure attempt.
                     lastAttemptFailed = true;
                     
-                    // Update the job monitoring counter and its persistent 
+                    // Update the job monitoring counter and, eventually, its persistent 
                     // record in the database. An exception can be thrown here.
                     final boolean success = false;
-                    _jobCtx.getJobsDao().incrementRemoteStatusCheck(_job, success);
+                    StatusCheckWriter.getInstance().record(_jobCtx.getJobsDao(), _job, success);
                     
                     // Try again.
                     continue;
                 }
                 
                 // The monitoring command did not fail, so we can update the job monitoring counter
-                // and its persistent record in the database now. An exception can be thrown here.
+                // and, eventually, its persistent record in the database. An exception can be 
+                // thrown here.
                 final boolean success = true;
-                _jobCtx.getJobsDao().incrementRemoteStatusCheck(_job, success);
+                StatusCheckWriter.getInstance().record(_jobCtx.getJobsDao(), _job, success);
                 
                 // --------------------- Process No-Change ---------------------------
                 // Is the remote job's status still compatible with our initial status? 
@@ -395,6 +426,9 @@ abstract class AbstractJobMonitor
                 }
             }
             
+            // Write the status check counts accumulated during this phase.
+            StatusCheckWriter.getInstance().flush(_job);
+            
             // Close the connection if the job has terminated.
             if (_job.getRemoteOutcome() != null) closeConnection();
             
@@ -425,7 +459,17 @@ abstract class AbstractJobMonitor
     		resp = new JobMonitorCmdResponse();
     		try {
     			// Issue the command and get the result.
-    			resp.rc = runCmd.execute(cmd);
+    			long cmdStart = System.nanoTime();
+    			boolean cmdExecuted = false;
+    			Span cmdSpan = JobTracing.startJobSpan(JobTracing.SPAN_MONITOR_CMD, SpanKind.CLIENT, _job);
+    			try {
+    			    resp.rc = runCmd.execute(cmd);
+    			    cmdExecuted = true;
+    			}
+    			finally {
+    			    JobMetrics.recordMonitorCmd(_job, cmdStart, cmdExecuted);
+    			    JobTracing.endSpan(cmdSpan, cmdExecuted);
+    			}
     			runCmd.logNonZeroExitCode();
     			resp.result = runCmd.getOutAsString();
     		}
@@ -467,6 +511,45 @@ abstract class AbstractJobMonitor
     	return resp;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* getCreatedMillis:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** The time this monitor was created, which is after the job was launched.
+     * Shared host snapshots taken before this time are not used.
+     * 
+     * @return the creation time in epoch milliseconds
+     */
+    protected long getCreatedMillis() {return _createdMillis;}
+    
+    /* ---------------------------------------------------------------------- */
+    /* getProcessSnapshot:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Get a snapshot of the execution host's process table that's shared with
+     * other monitors of jobs running on the same host as the same user.  If a
+     * new snapshot is needed, it's taken using this monitor's connection.
+     * 
+     * @param runCmd the run command object
+     * @return the non-null process snapshot
+     * @throws Exception if the snapshot could not be taken
+     */
+    protected ProcessSnapshot getProcessSnapshot(TapisRunCommand runCmd)
+     throws Exception
+    {
+        var execSys = _jobCtx.getExecutionSystem();
+        long maxAgeMillis = RuntimeParameters.getInstance().getMonitorSnapshotMaxAgeMs();
+        return ProcessSnapshotCache.getSnapshot(execSys.getHost(), execSys.getEffectiveUserId(), 
+                                                _createdMillis, maxAgeMillis, 
+            () -> {
+                // A full process table is never empty, so treat no output as an error.
+                var resp = runJobMonitorCmd(runCmd, JobExecutionUtils.SINGULARITY_START_MONITOR);
+                if (resp.rc != 0 || StringUtils.isBlank(resp.result)) 
+                    throw new JobException("Unable to take a process snapshot on host " + 
+                                           execSys.getHost() + " for job " + _job.getUuid() + 
+                                           " (rc=" + resp.rc + ").");
+                return resp.result;
+            });
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* cancelExpiredJob:                                                      */
     /* ---------------------------------------------------------------------- */
@@ -1,9 +1,13 @@
 package edu.utexas.tacc.tapis.jobs.monitors;
 
+import java.util.List;
+
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.monitors.parsers.JobRemoteStatus;
 import edu.utexas.tacc.tapis.jobs.monitors.policies.MonitorPolicy;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
@@ -31,6 +35,9 @@ public class DockerNativeMonitor
     // The application return code as reported by docker.
     private String _exitCode;
     
+    // Whether this monitor is registered with the shared docker status cache.
+    private boolean _registered;
+    
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
@@ -85,22 +92,35 @@ public class DockerNativeMonitor
         // Get the command text for this job's container.
         String cmd = JobExecutionUtils.getDockerStatusCommand(_job.getUuid());
         
-        // Execute the query with retry capability.
+        // Look up the container in the status snapshot shared by all monitors
+        // on the same host and user when snapshot sharing is enabled.  
         String result = null;
-        int rc;
-        try {
-        	// Unpack results.
-        	var resp = runJobMonitorCmd(runCmd, cmd);
-        	rc = resp.rc;
-        	result = resp.result;
-        }
-        catch (Exception e) {
-            // Exception already logged.
-            return JobRemoteStatus.NULL;
+        long maxAgeMillis = RuntimeParameters.getInstance().getMonitorSnapshotMaxAgeMs();
+        if (maxAgeMillis > 0) {
+            result = querySnapshot(runCmd, maxAgeMillis);
+            if (result != null) cmd = JobExecutionUtils.DOCKER_STATUS_ALL;
         }
         
-        // Determine if there's no point in going on.
-        detectFatalCondition(rc, result);
+        // Query the container directly if it's not in the snapshot, which
+        // can happen with containers launched before labeling was introduced
+        // or when the shared query fails.
+        if (result == null) {
+            // Execute the query with retry capability.
+            int rc;
+            try {
+            	// Unpack results.
+            	var resp = runJobMonitorCmd(runCmd, cmd);
+            	rc = resp.rc;
+            	result = resp.result;
+            }
+            catch (Exception e) {
+                // Exception already logged.
+                return JobRemoteStatus.NULL;
+            }
+            
+            // Determine if there's no point in going on.
+            detectFatalCondition(rc, result);
+        }
         
         // We should have gotten something.
         if (StringUtils.isBlank(result)) return JobRemoteStatus.EMPTY;
@@ -132,8 +152,9 @@ public class DockerNativeMonitor
                 status = JobRemoteStatus.DONE;
             }
             
-            // Remove the container from the execution system.
-            removeContainer(_jobCtx.getExecutionSystem(), runCmd);
+            // Remove the container from the execution system now or as
+            // part of the next shared status query.
+            retireContainer(_jobCtx.getExecutionSystem(), runCmd);
             
             return status;
         }
@@ -145,6 +166,108 @@ public class DockerNativeMonitor
         return JobRemoteStatus.EMPTY;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* cleanUpRemoteJob:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Make sure this monitor is no longer counted as active on the host when
+     * monitoring ends without the container having exited.
+     */
+    @Override
+    protected void cleanUpRemoteJob() 
+    {
+        // Best effort, no noise.
+        if (!_registered) return;
+        try {
+            var execSystem = _jobCtx.getExecutionSystem();
+            var removals = release(execSystem, null);
+            if (!removals.isEmpty()) 
+                removeContainers(execSystem, _jobCtx.getExecSystemTapisSSH().getRunCommand(), 
+                                 removals);
+        }
+        catch (Exception e) {
+            _log.error(e.getMessage(), e);
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* querySnapshot:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Look up this job's container in the host's shared status snapshot.  A
+     * new snapshot, when needed, is taken using this monitor's connection and
+     * also removes any exited containers queued by other monitors.
+     * 
+     * @param runCmd the run command object
+     * @param maxAgeMillis the maximum age of a shared snapshot
+     * @return the container status or null if the container was not found
+     */
+    private String querySnapshot(TapisRunCommand runCmd, long maxAgeMillis)
+    {
+        var execSystem = _jobCtx.getExecutionSystem();
+        String host = execSystem.getHost();
+        String user = execSystem.getEffectiveUserId();
+        
+        // Count this monitor as active on the host.
+        if (!_registered) {
+            DockerStatusCache.register(host, user);
+            _registered = true;
+        }
+        
+        // Get the host's container statuses.
+        DockerStatusSnapshot snapshot = null;
+        try {
+            snapshot = DockerStatusCache.getSnapshot(host, user, getCreatedMillis(), maxAgeMillis, 
+                removals -> {
+                    // Prepend the batched removal of exited containers.
+                    String cmd = JobExecutionUtils.DOCKER_STATUS_ALL;
+                    if (!removals.isEmpty())
+                        cmd = JobExecutionUtils.getDockerRmCommand(removals) + " > /dev/null 2>&1; " + cmd;
+                    var resp = runJobMonitorCmd(runCmd, cmd);
+                    if (resp.rc != 0) 
+                        throw new JobException("Unable to query docker container status on host " + 
+                                               host + " for job " + _job.getUuid() + 
+                                               " (rc=" + resp.rc + "): " + resp.result);
+                    return resp.result;
+                });
+        }
+        catch (Exception e) {
+            _log.warn(e.getMessage());
+            return null;
+        }
+        
+        return snapshot.getStatus(_job.getUuid());
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* retireContainer:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Remove this job's exited container.  When other monitors are active on
+     * the host, removal is queued for the next shared status query.
+     * 
+     * @param execSystem the execution system
+     * @param runCmd the run command object
+     */
+    private void retireContainer(TapisSystem execSystem, TapisRunCommand runCmd)
+    {
+        if (_registered) {
+            var removals = release(execSystem, _job.getUuid());
+            if (!removals.isEmpty()) removeContainers(execSystem, runCmd, removals);
+        }
+        else removeContainers(execSystem, runCmd, List.of(_job.getUuid()));
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* release:                                                               */
+    /* ---------------------------------------------------------------------- */
+    private List<String> release(TapisSystem execSystem, String containerName)
+    {
+        _registered = false;
+        return DockerStatusCache.release(execSystem.getHost(), execSystem.getEffectiveUserId(), 
+                                         containerName);
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* detectFatalCondition:                                                  */
     /* ---------------------------------------------------------------------- */
@@ -181,12 +304,13 @@ public class DockerNativeMonitor
     }
     
     /* ---------------------------------------------------------------------- */
-    /* removeContainer:                                                       */
+    /* removeContainers:                                                      */
     /* ---------------------------------------------------------------------- */
-    private void removeContainer(TapisSystem execSystem, TapisRunCommand runCmd)
+    private void removeContainers(TapisSystem execSystem, TapisRunCommand runCmd,
+                                  List<String> containerNames)
     {
-        // Get the command text for this job's container.
-        String cmd = JobExecutionUtils.getDockerRmCommand(_job.getUuid());
+        // Get the command text for the containers.
+        String cmd = JobExecutionUtils.getDockerRmCommand(containerNames);
         
         // Query the container.
         String result = null;
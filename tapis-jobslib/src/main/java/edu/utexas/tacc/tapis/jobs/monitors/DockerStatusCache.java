@@ -0,0 +1,219 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** This class shares docker container status snapshots among all the monitors
+ * in this process that watch docker jobs running on the same host as the same
+ * user.  Rather than each monitor issuing its own docker ps command on every
+ * polling tick, at most one command per host and user is issued in each max
+ * age interval, and all monitors read the indexed result.
+ *
+ * The removal of terminated containers is also batched.  Monitors whose
+ * containers have exited queue the container names, and the queued names are
+ * removed by a single docker rm command prepended to the next status query.
+ * When the last active monitor for a host and user finishes, there is no next
+ * query, so that monitor is handed the queued names to remove immediately.
+ *
+ * A snapshot is only usable by a monitor if the snapshot was taken after the
+ * monitor's job was launched; otherwise a newly launched container might not
+ * appear in the snapshot.  When a snapshot is too old or too early, the first
+ * monitor to notice takes a new one while monitors for the same host and user
+ * wait for its result.
+ *
+ * @author rcardone
+ */
+final class DockerStatusCache
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(DockerStatusCache.class);
+
+    // Idle entries whose snapshots are older than this multiple of the max age
+    // are discarded when any snapshot is refreshed.
+    private static final int EVICTION_AGE_MULTIPLIER = 10;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Entries keyed by host and effective user.
+    private static final ConcurrentHashMap<String,StatusEntry> _entries =
+        new ConcurrentHashMap<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private DockerStatusCache() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* register:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Record that a monitor is actively polling a container on the host.
+     * Each call must be matched by a call to release().
+     *
+     * @param host the execution host
+     * @param user the effective user on the host
+     */
+    static void register(String host, String user)
+    {
+        getEntry(host, user).monitors.incrementAndGet();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* release:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Record that a monitor is no longer polling the host.  If a container
+     * name is provided, that container is scheduled for removal.  If this was
+     * the last active monitor for the host and user, all containers scheduled
+     * for removal are returned and the caller is responsible for removing
+     * them.  Otherwise, removal is left to the next status query.
+     *
+     * @param host the execution host
+     * @param user the effective user on the host
+     * @param containerName the exited container to be removed or null
+     * @return the non-null list of containers the caller should remove now
+     */
+    static List<String> release(String host, String user, String containerName)
+    {
+        var entry = getEntry(host, user);
+        if (containerName != null) entry.removals.add(containerName);
+        if (entry.monitors.decrementAndGet() > 0) return Collections.emptyList();
+        return drain(entry);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getSnapshot:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get a container status snapshot for the host and user that was taken
+     * no earlier than notBefore and is no older than maxAgeMillis.  If no such
+     * snapshot is cached, the loader is called to issue the docker command
+     * along with the removal of any containers scheduled for removal.
+     *
+     * @param host the execution host
+     * @param user the effective user on the host
+     * @param notBefore the earliest acceptable snapshot time in epoch millis
+     * @param maxAgeMillis the maximum age of a shared snapshot
+     * @param loader issues the docker commands and returns the ps output
+     * @return the non-null snapshot
+     * @throws Exception if the loader fails
+     */
+    static DockerStatusSnapshot getSnapshot(String host, String user, long notBefore,
+                                            long maxAgeMillis, StatusLoader loader)
+     throws Exception
+    {
+        // Use the current snapshot if it's recent enough.
+        var entry = getEntry(host, user);
+        var snapshot = entry.snapshot;
+        if (isUsable(snapshot, notBefore, maxAgeMillis)) return snapshot;
+
+        // Only one thread refreshes a host's snapshot at a time.
+        synchronized (entry) {
+            // Another thread may have refreshed the snapshot while we waited.
+            snapshot = entry.snapshot;
+            if (isUsable(snapshot, notBefore, maxAgeMillis)) return snapshot;
+
+            // Take a new snapshot, piggybacking any pending container removals.
+            // The time is recorded before the command is issued so that a
+            // snapshot never appears to be more recent than it is.
+            var removals = drain(entry);
+            long takenAt = System.currentTimeMillis();
+            String result;
+            try {result = loader.load(removals);}
+            catch (Exception e) {
+                // Try the removals again next time.
+                entry.removals.addAll(removals);
+                throw e;
+            }
+            snapshot = new DockerStatusSnapshot(result == null ? "" : result, takenAt);
+            entry.snapshot = snapshot;
+        }
+
+        // Discard abandoned entries.
+        evict(maxAgeMillis);
+
+        if (_log.isDebugEnabled())
+            _log.debug("New docker status snapshot for " + user + "@" + host + " contains " +
+                       snapshot.size() + " containers.");
+        return snapshot;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getEntry:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private static StatusEntry getEntry(String host, String user)
+    {
+        return _entries.computeIfAbsent(host + "|" + user, k -> new StatusEntry());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* drain:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    private static List<String> drain(StatusEntry entry)
+    {
+        var list = new ArrayList<String>();
+        String name;
+        while ((name = entry.removals.poll()) != null) list.add(name);
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* isUsable:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private static boolean isUsable(DockerStatusSnapshot snapshot, long notBefore,
+                                    long maxAgeMillis)
+    {
+        if (snapshot == null) return false;
+        long takenAt = snapshot.getTakenAt();
+        return takenAt >= notBefore && System.currentTimeMillis() - takenAt <= maxAgeMillis;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* evict:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    private static void evict(long maxAgeMillis)
+    {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis * EVICTION_AGE_MULTIPLIER;
+        _entries.values().removeIf(e -> {
+            var snapshot = e.snapshot;
+            return snapshot != null && snapshot.getTakenAt() < cutoff &&
+                   e.monitors.get() <= 0 && e.removals.isEmpty();
+        });
+    }
+
+    /* ********************************************************************** */
+    /*                             StatusLoader                               */
+    /* ********************************************************************** */
+    /** Removes the specified containers, if any, then issues the docker ps
+     * command on the host and returns its raw output.
+     */
+    @FunctionalInterface
+    interface StatusLoader
+    {
+        String load(List<String> removals) throws Exception;
+    }
+
+    /* ********************************************************************** */
+    /*                            StatusEntry Class                           */
+    /* ********************************************************************** */
+    private static final class StatusEntry
+    {
+        private volatile DockerStatusSnapshot         snapshot;
+        private final AtomicInteger                   monitors = new AtomicInteger();
+        private final ConcurrentLinkedQueue<String>   removals = new ConcurrentLinkedQueue<>();
+    }
+}
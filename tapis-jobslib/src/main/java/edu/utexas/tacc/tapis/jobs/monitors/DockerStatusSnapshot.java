@@ -0,0 +1,89 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.util.HashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
+
+/** An immutable copy of the status of all Tapis containers on a docker host
+ * as reported by:
+ *
+ *   docker ps -a --no-trunc --filter "label=tapis.jobs.uuid" --format "{{.Names}}|{{.Status}}"
+ *
+ * The output is parsed once and indexed by container name, which Tapis sets
+ * to the job uuid, so that any number of job monitors can look up their
+ * containers without reparsing.
+ *
+ * @author rcardone
+ */
+final class DockerStatusSnapshot
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(DockerStatusSnapshot.class);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The time the docker command was issued in epoch milliseconds.
+    private final long                   _takenAt;
+
+    // Container status keyed by container name.
+    private final HashMap<String,String> _statusByName = new HashMap<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Parse and index the raw docker output.
+     *
+     * @param psResult the non-null output of the docker ps command
+     * @param takenAt the time the command was issued
+     */
+    DockerStatusSnapshot(String psResult, long takenAt)
+    {
+        _takenAt = takenAt;
+
+        // Process each record.
+        for (var r : AbstractSingularityMonitor._newLinePattern.split(psResult)) {
+            if (r.isBlank()) continue;
+            int index = r.indexOf(JobExecutionUtils.DOCKER_STATUS_ALL_SEPARATOR);
+            if (index < 1) {
+                if (_log.isDebugEnabled()) _log.debug("Skipping unparsable docker record: " + r);
+                continue;
+            }
+            _statusByName.put(r.substring(0, index).trim(), r.substring(index + 1).trim());
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getTakenAt:                                                            */
+    /* ---------------------------------------------------------------------- */
+    long getTakenAt() {return _takenAt;}
+
+    /* ---------------------------------------------------------------------- */
+    /* size:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    int size() {return _statusByName.size();}
+
+    /* ---------------------------------------------------------------------- */
+    /* getStatus:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Get the docker status string of the named container.
+     *
+     * @param containerName the container name
+     * @return the status, such as "Up 2 minutes", or null if the container
+     *         does not appear in the snapshot
+     */
+    String getStatus(String containerName)
+    {return containerName == null ? null : _statusByName.get(containerName);}
+}
@@ -1,9 +1,18 @@
 package edu.utexas.tacc.tapis.jobs.monitors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import edu.utexas.tacc.tapis.apps.client.gen.model.RuntimeOptionEnum;
 import edu.utexas.tacc.tapis.apps.client.gen.model.TapisApp;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobMonitorStatsDao;
+import edu.utexas.tacc.tapis.jobs.dao.JobMonitorStatsDao.MonitorStats;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobType;
+import edu.utexas.tacc.tapis.jobs.monitors.policies.AdaptiveBackoffPolicy;
 import edu.utexas.tacc.tapis.jobs.monitors.policies.MonitorPolicy;
 import edu.utexas.tacc.tapis.jobs.monitors.policies.MonitorPolicyParameters;
 import edu.utexas.tacc.tapis.jobs.monitors.policies.StepwiseBackoffPolicy;
@@ -15,6 +24,9 @@ import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerTypeEnum;
 /** All supported monitors are instantiated using this class. */
 public class JobMonitorFactory 
 {
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobMonitorFactory.class);
+    
     /* ---------------------------------------------------------------------- */
     /* getInstance:                                                           */
     /* ---------------------------------------------------------------------- */
@@ -22,6 +34,10 @@ public class JobMonitorFactory
      * using the default monitor policy.  This method either returns the 
      * appropriate monitor or throws an exception.
      * 
+     * The default policy is the adaptive policy when enough similar jobs have
+     * completed to predict the end of the job's current phase, and the stepwise
+     * policy otherwise.
+     * 
      * @param jobCtx job context
      * @return the monitor designated for the current job type and environment
      * @throws TapisException when no monitor is found or a network error occurs
@@ -30,9 +46,12 @@ public class JobMonitorFactory
      throws TapisException 
     {
         // Use the default policy with the default parameters to create a monitor.
+        var job    = jobCtx.getJob();
         var parms  = new MonitorPolicyParameters();
-        parms.setDefaultMaxElapsedSecond(jobCtx.getJob());
-        var policy = new StepwiseBackoffPolicy(jobCtx.getJob(), parms);
+        parms.setDefaultMaxElapsedSecond(job);
+        MonitorPolicy policy;
+        if (setTransitionStatistics(job, parms)) policy = new AdaptiveBackoffPolicy(job, parms);
+          else policy = new StepwiseBackoffPolicy(job, parms);
         return getInstance(jobCtx, policy);
     }
     
@@ -103,6 +122,45 @@ public class JobMonitorFactory
         return monitor;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* setTransitionStatistics:                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Assign the historical duration statistics of the job's current phase to
+     * the policy parameters if there are enough samples.  Statistics are not
+     * required for monitoring, so errors are logged and otherwise ignored.
+     * 
+     * @param job the job to be monitored
+     * @param parms the parameters to be updated
+     * @return true if the statistics were assigned, false otherwise
+     */
+    private static boolean setTransitionStatistics(Job job, MonitorPolicyParameters parms)
+    {
+        // Is adaptive monitoring enabled?
+        int minSamples = RuntimeParameters.getInstance().getMonitorAdaptiveMinSamples();
+        if (minSamples <= 0) return false;
+        
+        // Get the statistics for jobs like this one.
+        MonitorStats stats = null;
+        try {stats = new JobMonitorStatsDao().getStats(job);}
+        catch (Exception e) {
+            _log.warn(e.getMessage(), e);
+            return false;
+        }
+        if (stats == null) return false;
+        
+        // Assign the statistics for the phase being monitored.
+        if (job.getStatus() == JobStatusType.RUNNING) {
+            if (stats.runSamples < minSamples) return false;
+            parms.transitionMeanSeconds   = stats.runMeanSecs;
+            parms.transitionStdDevSeconds = stats.runStdDevSecs;
+        } else {
+            if (stats.waitSamples < minSamples) return false;
+            parms.transitionMeanSeconds   = stats.waitMeanSecs;
+            parms.transitionStdDevSeconds = stats.waitStdDevSecs;
+        }
+        return true;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getSingularityOption:                                                  */
     /* ---------------------------------------------------------------------- */
@@ -153,7 +211,8 @@ public class JobMonitorFactory
     {
         // Get the scheduler's docker monitor. 
         JobMonitor monitor = switch (scheduler) {
-            case SLURM -> new SlurmMonitor(jobCtx, policy);
+            case SLURM -> jobCtx.getJob().getParameterSetModel().isJobArray() ?
+                              new SlurmArrayMonitor(jobCtx, policy) : new SlurmMonitor(jobCtx, policy);
         
             default -> {
                 String msg = MsgUtils.getMsg("TAPIS_UNSUPPORTED_APP_RUNTIME", 
@@ -0,0 +1,149 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.monitors.AbstractSingularityMonitor.PsRecord;
+
+/** An immutable, indexed copy of a host's process table as reported by:
+ *
+ *   ps --no-headers --sort=pid -eo pid,ppid,stat,euser,cmd
+ *
+ * The output is parsed once and indexed by pid, by parent pid and by
+ * singularity instance name so that any number of job monitors can look up
+ * their processes without reparsing.  Children are listed in ascending pid
+ * order, which is the order in which ps returns them.
+ *
+ * @author rcardone
+ */
+final class ProcessSnapshot
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(ProcessSnapshot.class);
+
+    // Singularity instance processes have commands that look like this:
+    //
+    //   Singularity instance: rcardone [XXX]
+    //
+    // where XXX is the instance name, which Tapis sets to the job uuid.
+    private static final String INSTANCE_MARKER = "instance:";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The time the ps command was issued in epoch milliseconds.
+    private final long                          _takenAt;
+
+    // The indexes.
+    private final HashMap<String,PsRecord>       _byPid      = new HashMap<>();
+    private final HashMap<String,List<PsRecord>> _byPpid     = new HashMap<>();
+    private final HashMap<String,PsRecord>       _byInstance = new HashMap<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Parse and index the raw ps output.
+     *
+     * @param psResult the non-null output of the ps command
+     * @param takenAt the time the command was issued
+     */
+    ProcessSnapshot(String psResult, long takenAt)
+    {
+        _takenAt = takenAt;
+
+        // Process each record.
+        for (var r : AbstractSingularityMonitor._newLinePattern.split(psResult)) {
+            if (r.isBlank()) continue;
+            var m = AbstractSingularityMonitor._psPattern.matcher(r);
+            if (!m.matches()) {
+                if (_log.isDebugEnabled()) _log.debug("Skipping unparsable ps record: " + r);
+                continue;
+            }
+
+            // Index the record.
+            var rec = new PsRecord(m.group(1), m.group(2), m.group(3));
+            _byPid.put(rec.pid, rec);
+            _byPpid.computeIfAbsent(rec.ppid, k -> new ArrayList<>(2)).add(rec);
+
+            // Index singularity instances by name.
+            String rest = rec.rest;
+            if (rest.endsWith("]") && rest.contains(INSTANCE_MARKER)) {
+                int start = rest.lastIndexOf('[');
+                if (start >= 0) _byInstance.put(rest.substring(start + 1, rest.length() - 1), rec);
+            }
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getTakenAt:                                                            */
+    /* ---------------------------------------------------------------------- */
+    long getTakenAt() {return _takenAt;}
+
+    /* ---------------------------------------------------------------------- */
+    /* size:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    int size() {return _byPid.size();}
+
+    /* ---------------------------------------------------------------------- */
+    /* getProcess:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Get the process with the specified pid.
+     *
+     * @param pid the process id
+     * @return the process record or null if the process doesn't exist
+     */
+    PsRecord getProcess(String pid) {return pid == null ? null : _byPid.get(pid);}
+
+    /* ---------------------------------------------------------------------- */
+    /* getFirstChild:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Get the child of the specified process with the lowest pid.
+     *
+     * @param ppid the parent process id
+     * @return the child process record or null if there are no children
+     */
+    PsRecord getFirstChild(String ppid)
+    {
+        var children = getChildren(ppid);
+        return children.isEmpty() ? null : children.get(0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getChildren:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get the children of the specified process in ascending pid order.
+     *
+     * @param ppid the parent process id
+     * @return the non-null, unmodifiable list of children
+     */
+    List<PsRecord> getChildren(String ppid)
+    {
+        var children = ppid == null ? null : _byPpid.get(ppid);
+        return children == null ? Collections.emptyList() : Collections.unmodifiableList(children);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get the singularity instance process with the specified name.
+     *
+     * @param instanceName the instance name
+     * @return the instance process record or null if none exists
+     */
+    PsRecord getInstance(String instanceName)
+    {return instanceName == null ? null : _byInstance.get(instanceName);}
+}
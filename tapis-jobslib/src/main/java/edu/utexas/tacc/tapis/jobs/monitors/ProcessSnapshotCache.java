@@ -0,0 +1,151 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/** This class shares process table snapshots among all the monitors in this
+ * process that watch fork jobs running on the same host as the same user.
+ * Rather than each monitor dumping and parsing the host's entire process table
+ * on every polling tick, at most one snapshot per host and user is taken in
+ * each max age interval, and all monitors read the indexed result.
+ *
+ * A snapshot is only usable by a monitor if the snapshot was taken after the
+ * monitor's job was launched; otherwise a newly launched job would not appear
+ * in the snapshot and would be considered terminated.  When a snapshot is too
+ * old or too early, the first monitor to notice takes a new one while monitors
+ * for the same host and user wait for its result.
+ *
+ * @author rcardone
+ */
+final class ProcessSnapshotCache
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(ProcessSnapshotCache.class);
+
+    // Entries whose snapshots are older than this multiple of the max age are
+    // discarded when any snapshot is refreshed.
+    private static final int EVICTION_AGE_MULTIPLIER = 10;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Entries keyed by host and effective user.
+    private static final ConcurrentHashMap<String,SnapshotEntry> _entries =
+        new ConcurrentHashMap<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private ProcessSnapshotCache() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getSnapshot:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get a process table snapshot for the host and user that was taken no
+     * earlier than notBefore and is no older than maxAgeMillis.  If no such
+     * snapshot is cached, the loader is called to issue the ps command.  When
+     * maxAgeMillis is not positive, snapshots are never shared.
+     *
+     * @param host the execution host
+     * @param user the effective user on the host
+     * @param notBefore the earliest acceptable snapshot time in epoch millis
+     * @param maxAgeMillis the maximum age of a shared snapshot
+     * @param loader issues the ps command and returns its output
+     * @return the non-null snapshot
+     * @throws Exception if the loader fails
+     */
+    static ProcessSnapshot getSnapshot(String host, String user, long notBefore,
+                                       long maxAgeMillis, SnapshotLoader loader)
+     throws Exception
+    {
+        // No sharing.
+        if (maxAgeMillis <= 0) return load(loader);
+
+        // Use the current snapshot if it's recent enough.
+        var entry = _entries.computeIfAbsent(host + "|" + user, k -> new SnapshotEntry());
+        var snapshot = entry.snapshot;
+        if (isUsable(snapshot, notBefore, maxAgeMillis)) return snapshot;
+
+        // Only one thread refreshes a host's snapshot at a time.
+        synchronized (entry) {
+            // Another thread may have refreshed the snapshot while we waited.
+            snapshot = entry.snapshot;
+            if (isUsable(snapshot, notBefore, maxAgeMillis)) return snapshot;
+
+            // Take a new snapshot.
+            snapshot = load(loader);
+            entry.snapshot = snapshot;
+        }
+
+        // Discard abandoned entries.
+        evict(maxAgeMillis);
+
+        if (_log.isDebugEnabled())
+            _log.debug("New process snapshot for " + user + "@" + host + " contains " +
+                       snapshot.size() + " processes.");
+        return snapshot;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* load:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    private static ProcessSnapshot load(SnapshotLoader loader) throws Exception
+    {
+        // The time is recorded before the command is issued so that a snapshot
+        // never appears to be more recent than it is.
+        long takenAt = System.currentTimeMillis();
+        String result = loader.load();
+        return new ProcessSnapshot(result == null ? "" : result, takenAt);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* isUsable:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private static boolean isUsable(ProcessSnapshot snapshot, long notBefore, long maxAgeMillis)
+    {
+        if (snapshot == null) return false;
+        long takenAt = snapshot.getTakenAt();
+        return takenAt >= notBefore && System.currentTimeMillis() - takenAt <= maxAgeMillis;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* evict:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    private static void evict(long maxAgeMillis)
+    {
+        long cutoff = System.currentTimeMillis() - maxAgeMillis * EVICTION_AGE_MULTIPLIER;
+        _entries.values().removeIf(e -> {
+            var snapshot = e.snapshot;
+            return snapshot != null && snapshot.getTakenAt() < cutoff;
+        });
+    }
+
+    /* ********************************************************************** */
+    /*                            SnapshotLoader                              */
+    /* ********************************************************************** */
+    /** Issues the ps command on the host and returns its raw output. */
+    @FunctionalInterface
+    interface SnapshotLoader
+    {
+        String load() throws Exception;
+    }
+
+    /* ********************************************************************** */
+    /*                            SnapshotEntry Class                         */
+    /* ********************************************************************** */
+    private static final class SnapshotEntry
+    {
+        private volatile ProcessSnapshot snapshot;
+    }
+}
@@ -79,28 +79,17 @@ public class SingularityStartMonitor
         // Get the command object.
         var runCmd = _jobCtx.getExecSystemTapisSSH().getRunCommand();
         
-        // Get the command text for this job's container.
-        String cmd = JobExecutionUtils.SINGULARITY_START_MONITOR;
-        
-        // Execute the query with retry capability.
-        String result = null;
-        int rc;
-        try {
-        	// Unpack results.
-        	var resp = runJobMonitorCmd(runCmd, cmd);
-        	rc = resp.rc;
-        	result = resp.result;
-        }
+        // Get the host's process table, which is shared with the monitors 
+        // of all jobs running on the same host as the same user.
+        ProcessSnapshot snapshot = null;
+        try {snapshot = getProcessSnapshot(runCmd);}
         catch (Exception e) {
-            // Exception already logged.
+            _log.error(e.getMessage(), e);
             return JobRemoteStatus.NULL;
         }
         
-        // We should have gotten something.
-        if (StringUtils.isBlank(result)) return JobRemoteStatus.EMPTY;
-        
-        // Extract records of interest from the results.
-        PsStartInfo psInfo = extractInstanceInfo(result);
+        // Extract records of interest from the snapshot.
+        PsStartInfo psInfo = extractInstanceInfo(snapshot);
         
         // We should always have found the sinit record, which represents the 
         // process the singularity instance start command spawned.
@@ -179,10 +168,10 @@ public class SingularityStartMonitor
      * job.  The job's remoteJobId is the PID returned by "singularity instance start"
      * command and should always be present in the monitoring results.  
      * 
-     * @param results raw results from remote ps command
+     * @param snapshot the indexed results of the remote ps command
      * @return the parsed records of interest for this job
      */
-    private PsStartInfo extractInstanceInfo(String results)
+    private PsStartInfo extractInstanceInfo(ProcessSnapshot snapshot)
     {
         // Example list call:
         //  singularity instance list XXX
@@ -198,49 +187,14 @@ public class SingularityStartMonitor
         //  624799       2 S<   root     [loop1]
         //  624807  624785 S    rcardone /bin/sh /.singularity.d/startscript
         //  624810  624807 Sl   rcardone java -cp /usr/local/bin/testapps.jar edu.utexas.tacc.testapps.tapis.SleepSeconds 120
-        
-        // Result object.
+        //
+        // The sinit process is the remote job id, the startscript is the first 
+        // child of sinit and the app is the first child of the startscript.
         var info = new PsStartInfo();
-        final String instanceSearch = "[" + _job.getUuid() + "]";
-        String startscriptPid = null;
-        
-        // Split on newlines.
-        String[] records = _newLinePattern.split(results);
-      
-        // Process each record.
-        for (var r : records) {
-            var m = _psPattern.matcher(r);
-            var b = m.matches();
-            if (!b) {
-                String msg = MsgUtils.getMsg("JOBS_SINGULARITY_PS_PARSE_WARN", _job.getUuid(), r);
-                _log.warn(msg);
-                continue;
-            }
-            
-            // Unpack the parsed results.
-            var pid  = m.group(1);
-            var ppid = m.group(2); // never missing
-            var rest = m.group(3);
-            
-            // Try to fill in each of the info fields. Note that the ps monitoring command
-            // returns records in ascending pid order.  This causes records to be returned 
-            // in the order shown above.  This code below doesn't depend on this ordering,
-            // but does test records in the same order.
-            if (info.instance == null && rest.endsWith(instanceSearch)) {
-                info.instance = new PsRecord(pid, ppid, rest);
-            } else if (info.sinit == null && pid.equals(_job.getRemoteJobId())) {
-                info.sinit = new PsRecord(pid, ppid, rest);
-            } else if (info.startscript == null && ppid.equals(_job.getRemoteJobId())) {
-                info.startscript = new PsRecord(pid, ppid, rest);
-                startscriptPid = pid;  // the process whose absence indicates app termination
-            } else if (startscriptPid != null && info.app == null && ppid.equals(startscriptPid)) {
-                info.app = new PsRecord(pid, ppid, rest);
-            }
-        
-            // Terminate search early if possible.
-            if (info.isComplete()) return info;
-        }
-        
+        info.instance = snapshot.getInstance(_job.getUuid());
+        info.sinit = snapshot.getProcess(_job.getRemoteJobId());
+        if (info.sinit != null) info.startscript = snapshot.getFirstChild(info.sinit.pid);
+        if (info.startscript != null) info.app = snapshot.getFirstChild(info.startscript.pid);
         return info;
     }
     
@@ -256,12 +210,5 @@ public class SingularityStartMonitor
         private PsRecord sinit;
         private PsRecord startscript;
         private PsRecord app;
-        
-        // Have all fields been assigned?
-        private boolean isComplete() {
-            if (instance == null || sinit == null || startscript == null || app == null)
-                return false;
-            return true;
-        }
     }
 }
@@ -0,0 +1,179 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import static edu.utexas.tacc.tapis.shared.utils.TapisUtils.alwaysSingleQuote;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobMonitorResponseException;
+import edu.utexas.tacc.tapis.jobs.monitors.parsers.JobRemoteStatus;
+import edu.utexas.tacc.tapis.jobs.monitors.policies.MonitorPolicy;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Slurm job array monitoring class.
+ *
+ *  The status of every task in the array is retrieved with one command:
+ *     sacct -X -n -P -o 'JobID,State,ExitCode' -j ${JOBID}
+ *
+ *     Example of response returned by sacct:
+ *          "<jobid>_0|COMPLETED|0:0|"
+ *          "<jobid>_[1-99%10]|PENDING|0:0|"
+ *
+ *  The task states are aggregated as described in SlurmArrayStatus.  When the
+ *  array terminates, the per-task results are written to the job's output 
+ *  directory so that they are archived with the tasks' output files, and a 
+ *  summary of the task states becomes the job's final message.
+ */
+public final class SlurmArrayMonitor 
+ extends AbstractJobMonitor
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SlurmArrayMonitor.class);
+    
+    // Placeholder string.
+    private static final String PLACEHOLDER = "${JOBID}";
+    
+    // The allocation records of all array tasks.
+    private static final String ARRAY_CMD = 
+        "sacct -X -n -P -o 'JobID,State,ExitCode' -j ${JOBID}";
+    
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The response from the current query command or null.
+    private SlurmArrayStatus _arrayStatus;
+    
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    protected SlurmArrayMonitor(JobExecutionContext jobCtx, MonitorPolicy policy) 
+    {
+        super(jobCtx, policy);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getExitCode:                                                           */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public String getExitCode() {
+        if (_arrayStatus == null) return null;
+        return _arrayStatus.getExitCode();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* queryRemoteJob:                                                        */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    protected JobRemoteStatus queryRemoteJob(boolean active) throws TapisException 
+    {
+        // The single query covers both active and terminated tasks.
+        if (!active) return JobRemoteStatus.EMPTY;
+        
+        // Sanity check--we can't do much without the remote job id.
+        if (StringUtils.isBlank(_job.getRemoteJobId())) {
+            String msg = MsgUtils.getMsg("JOBS_MISSING_REMOTE_JOB_ID", _job.getUuid());
+            throw new JobException(msg);
+        }
+        
+        // Reset the response.
+        _arrayStatus = null;
+        
+        // Substitute the actual remote id.
+        var runCmd = _jobCtx.getExecSystemTapisSSH().getRunCommand();
+        String cmd = ARRAY_CMD.replace(PLACEHOLDER, _job.getRemoteJobId());
+        if (_log.isDebugEnabled())
+            _log.debug(MsgUtils.getMsg("JOBS_MONITOR_COMMAND", _job.getUuid(), 
+                                       _jobCtx.getExecutionSystem().getHost(), 
+                                       _jobCtx.getExecutionSystem().getPort(), cmd));
+        
+        // Execute the query with retry capability.
+        String result = null;
+        try {result = runJobMonitorCmd(runCmd, cmd).result;}
+        catch (Exception e) {
+            // Exception already logged.
+            return JobRemoteStatus.NULL;
+        }
+        
+        // We should have gotten something.
+        if (StringUtils.isBlank(result)) return JobRemoteStatus.EMPTY;
+        
+        // Parse the non-null result.
+        _arrayStatus = new SlurmArrayStatus(_job.getRemoteJobId(), result);
+        if (_arrayStatus.getUnknownState() != null) {
+            String msg = MsgUtils.getMsg("JOBS_MONITOR_UNKNOWN_RESPONSE",
+                                         getClass().getSimpleName(),
+                                         _job.getRemoteJobId(),
+                                         _arrayStatus.getUnknownState(),
+                                         _job.getUuid());
+            throw new JobMonitorResponseException(msg);
+        }
+        
+        // Aggregate the task states.
+        int expectedTasks = _job.getParameterSetModel().getJobArray().getTaskCount();
+        var status = _arrayStatus.getRemoteStatus(expectedTasks);
+        if (status == JobRemoteStatus.EMPTY) {
+            String msg = MsgUtils.getMsg("JOBS_MONITOR_NO_STATUS", 
+                                         getClass().getSimpleName(),
+                                         _job.getUuid(), _job.getRemoteJobId());
+            _log.warn(msg);
+            return status;
+        }
+        
+        // Record the results of terminated arrays.
+        if (status == JobRemoteStatus.DONE || status == JobRemoteStatus.FAILED) {
+            String summary = "Job array " + _job.getRemoteJobId() + " with " + expectedTasks +
+                             " tasks terminated: " + _arrayStatus.getSummary() + ".";
+            if (status == JobRemoteStatus.FAILED) {
+                String msg = MsgUtils.getMsg("JOBS_MONITOR_FAILURE_RESPONSE", 
+                                             getClass().getSimpleName(), _job.getRemoteJobId(), 
+                                             status.name(), _arrayStatus.getExitCode(),
+                                             _job.getUuid());
+                _log.warn(msg);
+                _job.setCondition(_arrayStatus.getFailureCondition());
+            }
+            _jobCtx.setFinalMessage(summary);
+            writeTaskResults();
+        }
+        
+        return status;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* writeTaskResults:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Write the per-task results to the output directory.  Failure to write
+     * the file is logged but does not affect the job.
+     */
+    private void writeTaskResults()
+    {
+        try {
+            String path = _jobCtx.getJobFileManager().makeAbsExecSysOutputPath(
+                              JobExecutionUtils.JOB_ARRAY_TASKS_FILE);
+            var scpClient = _jobCtx.getExecSystemTapisSSH().getScpClient();
+            scpClient.uploadBytesToFile(_arrayStatus.getTaskResults().getBytes(), 
+                                        alwaysSingleQuote(path), JobFileManager.RWRW, null);
+        }
+        catch (Exception e) {
+            _log.warn("Unable to write job array task results for job " + _job.getUuid() + 
+                      ": " + e.getMessage(), e);
+        }
+    }
+}
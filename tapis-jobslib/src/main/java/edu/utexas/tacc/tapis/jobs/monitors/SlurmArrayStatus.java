@@ -0,0 +1,230 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
+import edu.utexas.tacc.tapis.jobs.monitors.parsers.JobRemoteStatus;
+import edu.utexas.tacc.tapis.jobs.monitors.parsers.SlurmStatusType;
+
+/** The parsed status of all tasks in a slurm job array as reported by:
+ * 
+ *   sacct -X -n -P -o 'JobID,State,ExitCode' -j <arrayJobId>
+ *   
+ * Each output line describes either one task or a range of tasks that share 
+ * the same state, which is how slurm reports pending tasks:
+ * 
+ *   1234_0|COMPLETED|0:0
+ *   1234_1|FAILED|1:0
+ *   1234_[2-9%4]|PENDING|0:0
+ *   
+ * The task states are aggregated into a single remote status for the whole
+ * array.  The array is queued until any task starts, active until all tasks
+ * have terminated, and failed if any task failed.
+ * 
+ * @author rcardone
+ */
+final class SlurmArrayStatus 
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Output parsing.
+    private static final Pattern _newLinePattern = Pattern.compile("\\R");
+    private static final Pattern _pipeSplitter = Pattern.compile(Pattern.quote("|"));
+    
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // One record per output line that refers to the array job.
+    private final List<TaskRecord> _records = new ArrayList<>();
+    
+    // Task counts by category.
+    private int _queued;
+    private int _active;
+    private int _completed;
+    private int _failed;
+    
+    // The first failed task and the first unrecognized state, if any.
+    private TaskRecord       _firstFailure;
+    private JobConditionCode _failureCondition;
+    private String           _unknownState;
+    
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Parse the raw sacct output.  Lines that don't refer to the array job,
+     * such as banners or job steps, are ignored.
+     * 
+     * @param arrayJobId the slurm job id returned on submission
+     * @param sacctResult the non-null output of the sacct command
+     */
+    SlurmArrayStatus(String arrayJobId, String sacctResult)
+    {
+        final String prefix = arrayJobId + "_";
+        for (var line : _newLinePattern.split(sacctResult)) {
+            // Find the array task records, skipping job steps.
+            line = line.trim();
+            int index = line.indexOf(prefix);
+            if (index < 0) continue;
+            var parts = _pipeSplitter.split(line.substring(index));
+            if (parts.length < 2 || parts[0].contains(".")) continue;
+            
+            // Create the record.
+            String tasks    = parts[0].substring(prefix.length()).trim();
+            String state    = StringUtils.substringBefore(parts[1].trim(), " ").toUpperCase();
+            String exitCode = parts.length > 2 ? parts[2].trim() : "";
+            var record = new TaskRecord(tasks, state, exitCode, countTasks(tasks));
+            _records.add(record);
+            
+            // Classify the tasks.
+            SlurmStatusType type;
+            try {type = SlurmStatusType.valueOf(state);}
+                catch (Exception e) {
+                    if (_unknownState == null) _unknownState = state;
+                    continue;
+                }
+            if (type.isQueued()) _queued += record.count;
+            else if (type.isActive() || type.isPaused()) _active += record.count;
+            else if (type.isCompleted()) _completed += record.count;
+            else if (type.isFailed() || type.isUnrecoverable()) {
+                _failed += record.count;
+                if (_firstFailure == null) {
+                    _firstFailure = record;
+                    _failureCondition = type.getJobCondition();
+                }
+            }
+            else if (_unknownState == null) _unknownState = state;
+        }
+    }
+    
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getRemoteStatus:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Aggregate the task states into a status for the whole array.  Until 
+     * all expected tasks are accounted for, the array is not considered to
+     * have terminated since accounting may lag behind the scheduler.
+     * 
+     * @param expectedTasks the number of tasks in the array
+     * @return the array's status
+     */
+    JobRemoteStatus getRemoteStatus(int expectedTasks)
+    {
+        if (_records.isEmpty()) return JobRemoteStatus.EMPTY;
+        if (_active > 0) return JobRemoteStatus.ACTIVE;
+        if (_queued > 0) 
+            return _completed + _failed > 0 ? JobRemoteStatus.ACTIVE : JobRemoteStatus.QUEUED;
+        if (_completed + _failed < expectedTasks) return JobRemoteStatus.ACTIVE;
+        return _failed > 0 ? JobRemoteStatus.FAILED : JobRemoteStatus.DONE;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getExitCode:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** The exit code of the first failed task, or of the first task if none failed. */
+    String getExitCode()
+    {
+        if (_firstFailure != null) return _firstFailure.exitCode;
+        return _records.isEmpty() ? null : _records.get(0).exitCode;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getSummary:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** A summary of task counts by state, such as "8 COMPLETED, 2 FAILED". */
+    String getSummary()
+    {
+        var counts = new TreeMap<String,Integer>();
+        for (var r : _records) counts.merge(r.state, r.count, Integer::sum);
+        var buf = new StringBuilder();
+        for (var entry : counts.entrySet()) {
+            if (buf.length() > 0) buf.append(", ");
+            buf.append(entry.getValue()).append(' ').append(entry.getKey());
+        }
+        return buf.toString();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getTaskResults:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** The per-task results with one task or task range per line:
+     * 
+     *   <task>|<state>|<exit code>
+     */
+    String getTaskResults()
+    {
+        var buf = new StringBuilder(_records.size() * 24);
+        for (var r : _records) 
+            buf.append(r.tasks).append('|').append(r.state).append('|').append(r.exitCode).append('\n');
+        return buf.toString();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* accessors:                                                             */
+    /* ---------------------------------------------------------------------- */
+    int getQueued() {return _queued;}
+    int getActive() {return _active;}
+    int getCompleted() {return _completed;}
+    int getFailed() {return _failed;}
+    String getUnknownState() {return _unknownState;}
+    JobConditionCode getFailureCondition() {return _failureCondition;}
+    
+    /* ---------------------------------------------------------------------- */
+    /* countTasks:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Count the tasks in a task specification, such as 4, [5-9%2], [1,3-7:2].
+     * 
+     * @param tasks the task id or bracketed task ranges
+     * @return the number of tasks
+     */
+    static int countTasks(String tasks)
+    {
+        // Remove the brackets and any concurrency limit.
+        String spec = StringUtils.strip(tasks, "[]");
+        spec = StringUtils.substringBefore(spec, "%");
+        
+        int count = 0;
+        for (var range : spec.split(",")) {
+            try {
+                int dash = range.indexOf('-');
+                if (dash < 0) {count++; continue;}
+                int step = 1;
+                String end = range.substring(dash + 1);
+                int colon = end.indexOf(':');
+                if (colon >= 0) {
+                    step = Math.max(1, Integer.parseInt(end.substring(colon + 1)));
+                    end = end.substring(0, colon);
+                }
+                int first = Integer.parseInt(range.substring(0, dash));
+                int last  = Integer.parseInt(end);
+                if (last >= first) count += (last - first) / step + 1;
+            }
+            catch (NumberFormatException e) {count++;}
+        }
+        return Math.max(1, count);
+    }
+    
+    /* ********************************************************************** */
+    /*                            TaskRecord Class                            */
+    /* ********************************************************************** */
+    private static final class TaskRecord
+    {
+        private final String tasks;
+        private final String state;
+        private final String exitCode;
+        private final int    count;
+        
+        private TaskRecord(String tasks, String state, String exitCode, int count)
+        {this.tasks = tasks; this.state = state; this.exitCode = exitCode; this.count = count;}
+    }
+}
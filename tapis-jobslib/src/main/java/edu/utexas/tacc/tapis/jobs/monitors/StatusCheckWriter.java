@@ -0,0 +1,252 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
+import edu.utexas.tacc.tapis.jobs.dao.JobsDao.StatusCheckDelta;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Write-behind cache for the remote status check counters of monitored jobs.
+ * Each status check updates the in-memory job immediately, but the database
+ * update is accumulated with those of all other jobs monitored by this worker
+ * and written in a single batch statement at the configured interval.  The
+ * counters of a job are also written whenever one of its monitoring phases ends
+ * and when the worker shuts down.  At most one interval of counter updates is
+ * lost if the worker crashes.
+ *
+ * When the interval is not positive, each status check is written immediately
+ * using JobsDao.incrementRemoteStatusCheck().
+ *
+ * @author rcardone
+ */
+public final class StatusCheckWriter
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(StatusCheckWriter.class);
+
+    // The name of the flushing thread.
+    private static final String THREAD_NAME = "StatusCheckWriter";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Singleton instance.
+    private static StatusCheckWriter _instance;
+
+    // Time between batch writes, not positive to write immediately.
+    private final long _flushMillis;
+
+    // Writes batches to the database.
+    private final BatchWriter _writer;
+
+    // Counts not yet written, keyed by job id.
+    private final ConcurrentHashMap<Integer,StatusCheckDelta> _pending = new ConcurrentHashMap<>();
+
+    // Serializes batch writes.
+    private final Object _flushLock = new Object();
+
+    // Lazily started flushing thread.
+    private Thread _flusher;
+    private volatile boolean _shutdown;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private StatusCheckWriter(long flushMillis) 
+    {
+        this(flushMillis, deltas -> new JobsDao().addRemoteStatusChecks(deltas));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    StatusCheckWriter(long flushMillis, BatchWriter writer) 
+    {
+        _flushMillis = flushMillis;
+        _writer = writer;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getInstance:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public static synchronized StatusCheckWriter getInstance()
+    {
+        if (_instance == null)
+            _instance = new StatusCheckWriter(
+                RuntimeParameters.getInstance().getMonitorCheckFlushMillis());
+        return _instance;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* record:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Record a status check of the job.  The in-memory job is updated before
+     * this method returns, the database record is updated later.
+     *
+     * @param jobsDao the dao used to write checks immediately
+     * @param job the monitored job
+     * @param success whether the status check succeeded
+     * @throws JobException if an immediate write fails
+     */
+    public void record(JobsDao jobsDao, Job job, boolean success)
+     throws JobException
+    {
+        // Write through if so configured or if the flusher is gone.
+        if (_flushMillis <= 0 || _shutdown) {
+            jobsDao.incrementRemoteStatusCheck(job, success);
+            return;
+        }
+
+        // Accumulate the counts.
+        Instant now = Instant.now();
+        var delta = new StatusCheckDelta(job.getId(), job.getCreated(), success ? 1 : 0, 
+                                         success ? 0 : 1, now);
+        _pending.merge(job.getId(), delta, StatusCheckDelta::add);
+
+        // Update the in-memory job as if the write occurred.
+        if (success) job.setRemoteChecksSuccess(job.getRemoteChecksSuccess() + 1);
+          else job.setRemoteChecksFailed(job.getRemoteChecksFailed() + 1);
+        job.setLastUpdated(now);
+        job.setRemoteLastStatusCheck(now);
+
+        // Make sure the counts get written.
+        startFlusher();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* flush:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Write the job's accumulated counts now.  Errors are logged and the
+     * counts are retained for the next write.
+     *
+     * @param job the job whose counts are written
+     */
+    public void flush(Job job)
+    {
+        var delta = _pending.remove(job.getId());
+        if (delta != null) write(List.of(delta));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* flushAll:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Write the accumulated counts of all jobs now.  Errors are logged and
+     * the counts are retained for the next write.
+     */
+    public void flushAll()
+    {
+        // Remove each entry atomically so that concurrent updates
+        // create a new entry rather than being lost.
+        var deltas = new ArrayList<StatusCheckDelta>(_pending.size());
+        for (var jobId : _pending.keySet()) {
+            var delta = _pending.remove(jobId);
+            if (delta != null) deltas.add(delta);
+        }
+        if (!deltas.isEmpty()) write(deltas);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* shutdown:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Stop the flushing thread and write all accumulated counts.  Subsequent
+     * status checks are written immediately.
+     */
+    public void shutdown()
+    {
+        _shutdown = true;
+        synchronized (this) {if (_flusher != null) _flusher.interrupt();}
+        flushAll();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPendingJobs:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** The number of jobs with counts that have not been written. */
+    public int getPendingJobs() {return _pending.size();}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* write:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Write the counts in one batch, putting them back on failure. */
+    private void write(List<StatusCheckDelta> deltas)
+    {
+        synchronized (_flushLock) {
+            try {
+                int rows = _writer.write(deltas);
+                if (_log.isDebugEnabled())
+                    _log.debug(MsgUtils.getMsg("JOBS_STATUS_CHECK_BATCH_WRITTEN", deltas.size(), rows));
+            }
+            catch (Exception e) {
+                // Retain the counts for the next attempt.
+                _log.error(e.getMessage(), e);
+                for (var delta : deltas) _pending.merge(delta.jobId, delta, StatusCheckDelta::add);
+            }
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* startFlusher:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private synchronized void startFlusher()
+    {
+        // Start the daemon thread once.
+        if (_flusher != null || _shutdown) return;
+        _flusher = new Thread(this::runFlusher, THREAD_NAME);
+        _flusher.setDaemon(true);
+        _flusher.start();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* runFlusher:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private void runFlusher()
+    {
+        // Tracing.
+        if (_log.isInfoEnabled())
+            _log.info(MsgUtils.getMsg("JOBS_STATUS_CHECK_WRITER_START", THREAD_NAME, _flushMillis));
+
+        // Write periodically until interrupted.
+        while (!_shutdown) {
+            try {Thread.sleep(_flushMillis);}
+                catch (InterruptedException e) {break;}
+            flushAll();
+        }
+
+        // Say goodbye.
+        if (_log.isInfoEnabled())
+            _log.info(MsgUtils.getMsg("JOBS_STATUS_CHECK_WRITER_STOP", THREAD_NAME));
+    }
+
+    /* ********************************************************************** */
+    /*                              BatchWriter                               */
+    /* ********************************************************************** */
+    /** Writes the accumulated counts of any number of jobs and returns the 
+     * number of job records updated.
+     */
+    @FunctionalInterface
+    interface BatchWriter
+    {
+        int write(List<StatusCheckDelta> deltas) throws Exception;
+    }
+}
@@ -4,12 +4,14 @@ import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.monitors.parsers.JobRemoteStatus;
 import edu.utexas.tacc.tapis.jobs.monitors.policies.MonitorPolicy;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shared.ssh.apache.system.TapisRunCommand;
 
 /*
  * Provide support for monitoring a ZIP job of type FORK.
@@ -81,6 +83,11 @@ public class ZipNativeMonitor
 
         // Get the command object.
         var runCmd = _jobCtx.getExecSystemTapisSSH().getRunCommand();
+        
+        // Use the process snapshot shared by all monitors on the same host 
+        // and user when snapshot sharing is enabled.
+        if (RuntimeParameters.getInstance().getMonitorSnapshotMaxAgeMs() > 0)
+            return querySnapshot(runCmd, host);
 
         // Get the command to query for status.
         String cmd = JobExecutionUtils.getZipStatusCommand(_job.getRemoteJobId());
@@ -119,4 +126,39 @@ public class ZipNativeMonitor
     /* ********************************************************************** */
     /*                             Private Methods                            */
     /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* querySnapshot:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether the job's process is still active by looking it up in
+     * the host's shared process snapshot. 
+     * 
+     * @param runCmd the run command object
+     * @param host the execution host
+     * @return the remote job status
+     */
+    private JobRemoteStatus querySnapshot(TapisRunCommand runCmd, String host)
+    {
+        // Get the host's process table.
+        ProcessSnapshot snapshot = null;
+        try {snapshot = getProcessSnapshot(runCmd);}
+        catch (Exception e) {
+            _log.error(e.getMessage(), e);
+            return JobRemoteStatus.NULL;
+        }
+        
+        // The job is active as long as its process exists.
+        if (snapshot.getProcess(_job.getRemoteJobId()) != null) return JobRemoteStatus.ACTIVE;
+        
+        // The process is done, so get its exit code.  No per-process command
+        // was issued, so we log the snapshot that no longer contains the pid.
+        if (_log.isDebugEnabled()) {
+            String msg = MsgUtils.getMsg("JOBS_ZIP_SNAPSHOT_EXIT", _job.getUuid(), host, 
+                                         _job.getRemoteJobId(), snapshot.getTakenAt(), 
+                                         snapshot.size());
+            _log.debug(msg);
+        }
+        _exitCode = readExitCodeFile(runCmd);
+        if (!SUCCESS_RC.equals(_exitCode)) return JobRemoteStatus.FAILED;
+        else return JobRemoteStatus.DONE;
+    }
 }
@@ -0,0 +1,413 @@
+package edu.utexas.tacc.tapis.jobs.monitors.policies;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobType;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** A monitor policy that schedules status checks around the predicted end of
+ * the job's current remote phase.  When the job is QUEUED the phase ends when
+ * the job starts running; when the job is RUNNING the phase ends when the job
+ * terminates.  The prediction is the phase's start time plus the mean duration
+ * of that phase for similar jobs, and a window extending one and a half
+ * standard deviations of the duration to either side of the predicted time
+ * is where the transition is expected.
+ *
+ * After a few quick initial checks that catch immediate failures, checks are
+ * made at a fixed, dense interval inside the window.  Outside the window the
+ * interval grows with the distance from the window, so that checks are rare
+ * when no transition is expected and become more frequent as the window
+ * approaches.  Jobs that are overdue are checked at intervals no longer than
+ * the final StepwiseBackoffPolicy step.  The predicted end of a running job
+ * never exceeds the job's maximum run time.
+ *
+ * Failure limits, execution time limits and the initial queuing race condition
+ * are handled the same way as in StepwiseBackoffPolicy.
+ *
+ * @author rcardone
+ */
+public final class AdaptiveBackoffPolicy
+ implements MonitorPolicy
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    private static final Logger _log = LoggerFactory.getLogger(AdaptiveBackoffPolicy.class);
+
+    // Extend the monitor timeout so that the remote scheduler times out first.
+    private static final int MONITOR_TIMEOUT_EXTENSION_SECS = 600; // 10 minutes
+
+    // The initial wait times match the first steps of the default
+    // stepwise policy so that jobs that fail quickly are detected quickly.
+    private static final long[] INITIAL_WAIT_MILLIS = {1000L, 10000L, 10000L, 10000L, 10000L, 10000L};
+
+    // The window around the predicted transition extends this many standard
+    // deviations to each side, but at least the minimum no matter how 
+    // consistent the historical durations are.
+    private static final double SPREAD_STD_DEVS   = 1.5;
+    private static final long   MIN_SPREAD_MILLIS = 60000L; // 1 minute
+
+    // The interval inside the window is a fraction of the window's half
+    // width limited to this maximum.
+    private static final int  DENSE_DIVISOR         = 8;
+    private static final long DENSE_MAX_WAIT_MILLIS = 180000L; // 3 minutes
+
+    // Outside the window, the interval grows by this fraction of the distance
+    // to the window.
+    private static final int  APPROACH_DIVISOR = 4;
+
+    // The longest interval once the window has passed.
+    private static final long OVERDUE_MAX_WAIT_MILLIS = 600000L; // 10 minutes
+
+    /* ********************************************************************** */
+    /*                                Fields                                  */
+    /* ********************************************************************** */
+    private final Job _job;
+
+    // Parameters.
+    private long                     _maxElapsedSeconds;
+    private long                     _maxConsecutiveFailureMinutes;
+    private long                     _stepConnectionCloseMillis;
+    private long                     _minWaitMillis;
+    private long                     _maxWaitMillis;
+    private long                     _meanMillis;
+    private long                     _spreadMillis;
+
+    // Flags that record policy initialization status.
+    private boolean                  _fieldsInitialized;
+    private boolean                  _runningTimeInitialized;
+
+    // The time of the first try and last allowed try.
+    private Instant                  _monitorStart;
+    private Instant                  _runStartTime;
+    private Instant                  _runEndTime;
+    private Instant                  _firstFailureInSeries;
+
+    // The predicted transition time and the interval used near it.
+    private Instant                  _predicted;
+    private long                     _denseWaitMillis;
+
+    // The number of initial waits consumed and the last wait returned.
+    private int                      _initialTries;
+    private long                     _lastWaitMillis = -1;
+
+    // The reason why the last call to millisToWait returned null.
+    private ReasonCode               _reasonCode;
+
+    // For now we limit the initial queuing race condition
+    // retries by accepting the default maximum.
+    private int                      _initialQueuingRetries = MAX_INITIAL_QUEUED_RETRIES;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** The policy parameters must contain the transition statistics.
+     *
+     * @param job the monitored job
+     * @param policyParameters the parameters including transition statistics
+     * @throws JobException on invalid input
+     */
+    public AdaptiveBackoffPolicy(Job job, MonitorPolicyParameters policyParameters)
+     throws JobException
+    {
+        // Check input.
+        if (job == null) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "AdaptiveBackoff", "job");
+            _log.error(msg);
+            throw new JobException(msg);
+        }
+        if (policyParameters == null) {
+            String msg = MsgUtils.getMsg("TAPIS_NULL_PARAMETER", "AdaptiveBackoff", "policyParameters");
+            _log.error(msg);
+            throw new JobException(msg);
+        }
+        if (policyParameters.transitionMeanSeconds < 0) {
+            String msg = MsgUtils.getMsg("TAPIS_INVALID_PARAMETER", "AdaptiveBackoff",
+                                         "transitionMeanSeconds", policyParameters.transitionMeanSeconds);
+            _log.error(msg);
+            throw new JobException(msg);
+        }
+
+        _job = job;
+        setParameters(policyParameters);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* millisToWait:                                                          */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public Long millisToWait(boolean lastAttemptFailed)
+    {
+        // Set the prediction the first time this method is called.
+        if (!_fieldsInitialized) initFields();
+
+        // Determine if we've had too many failed attempts.
+        Instant now = Instant.now();
+        if (tooManyFailures(lastAttemptFailed, now)) {
+            _reasonCode = ReasonCode.TOO_MANY_FAILURES;
+            return null;
+        }
+
+        // See if the maximum elapsed time has been exceeded.
+        if (_runningTimeInitialized && _runEndTime.isBefore(now)) {
+            _reasonCode = ReasonCode.TIME_EXPIRED;
+            return null;
+        }
+
+        // Use the initial waits before the predicted schedule.
+        if (_initialTries < INITIAL_WAIT_MILLIS.length)
+            _lastWaitMillis = INITIAL_WAIT_MILLIS[_initialTries++];
+          else _lastWaitMillis = calculateWait(now);
+        return _lastWaitMillis;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* keepConnection:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Keep the connection open if the next status check is scheduled within
+     * the connection close cutoff.
+     *
+     * @return true if the policy recommends keeping the connection open,
+     *         false otherwise
+     */
+    @Override
+    public boolean keepConnection()
+    {
+        // This call should not be made before the first millisToWait call,
+        // but if it is we're protected.
+        if (_lastWaitMillis < 0) return false;
+        return _lastWaitMillis < _stepConnectionCloseMillis;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* retryForInitialQueuing:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** This method should only be called when the first remote query returns
+     * a null or empty response.  See the interface definition for details.
+     */
+    @Override
+    public boolean retryForInitialQueuing()
+    {
+        // This only applies if the job was just queued.
+        if (_job.getStatus() != JobStatusType.QUEUED) return false;
+
+        // Determine if only the first wait has been used.
+        if (_initialTries != 1) return false;
+
+        // We only retry for the initial queuing problem a finite number of times.
+        if (_initialQueuingRetries <= 0) return false;
+
+        // Sleep for the configured initial queue condition time.
+        try {Thread.sleep(INITIAL_QUEUED_MILLIS);}
+            catch (InterruptedException e) {
+                if (_log.isDebugEnabled()) {
+                    String msg = MsgUtils.getMsg("JOBS_MONITOR_INTERRUPTED", _job.getUuid(),
+                                                 getClass().getSimpleName());
+                    _log.debug(msg);
+                }
+            }
+        _initialQueuingRetries--; // decrement the retry counter.
+
+        // Let's start over.
+        _initialTries = 0;
+
+        // Tell the caller that they should retry the remote query.
+        return true;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getReasonCode:                                                         */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public ReasonCode getReasonCode() {return _reasonCode;}
+
+    /* ---------------------------------------------------------------------- */
+    /* startJobExecutionTimer:                                                */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void startJobExecutionTimer()
+    {
+        // Only initialize the running time clock once.
+        if (!_runningTimeInitialized) initRunningTimeSettings(Instant.now());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPredictedTransition:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** @return the predicted end of the current phase, null before the first
+     *          call to millisToWait */
+    public Instant getPredictedTransition() {return _predicted;}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* calculateWait:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Calculate the wait time based on the current time's distance from the
+     * window around the predicted transition.
+     *
+     * @param now the current time
+     * @return the milliseconds until the next status check
+     */
+    private long calculateWait(Instant now)
+    {
+        // A positive outside value is the distance to the window.
+        long toPredicted = _predicted.toEpochMilli() - now.toEpochMilli();
+        long outside = Math.abs(toPredicted) - _spreadMillis;
+
+        // Check densely inside the window and less often further away.
+        long wait = _denseWaitMillis;
+        if (outside > 0) {
+            wait += outside / APPROACH_DIVISOR;
+            if (toPredicted > 0) wait = Math.min(wait, outside); // don't skip the window
+              else wait = Math.min(wait, OVERDUE_MAX_WAIT_MILLIS);
+        }
+        wait = Math.max(_minWaitMillis, Math.min(wait, _maxWaitMillis));
+
+        // Check promptly once the execution time limit is reached.
+        if (_runningTimeInitialized) {
+            long toEnd = _runEndTime.toEpochMilli() - now.toEpochMilli();
+            wait = Math.min(wait, Math.max(_minWaitMillis, toEnd));
+        }
+
+        return wait;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* tooManyFailures:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Determine if we've had a run of failed monitoring attempts that
+     * exceed the configured allowed maximum.
+     *
+     * @param lastAttemptFailed true if the last attempt failed
+     * @param now the current time
+     * @return true if we've experienced failures for too long, false otherwise
+     */
+    private boolean tooManyFailures(boolean lastAttemptFailed, Instant now)
+    {
+        // Maybe there's nothing to worry about.
+        if (!lastAttemptFailed) {
+            _firstFailureInSeries = null;
+            return false;
+        }
+
+        // Is this failure the beginning of a new failure series?
+        if (_firstFailureInSeries == null) _firstFailureInSeries = now;
+
+        // Determine if the duration of a series of consecutive
+        // failures has exceeded its time limit.
+        return _firstFailureInSeries.plus(_maxConsecutiveFailureMinutes, ChronoUnit.MINUTES).isBefore(now);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* setParameters:                                                         */
+    /* ---------------------------------------------------------------------- */
+    private void setParameters(MonitorPolicyParameters policyParameters)
+    {
+        // Set the maximum elapsed time.
+        if (policyParameters.maxElapsedSeconds <= 0)
+            _maxElapsedSeconds = getDefaultMaxElapsedSeconds();
+         else _maxElapsedSeconds = policyParameters.maxElapsedSeconds;
+
+        // Connection and failure limits are the same as in the stepwise policy.
+        _stepConnectionCloseMillis = policyParameters.stepConnectionCloseMillis;
+        _maxConsecutiveFailureMinutes = policyParameters.maxConsecutiveFailureMinutes;
+
+        // The wait time bounds.
+        _minWaitMillis = Math.max(1, policyParameters.minWaitMillis);
+        _maxWaitMillis = Math.max(_minWaitMillis, policyParameters.maxWaitMillis);
+
+        // The transition statistics.
+        _meanMillis   = Math.round(policyParameters.transitionMeanSeconds * 1000);
+        _spreadMillis = Math.max(MIN_SPREAD_MILLIS,
+                                 Math.round(policyParameters.transitionStdDevSeconds * SPREAD_STD_DEVS * 1000));
+        _denseWaitMillis = Math.max(_minWaitMillis,
+                                    Math.min(_spreadMillis / DENSE_DIVISOR, DENSE_MAX_WAIT_MILLIS));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getDefaultMaxElapsedSeconds:                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Get the maximum runtime from the job, extended for jobs managed by a
+     * remote scheduler so that the scheduler times out first.
+     *
+     * @return the default maximum runtime in seconds
+     */
+    private long getDefaultMaxElapsedSeconds()
+    {
+        long maxSeconds = _job.getMaxMinutes() * 60;
+        if (maxSeconds <= 0) maxSeconds = (long) (Job.DEFAULT_MAX_MINUTES * 60);
+        if (_job.getJobType() == JobType.BATCH) maxSeconds += MONITOR_TIMEOUT_EXTENSION_SECS;
+        return maxSeconds;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* initFields:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** One time initialization when on first millisToWait call.
+     */
+    private void initFields()
+    {
+        // Set the start time of monitoring.
+        _monitorStart = Instant.now();
+
+        // Set the elapsed time fields if the job is already executing.
+        boolean running = _job.getStatus() == JobStatusType.RUNNING;
+        if (running) initRunningTimeSettings(_monitorStart);
+
+        // The current phase began when the job was submitted to or
+        // started on the remote system.
+        Instant phaseStart = running ? _job.getRemoteStarted() : _job.getRemoteSubmitted();
+        if (phaseStart == null || phaseStart.isAfter(_monitorStart)) phaseStart = _monitorStart;
+        _predicted = phaseStart.plusMillis(_meanMillis);
+
+        // A running job cannot outlast its maximum run time.  The
+        // maximum elapsed time limits how long a job stays queued.
+        Instant limit = running ? phaseStart.plusSeconds(_maxElapsedSeconds)
+                                : _monitorStart.plusSeconds(_maxElapsedSeconds);
+        if (_predicted.isAfter(limit)) _predicted = limit;
+
+        // Skip the initial waits that were already used before this
+        // job's monitoring was interrupted or by an earlier phase.
+        long attempts = (long)_job.getRemoteChecksSuccess() + _job.getRemoteChecksFailed();
+        _initialTries = (int) Math.min(attempts, INITIAL_WAIT_MILLIS.length);
+
+        if (_log.isDebugEnabled())
+            _log.debug(MsgUtils.getMsg("JOBS_MONITOR_PREDICTED_TRANSITION", _job.getUuid(),
+                                       _job.getStatus().name(), _predicted, _spreadMillis / 1000));
+
+        // Indicate field initialization complete.
+        _fieldsInitialized = true;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* initRunningTimeSettings:                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Perform the one time initialization of the execution timer parameters.
+     *
+     * @param start the begin time
+     */
+    private void initRunningTimeSettings(Instant start)
+    {
+        // Set the elapsed time fields.
+        _runStartTime = start;
+        _runEndTime   = _runStartTime.plusSeconds(_maxElapsedSeconds);
+
+        // Mark execution times as initialized.
+        _runningTimeInitialized = true;
+    }
+}
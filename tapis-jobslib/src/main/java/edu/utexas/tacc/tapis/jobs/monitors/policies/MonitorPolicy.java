@@ -23,6 +23,11 @@ public interface MonitorPolicy
     // The default number of seconds we will keep a batch job queued.
     public static final long DEFAULT_QUEUE_SECS = 259200; // 3 days
     
+    // The default bounds on the time between status checks for policies
+    // that schedule checks around predicted status transitions.
+    static final long DEFAULT_ADAPTIVE_MIN_WAIT_MS = 30000;   // 30 seconds
+    static final long DEFAULT_ADAPTIVE_MAX_WAIT_MS = 1800000; // 30 minutes
+    
     /* ********************************************************************** */
     /*                                 Enums                                  */
     /* ********************************************************************** */
@@ -47,6 +47,19 @@ public final class MonitorPolicyParameters
     // monitoring attempts failures causes a timeout.
     public long maxConsecutiveFailureMinutes = MonitorPolicy.DEFAULT_CONSECUTIVE_FAILURE_MINUTES; 
     
+    // ----------------- AdaptiveBackoff parameters -----------------
+    // The mean and standard deviation, in seconds, of the time from the 
+    // start of the job's current remote phase (remote_submitted when QUEUED, 
+    // remote_started when RUNNING) to the phase's end, as observed for 
+    // similar jobs.  A negative mean indicates that no statistics are available.
+    public double transitionMeanSeconds = -1;
+    public double transitionStdDevSeconds;
+    
+    // The shortest and longest time between status checks when polling
+    // is scheduled around the predicted transition.
+    public long minWaitMillis = MonitorPolicy.DEFAULT_ADAPTIVE_MIN_WAIT_MS;
+    public long maxWaitMillis = MonitorPolicy.DEFAULT_ADAPTIVE_MAX_WAIT_MS;
+    
     /* ********************************************************************** */
     /*                             Public Methods                             */
     /* ********************************************************************** */
@@ -0,0 +1,171 @@
+package edu.utexas.tacc.tapis.jobs.queue;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+
+/** Weighted deficit round-robin selection among a fixed set of keys, such as
+ * the per-tenant sub-queues of a fair share submit queue.  Each key receives
+ * a quantum of credit equal to its weight when its turn comes, and one unit
+ * of credit is consumed each time the key is selected.  Selection stays on a
+ * key until its credit is exhausted or the caller reports that it's empty,
+ * at which point its credit is forfeited and the next key's turn begins.
+ * Over time, busy keys are selected in proportion to their weights no matter
+ * how much work is waiting for any one of them.
+ *
+ * Instances are thread-safe.  Weights are parsed from the job_queues
+ * tenant_weights column; see parseWeights().
+ *
+ * @author rcardone
+ */
+public final class DeficitRoundRobin
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The weight assigned to keys not explicitly weighted.
+    public static final int    DEFAULT_WEIGHT = 1;
+
+    // The weight specification key that overrides the default weight.
+    public static final String WILDCARD_KEY = "*";
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Parallel arrays indexed by key position.
+    private final String[] _keys;
+    private final int[]    _weights;
+    private final int[]    _deficits;
+
+    // The index of the key whose turn it is.
+    private int            _current;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Create a round-robin over the keys in the map's iteration order.
+     *
+     * @param keyWeights non-empty map of keys to positive weights
+     */
+    public DeficitRoundRobin(LinkedHashMap<String,Integer> keyWeights)
+    {
+        if (keyWeights == null || keyWeights.isEmpty())
+            throw new IllegalArgumentException("No keys were specified.");
+
+        _keys     = new String[keyWeights.size()];
+        _weights  = new int[_keys.length];
+        _deficits = new int[_keys.length];
+        int i = 0;
+        for (var entry : keyWeights.entrySet()) {
+            _keys[i]    = entry.getKey();
+            _weights[i] = Math.max(1, entry.getValue());
+            i++;
+        }
+
+        // The first selection starts the first key's turn.
+        _current = _keys.length - 1;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* next:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Select the next key and consume one unit of its credit.
+     *
+     * @return the selected key
+     */
+    public synchronized String next()
+    {
+        // Move on when the current key has used its quantum.
+        if (_deficits[_current] < 1) {
+            _current = (_current + 1) % _keys.length;
+            _deficits[_current] += _weights[_current];
+        }
+        _deficits[_current]--;
+        return _keys[_current];
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* empty:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Report that the key had no work when it was selected.  The key forfeits
+     * its remaining credit so that idle keys don't accumulate credit.
+     *
+     * @param key a previously selected key
+     */
+    public synchronized void empty(String key)
+    {
+        for (int i = 0; i < _keys.length; i++)
+            if (_keys[i].equals(key)) {_deficits[i] = 0; break;}
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* size:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    public int size() {return _keys.length;}
+
+    /* ---------------------------------------------------------------------- */
+    /* getKeys:                                                               */
+    /* ---------------------------------------------------------------------- */
+    public List<String> getKeys() {return List.of(_keys);}
+
+    /* ---------------------------------------------------------------------- */
+    /* parseWeights:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Parse a weight specification of the form:
+     *
+     *     key1=weight1, key2=weight2, *=defaultWeight
+     *
+     * Weights must be positive integers.  An empty specification assigns all
+     * keys the default weight.
+     *
+     * @param spec the weight specification
+     * @return the map of keys to weights
+     * @throws IllegalArgumentException if the specification is malformed
+     */
+    public static Map<String,Integer> parseWeights(String spec)
+    {
+        var weights = new LinkedHashMap<String,Integer>();
+        if (StringUtils.isBlank(spec)) return weights;
+
+        for (var item : spec.split(",")) {
+            if (StringUtils.isBlank(item)) continue;
+            var parts = item.split("=");
+            if (parts.length != 2 || StringUtils.isBlank(parts[0]))
+                throw new IllegalArgumentException("Invalid weight assignment: " + item.trim());
+
+            int weight;
+            try {weight = Integer.parseInt(parts[1].trim());}
+                catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Invalid weight assignment: " + item.trim());
+                }
+            if (weight < 1)
+                throw new IllegalArgumentException("Weights must be positive: " + item.trim());
+            weights.put(parts[0].trim(), weight);
+        }
+        return weights;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getWeight:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Get a key's weight from a parsed specification.
+     *
+     * @param weights the result of parseWeights()
+     * @param key the key to look up
+     * @return the key's weight, the wildcard weight or the default weight
+     */
+    public static int getWeight(Map<String,Integer> weights, String key)
+    {
+        var weight = weights.get(key);
+        if (weight == null) weight = weights.get(WILDCARD_KEY);
+        return weight == null ? DEFAULT_WEIGHT : weight;
+    }
+}
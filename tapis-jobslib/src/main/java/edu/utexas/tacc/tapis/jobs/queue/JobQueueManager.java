@@ -2,32 +2,44 @@ package edu.utexas.tacc.tapis.jobs.queue;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.rabbitmq.client.AMQP;
 import com.rabbitmq.client.BasicProperties;
 import com.rabbitmq.client.BuiltinExchangeType;
 import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.ShutdownSignalException;
 
 import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobQueueException;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.JobEvent;
 import edu.utexas.tacc.tapis.jobs.queue.messages.JobSubmitMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobCancelRecoverMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobRecoverMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverMsg;
+import edu.utexas.tacc.tapis.jobs.recover.RecoveryPartitions;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.runtime.TapisRuntimeException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
-import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+import edu.utexas.tacc.tapis.shared.security.TenantManager;
 import edu.utexas.tacc.tapis.sharedq.AbstractQueueManager;
 import edu.utexas.tacc.tapis.sharedq.VHostManager;
 import edu.utexas.tacc.tapis.sharedq.VHostParms;
 import edu.utexas.tacc.tapis.sharedq.exceptions.TapisQueueException;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
 
 public final class JobQueueManager 
   extends AbstractQueueManager
@@ -52,6 +64,9 @@ public final class JobQueueManager
   // Singleton instance of this class.
   private static JobQueueManager  _instance;
   
+  // The fair share sub-queues known to exist on the broker.
+  private final Set<String> _fairShareQueues = ConcurrentHashMap.newKeySet();
+  
   /* ********************************************************************** */
   /*                             Constructors                               */
   /* ********************************************************************** */
@@ -95,6 +110,20 @@ public final class JobQueueManager
           String msg = MsgUtils.getMsg("JOBS_QMGR_INIT_ERROR");
           throw new TapisRuntimeException(msg, e);
       }
+      
+      // Create the queue used to redeliver throttled jobs.
+      try {createDelayQueue();}
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("JOBS_QMGR_INIT_ERROR");
+          throw new TapisRuntimeException(msg, e);
+      }
+      
+      // Create the queues that partition recovery messages.
+      try {createRecoveryPartitionQueues();}
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("JOBS_QMGR_INIT_ERROR");
+          throw new TapisRuntimeException(msg, e);
+      }
   }
   
   /* ---------------------------------------------------------------------- */
@@ -208,14 +237,192 @@ public final class JobQueueManager
   /* ---------------------------------------------------------------------------- */
   public void queueJob(Job job) throws JobException
   {
-      // Create the message.
-      var message = new JobSubmitMsg();
-      message.setCreated(job.getCreated().toString());
-      message.setUuid(job.getUuid());
-      var jsonMessage = TapisGsonUtils.getGson().toJson(message);
-      var queueName    = job.getTapisQueue();
-      var exchangeName = JobQueueManagerNames.getSubmitExchangeName();
-      postToQueue(queueName, exchangeName, jsonMessage, queueName);
+      // Trace the publication; the worker continues the trace.
+      Span span = JobTracing.startJobSpan(JobTracing.SPAN_QUEUE_PUBLISH, SpanKind.PRODUCER, job);
+      boolean success = false;
+      try (Scope scope = span.makeCurrent()) {
+          // Create the message.
+          var message = new JobSubmitMsg();
+          message.setCreated(job.getCreated().toString());
+          message.setUuid(job.getUuid());
+          message.setTraceContext(JobTracing.inject());
+          var jsonMessage  = QueueMsgCodec.encode(message);
+          var queueName    = getSubmitQueueName(job);
+          var exchangeName = JobQueueManagerNames.getSubmitExchangeName();
+          postToQueue(queueName, exchangeName, jsonMessage, queueName);
+          success = true;
+      }
+      finally {JobTracing.endSpan(span, success);}
+  }
+
+  /* ---------------------------------------------------------------------------- */
+  /* getSubmitQueueName:                                                          */
+  /* ---------------------------------------------------------------------------- */
+  /** Get the name of the queue to which the job is posted.  This is the job's
+   * tapis queue unless that queue has tenant weights, in which case it's the 
+   * job tenant's sub-queue of the tapis queue.  Workers on fair share queues 
+   * read all tenant sub-queues using weighted deficit round-robin, so one 
+   * tenant's backlog doesn't delay the jobs of other tenants.
+   * 
+   * @param job the job being queued
+   * @return the queue name, which is also the routing key
+   */
+  public String getSubmitQueueName(Job job)
+  {
+      // Is fair sharing enabled on the job's queue?
+      String queueName = job.getTapisQueue();
+      boolean fairShare = false;
+      for (var queue : SubmitQueues.getQueues())
+          if (queue.getName().equals(queueName)) {
+              fairShare = queue.getTenantWeights() != null;
+              break;
+          }
+      if (!fairShare) return queueName;
+      
+      // Use the tenant sub-queue if it exists or can be created.
+      String subQueueName = JobQueueManagerNames.getFairShareQueueName(queueName, job.getTenant());
+      return declareFairShareQueue(subQueueName) ? subQueueName : queueName;
+  }
+  
+  /* ---------------------------------------------------------------------------- */
+  /* declareFairShareQueue:                                                       */
+  /* ---------------------------------------------------------------------------- */
+  /** Create a tenant sub-queue of a submit queue and bind it to the submit 
+   * exchange if it hasn't already been created by this process.  Both the 
+   * processes that post jobs and the workers that read them declare sub-queues, 
+   * so neither depends on the other having run first.
+   * 
+   * @param queueName the sub-queue name, which is also its binding key
+   * @return true if the queue exists, false if it could not be created
+   */
+  public boolean declareFairShareQueue(String queueName)
+  {
+      // Only declare queues once.
+      if (_fairShareQueues.contains(queueName)) return true;
+      
+      Channel channel = null;
+      try {
+          // Create a temporary channel.
+          channel = getNewOutChannel();
+          
+          // Use the same definition as the workers use for submit queues.
+          final boolean durable = true;
+          final boolean exclusive = false;
+          final boolean autodelete = false;
+          channel.queueDeclare(queueName, durable, exclusive, autodelete, null);
+          channel.queueBind(queueName, JobQueueManagerNames.getSubmitExchangeName(), queueName);
+          _fairShareQueues.add(queueName);
+          return true;
+      }
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("JOBS_QMGR_Q_DECLARE_ERROR", "queue", queueName, 
+                                       getOutConnectionName(), 
+                                       channel == null ? -1 : channel.getChannelNumber(), 
+                                       e.getMessage());
+          _log.error(msg, e);
+          return false;
+      }
+      finally {
+          // Close the channel if it exists and hasn't already been aborted.
+          if (channel != null && channel.isOpen())
+            try {channel.close();} 
+                catch (Exception e1) {
+                    String msg = MsgUtils.getMsg("JOBS_QMGR_CHANNEL_CLOSE_ERROR", 
+                                                 channel.getChannelNumber(), e1.getMessage());
+                    _log.warn(msg, e1);
+                }
+      }
+  }
+  
+  /* ---------------------------------------------------------------------------- */
+  /* getSubmitBacklog:                                                            */
+  /* ---------------------------------------------------------------------------- */
+  /** Get the number of messages waiting on all submit queues, including the 
+   * tenant sub-queues of fair share queues.  Sub-queues that haven't been 
+   * created yet are empty.  A partial total is never returned, so callers can
+   * keep their previous sample when any queue can't be read.
+   * 
+   * @return the number of jobs waiting for a worker
+   * @throws JobException if the tenants or any queue depth can't be read
+   */
+  public long getSubmitBacklog() throws JobException
+  {
+      // Collect the tenant ids only if some queue needs them.
+      Set<String> tenantIds = null;
+      
+      long total = 0;
+      for (var queue : SubmitQueues.getQueues()) {
+          total += getQueueDepth(queue.getName());
+          if (queue.getTenantWeights() == null) continue;
+          
+          // Add the fair share sub-queues.
+          if (tenantIds == null) 
+              try {tenantIds = TenantManager.getInstance().getTenants().keySet();}
+                  catch (Exception e) {throw new JobException(e.getMessage(), e);}
+          for (var tenantId : tenantIds)
+              total += getQueueDepth(
+                          JobQueueManagerNames.getFairShareQueueName(queue.getName(), tenantId));
+      }
+      return total;
+  }
+  
+  /* ---------------------------------------------------------------------------- */
+  /* getQueueDepth:                                                               */
+  /* ---------------------------------------------------------------------------- */
+  /** Get the number of messages ready for delivery on a queue using a passive
+   * declaration, which doesn't create the queue.  A temporary channel is used 
+   * since the broker closes the channel when the queue doesn't exist.
+   * 
+   * @param queueName the queue to inspect
+   * @return the number of ready messages, 0 if the queue doesn't exist
+   * @throws JobQueueException if the broker can't be read
+   */
+  public long getQueueDepth(String queueName) throws JobQueueException
+  {
+      Channel channel = null;
+      try {
+          channel = getNewOutChannel();
+          return channel.queueDeclarePassive(queueName).getMessageCount();
+      }
+      catch (Exception e) {
+          // Sub-queues that haven't been used yet don't exist.
+          if (isQueueNotFound(e)) return 0;
+          
+          String msg = MsgUtils.getMsg("JOBS_QMGR_Q_DEPTH_ERROR", queueName, e.getMessage());
+          throw new JobQueueException(msg, e);
+      }
+      finally {
+          // Close the channel if it exists and hasn't already been aborted.
+          if (channel != null && channel.isOpen())
+            try {channel.close();} 
+                catch (Exception e1) {
+                    String msg = MsgUtils.getMsg("JOBS_QMGR_CHANNEL_CLOSE_ERROR", 
+                                                 channel.getChannelNumber(), e1.getMessage());
+                    _log.warn(msg, e1);
+                }
+      }
+  }
+  
+  /* ---------------------------------------------------------------------------- */
+  /* requeueJobDelayed:                                                           */
+  /* ---------------------------------------------------------------------------- */
+  /** Republish a submit message so that it's redelivered to its submit queue 
+   * after the configured throttle redelivery delay.  The message is posted to 
+   * the delay queue, which dead letters expired messages back to the submit 
+   * exchange using the submit queue name as the original routing key.  No
+   * worker thread is occupied while the job waits.
+   * 
+   * @param jobMsg the submit message that was delivered to a worker
+   * @param queueName the submit queue to which the message is redelivered
+   * @throws JobException on error
+   */
+  public void requeueJobDelayed(JobSubmitMsg jobMsg, String queueName) throws JobException
+  {
+      int delaySeconds  = RuntimeParameters.getInstance().getThrottleRedeliverySeconds();
+      var jsonMessage   = QueueMsgCodec.encode(jobMsg);
+      var exchangeName  = JobQueueManagerNames.getDelayExchangeName(delaySeconds);
+      postToQueue(JobQueueManagerNames.getDelayQueueName(delaySeconds), exchangeName, 
+                  jsonMessage, queueName);
   }
 
   /* ---------------------------------------------------------------------- */
@@ -273,9 +480,9 @@ public final class JobQueueManager
    * determines which workers receive the message.
    * 
    * @param exchangeName the target exchange name
-   * @param message a json string
+   * @param message the UTF-8 json message
    */
-  public void postTopic(String exchangeName, String message, String routingKey)
+  public void postTopic(String exchangeName, byte[] message, String routingKey)
     throws JobException
   {
     // Create a temporary channel.
@@ -288,8 +495,13 @@ public final class JobQueueManager
       // Publish the message to the queue.
       try {
         // Write the job to the selected tenant worker queue.
-        channel.basicPublish(exchangeName, routingKey, JobQueueManagerNames.PERSISTENT_JSON, 
-                             message.getBytes("UTF-8"));
+        long publishStart = System.nanoTime();
+        boolean published = false;
+        try {
+            channel.basicPublish(exchangeName, routingKey, JobQueueManagerNames.PERSISTENT_JSON, message);
+            published = true;
+        }
+        finally {JobMetrics.recordQueuePublish(exchangeName, publishStart, published);}
         
         // Tracing.
         if (_log.isDebugEnabled()) {
@@ -337,8 +549,9 @@ public final class JobQueueManager
   public void postCmdToAllWorkers(CmdMsg cmdMsg)
     throws JobException
   {
-      // Convert command object to a json string.
-      String json = TapisGsonUtils.getGson().toJson(cmdMsg);
+      // Convert command object to json.
+      if (cmdMsg.traceContext == null) cmdMsg.traceContext = JobTracing.inject();
+      byte[] json = QueueMsgCodec.encode(cmdMsg);
       
       // Get the tenant id, command topic name and all worker routing key.
       String exchangeName  = JobQueueManagerNames.getCmdExchangeName();  
@@ -359,8 +572,9 @@ public final class JobQueueManager
   public void postCmdToWorker(CmdMsg cmdMsg, String workerUuid)
     throws JobException
   {
-      // Convert command object to a json string.
-      String json = TapisGsonUtils.getGson().toJson(cmdMsg);
+      // Convert command object to json.
+      if (cmdMsg.traceContext == null) cmdMsg.traceContext = JobTracing.inject();
+      byte[] json = QueueMsgCodec.encode(cmdMsg);
       
       // Get the tenant id, command topic name and specific worker routing key.
       String exchangeName  = JobQueueManagerNames.getCmdExchangeName();
@@ -382,8 +596,9 @@ public final class JobQueueManager
   public void postCmdToJob(CmdMsg cmdMsg, String jobUuid)
     throws JobException
   {
-      // Convert command object to a json string.
-      String json = TapisGsonUtils.getGson().toJson(cmdMsg);
+      // Convert command object to json.
+      if (cmdMsg.traceContext == null) cmdMsg.traceContext = JobTracing.inject();
+      byte[] json = QueueMsgCodec.encode(cmdMsg);
       
       // Get the tenant id, command topic name and specific job routing key.
       String exchangeName  = JobQueueManagerNames.getCmdExchangeName();
@@ -396,7 +611,11 @@ public final class JobQueueManager
   /* ---------------------------------------------------------------------- */
   /* postRecoveryQueue:                                                     */
   /* ---------------------------------------------------------------------- */
-  /** Post a recovery command to the recovery queue.
+  /** Post a recovery command to the recovery queue.  When recovery is 
+   * partitioned, recover messages are routed to the queue of the partition
+   * that owns their tester hash.  Cancel messages only identify a job, so 
+   * they are sent to all partitions and ignored by the readers that don't 
+   * own the job.  Shutdown messages go to the original recovery queue.
    * 
    * @param recoverMsg the recovery command
    * @throws JobException on error
@@ -404,8 +623,25 @@ public final class JobQueueManager
   public void postRecoveryQueue(RecoverMsg recoverMsg)
     throws JobException
   {
-      // Convert command object to a json string.
-      String json = TapisGsonUtils.getGson().toJson(recoverMsg);
+      // Convert command object to json.
+      byte[] json = QueueMsgCodec.encode(recoverMsg);
+      
+      // Route partitioned messages.
+      int partitions = RecoveryPartitions.getPartitions();
+      if (partitions > 1) {
+          if (recoverMsg instanceof JobRecoverMsg) {
+              var jobMsg = (JobRecoverMsg) recoverMsg;
+              int partition = RecoveryPartitions.getPartition(jobMsg.getTenantId(), 
+                                                              jobMsg.getTesterHash(), 
+                                                              partitions);
+              postRecoveryPartition(partition, json);
+              return;
+          }
+          if (recoverMsg instanceof JobCancelRecoverMsg) {
+              for (int i = 0; i < partitions; i++) postRecoveryPartition(i, json);
+              return;
+          }
+      }
       
       // Call the actual post routine.
       String queueName    = JobQueueManagerNames.getRecoveryQueueName();
@@ -413,6 +649,25 @@ public final class JobQueueManager
       postToQueue(queueName, exchangeName, json, DEFAULT_BINDING_KEY);
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* postRecoveryPartition:                                                 */
+  /* ---------------------------------------------------------------------- */
+  /** Post a recovery command to a specific recovery partition's queue.  The
+   * recovery reader that owns a partition uses this method to forward 
+   * messages that it received for a partition it no longer owns.
+   * 
+   * @param partition the recovery partition id
+   * @param json the serialized recovery command
+   * @throws JobException on error
+   */
+  public void postRecoveryPartition(int partition, byte[] json)
+    throws JobException
+  {
+      String queueName    = JobQueueManagerNames.getRecoveryQueueName(partition);
+      String exchangeName = JobQueueManagerNames.getRecoveryPartitionExchangeName(); 
+      postToQueue(queueName, exchangeName, json, queueName);
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* postEventQueue:                                                        */
   /* ---------------------------------------------------------------------- */
@@ -424,8 +679,8 @@ public final class JobQueueManager
   public void postEventQueue(JobEvent jobEvent)
     throws JobException
   {
-      // Convert command object to a json string.
-      String json = TapisGsonUtils.getGson().toJson(jobEvent);
+      // Convert event object to json.
+      byte[] json = QueueMsgCodec.encode(jobEvent);
       
       // Call the actual post routine.
       String queueName    = JobQueueManagerNames.getEventQueueName();
@@ -436,7 +691,8 @@ public final class JobQueueManager
   /* ---------------------------------------------------------------------- */
   /* unbindWorkerSpecificCmdTopic:                                          */
   /* ---------------------------------------------------------------------- */
-  /** Remove a specific worker's binding from its tenant's command exchange.
+  /** Remove a specific worker's bindings from its tenant's command exchange,
+   * including the binding that delivers all job commands to the worker.
    * This method makes a best effort attempt to unbind the topic from the 
    * exchange and logs an error in case of failure.  In all cases, the newly
    * created channel is closed.
@@ -463,7 +719,7 @@ public final class JobQueueManager
           return;
       }
       
-      // Unbind.
+      // Unbind the worker-specific key.
       try {channel.queueUnbind(queue, exchange, bindingKey);}
       catch (Exception e) {
           String msg = MsgUtils.getMsg("JOBS_QMGR_Q_UNBIND_ERROR", "topic", 
@@ -471,6 +727,19 @@ public final class JobQueueManager
           _log.error(msg, e);
       }
       
+      // Stop receiving job commands so they don't accumulate while we're down.
+      String jobBindingKey = JobQueueManagerNames.getCmdAllJobBindingKey();
+      try {
+          // A failed unbind closes the channel, so get another one if needed.
+          if (!channel.isOpen()) channel = getNewOutChannel();
+          channel.queueUnbind(queue, exchange, jobBindingKey);
+      }
+      catch (Exception e) {
+          String msg = MsgUtils.getMsg("JOBS_QMGR_Q_UNBIND_ERROR", "topic", 
+                                       queue, jobBindingKey, exchange, e.getMessage());
+          _log.error(msg, e);
+      }
+      
       // Close the just created channel.
       try {channel.close();} 
       catch (Exception e) {
@@ -524,6 +793,23 @@ public final class JobQueueManager
   /* ********************************************************************** */
   /*                             Private Methods                            */
   /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* isQueueNotFound:                                                       */
+  /* ---------------------------------------------------------------------- */
+  /** Determine whether a passive declaration failed because the queue doesn't 
+   * exist, in which case the broker closes the channel with a not found code.
+   */
+  private boolean isQueueNotFound(Throwable e)
+  {
+      for (; e != null; e = e.getCause())
+          if (e instanceof ShutdownSignalException) {
+              var reason = ((ShutdownSignalException)e).getReason();
+              return reason instanceof AMQP.Channel.Close && 
+                     ((AMQP.Channel.Close)reason).getReplyCode() == AMQP.NOT_FOUND;
+          }
+      return false;
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* createStandardJobQueues:                                               */
   /* ---------------------------------------------------------------------- */
@@ -635,6 +921,129 @@ public final class JobQueueManager
       }
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* createDelayQueue:                                                      */
+  /* ---------------------------------------------------------------------- */
+  /** Create the fanout exchange and the queue used to delay the redelivery of
+   * submit messages.  Messages expire from the queue after the configured 
+   * delay and are dead lettered to the submit exchange, which routes them
+   * using their original routing key.  Since all messages in the queue have
+   * the same time-to-live, they expire in the order they were posted.
+   * 
+   * @throws TapisQueueException on error
+   */
+  private void createDelayQueue() throws TapisQueueException
+  {
+      // Names embed the delay since a queue's ttl can't be changed.
+      int delaySeconds = RuntimeParameters.getInstance().getThrottleRedeliverySeconds();
+      String exchangeName = JobQueueManagerNames.getDelayExchangeName(delaySeconds);
+      String queueName = JobQueueManagerNames.getDelayQueueName(delaySeconds);
+      
+      Channel channel = null;
+      try {
+          // Create a temporary channel.
+          channel = getNewInChannel();
+          
+          // Unroutable messages still go to the alternate exchange.
+          HashMap<String,Object> exchangeArgs = new HashMap<>();
+          exchangeArgs.put("alternate-exchange", JobQueueManagerNames.getAltExchangeName());
+          
+          // Expired messages return to the submit exchange.
+          HashMap<String,Object> queueArgs = new HashMap<>();
+          queueArgs.put("x-message-ttl", delaySeconds * 1000);
+          queueArgs.put("x-dead-letter-exchange", JobQueueManagerNames.getSubmitExchangeName());
+          
+          final boolean durable = true;
+          final boolean autodelete = false;
+          final boolean exclusive = false;
+          try {
+              channel.exchangeDeclare(exchangeName, BuiltinExchangeType.FANOUT, durable, 
+                                      autodelete, exchangeArgs);
+              channel.queueDeclare(queueName, durable, exclusive, autodelete, queueArgs);
+              channel.queueBind(queueName, exchangeName, DEFAULT_BINDING_KEY);
+          }
+          catch (Exception e) {
+              String msg = MsgUtils.getMsg("JOBS_QMGR_XCHG_ERROR", exchangeName, 
+                                           getOutConnectionName(), channel.getChannelNumber(), 
+                                           e.getMessage());
+              throw new TapisQueueException(msg, e);
+          }
+      }
+      finally {
+          // Close the channel if it exists and hasn't already been aborted.
+          if (channel != null)
+            try {channel.close();} 
+                catch (Exception e1) {
+                    String msg = MsgUtils.getMsg("JOBS_QMGR_CHANNEL_CLOSE_ERROR", 
+                                                 channel.getChannelNumber(), e1.getMessage());
+                    _log.warn(msg, e1);
+                }
+      }
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* createRecoveryPartitionQueues:                                         */
+  /* ---------------------------------------------------------------------- */
+  /** Create the direct exchange that routes recovery messages to partition
+   * queues and bind each partition's queue to it using the queue name as the
+   * binding key.  Partition 0 is the original recovery queue, which remains
+   * bound to the fanout recovery exchange so that messages posted by services
+   * that don't partition recovery are processed by partition 0's owner.
+   * 
+   * Partition queues are never deleted, so reducing the number of partitions
+   * requires that the abandoned queues be drained or removed manually.
+   * 
+   * @throws TapisQueueException on error
+   */
+  private void createRecoveryPartitionQueues() throws TapisQueueException
+  {
+      // Get the configured number of partitions.
+      int partitions = RecoveryPartitions.getPartitions();
+      String exchangeName = JobQueueManagerNames.getRecoveryPartitionExchangeName();
+      
+      Channel channel = null;
+      try {
+          // Create a temporary channel.
+          channel = getNewInChannel();
+          
+          // The alternate and dead letter exchanges and queues were created
+          // in our superclass constructor, so we can reference them here.
+          HashMap<String,Object> exchangeArgs = new HashMap<>();
+          exchangeArgs.put("x-dead-letter-exchange", JobQueueManagerNames.getDeadLetterExchangeName());
+          exchangeArgs.put("alternate-exchange", JobQueueManagerNames.getAltExchangeName());
+          
+          final boolean durable = true;
+          final boolean autodelete = false;
+          final boolean exclusive = false;
+          try {
+              channel.exchangeDeclare(exchangeName, BuiltinExchangeType.DIRECT, durable, 
+                                      autodelete, exchangeArgs);
+              for (int i = 0; i < partitions; i++) {
+                  // The original recovery queue already exists.
+                  String queueName = JobQueueManagerNames.getRecoveryQueueName(i);
+                  if (i > 0) channel.queueDeclare(queueName, durable, exclusive, autodelete, null);
+                  channel.queueBind(queueName, exchangeName, queueName);
+              }
+          }
+          catch (Exception e) {
+              String msg = MsgUtils.getMsg("JOBS_QMGR_XCHG_ERROR", exchangeName, 
+                                           getOutConnectionName(), channel.getChannelNumber(), 
+                                           e.getMessage());
+              throw new TapisQueueException(msg, e);
+          }
+      }
+      finally {
+          // Close the channel if it exists and hasn't already been aborted.
+          if (channel != null)
+            try {channel.close();} 
+                catch (Exception e1) {
+                    String msg = MsgUtils.getMsg("JOBS_QMGR_CHANNEL_CLOSE_ERROR", 
+                                                 channel.getChannelNumber(), e1.getMessage());
+                    _log.warn(msg, e1);
+                }
+      }
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* postToQueue:                                                           */
   /* ---------------------------------------------------------------------- */
@@ -644,10 +1053,10 @@ public final class JobQueueManager
    * 
    * @param queueName the target queue name
    * @param exchangeName the target exchange
-   * @param message a json string
+   * @param message the UTF-8 json message
    * @param routingKey the queue name or default routing key
    */
-  private void postToQueue(String queueName, String exchangeName, String message,
+  private void postToQueue(String queueName, String exchangeName, byte[] message,
                            String routingKey)
     throws JobException
   {
@@ -665,8 +1074,13 @@ public final class JobQueueManager
       // Publish the message to the queue.
       try {
         // Write the job to the tenant recovery queue.
-        channel.basicPublish(exchangeName, routingKey, JobQueueManagerNames.PERSISTENT_JSON, 
-                             message.getBytes("UTF-8"));
+        long publishStart = System.nanoTime();
+        boolean published = false;
+        try {
+            channel.basicPublish(exchangeName, routingKey, JobQueueManagerNames.PERSISTENT_JSON, message);
+            published = true;
+        }
+        finally {JobMetrics.recordQueuePublish(exchangeName, publishStart, published);}
         
         // Tracing.
         if (_log.isDebugEnabled()) {
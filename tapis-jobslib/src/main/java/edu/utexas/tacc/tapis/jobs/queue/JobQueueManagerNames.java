@@ -30,12 +30,27 @@ public class JobQueueManagerNames
   private static final String RECOVERY_QUEUE_SUFFIX = "recovery.Queue";
   private static final String RECOVERY_QUEUE_NAME = TAPIS_JOBQ_PREFIX + RECOVERY_QUEUE_SUFFIX;
   
+  // Recovery partition exchange name.  Partition queue names append the 
+  // partition id to the recovery queue name, except for partition 0.
+  private static final String RECOVERY_PARTITION_EXCHANGE_SUFFIX = "recovery.partition.Exchange";
+  private static final String RECOVERY_PARTITION_EXCHANGE_NAME = TAPIS_JOBQ_PREFIX + RECOVERY_PARTITION_EXCHANGE_SUFFIX;
+  
   // Recovery exchange and queue name components.
   private static final String EVENT_EXCHANGE_SUFFIX = "event.Exchange";
   private static final String EVENT_EXCHANGE_NAME = TAPIS_JOBQ_PREFIX + EVENT_EXCHANGE_SUFFIX;
   private static final String EVENT_QUEUE_SUFFIX = "event.Queue";
   private static final String EVENT_QUEUE_NAME = TAPIS_JOBQ_PREFIX + EVENT_QUEUE_SUFFIX;
   
+  // Delay exchange and queue name components.  The delay in seconds is 
+  // inserted between the prefix and suffix since queue ttl can't be changed.
+  private static final String DELAY_PREFIX = TAPIS_JOBQ_PREFIX + "delay.";
+  private static final String DELAY_EXCHANGE_SUFFIX = "s.Exchange";
+  private static final String DELAY_QUEUE_SUFFIX = "s.Queue";
+  
+  // The fair share sub-queue part that follows a submit queue name and precedes
+  // the tenant id.  Submit queue names can't contain periods after their prefix.
+  public  static final String FAIR_SHARE_PART = ".tenant.";
+  
   // Components for command topic exchange and queue names.
   private static final String CMD_TOPIC_PREFIX = TAPIS_JOBQ_PREFIX + "cmd.";
   private static final String TOPIC_CMD_EXCHANGE_NAME = CMD_TOPIC_PREFIX + "Exchange";
@@ -99,6 +114,19 @@ public class JobQueueManagerNames
     return RECOVERY_EXCHANGE_NAME;
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* getRecoveryPartitionExchangeName:                                      */
+  /* ---------------------------------------------------------------------- */
+  /** Create the global direct exchange name used to route recovery messages
+   * to the queue of their recovery partition.
+   * 
+   * @return the recovery partition exchange name
+   */
+  public static String getRecoveryPartitionExchangeName()
+  {
+    return RECOVERY_PARTITION_EXCHANGE_NAME;
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* getEventExchangeName:                                                  */
   /* ---------------------------------------------------------------------- */
@@ -128,31 +156,33 @@ public class JobQueueManagerNames
   }
   
   /* ---------------------------------------------------------------------- */
-  /* getCmdSpecificJobTopicName:                                            */
+  /* getRecoveryQueueName:                                                  */
   /* ---------------------------------------------------------------------- */
-  /** Create the topic queue name used to communicate job commands to a 
-   * worker handling a specific job.
+  /** Create the global topic queue name used to access job recover
+   * messages.
    * 
-   * @param tenantId the id of a specific tenant
-   * @param jobUuid the job uuid as a string
-   * @return the tenant job-specific command topic name
+   * @return the tenant recovery queue name
    */
-  public static String getCmdSpecificJobTopicName(String jobUuid)
+  public static String getRecoveryQueueName()
   {
-    return TOPIC_CMD_TOPIC_NAME + "." + jobUuid ;
+    return RECOVERY_QUEUE_NAME;
   }
   
   /* ---------------------------------------------------------------------- */
   /* getRecoveryQueueName:                                                  */
   /* ---------------------------------------------------------------------- */
-  /** Create the global topic queue name used to access job recover
-   * messages.
+  /** Create the name of a recovery partition's queue.  Partition 0 uses the
+   * original recovery queue so that messages posted before partitioning was
+   * configured are still processed.  The queue name is also the partition's
+   * routing key on the recovery partition exchange.
    * 
-   * @return the tenant recovery queue name
+   * @param partition the recovery partition id
+   * @return the partition's recovery queue name
    */
-  public static String getRecoveryQueueName()
+  public static String getRecoveryQueueName(int partition)
   {
-    return RECOVERY_QUEUE_NAME;
+    if (partition <= 0) return RECOVERY_QUEUE_NAME;
+    return RECOVERY_QUEUE_NAME + "." + partition;
   }
   
   /* ---------------------------------------------------------------------- */
@@ -168,6 +198,49 @@ public class JobQueueManagerNames
     return EVENT_QUEUE_NAME;
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* getDelayExchangeName:                                                  */
+  /* ---------------------------------------------------------------------- */
+  /** Create the name of the exchange used to delay the redelivery of submit
+   * messages for the specified number of seconds.
+   * 
+   * @param delaySeconds the time messages spend in the delay queue
+   * @return the delay exchange name
+   */
+  public static String getDelayExchangeName(int delaySeconds)
+  {
+    return DELAY_PREFIX + delaySeconds + DELAY_EXCHANGE_SUFFIX;
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* getDelayQueueName:                                                     */
+  /* ---------------------------------------------------------------------- */
+  /** Create the name of the queue that holds submit messages for the specified
+   * number of seconds before dead lettering them back to the submit exchange.
+   * 
+   * @param delaySeconds the time messages spend in the delay queue
+   * @return the delay queue name
+   */
+  public static String getDelayQueueName(int delaySeconds)
+  {
+    return DELAY_PREFIX + delaySeconds + DELAY_QUEUE_SUFFIX;
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* getFairShareQueueName:                                                 */
+  /* ---------------------------------------------------------------------- */
+  /** Create the name of the tenant's sub-queue of a fair share submit queue.
+   * The name is also the routing key used on the submit exchange.
+   * 
+   * @param queueName the submit queue name
+   * @param tenantId the job's tenant
+   * @return the tenant sub-queue name
+   */
+  public static String getFairShareQueueName(String queueName, String tenantId)
+  {
+    return queueName + FAIR_SHARE_PART + tenantId;
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* getCmdAllWorkerRoutingKey:                                             */
   /* ---------------------------------------------------------------------- */
@@ -239,6 +312,37 @@ public class JobQueueManagerNames
     return TOPIC_CMD_WORKER_JID_BINDING_KEY + jobUUID + ".#";
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* getCmdAllJobBindingKey:                                                */
+  /* ---------------------------------------------------------------------- */
+  /** Get the binding key that accepts messages targeting any job.  Each 
+   * worker binds its command topic with this key and delivers commands
+   * to the jobs it's currently processing.
+   * @return the binding key
+   */
+  public static String getCmdAllJobBindingKey()
+  {
+    return TOPIC_CMD_WORKER_JID_BINDING_KEY + "#";
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* getJobUuidFromCmdRoutingKey:                                           */
+  /* ---------------------------------------------------------------------- */
+  /** Extract the job uuid from a routing key created by 
+   * getCmdSpecificJobRoutingKey().
+   * @param routingKey the routing key of a delivered command
+   * @return the job uuid or null if the key doesn't target a specific job
+   */
+  public static String getJobUuidFromCmdRoutingKey(String routingKey)
+  {
+    if (routingKey == null || !routingKey.startsWith(TOPIC_CMD_WORKER_JID_ROUTING_KEY))
+        return null;
+    String jobUuid = routingKey.substring(TOPIC_CMD_WORKER_JID_ROUTING_KEY.length());
+    int index = jobUuid.indexOf('.');
+    if (index >= 0) jobUuid = jobUuid.substring(0, index);
+    return jobUuid.isEmpty() ? null : jobUuid;
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* getDefaultQueue:                                                       */
   /* ---------------------------------------------------------------------- */
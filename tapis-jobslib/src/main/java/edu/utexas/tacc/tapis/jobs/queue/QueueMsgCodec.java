@@ -0,0 +1,470 @@
+package edu.utexas.tacc.tapis.jobs.queue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import edu.utexas.tacc.tapis.jobs.model.JobEvent;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobEventType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.JobSubmitMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg.CmdType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobCancelMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobPauseMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobStatusMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrResumeMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrShutdownMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrStatusMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrSuspendMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobCancelRecoverMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobRecoverMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverMsg.RecoverMsgType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverShutdownMsg;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+/** Serialize and deserialize the json messages written to and read from the
+ * Jobs queues.  A single Gson instance is configured once with the Tapis type
+ * adapters and the adapters defined here:
+ *
+ *  - streaming adapters for JobSubmitMsg and JobEvent, which are written and
+ *    read for every job and every job event;
+ *  - polymorphic adapters for CmdMsg and RecoverMsg that parse a message once
+ *    and populate the subclass named by its msgType.
+ *
+ * Messages are encoded directly into UTF-8 bytes and decoded directly from
+ * them using buffers that are reused by each thread.  The same Gson instance
+ * also serializes the event detail content embedded in job events.  The wire format is
+ * unchanged, so messages can be exchanged with services that still use
+ * TapisGsonUtils.
+ *
+ * @author rcardone
+ */
+public final class QueueMsgCodec
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Buffer sizes.  Buffers that grow beyond the maximum are not reused.
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+    private static final int MAX_BUFFER_SIZE     = 64 * 1024;
+
+    // The subclasses populated for each command type.  Types not listed
+    // are decoded as base CmdMsg objects.
+    private static final EnumMap<CmdType,Class<? extends CmdMsg>> _cmdClasses =
+        new EnumMap<>(CmdType.class);
+    static {
+        _cmdClasses.put(CmdType.WKR_STATUS,   WkrStatusMsg.class);
+        _cmdClasses.put(CmdType.WKR_SHUTDOWN, WkrShutdownMsg.class);
+        _cmdClasses.put(CmdType.WKR_SUSPEND,  WkrSuspendMsg.class);
+        _cmdClasses.put(CmdType.WKR_RESUME,   WkrResumeMsg.class);
+        _cmdClasses.put(CmdType.JOB_STATUS,   JobStatusMsg.class);
+        _cmdClasses.put(CmdType.JOB_CANCEL,   JobCancelMsg.class);
+        _cmdClasses.put(CmdType.JOB_PAUSE,    JobPauseMsg.class);
+    }
+
+    // The subclasses populated for each recovery message type.
+    private static final EnumMap<RecoverMsgType,Class<? extends RecoverMsg>> _recoverClasses =
+        new EnumMap<>(RecoverMsgType.class);
+    static {
+        _recoverClasses.put(RecoverMsgType.RECOVER,          JobRecoverMsg.class);
+        _recoverClasses.put(RecoverMsgType.CANCEL_RECOVER,   JobCancelRecoverMsg.class);
+        _recoverClasses.put(RecoverMsgType.RECOVER_SHUTDOWN, RecoverShutdownMsg.class);
+    }
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The configured instance is thread-safe and caches its adapters.
+    private static final Gson _gson = TapisGsonUtils.getGson().newBuilder()
+                                         .registerTypeAdapterFactory(new MsgAdapterFactory())
+                                         .create();
+
+    // Each thread reuses its own buffers.
+    private static final ThreadLocal<EncodeBuffer> _encodeBuffers = new ThreadLocal<>();
+    private static final ThreadLocal<DecodeBuffer> _decodeBuffers = new ThreadLocal<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private QueueMsgCodec() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* encode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Serialize a message into UTF-8 json bytes.
+     *
+     * @param msg a non-null message
+     * @return the json bytes
+     * @throws JsonIOException on serialization error
+     */
+    public static byte[] encode(Object msg)
+    {
+        // Get this thread's buffer.
+        var buf = _encodeBuffers.get();
+        if (buf == null) {buf = new EncodeBuffer(); _encodeBuffers.set(buf);}
+
+        // Write the message using the runtime type. The buffer is discarded
+        // on error since the writer's state is unknown.
+        try {
+            buf.bytes.reset();
+            var jsonWriter = new JsonWriter(buf.writer);
+            _gson.toJson(msg, msg.getClass(), jsonWriter);
+            jsonWriter.flush();
+            return buf.bytes.toByteArray();
+        }
+        catch (IOException | RuntimeException e) {
+            _encodeBuffers.remove();
+            if (e instanceof JsonIOException) throw (JsonIOException) e;
+            throw new JsonIOException(e);
+        }
+        finally {
+            // Don't hold on to unusually large buffers.
+            if (buf.bytes.capacity() > MAX_BUFFER_SIZE) _encodeBuffers.remove();
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* decode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Deserialize UTF-8 json bytes into a message.  When the class is CmdMsg
+     * or RecoverMsg, the returned object is the subclass named by the message's
+     * msgType, or the base class if the type is missing or unrecognized.
+     * Malformed UTF-8 sequences are replaced.
+     *
+     * @param body the json bytes
+     * @param cls the message class
+     * @return the message or null if the body is empty or the json null
+     * @throws JsonParseException on malformed json
+     */
+    public static <T> T decode(byte[] body, Class<T> cls)
+    {
+        // Get this thread's buffer.
+        var buf = _decodeBuffers.get();
+        if (buf == null) {buf = new DecodeBuffer(); _decodeBuffers.set(buf);}
+
+        // Parse the decoded characters.
+        try {
+            int length = buf.decode(body);
+            return _gson.fromJson(new JsonReader(new CharArrayReader(buf.chars, 0, length)), cls);
+        }
+        finally {
+            // Don't hold on to unusually large buffers.
+            if (buf.chars.length > MAX_BUFFER_SIZE) _decodeBuffers.remove();
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* toJson:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Serialize an object to a json string using the codec's Gson instance.
+     * The output is the same as that of TapisGsonUtils.
+     *
+     * @param obj the object to serialize
+     * @return the json string
+     */
+    public static String toJson(Object obj) {return _gson.toJson(obj);}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* readString:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private static String readString(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL) {in.nextNull(); return null;}
+        return in.nextString();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* readStringMap:                                                         */
+    /* ---------------------------------------------------------------------- */
+    private static Map<String,String> readStringMap(JsonReader in) throws IOException
+    {
+        if (in.peek() == JsonToken.NULL) {in.nextNull(); return null;}
+        var map = new HashMap<String,String>();
+        in.beginObject();
+        while (in.hasNext()) map.put(in.nextName(), readString(in));
+        in.endObject();
+        return map;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* writeString:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Write non-null string fields; null fields are omitted as Gson does by
+     * default.
+     */
+    private static void writeString(JsonWriter out, String name, String value)
+     throws IOException
+    {
+        if (value != null) out.name(name).value(value);
+    }
+
+    /* ********************************************************************** */
+    /*                             Buffer Classes                             */
+    /* ********************************************************************** */
+    /** A byte stream whose backing array is reused after reset(). */
+    private static final class ReusableByteStream
+     extends ByteArrayOutputStream
+    {
+        private ReusableByteStream() {super(INITIAL_BUFFER_SIZE);}
+        private int capacity() {return buf.length;}
+    }
+
+    /** A thread's encoding buffer and the UTF-8 writer over it. */
+    private static final class EncodeBuffer
+    {
+        private final ReusableByteStream bytes  = new ReusableByteStream();
+        private final OutputStreamWriter writer = new OutputStreamWriter(bytes, StandardCharsets.UTF_8);
+    }
+
+    /** A thread's UTF-8 decoder and character buffer. */
+    private static final class DecodeBuffer
+    {
+        private final CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                                                 .onMalformedInput(CodingErrorAction.REPLACE)
+                                                 .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        private char[] chars = new char[INITIAL_BUFFER_SIZE];
+
+        /** Decode the bytes into the character buffer, growing it if necessary,
+         * and return the number of characters.
+         */
+        private int decode(byte[] body)
+        {
+            // UTF-8 never decodes into more characters than bytes.
+            if (chars.length < body.length) chars = new char[body.length];
+            var out = CharBuffer.wrap(chars);
+            decoder.reset();
+            decoder.decode(ByteBuffer.wrap(body), out, true);
+            decoder.flush(out);
+            return out.position();
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                          MsgAdapterFactory Class                       */
+    /* ********************************************************************** */
+    /** Create the adapters for the queue message types handled specially. */
+    private static final class MsgAdapterFactory
+     implements TypeAdapterFactory
+    {
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type)
+        {
+            var raw = type.getRawType();
+            if (raw == JobSubmitMsg.class)
+                return (TypeAdapter<T>) new JobSubmitMsgAdapter();
+            if (raw == JobEvent.class)
+                return (TypeAdapter<T>) new JobEventAdapter(gson.getAdapter(JobEventType.class),
+                                                            gson.getAdapter(Instant.class));
+            if (raw == CmdMsg.class)
+                return (TypeAdapter<T>) new PolymorphicAdapter<CmdMsg,CmdType>(
+                    gson, CmdMsg.class, gson.getDelegateAdapter(this, TypeToken.get(CmdMsg.class)),
+                    "msgType", CmdType.class, _cmdClasses);
+            if (raw == RecoverMsg.class)
+                return (TypeAdapter<T>) new PolymorphicAdapter<RecoverMsg,RecoverMsgType>(
+                    gson, RecoverMsg.class, gson.getDelegateAdapter(this, TypeToken.get(RecoverMsg.class)),
+                    "msgType", RecoverMsgType.class, _recoverClasses);
+            return null;
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                         JobSubmitMsgAdapter Class                      */
+    /* ********************************************************************** */
+    private static final class JobSubmitMsgAdapter
+     extends TypeAdapter<JobSubmitMsg>
+    {
+        @Override
+        public void write(JsonWriter out, JobSubmitMsg msg) throws IOException
+        {
+            if (msg == null) {out.nullValue(); return;}
+            out.beginObject();
+            writeString(out, "created", msg.getCreated());
+            writeString(out, "uuid", msg.getUuid());
+            if (msg.getTraceContext() != null) {
+                out.name("traceContext").beginObject();
+                for (var entry : msg.getTraceContext().entrySet())
+                    if (entry.getValue() != null) out.name(entry.getKey()).value(entry.getValue());
+                out.endObject();
+            }
+            out.name("throttleRedeliveries").value(msg.getThrottleRedeliveries());
+            if (msg.msgType != null) out.name("msgType").value(msg.msgType.name());
+            out.endObject();
+        }
+
+        @Override
+        public JobSubmitMsg read(JsonReader in) throws IOException
+        {
+            if (in.peek() == JsonToken.NULL) {in.nextNull(); return null;}
+            var msg = new JobSubmitMsg();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "created" -> msg.setCreated(readString(in));
+                    case "uuid"    -> msg.setUuid(readString(in));
+                    case "throttleRedeliveries" -> msg.setThrottleRedeliveries(in.nextInt());
+                    case "traceContext" -> msg.setTraceContext(readStringMap(in));
+                    // The message type is always SUBMIT_JOB.
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return msg;
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                           JobEventAdapter Class                        */
+    /* ********************************************************************** */
+    private static final class JobEventAdapter
+     extends TypeAdapter<JobEvent>
+    {
+        // Enums and timestamps use the configured Gson representation.
+        private final TypeAdapter<JobEventType> _eventTypeAdapter;
+        private final TypeAdapter<Instant>      _instantAdapter;
+
+        private JobEventAdapter(TypeAdapter<JobEventType> eventTypeAdapter,
+                                TypeAdapter<Instant> instantAdapter)
+        {
+            _eventTypeAdapter = eventTypeAdapter;
+            _instantAdapter   = instantAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, JobEvent event) throws IOException
+        {
+            if (event == null) {out.nullValue(); return;}
+            out.beginObject();
+            out.name("id").value(event.getId());
+            if (event.getEvent() != null) {
+                out.name("event");
+                _eventTypeAdapter.write(out, event.getEvent());
+            }
+            if (event.getCreated() != null) {
+                out.name("created");
+                _instantAdapter.write(out, event.getCreated());
+            }
+            writeString(out, "jobUuid", event.getJobUuid());
+            writeString(out, "eventDetail", event.getEventDetail());
+            writeString(out, "othUuid", event.getOthUuid());
+            writeString(out, "description", event.getDescription());
+            writeString(out, "tenant", event.getTenant());
+            out.endObject();
+        }
+
+        @Override
+        public JobEvent read(JsonReader in) throws IOException
+        {
+            if (in.peek() == JsonToken.NULL) {in.nextNull(); return null;}
+            var event = new JobEvent();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "id"          -> event.setId(in.nextLong());
+                    case "event"       -> event.setEvent(_eventTypeAdapter.read(in));
+                    case "created"     -> event.setCreated(_instantAdapter.read(in));
+                    case "jobUuid"     -> event.setJobUuid(readString(in));
+                    case "eventDetail" -> event.setEventDetail(readString(in));
+                    case "othUuid"     -> event.setOthUuid(readString(in));
+                    case "description" -> event.setDescription(readString(in));
+                    case "tenant"      -> event.setTenant(readString(in));
+                    default            -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return event;
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                          PolymorphicAdapter Class                      */
+    /* ********************************************************************** */
+    /** Read a message once into a json tree, then populate the subclass
+     * selected by the message's type field.  Messages are written using
+     * the adapter of their runtime class.
+     */
+    private static final class PolymorphicAdapter<B,E extends Enum<E>>
+     extends TypeAdapter<B>
+    {
+        private final Gson                           _gsonInstance;
+        private final Class<B>                       _baseClass;
+        private final TypeAdapter<B>                 _baseAdapter;
+        private final String                         _typeField;
+        private final Class<E>                       _typeClass;
+        private final Map<E,Class<? extends B>>      _classes;
+        private final TypeAdapter<JsonElement>       _treeAdapter;
+
+        private PolymorphicAdapter(Gson gson, Class<B> baseClass, TypeAdapter<B> baseAdapter,
+                                   String typeField, Class<E> typeClass,
+                                   Map<E,Class<? extends B>> classes)
+        {
+            _gsonInstance = gson;
+            _baseClass    = baseClass;
+            _baseAdapter  = baseAdapter;
+            _typeField    = typeField;
+            _typeClass    = typeClass;
+            _classes      = classes;
+            _treeAdapter  = gson.getAdapter(JsonElement.class);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(JsonWriter out, B value) throws IOException
+        {
+            if (value == null) {out.nullValue(); return;}
+            if (value.getClass() == _baseClass) _baseAdapter.write(out, value);
+              else ((TypeAdapter<B>) _gsonInstance.getAdapter(value.getClass())).write(out, value);
+        }
+
+        @Override
+        public B read(JsonReader in) throws IOException
+        {
+            // Parse the message once.
+            var tree = _treeAdapter.read(in);
+            if (tree == null || tree.isJsonNull()) return null;
+            if (!tree.isJsonObject())
+                throw new JsonParseException("Expected a json object but found: " + tree);
+
+            // Select the subclass.
+            Class<? extends B> cls = null;
+            var typeElement = ((JsonObject)tree).get(_typeField);
+            if (typeElement != null && typeElement.isJsonPrimitive()) {
+                try {cls = _classes.get(Enum.valueOf(_typeClass, typeElement.getAsString()));}
+                    catch (IllegalArgumentException e) {}
+            }
+
+            // Populate the subclass or, if unknown, the base class.
+            if (cls == null) return _baseAdapter.fromJsonTree(tree);
+            return _gsonInstance.getAdapter(cls).fromJsonTree(tree);
+        }
+    }
+}
@@ -1,11 +1,15 @@
 package edu.utexas.tacc.tapis.jobs.queue.messages;
 
+import java.util.Map;
+
 public final class JobSubmitMsg
  extends JobMsg
 {
   // Fields
   private String created;
   private String uuid;
+  private Map<String,String> traceContext; // W3C trace context, null if not tracing
+  private int    throttleRedeliveries;       // times redelivered because of throttling
   
   // Constructor
   public JobSubmitMsg() {super(JobMsg.JobMsgType.SUBMIT_JOB);}
@@ -14,4 +18,8 @@ public final class JobSubmitMsg
   public void setCreated(String created) {this.created = created;}
   public String getUuid() {return uuid;}
   public void setUuid(String uuid) {this.uuid = uuid;}
+  public Map<String,String> getTraceContext() {return traceContext;}
+  public void setTraceContext(Map<String,String> traceContext) {this.traceContext = traceContext;}
+  public int getThrottleRedeliveries() {return throttleRedeliveries;}
+  public void setThrottleRedeliveries(int throttleRedeliveries) {this.throttleRedeliveries = throttleRedeliveries;}
 }
@@ -1,5 +1,7 @@
 package edu.utexas.tacc.tapis.jobs.queue.messages.cmd;
 
+import java.util.Map;
+
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 
 /** This is the base class for all command messages.  The no-args 
@@ -27,6 +29,7 @@ public class CmdMsg
   public CmdType msgType;
   public String  correlationId;
   public String  senderId;
+  public Map<String,String> traceContext; // W3C trace context, null if not tracing
   
   // Constructor used to create messages
   protected CmdMsg(CmdType type) 
@@ -3,5 +3,8 @@ package edu.utexas.tacc.tapis.jobs.queue.messages.cmd;
 public final class JobStatusMsg 
  extends CmdMsg
 {
+    // Completion callbacks from a job's wrapper script set these fields.
+    public String  jobuuid;
+    public boolean completed;
     public JobStatusMsg() {super(CmdType.JOB_STATUS);}
 }
@@ -5,6 +5,7 @@ import java.util.TreeMap;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.recover.RecoverConditionCode;
 import edu.utexas.tacc.tapis.jobs.recover.RecoverPolicyType;
@@ -192,6 +193,8 @@ public final class JobRecoverMsgFactory
                 throw new TapisRuntimeException(emsg);
         }
         
+        // Count the recoverable condition.
+        JobMetrics.countRecoverable(rmsg.getConditionCode());
         return rmsg;
     }
 }
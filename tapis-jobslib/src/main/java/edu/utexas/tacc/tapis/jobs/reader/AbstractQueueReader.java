@@ -1,6 +1,7 @@
 package edu.utexas.tacc.tapis.jobs.reader;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.concurrent.ArrayBlockingQueue;
 
 import org.apache.commons.codec.binary.Hex;
@@ -55,6 +56,10 @@ public abstract class AbstractQueueReader
     // The consumer tag returned when the consumer is started.
     private String          _consumerTag;
     
+    // Channels are not thread-safe, so subclasses that add or remove consumers
+    // from other threads serialize all channel operations using this lock.
+    private final Object    _channelLock = new Object();
+    
     /* **************************************************************************** */
     /*                                 Constructors                                 */
     /* **************************************************************************** */
@@ -125,6 +130,26 @@ public abstract class AbstractQueueReader
     /* **************************************************************************** */
     /*                               Protected Methods                              */
     /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* consumeOnStart:                                                              */
+    /* ---------------------------------------------------------------------------- */
+    /** Subclasses that decide at runtime which queues to read override this method
+     * to prevent the configured queue from being read as soon as the channel is 
+     * established.  Those subclasses use addConsumer() instead.
+     * 
+     * @return true to start reading the configured queue immediately
+     */
+    protected boolean consumeOnStart() {return true;}
+    
+    /* ---------------------------------------------------------------------------- */
+    /* consumerReady:                                                               */
+    /* ---------------------------------------------------------------------------- */
+    /** Called on the reading thread after the channel and consumer have been 
+     * created and before the first message is read.  By default this method
+     * does nothing.
+     */
+    protected void consumerReady() {}
+    
     /* ---------------------------------------------------------------------- */
     /* readQueue:                                                             */
     /* ---------------------------------------------------------------------- */
@@ -147,7 +172,10 @@ public abstract class AbstractQueueReader
       _consumer = createConsumer();
       
       // Start the consumer and throw exception on error.
-      _consumerTag = startConsumer();
+      if (consumeOnStart()) _consumerTag = startConsumer(getQueueName());
+      
+      // Let subclasses complete their initialization.
+      consumerReady();
       
       // The queue read/job processing loop.
       while (!Thread.currentThread().isInterrupted())
@@ -170,7 +198,7 @@ public abstract class AbstractQueueReader
         if (ack) {
           // Don't forget to send the ack!
           boolean multipleAck = false;
-          try {_channel.basicAck(delivery.envelope.getDeliveryTag(), multipleAck);}
+          try {synchronized (_channelLock) {_channel.basicAck(delivery.envelope.getDeliveryTag(), multipleAck);}}
             catch (IOException e) {
               String msg = MsgUtils.getMsg("JOBS_THREAD_ACK_ERROR",
                                            Thread.currentThread().getName(),
@@ -191,7 +219,7 @@ public abstract class AbstractQueueReader
           // Reject this unreadable message so that
           // it gets discarded or dead-lettered.
           boolean requeue = false;
-          try {_channel.basicReject(delivery.envelope.getDeliveryTag(), requeue);} 
+          try {synchronized (_channelLock) {_channel.basicReject(delivery.envelope.getDeliveryTag(), requeue);}} 
             catch (IOException e) {
               String msg = MsgUtils.getMsg("JOBS_THREAD_REJECT_ERROR",
                                            Thread.currentThread().getName(),
@@ -218,10 +246,42 @@ public abstract class AbstractQueueReader
      * shutdown processing. 
      */
     protected void cancelConsumer() 
+    {
+        // Cancel input from the consumer.
+        if (_consumerTag != null) removeConsumer(_consumerTag);
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* addConsumer:                                                                 */
+    /* ---------------------------------------------------------------------------- */
+    /** Start reading another queue on this reader's channel.  Messages from all
+     * queues are delivered to the process() method one at a time.  The queue
+     * must already exist.  This method can be called from any thread once 
+     * consumerReady() has been called.
+     * 
+     * @param queueName the queue to read
+     * @return the consumer tag used to stop reading the queue
+     * @throws TapisRuntimeException on channel errors
+     */
+    protected String addConsumer(String queueName)
+     throws TapisRuntimeException
+    {
+        return startConsumer(queueName);
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* removeConsumer:                                                              */
+    /* ---------------------------------------------------------------------------- */
+    /** Stop reading the queue associated with a consumer tag.  Messages already
+     * delivered to this reader are still processed.  Errors are logged.
+     * 
+     * @param consumerTag the tag returned when the consumer was started
+     */
+    protected void removeConsumer(String consumerTag) 
     {
         // Cancel input from the consumer.
         if (_channel != null)
-            try {_channel.basicCancel(_consumerTag);}
+            try {synchronized (_channelLock) {_channel.basicCancel(consumerTag);}}
             catch (IOException e) {
                 String msg = MsgUtils.getMsg("JOBS_QMGR_CANCEL_CONSUMER_ERROR", 
                                              getClass().getSimpleName(),
@@ -279,6 +339,23 @@ public abstract class AbstractQueueReader
         return s;
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* dumpBody:                                                                    */
+    /* ---------------------------------------------------------------------------- */
+    /** Decode the beginning of a message body for inclusion in error messages.  
+     * Bodies are only converted to strings when something goes wrong.
+     * 
+     * @param body the utf-8 encoded message body
+     * @return at most JSON_DUMP_LEN characters of the body
+     */
+    protected String dumpBody(byte[] body)
+    {
+        if (body == null) return "";
+        String s = new String(body, StandardCharsets.UTF_8);
+        if (s.length() > JSON_DUMP_LEN) s = s.substring(0, JSON_DUMP_LEN - 1);
+        return s;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getStartUpInfo:                                                        */
     /* ---------------------------------------------------------------------- */
@@ -454,14 +531,14 @@ public abstract class AbstractQueueReader
     /* ---------------------------------------------------------------------- */
     /* startConsumer:                                                         */
     /* ---------------------------------------------------------------------- */
-    /** Start reading the configured queue using the previously defined consumer.  
-     * This method allows traffic to begin flowing from the queue broker to
-     * this thread.
+    /** Start reading a queue using the previously defined consumer.  This method
+     * allows traffic to begin flowing from the queue broker to this thread.
      * 
+     * @param queueName the queue to read
      * @return the channel's consumer tag
      * @throws AloeRuntimeException on channel errors.
      */
-    private String startConsumer() throws TapisRuntimeException
+    private String startConsumer(String queueName) throws TapisRuntimeException
     {
       // We don't auto-acknowledge topic broadcasts.
       boolean autoack = false;
@@ -469,14 +546,14 @@ public abstract class AbstractQueueReader
       try {
           // Save the server generated tag for this consumer.  The tag can be used
           // as input on other APIs, such as basicCancel.
-          consumerTag = _channel.basicConsume(getQueueName(), autoack, _consumer);
+          synchronized (_channelLock) {consumerTag = _channel.basicConsume(queueName, autoack, _consumer);}
       }
       catch (Exception e) {
         String msg = MsgUtils.getMsg("JOBS_THREAD_CONSUMER_START_ERROR",
                                      Thread.currentThread().getName(),
                                      Thread.currentThread().getId(),
                                      getName(),
-                                     getQueueName(), 
+                                     queueName, 
                                      e.getMessage());
         _log.error(msg, e);
         throw new TapisRuntimeException(msg, e);
@@ -3,7 +3,6 @@ package edu.utexas.tacc.tapis.jobs.reader;
 import java.time.Instant;
 import java.util.Map;
 
-import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -18,6 +17,8 @@ import edu.utexas.tacc.tapis.jobs.queue.DeliveryResponse;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager.ExchangeUse;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
+import edu.utexas.tacc.tapis.jobs.queue.QueueMsgCodec;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.jobs.utils.JobUtils;
 import edu.utexas.tacc.tapis.notifications.client.NotificationsClient;
 import edu.utexas.tacc.tapis.notifications.client.gen.model.Event;
@@ -25,8 +26,9 @@ import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.security.ServiceContext;
 import edu.utexas.tacc.tapis.shared.security.TenantManager;
-import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
 import edu.utexas.tacc.tapis.tenants.client.gen.model.Tenant;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
 
 /** This class reads serialized JobEvents placed on the event queue by the 
  * api or worker processes, creates a Notification service event and posts
@@ -147,20 +149,11 @@ public final class EventReader
             _log.debug(msg);
         }
         
-        // The body should always be a UTF-8 json string.
-        String body;
-        try {body = new String(delivery.body, "UTF-8");}
-            catch (Exception e) {
-                String msg = MsgUtils.getMsg("ALOE_BYTE_ARRAY_DECODE", new String(Hex.encodeHex(delivery.body)));
-                _log.error(msg);
-                return false;
-            }
-        
-        // Decode the input.
+        // Decode the UTF-8 json input.
         JobEvent jobEvent = null;
-        try {jobEvent = TapisGsonUtils.getGson(true).fromJson(body, JobEvent.class);}
+        try {jobEvent = QueueMsgCodec.decode(delivery.body, JobEvent.class);}
             catch (Exception e) {
-                if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
+                String body = dumpBody(delivery.body);
                 String msg = MsgUtils.getMsg("ALOE_JSON_PARSE_ERROR", getName(), body, e.getMessage());
                 _log.error(msg, e);
                 return false;
@@ -194,13 +187,17 @@ public final class EventReader
             }
         
         // Push the event to Notifications.
+        Span span = JobTracing.startClientSpan(JobTracing.SPAN_NOTIF_POST_EVENT, null, 
+                                               jobEvent.getJobUuid());
         try {client.postEvent(event);}
             catch (Exception e) {
+                span.setStatus(StatusCode.ERROR);
                 String msg = MsgUtils.getMsg("TAPIS_CLIENT_ERROR", "Notifications",
                                              _siteAdminTenantId, TapisConstants.SERVICE_NAME_JOBS);
                 _log.error(msg, e);
                 return false;
             }
+            finally {span.end();}
         
         // Success.
         return true;
@@ -0,0 +1,283 @@
+package edu.utexas.tacc.tapis.jobs.reader;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobRecoveryLeasesDao;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.recover.RecoveryPartitions;
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** This long-lived thread manages the recovery partitions owned by its reader.
+ * Every third of the lease period the thread renews its reader's registration
+ * and partition leases, then acquires or releases partitions so that each
+ * running reader owns an even share of the partitions.  Partitions whose
+ * owners stop renewing their leases become available when their leases expire
+ * and are acquired by the surviving readers.
+ *
+ * If a lease cannot be renewed because the database is unavailable, the reader
+ * gives up the partition one renewal interval before the lease expires so that
+ * no two readers ever process the same partition.  All leases are released when
+ * this thread terminates.
+ *
+ * @author rcardone
+ */
+public final class RecoveryLeaseThread
+ extends Thread
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(RecoveryLeaseThread.class);
+
+    // The shortest lease allowed.
+    private static final int MIN_LEASE_SECONDS = 6;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    private final RecoveryReader       _reader;
+    private final JobRecoveryLeasesDao _leasesDao;
+
+    // Lease configuration.
+    private final int                  _partitions;
+    private final int                  _leaseSeconds;
+    private final long                 _renewMillis;
+
+    // Key = owned partition, value = nanoTime after which the partition
+    // must be given up if its lease hasn't been renewed.
+    private final HashMap<Integer,Long> _expirations = new HashMap<>();
+
+    // Set once the lease rows are known to exist.
+    private boolean                    _leasesCreated;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    public RecoveryLeaseThread(ThreadGroup threadGroup, String threadName,
+                               RecoveryReader reader)
+     throws TapisException
+    {
+        // Save inputs.
+        super(threadGroup, threadName);
+        _reader = reader;
+        _leasesDao = new JobRecoveryLeasesDao();
+
+        // Renew three times per lease period.
+        _partitions   = RecoveryPartitions.getPartitions();
+        _leaseSeconds = Math.max(MIN_LEASE_SECONDS,
+                                 RuntimeParameters.getInstance().getRecoveryLeaseSeconds());
+        _renewMillis  = _leaseSeconds * 1000L / 3;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* run:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void run()
+    {
+        // Tracing.
+        if (_log.isInfoEnabled())
+            _log.info(MsgUtils.getMsg("JOBS_RECOVERY_THREAD_STARTING",
+                                      Thread.currentThread().getName(),
+                                      Thread.currentThread().getId(),
+                                      _reader.getName(), _reader.getQueueName()));
+
+        // Balance partitions until interrupted.
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                balance();
+                Thread.sleep(_renewMillis);
+            }
+        }
+        catch (InterruptedException e) {
+            if (_log.isInfoEnabled()) {
+                String msg = MsgUtils.getMsg("JOBS_RECOVERY_THREAD_INTERRUPTED",
+                                             Thread.currentThread().getName(),
+                                             Thread.currentThread().getId(),
+                                             _reader.getName(), _reader.getQueueName());
+                _log.info(msg);
+            }
+        }
+        finally {
+            // Let other readers take over immediately.
+            releaseAll();
+        }
+
+        // Say goodbye.
+        if (_log.isInfoEnabled())
+            _log.info(MsgUtils.getMsg("JOBS_RECOVERY_THREAD_STOPPING",
+                                      Thread.currentThread().getName(),
+                                      Thread.currentThread().getId(),
+                                      _reader.getName(), _reader.getQueueName()));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getRenewMillis:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** The milliseconds between lease renewals. */
+    public long getRenewMillis() {return _renewMillis;}
+
+    /* ********************************************************************** */
+    /*                             Private Methods                            */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* balance:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Renew our leases and then acquire or release partitions to bring the
+     * number we own to our share.  Database errors are logged by the dao and
+     * end the current round.
+     */
+    private void balance()
+    {
+        // Make sure the lease rows for all partitions exist.
+        if (!_leasesCreated)
+            try {_leasesDao.createLeases(_partitions); _leasesCreated = true;}
+                catch (JobException e) {}
+
+        // Announce that we are running.
+        try {_leasesDao.registerReader(_reader.getOwnerId(), _leaseSeconds);}
+            catch (JobException e) {}
+
+        // Keep what we have.
+        renewLeases();
+
+        // Divide the partitions evenly among the running readers.
+        int share;
+        try {share = RecoveryPartitions.getShare(_partitions, _leasesDao.countReaders());}
+            catch (JobException e) {return;}
+
+        // Release the highest numbered partitions we own beyond our share.
+        while (_expirations.size() > share) release(Collections.max(_expirations.keySet()));
+
+        // Acquire available partitions up to our share.
+        if (_expirations.size() < share) {
+            List<Integer> available;
+            try {available = _leasesDao.getAvailablePartitions(_partitions);}
+                catch (JobException e) {return;}
+            for (int partition : available) {
+                if (_expirations.size() >= share) break;
+                acquire(partition);
+            }
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* renewLeases:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Extend the lease on each partition we own.  Partitions whose leases are
+     * held by another reader are lost immediately; partitions whose leases
+     * can't be renewed because of errors are lost when their local expiration
+     * time passes.  Partitions the reader gave up after failing to confirm 
+     * their leases are released.
+     */
+    private void renewLeases()
+    {
+        for (int partition : new ArrayList<>(_expirations.keySet())) {
+            // The reader may have found that it no longer holds the lease.
+            if (!_reader.ownsPartition(partition)) {release(partition); continue;}
+            
+            long start = System.nanoTime();
+            boolean renewed;
+            try {renewed = _leasesDao.acquireLease(partition, _reader.getOwnerId(), _leaseSeconds);}
+                catch (JobException e) {
+                    // Keep the partition until it's about to expire.
+                    if (start - _expirations.get(partition) < 0) continue;
+                    renewed = false;
+                }
+
+            // Update the expiration or stop processing the partition.
+            if (renewed) _expirations.put(partition, getExpiration(start));
+              else {
+                  _expirations.remove(partition);
+                  _reader.partitionLost(partition);
+                  _log.warn(MsgUtils.getMsg("JOBS_RECOVERY_PARTITION_LOST", _reader.getName(),
+                                            _reader.getOwnerId(), partition));
+              }
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* acquire:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Try to acquire a partition and start processing it.  If the reader
+     * cannot take over the partition, the lease is released.
+     *
+     * @param partition the available partition
+     */
+    private void acquire(int partition)
+    {
+        // Another reader may have acquired the partition first.
+        long start = System.nanoTime();
+        try {if (!_leasesDao.acquireLease(partition, _reader.getOwnerId(), _leaseSeconds)) return;}
+            catch (JobException e) {return;}
+
+        // Load the partition and start reading its queue.
+        if (_reader.partitionAcquired(partition)) {
+            _expirations.put(partition, getExpiration(start));
+            _log.info(MsgUtils.getMsg("JOBS_RECOVERY_PARTITION_ACQUIRED", _reader.getName(),
+                                      _reader.getOwnerId(), partition));
+        }
+        else
+            try {_leasesDao.releaseLease(partition, _reader.getOwnerId());}
+                catch (JobException e) {}
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* release:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Stop processing a partition and then release its lease.
+     *
+     * @param partition an owned partition
+     */
+    private void release(int partition)
+    {
+        _expirations.remove(partition);
+        _reader.partitionLost(partition);
+        try {_leasesDao.releaseLease(partition, _reader.getOwnerId());}
+            catch (JobException e) {}
+        _log.info(MsgUtils.getMsg("JOBS_RECOVERY_PARTITION_RELEASED", _reader.getName(),
+                                  _reader.getOwnerId(), partition));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* releaseAll:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Release all partitions and remove our registration.  This method is
+     * best effort and never throws an exception.
+     */
+    private void releaseAll()
+    {
+        for (int partition : new ArrayList<>(_expirations.keySet())) release(partition);
+        try {_leasesDao.unregisterReader(_reader.getOwnerId());}
+            catch (JobException e) {}
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getExpiration:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Calculate the local time after which an unrenewed partition is given up.
+     * The database lease expires at least one renewal interval later.
+     *
+     * @param start the nanoTime before the lease was acquired or renewed
+     * @return the nanoTime at which the partition must be given up
+     */
+    private long getExpiration(long start)
+    {
+        return start + (_leaseSeconds * 1000L - _renewMillis) * 1_000_000L;
+    }
+}
@@ -1,21 +1,26 @@
 package edu.utexas.tacc.tapis.jobs.reader;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 
-import org.apache.commons.codec.binary.Hex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.JsonParseException;
 import com.rabbitmq.client.BuiltinExchangeType;
 
 import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.dao.JobRecoveryDao;
+import edu.utexas.tacc.tapis.jobs.dao.JobRecoveryLeasesDao;
 import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
 import edu.utexas.tacc.tapis.jobs.events.JobEventManager;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetricsServer;
 import edu.utexas.tacc.tapis.jobs.model.JobRecovery;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
@@ -23,10 +28,14 @@ import edu.utexas.tacc.tapis.jobs.queue.DeliveryResponse;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager.ExchangeUse;
+import edu.utexas.tacc.tapis.jobs.queue.QueueMsgCodec;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobCancelRecoverMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.JobRecoverMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverShutdownMsg;
+import edu.utexas.tacc.tapis.jobs.recover.RecoveryManager;
+import edu.utexas.tacc.tapis.jobs.recover.RecoveryPartitions;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.recoverable.TapisDBConnectionException;
@@ -38,7 +47,6 @@ import edu.utexas.tacc.tapis.shared.security.ServiceContext;
 import edu.utexas.tacc.tapis.shared.security.TenantManager;
 import edu.utexas.tacc.tapis.shared.ssh.apache.SSHConnection;
 import edu.utexas.tacc.tapis.shared.utils.HTMLizer;
-import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
 import edu.utexas.tacc.tapis.shared.utils.Throttle;
 import edu.utexas.tacc.tapis.tenants.client.gen.model.Tenant;
 
@@ -56,6 +64,19 @@ import edu.utexas.tacc.tapis.tenants.client.gen.model.Tenant;
  * A future goal is to make this class resilient against database and queue
  * broker failures. 
  * 
+ * Any number of recovery readers can run concurrently.  Recovery records are
+ * divided into partitions and each reader processes only the partitions whose
+ * database leases it holds.  The _recoveryLeaseThread acquires, renews and
+ * releases leases; when this reader acquires a partition it starts reading 
+ * the partition's recovery queue and the _recoveryReaderThread loads the 
+ * partition's recovery records from the database.  When a reader stops, the
+ * surviving readers take over its partitions once their leases expire.
+ * 
+ * The lease thread never takes the database lock, which the reader thread
+ * holds while recovering jobs.  Instead, partition changes are recorded and 
+ * applied by the reader thread, which also confirms its leases in the 
+ * database before each recovery pass.
+ * 
  * @author rcardone
  */
 public final class RecoveryReader
@@ -68,11 +89,15 @@ public final class RecoveryReader
     // Tracing.
     private static final Logger _log = LoggerFactory.getLogger(RecoveryReader.class);
     
+    // Queued to wake up the recover thread when partitions change.
+    private static final JobRecovery PARTITION_CHANGED = new JobRecovery();
+    
     // Recovery manager thread definitions.
     private static final String RECOVERY_THREADGROUP_SUFFIX = "-recoveryTG";
     private static final String RECOVERY_MANAGER_THREAD_SUFFIX = "-mgr";
     private static final String SHUTDOWN_THREAD_SUFFIX = "-shutdown";
     private static final String RECOVERY_CANCEL_THREAD_SUFFIX = "-cancel-";
+    private static final String RECOVERY_LEASE_THREAD_SUFFIX = "-lease";
     
     // Thread throttling settings.
     private static final int THREAD_RESTART_SECONDS = 300;
@@ -93,6 +118,7 @@ public final class RecoveryReader
     // Database access.
     private final JobsDao          _jobsDao;
     private final JobRecoveryDao   _recoveryDao;   
+    private final JobRecoveryLeasesDao _leasesDao;
     
     // The thread restart throttle limits the number 
     // of threads started within a time window.
@@ -101,6 +127,23 @@ public final class RecoveryReader
     // Recovery thread fields.
     private final ThreadGroup     _recoveryThreadGroup;
     private RecoveryReaderThread  _recoveryReaderThread;
+    private RecoveryLeaseThread   _recoveryLeaseThread;
+    
+    // The thread that reads the queue and processes messages.
+    private Thread                _mainThread;
+    
+    // The unique id that identifies this reader in partition leases.
+    private final String          _ownerId;
+    
+    // The partitions this reader owns and the consumer tags of their 
+    // queues (key = partition id).  Both are updated by the lease thread.
+    private final Set<Integer>    _ownedPartitions = ConcurrentHashMap.newKeySet();
+    private final ConcurrentHashMap<Integer,String> _partitionConsumers = new ConcurrentHashMap<>();
+    
+    // Partition changes recorded by the lease thread and applied by the 
+    // recover thread, which owns the in-memory recovery records.
+    private final Set<Integer>    _partitionsToLoad   = ConcurrentHashMap.newKeySet();
+    private final Set<Integer>    _partitionsToRemove = ConcurrentHashMap.newKeySet();
     
     // The queue the reader thread writes and the recover thread reads.
     private final LinkedBlockingQueue<JobRecovery> _recoverQueue;
@@ -138,6 +181,7 @@ public final class RecoveryReader
         // Allow access to our tables.
         _jobsDao = new JobsDao();
         _recoveryDao = new JobRecoveryDao();
+        _leasesDao = new JobRecoveryLeasesDao();
         
         // Thread group of spawned manager thread.
         _recoveryThreadGroup = new ThreadGroup(_parms.name + RECOVERY_THREADGROUP_SUFFIX);
@@ -145,6 +189,9 @@ public final class RecoveryReader
         // Create the queue the recover thread blocks on.
         _recoverQueue = new LinkedBlockingQueue<>();
         
+        // Distinguish readers that use the same name.
+        _ownerId = _parms.name + "-" + UUID.randomUUID().toString();
+        
         // Print configuration.
         _log.info(getStartUpInfo(_queueName, _exchangeName));
     }
@@ -184,12 +231,21 @@ public final class RecoveryReader
           _log.info(MsgUtils.getMsg("JOBS_READER_STARTED", _parms.name, 
                                     _queueName, getBindingKey()));
       
+      // Save the main thread for shutdown requests.
+      _mainThread = Thread.currentThread();
+      
       // Get our service tokens.
       initReaderEnv();
       
+      // Enable tracing if configured.
+      JobTracing.initialize(_parms.name);
+      
       // Initialize the recovery framework.
       initRecoveryReaderThread();
       
+      // Expose metrics, including the recovery job gauge, if configured.
+      JobMetricsServer.start(RuntimeParameters.getInstance().getMetricsPort());
+      
       // Start reading the queue.
       readQueue();
       
@@ -220,6 +276,169 @@ public final class RecoveryReader
      */
     protected Object getDBLock() {return _dbLock;}
     
+    /* ---------------------------------------------------------------------- */
+    /* getOwnerId:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** The unique id of this reader used as the owner of partition leases. */
+    protected String getOwnerId() {return _ownerId;}
+    
+    /* ---------------------------------------------------------------------- */
+    /* ownsPartition:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether this reader currently owns a recovery partition.
+     * 
+     * @param partition the partition id
+     * @return true if the partition is owned, false otherwise
+     */
+    public boolean ownsPartition(int partition) 
+    {
+        return _ownedPartitions.contains(partition);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* partitionAcquired:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Take ownership of a partition whose lease was just acquired.  The 
+     * partition's recovery queue is read immediately and the recovery manager
+     * thread is asked to load the partition's recovery records.  This method 
+     * runs on the lease thread and doesn't access the database.
+     * 
+     * @param partition the partition id
+     * @return true if the partition is now owned, false if the lease should
+     *          be released
+     */
+    protected boolean partitionAcquired(int partition)
+    {
+        // Let the recovery manager thread load the partition's records, 
+        // which it only accepts for owned partitions.
+        _ownedPartitions.add(partition);
+        _partitionsToLoad.add(partition);
+        _recoverQueue.add(PARTITION_CHANGED);
+        
+        // Start reading the partition's queue.
+        try {
+            String consumerTag = addConsumer(JobQueueManagerNames.getRecoveryQueueName(partition));
+            _partitionConsumers.put(partition, consumerTag);
+        }
+        catch (Exception e) {
+            // Already logged.
+            partitionLost(partition);
+            return false;
+        }
+        return true;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* partitionLost:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Give up ownership of a partition.  The partition's queue is no longer 
+     * read and the recovery manager thread is asked to discard its recovery 
+     * records from memory.  Messages for the partition that were already 
+     * delivered are forwarded to its queue.  This method doesn't access the
+     * database.
+     * 
+     * @param partition the partition id
+     */
+    protected void partitionLost(int partition)
+    {
+        // Stop reading the partition's queue.
+        _ownedPartitions.remove(partition);
+        String consumerTag = _partitionConsumers.remove(partition);
+        if (consumerTag != null) removeConsumer(consumerTag);
+        
+        // Let the recovery manager thread discard the partition's records.
+        _partitionsToRemove.add(partition);
+        _recoverQueue.add(PARTITION_CHANGED);
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* confirmPartitions:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Check the partitions this reader believes it owns against the leases
+     * in the database.  Partitions whose leases are no longer held are given
+     * up before any of their records are recovered; the lease thread then 
+     * releases them.  Called by the recovery manager thread while holding the
+     * database lock.
+     * 
+     * @return true if ownership was confirmed, false if the leases couldn't 
+     *          be read and recovery should be postponed
+     */
+    protected boolean confirmPartitions()
+    {
+        // Partitions are acquired in the database before they're added to our
+        // owned set, so take the snapshot first and then read our current leases.
+        var owned = new ArrayList<>(_ownedPartitions);
+        Set<Integer> leased;
+        try {leased = new HashSet<>(_leasesDao.getOwnedPartitions(_ownerId));}
+            catch (Exception e) {return false;} // already logged
+        
+        // Give up partitions whose leases we no longer hold.
+        for (int partition : owned)
+            if (!leased.contains(partition)) {
+                partitionLost(partition);
+                _log.warn(MsgUtils.getMsg("JOBS_RECOVERY_PARTITION_LOST", getName(),
+                                          _ownerId, partition));
+            }
+        return true;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* applyPartitionChanges:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Discard the in-memory records of lost partitions and queue the records
+     * of acquired partitions.  Removals are applied first so that a partition
+     * lost and then reacquired is reloaded.  Partitions whose records can't be
+     * read are retried on the next pass.  Called by the recovery manager thread
+     * while holding the database lock.
+     * 
+     * @param mgr the recovery manager
+     */
+    protected void applyPartitionChanges(RecoveryManager mgr)
+    {
+        // Discard the records of lost partitions.
+        for (int partition : new ArrayList<>(_partitionsToRemove)) {
+            _partitionsToRemove.remove(partition);
+            mgr.removePartition(partition);
+        }
+        
+        // Load the records of acquired partitions that are still owned.
+        for (int partition : new ArrayList<>(_partitionsToLoad)) {
+            _partitionsToLoad.remove(partition);
+            if (!ownsPartition(partition)) continue;
+            try {_recoverQueue.addAll(mgr.readPartition(partition));}
+                catch (Exception e) {
+                    String msg = MsgUtils.getMsg("JOBS_RECOVERY_PARTITION_LOAD_ERROR", getName(), 
+                                                 partition, e.getMessage());
+                    _log.error(msg, e);
+                    _partitionsToLoad.add(partition);
+                }
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* requestShutdown:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Shut down this reader without going through the recovery queue, which
+     * may be read by another reader.
+     */
+    protected void requestShutdown()
+    {
+        startShutdownThread();
+        if (_mainThread != null) _mainThread.interrupt();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getWaitMillis:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** The longest time the recovery manager thread waits for new records. 
+     * Partition changes wake the thread, so this limit only guarantees that 
+     * leases are confirmed at least once per renewal interval.
+     */
+    protected long getWaitMillis() 
+    {
+        return _recoveryLeaseThread != null ? _recoveryLeaseThread.getRenewMillis() : Long.MAX_VALUE;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* process:                                                               */
     /* ---------------------------------------------------------------------- */
@@ -239,20 +458,11 @@ public final class RecoveryReader
           _log.debug(msg);
       }
       
-      // The body should always be a UTF-8 json string.
-      String body;
-      try {body = new String(delivery.body, "UTF-8");}
-          catch (Exception e) {
-              String msg = MsgUtils.getMsg("ALOE_BYTE_ARRAY_DECODE", new String(Hex.encodeHex(delivery.body)));
-              _log.error(msg);
-              return false;
-          }
-      
-      // Decode the input.
+      // Decode the UTF-8 json input into the message's concrete class.
       RecoverMsg recoverMsg = null;
-      try {recoverMsg = TapisGsonUtils.getGson(true).fromJson(body, RecoverMsg.class);}
+      try {recoverMsg = QueueMsgCodec.decode(delivery.body, RecoverMsg.class);}
           catch (Exception e) {
-              if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
+              String body = dumpBody(delivery.body);
               String msg = MsgUtils.getMsg("ALOE_JSON_PARSE_ERROR", getName(), body, e.getMessage());
               _log.error(msg, e);
               return false;
@@ -274,13 +484,13 @@ public final class RecoveryReader
           {
               switch (recoverMsg.getMsgType()) {
                   case RECOVER:  
-                      ack = processMsg(TapisGsonUtils.getGson(true).fromJson(body, JobRecoverMsg.class));
+                      ack = processMsg((JobRecoverMsg) recoverMsg);
                       break;
                   case CANCEL_RECOVER: 
-                      ack = processMsg(TapisGsonUtils.getGson(true).fromJson(body, JobCancelRecoverMsg.class));
+                      ack = processMsg((JobCancelRecoverMsg) recoverMsg);
                       break;
                   case RECOVER_SHUTDOWN: 
-                      ack = processMsg(TapisGsonUtils.getGson(true).fromJson(body, RecoverShutdownMsg.class));
+                      ack = processMsg((RecoverShutdownMsg) recoverMsg);
                       break;
                   default:
                       ack = processMsg(recoverMsg); // This should not happen.
@@ -294,14 +504,8 @@ public final class RecoveryReader
           _log.error(msg, e);
           throw e;
       }
-      catch (JsonParseException e) {
-          if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
-          String msg = MsgUtils.getMsg("TAPIS_JSON_PARSE_ERROR", getName(), body, e.getMessage());
-          _log.error(msg, e);
-          ack = false;
-      }
       catch (Exception e) {
-          if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
+          String body = dumpBody(delivery.body);
           String msg = MsgUtils.getMsg("JOBS_WORKER_MSG_PROCESSING_ERROR", getName(), 
                                        body, e.getMessage());
           _log.error(msg, e);
@@ -324,7 +528,18 @@ public final class RecoveryReader
     protected JobRecovery pollRecoveryQueue(long waitMillis) 
      throws InterruptedException
     {
-        return _recoverQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
+        // Partition change notifications are just wake up calls.
+        JobRecovery jobRecovery = _recoverQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
+        return jobRecovery == PARTITION_CHANGED ? null : jobRecovery;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* requeueRecovery:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Return a record to the recovery queue when it can't be processed yet. */
+    protected void requeueRecovery(JobRecovery jobRecovery)
+    {
+        if (jobRecovery != null) _recoverQueue.add(jobRecovery);
     }
     
     /* ---------------------------------------------------------------------- */
@@ -362,6 +577,22 @@ public final class RecoveryReader
     /* ---------------------------------------------------------------------- */
     @Override
     protected String getBindingKey() {return _parms.bindingKey;}
+    
+    /* ---------------------------------------------------------------------- */
+    /* consumeOnStart:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** The recovery queue is partition 0's queue, which is only read once the
+     * partition's lease is acquired.
+     */
+    @Override
+    protected boolean consumeOnStart() {return false;}
+    
+    /* ---------------------------------------------------------------------- */
+    /* consumerReady:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Start acquiring partitions once queues can be read. */
+    @Override
+    protected void consumerReady() {initRecoveryLeaseThread();}
 
     /* ********************************************************************** */
     /*                             Private Methods                            */
@@ -432,6 +663,14 @@ public final class RecoveryReader
       return _parms.name + RECOVERY_MANAGER_THREAD_SUFFIX;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* createRecoveryLeaseThreadName:                                         */
+    /* ---------------------------------------------------------------------- */
+    private String createRecoveryLeaseThreadName() 
+    {
+      return _parms.name + RECOVERY_LEASE_THREAD_SUFFIX;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* createShutdownThreadName:                                              */
     /* ---------------------------------------------------------------------- */
@@ -465,6 +704,32 @@ public final class RecoveryReader
         _recoveryReaderThread.start();
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* initRecoveryLeaseThread:                                               */
+    /* ---------------------------------------------------------------------- */
+    private void initRecoveryLeaseThread()
+    {
+        // Create the lease manager thread.
+        try {
+            _recoveryLeaseThread = 
+               new RecoveryLeaseThread(_recoveryThreadGroup, 
+                                       createRecoveryLeaseThreadName(),
+                                       this);
+        }
+        catch (Exception e) {
+            // Without leases no partitions can be processed.
+            String msg = MsgUtils.getMsg("JOBS_READER_FATAL_DB_ERROR", getName(),
+                                         getQueueName(), "", e.getMessage());
+            _log.error(msg, e);
+            throw new TapisRuntimeException(msg, e);
+        }
+        
+        // Set attributes and start thread.
+        _recoveryLeaseThread.setDaemon(true);
+        _recoveryLeaseThread.setUncaughtExceptionHandler(this);
+        _recoveryLeaseThread.start();
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* initThreadRestartThrottle:                                             */
     /* ---------------------------------------------------------------------- */
@@ -501,7 +766,7 @@ public final class RecoveryReader
     /* ---------------------------------------------------------------------- */
     /* startShutdownThread:                                                   */
     /* ---------------------------------------------------------------------- */
-    private void startShutdownThread(RecoverShutdownMsg message)
+    private void startShutdownThread()
     {
         // Create the thread
         Thread shutdownThread = new Thread(_recoveryThreadGroup, createShutdownThreadName()) 
@@ -570,6 +835,21 @@ public final class RecoveryReader
     /* ---------------------------------------------------------------------- */
     private boolean processMsg(JobRecoverMsg message)
     {
+        // Messages for partitions we don't own are delivered after ownership
+        // changes.  Send them on to the partition's queue for its new owner.
+        int partition = RecoveryPartitions.getPartition(message.getTenantId(), 
+                                                        message.getTesterHash());
+        if (!ownsPartition(partition)) {
+            try {JobQueueManager.getInstance().postRecoveryPartition(partition, 
+                                                                     QueueMsgCodec.encode(message));}
+                catch (Exception e) {
+                    String msg = MsgUtils.getMsg("JOBS_QUEUE_POST_ERROR", "JobRecoverMsg", e.getMessage());
+                    _log.error(msg, e);
+                    return false;
+                }
+            return true;
+        }
+        
         // We are not interested if the job is not blocked.
         JobStatusType jobStatus = null;
         try {jobStatus = _jobsDao.getStatusByUUID(message.getJobUuid());}
@@ -689,7 +969,7 @@ public final class RecoveryReader
     private boolean processMsg(RecoverShutdownMsg message)
     {
         // Shutdown the recovery manager thread.
-        startShutdownThread(message);
+        startShutdownThread();
         
         // Shutdown this (the main) thread.
         Thread.currentThread().interrupt();
@@ -729,6 +1009,17 @@ public final class RecoveryReader
         _log.error(MsgUtils.getMsg("ALOE_THREAD_UNCAUGHT_EXCEPTION", _parms.name, e.toString()));
         e.printStackTrace(); // stderr for emphasis
 
+        // ---- Stop reading if partition leases are no longer maintained.
+        // Otherwise another reader could take over our partitions while
+        // we continue to process them.
+        if (t instanceof RecoveryLeaseThread) {
+            String msg = MsgUtils.getMsg("ALOE_THREAD_DIED", t.getName(), t.getId(), 
+                                         e.getClass().getSimpleName(), e);
+            _log.error(msg);
+            requestShutdown();
+            return;
+        }
+        
         // ---- Do nothing if its not a known thread.
         if (!(t instanceof RecoveryReaderThread)) {
             // This shouldn't happen since we determine a compile time which
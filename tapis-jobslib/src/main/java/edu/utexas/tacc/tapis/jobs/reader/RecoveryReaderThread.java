@@ -4,8 +4,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.jobs.model.JobRecovery;
-import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
-import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverShutdownMsg;
 import edu.utexas.tacc.tapis.jobs.recover.RecoveryManager;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 
@@ -18,6 +16,9 @@ public final class RecoveryReaderThread
     // Tracing.
     private static final Logger _log = LoggerFactory.getLogger(RecoveryReaderThread.class);
     
+    // The longest wait before retrying when leases can't be confirmed.
+    private static final long CONFIRM_RETRY_MILLIS = 10000;
+    
     /* ********************************************************************** */
     /*                                 Fields                                 */
     /* ********************************************************************** */
@@ -68,7 +69,7 @@ public final class RecoveryReaderThread
         while (true) {
             // Get the number of milliseconds to wait before 
             // performing a recovery action.
-            long waitMillis = mgr.getMillisToWakeUp();
+            long waitMillis = Math.min(mgr.getMillisToWakeUp(), _reader.getWaitMillis());
         
             // Wait on the queue for a recovery command.
             JobRecovery jobRecovery = null;
@@ -96,11 +97,25 @@ public final class RecoveryReaderThread
                 break;
             }
             
-            // Let the recovery manager incorporate the new recovery message
-            // if one is returned and process all recovery actions that are due.
-            // This thread executes its recovery task with exclusive database
-            // access.
-            synchronized (_reader.getDBLock()) {mgr.recover(jobRecovery);}
+            // Confirm our leases and apply partition changes, then let the
+            // recovery manager incorporate the new recovery message if one is
+            // returned and process all recovery actions that are due.  This 
+            // thread executes its recovery task with exclusive database access.
+            boolean confirmed;
+            synchronized (_reader.getDBLock()) {
+                confirmed = _reader.confirmPartitions();
+                if (confirmed) {
+                    _reader.applyPartitionChanges(mgr);
+                    mgr.recover(jobRecovery);
+                }
+            }
+            
+            // Wait for the database before trying again.
+            if (!confirmed) {
+                _reader.requeueRecovery(jobRecovery);
+                try {Thread.sleep(Math.min(CONFIRM_RETRY_MILLIS, _reader.getWaitMillis()));}
+                    catch (InterruptedException e) {break;}
+            }
         }
         
         // Say goodbye.
@@ -141,25 +156,11 @@ public final class RecoveryReaderThread
     /* ---------------------------------------------------------------------- */
     /* shutdownReader:                                                        */
     /* ---------------------------------------------------------------------- */
-    /** Place a shutdown message on this tenant's recovery queue.  This is a
-     * best effort try.
+    /** Shut down our reader directly.  A shutdown message placed on the 
+     * recovery queue could be read by another recovery reader.
      */
     private void shutdownReader()
     {
-        // Create a shutdown message.
-        RecoverShutdownMsg shutdownMsg = new RecoverShutdownMsg(this.getClass().getSimpleName());
-        
-        // Add the parameter values to the command.
-        shutdownMsg.setQueueName(_reader.getQueueName());
-        shutdownMsg.setForce(true);
-        
-        // Post the message to the tenant recovery queue.
-        JobQueueManager qm = JobQueueManager.getInstance();
-        try {qm.postRecoveryQueue(shutdownMsg);}
-        catch (Exception e) {
-            String msg = MsgUtils.getMsg("JOBS_QUEUE_POST_ERROR", "RecoverShutdownMsg", e.getMessage());
-            _log.error(msg, e);
-        }
-
+        _reader.requestShutdown();
     }
 }
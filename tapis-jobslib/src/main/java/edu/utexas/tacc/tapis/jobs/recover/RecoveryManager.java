@@ -18,6 +18,7 @@ import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
 import edu.utexas.tacc.tapis.jobs.events.JobEventManager;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobRecoveryExpiredException;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.JobBlocked;
 import edu.utexas.tacc.tapis.jobs.model.JobRecovery;
@@ -44,6 +45,11 @@ import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
  * greater concurrency might become necessary.  For now, the simple thread-safe 
  * approach using synchronized methods should suffice. 
  * 
+ * Recovery records are divided into partitions (see RecoveryPartitions) and the
+ * manager only holds the records of partitions owned by its reader.  Records are
+ * read from the database when the reader acquires a partition and discarded from
+ * memory when the reader loses the partition. 
+ * 
  * @author rcardone
  */
 public final class RecoveryManager 
@@ -105,8 +111,9 @@ public final class RecoveryManager
         _jobsDao = new JobsDao();
         _recoveryDao = new JobRecoveryDao();
         
-        // Initialize this object from the database.
-        initialize();
+        // Report the number of jobs in recovery.  The set's size is read
+        // without synchronization so that scrapes never wait on recovery.
+        JobMetrics.registerRecoveryGauge(_recoveryJobs::size);
     }
     
     /* ********************************************************************** */
@@ -289,18 +296,52 @@ public final class RecoveryManager
         return result;
     }
     
-    /* ********************************************************************** */
-    /*                            Private Methods                             */
-    /* ********************************************************************** */
     /* ---------------------------------------------------------------------- */
-    /* initialize:                                                            */
+    /* removePartition:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Discard the in-memory recovery records of a partition that the reader
+     * no longer owns.  The records remain in the database so that the 
+     * partition's next owner can read them.
+     * 
+     * When this method runs, it must be the only thread accessing the recovery
+     * data structures.
+     * 
+     * @param partition the lost partition
+     * @return the number of recovery records discarded
+     */
+    public synchronized int removePartition(int partition)
+    {
+        int removed = 0;
+        var it = _recoveryJobs.iterator();
+        while (it.hasNext()) {
+            // Skip records in other partitions.
+            JobRecovery jobRecovery = it.next();
+            if (RecoveryPartitions.getPartition(jobRecovery.getTenantId(), 
+                                                jobRecovery.getTesterHash()) != partition)
+                continue;
+            
+            // Remove the record and its indices.
+            it.remove();
+            _testerHashIndex.remove(jobRecovery.getTesterHash());
+            for (JobBlocked blockedJob : jobRecovery.getBlockedJobs())
+                _jobUuidIndex.remove(blockedJob.getJobUuid());
+            removed++;
+        }
+        return removed;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* readPartition:                                                         */
     /* ---------------------------------------------------------------------- */
-    /** Initialize data structures that contain all the blocked jobs and 
-     * recovery information needed to unblock those jobs.
+    /** Read the recovery records of a partition, including their blocked jobs,
+     * from the database.  The records are not added to the manager; the caller 
+     * passes them to recover() once the partition is owned.
      * 
-     * @throws JobException if initialization fails
+     * @param partition the partition whose records are read
+     * @return the partition's recovery records
+     * @throws JobException if the recovery records cannot be read
      */
-    private void initialize() 
+    public List<JobRecovery> readPartition(int partition) 
      throws JobException
     {
         // Read all recovery wait records from the database.
@@ -319,12 +360,17 @@ public final class RecoveryManager
             }
         
         // Fill in the specific blocked job information in each recovery object 
-        // and then add the recovery object to our recovery set and indices. If
-        // there's a failure on any specific recovery record, that record's skipped
-        // and processing continues.
+        // of the partition. If there's a failure on any specific recovery record, 
+        // that record's skipped and processing continues.
+        var partitionList = new ArrayList<JobRecovery>();
         long curRecoveryId = 0;
         for (JobRecovery jobRecovery : list) 
         {
+            // Skip records in other partitions.
+            if (RecoveryPartitions.getPartition(jobRecovery.getTenantId(), 
+                                                jobRecovery.getTesterHash()) != partition)
+                continue;
+            
             // Squirrel away the id for use in error message.
             curRecoveryId = jobRecovery.getId();
             try {
@@ -333,8 +379,8 @@ public final class RecoveryManager
                 List<JobBlocked> blockedJobs = _recoveryDao.getBlockedJobs(curRecoveryId);
                 jobRecovery.addBlockedJobs(blockedJobs);
                 
-                // Record this recovery job in the manager's fields.
-                addRecoveryJob(jobRecovery);
+                // Record this recovery job in the partition's list.
+                partitionList.add(jobRecovery);
             }
             catch (Exception e) {
                 String msg = MsgUtils.getMsg("JOBS_RECOVERY_SELECT_BLOCKED_ERROR", curRecoveryId, 
@@ -342,8 +388,14 @@ public final class RecoveryManager
                 _log.error(msg, e);
             }
         }
+        
+        return partitionList;
     }
     
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    
     /* ---------------------------------------------------------------------- */
     /* doRecover:                                                             */
     /* ---------------------------------------------------------------------- */
@@ -406,6 +458,17 @@ public final class RecoveryManager
         // Is there any thing to add?
         if (jobRecovery == null) return;
         
+        // Ignore records of partitions the reader lost after the record was
+        // queued.  The record is in the database for the partition's new owner.
+        int partition = RecoveryPartitions.getPartition(jobRecovery.getTenantId(), 
+                                                        jobRecovery.getTesterHash());
+        if (!_recoveryReader.ownsPartition(partition)) {
+            String msg = MsgUtils.getMsg("JOBS_RECOVERY_PARTITION_NOT_OWNED", jobRecovery.getId(),
+                                         partition, _recoveryReader.getName());
+            _log.info(msg);
+            return;
+        }
+        
         // Firewall against incomplete recovery objects.  We make sure there is NO WAY that
         // a recovery job object can be placed in the internal set without a valid id.
         if (jobRecovery.getId() <= 0) {
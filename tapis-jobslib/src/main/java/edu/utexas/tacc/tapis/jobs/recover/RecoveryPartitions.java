@@ -0,0 +1,85 @@
+package edu.utexas.tacc.tapis.jobs.recover;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+
+/** Recovery records are divided among a fixed number of partitions so that
+ * multiple recovery readers can share the recovery workload.  A record's
+ * partition is determined by its tenant and tester hash, so all jobs blocked
+ * on the same condition are recovered by the same reader.  Recovery messages
+ * are routed to the queue of their partition and each partition is owned by
+ * at most one reader at a time (see JobRecoveryLeasesDao).
+ *
+ * The partition function only depends on String.hashCode(), whose value is
+ * defined by the Java language specification, so all processes agree on the
+ * partition of a record as long as they're configured with the same number
+ * of partitions.
+ *
+ * @author rcardone
+ */
+public final class RecoveryPartitions
+{
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private RecoveryPartitions() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getPartitions:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** The configured number of recovery partitions, which is always positive. */
+    public static int getPartitions()
+    {
+        return Math.max(1, RuntimeParameters.getInstance().getRecoveryPartitions());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPartition:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Get the partition of a recovery record using the configured number of
+     * partitions.
+     *
+     * @param tenantId the record's tenant
+     * @param testerHash the record's tester hash
+     * @return the partition id
+     */
+    public static int getPartition(String tenantId, String testerHash)
+    {
+        return getPartition(tenantId, testerHash, getPartitions());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getPartition:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Get the partition of a recovery record.
+     *
+     * @param tenantId the record's tenant
+     * @param testerHash the record's tester hash
+     * @param partitions the positive number of partitions
+     * @return the partition id between 0 and partitions - 1
+     */
+    public static int getPartition(String tenantId, String testerHash, int partitions)
+    {
+        if (partitions <= 1) return 0;
+        int hash = (tenantId + "|" + testerHash).hashCode();
+        return Math.floorMod(hash, partitions);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getShare:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Get the most partitions any one reader should own so that the
+     * partitions are spread evenly among the live readers.
+     *
+     * @param partitions the number of partitions
+     * @param readers the number of live readers, including the caller
+     * @return the maximum number of partitions per reader
+     */
+    public static int getShare(int partitions, int readers)
+    {
+        if (readers <= 1) return partitions;
+        return (partitions + readers - 1) / readers;
+    }
+}
@@ -666,12 +666,23 @@ public class SlurmOptions
         if (StringUtils.isBlank(getJobName())) {
             setJobName(JobExecutionUtils.JOB_WRAPPER_SCRIPT);
         }
+        // Tapis job arrays run one slurm array task per task in the job's array
+        // specification.  Each task writes to its own output files. 
+        var jobArray = _job.getParameterSetModel().getJobArray();
+        boolean isTapisArray = _job.getParameterSetModel().isJobArray();
+        if (isTapisArray) {
+            String array = "0-" + (jobArray.getTaskCount() - 1);
+            if (jobArray.getMaxConcurrentTasks() != null) 
+                array += "%" + jobArray.getMaxConcurrentTasks();
+            setArray(array);
+        }
+        
         // Assign the standard tapis output file name if one is not
-        // assigned and we are not running an array job.  We let slurm
-        // use its default naming scheme for array job output files.
-        // Unless the user explicitly specifies an error file, both
+        // assigned and we are not running a user-defined array job.  We 
+        // let slurm use its default naming scheme for those array job output
+        // files. Unless the user explicitly specifies an error file, both
         // stdout and stderr will go the designated output file.
-        if (StringUtils.isBlank(getOutput()) && StringUtils.isBlank(getArray())) {
+        if (StringUtils.isBlank(getOutput()) && (isTapisArray || StringUtils.isBlank(getArray()))) {
         	// The log configuration should never be null after getting the parameter set model.
         	// Unset output files use the default file, though they should always be set by now.
         	var logConfig = _job.getParameterSetModel().getLogConfig();
@@ -682,6 +693,14 @@ public class SlurmOptions
         	var ferr = logConfig.getStderrFilename();
         	if (StringUtils.isBlank(ferr)) ferr = JobExecutionUtils.JOB_OUTPUT_REDIRECT_FILE;
         	
+        	// Give each job array task its own files.
+        	if (isTapisArray) {
+        	    boolean merged = fout.equals(ferr);
+        	    fout = JobExecutionUtils.makeArrayTaskPath(fout, JobExecutionUtils.SLURM_ARRAY_TASK_FILE_PATTERN);
+        	    ferr = merged ? fout :
+        	           JobExecutionUtils.makeArrayTaskPath(ferr, JobExecutionUtils.SLURM_ARRAY_TASK_FILE_PATTERN);
+        	}
+        	
         	// Set the error file only if the user explicitly set it  
         	// and it differs them the output file.  This effectively
         	// gives precedence to the slurm error file option over 
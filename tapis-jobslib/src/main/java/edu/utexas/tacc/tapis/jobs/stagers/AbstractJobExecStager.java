@@ -14,11 +14,16 @@ import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.submit.LogConfig;
 import edu.utexas.tacc.tapis.jobs.schedulers.JobScheduler;
 import edu.utexas.tacc.tapis.jobs.schedulers.SlurmScheduler;
+import edu.utexas.tacc.tapis.jobs.utils.JobCallbackToken;
+import edu.utexas.tacc.tapis.jobs.utils.JobUtils;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager.ExecFile;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shared.security.TenantManager;
+import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerTypeEnum;
 
 public abstract class AbstractJobExecStager
@@ -33,6 +38,17 @@ public abstract class AbstractJobExecStager
     // Command buffer initial capacity.
     private static final int INIT_CMD_LEN = 2048;
 
+    // The command used in background completion callbacks to wait for the
+    // application process whose id was assigned to the pid variable.
+    protected static final String WAIT_FOR_PID_CMD = 
+        "while kill -0 $pid 2>/dev/null; do sleep 2; done";
+    
+    // Path of the completion callback endpoint relative to the tenant base url.
+    private static final String CALLBACK_PATH = "/v3/jobs/%s/callback";
+
+    // Terminates the here-documents that write job array task env files.
+    private static final String TASK_ENV_EOF = "TAPIS_TASK_ENV_EOF";
+
     // Command line option parser.  This regex captures 3 groups:
     //
     //   0 - the complete value unparsed
@@ -62,6 +78,10 @@ public abstract class AbstractJobExecStager
     protected final JobScheduler        _jobScheduler;
     protected final boolean             _isBatch;
 
+    // The completion callback request body, which contains the callback token
+    // and is installed in its own owner-only file, or null if not used.
+    private String                      _callbackBody;
+
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
@@ -102,8 +122,10 @@ public abstract class AbstractJobExecStager
     /* ---------------------------------------------------------------------- */
     /**
      * Stage the application assets prior to running the job.
-     *  1. Generate and install the wrapper script tapisjob.sh
-     *  2. Generate and install the environment file tapisjob.env
+     *  1. Generate the wrapper script tapisjob.sh
+     *  2. Generate the environment file tapisjob.env
+     *  3. Install both files and the callback file if there is one, using a 
+     *     single remote command when possible
      *
      * NOTE: Docker and Singularity use this implementation.
      *       Zip overrides this implementation.
@@ -111,19 +133,41 @@ public abstract class AbstractJobExecStager
     @Override
     public void stageJob() throws TapisException
     {
-    	// Create and install the wrapper script.
+    	// Create the wrapper script.
         var fm = _jobCtx.getJobFileManager();
         String wrapperScript = generateWrapperScriptContent();
-        fm.installExecFile(wrapperScript, JobExecutionUtils.JOB_WRAPPER_SCRIPT, JobFileManager.RWXRWX);
         
-        // Create and install the environment variable definition file.
+        // Create the environment variable definition file.
         String envVarFile = generateEnvVarFileContent();
-        fm.installExecFile(envVarFile, JobExecutionUtils.JOB_ENV_FILE, JobFileManager.RWRW);
+        
+        // Install the files.
+        fm.installExecFiles(getExecFiles(wrapperScript, envVarFile));
     }
 
     /* ********************************************************************** */
     /*                           Protected Methods                            */
     /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* getExecFiles:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Assemble the files installed in the job's execution directory.  The
+     * completion callback file is included when the generated wrapper script
+     * references it, so this method is called after the script is generated.
+     * 
+     * @param wrapperScript the wrapper script content
+     * @param envVarFile the environment variable file content
+     * @return the files to install
+     */
+    protected List<ExecFile> getExecFiles(String wrapperScript, String envVarFile)
+    {
+        var files = new ArrayList<ExecFile>(3);
+        files.add(new ExecFile(wrapperScript, JobExecutionUtils.JOB_WRAPPER_SCRIPT, JobFileManager.RWXRWX));
+        files.add(new ExecFile(envVarFile, JobExecutionUtils.JOB_ENV_FILE, JobFileManager.RWRW));
+        if (_callbackBody != null)
+            files.add(new ExecFile(_callbackBody, JobExecutionUtils.JOB_CALLBACK_FILE, JobFileManager.RW_OWNER));
+        return files;
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* initBashScript:                                                        */
     /* ---------------------------------------------------------------------- */
@@ -221,6 +265,123 @@ public abstract class AbstractJobExecStager
         return resolvedConfig;
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* appendJobArrayEnvVariables:                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Append the export commands that assign each job array task its own 
+     * environment variables.  The task's index is read from the variable set 
+     * by slurm.  Nothing is appended if the job is not a job array.  Task 
+     * variable names cannot collide with the job's other environment variables,
+     * which is checked at job submission time.
+     */
+    protected void appendJobArrayEnvVariables()
+    {
+        // Is this a job array?
+        var parmSet = _job.getParameterSetModel();
+        if (!parmSet.isJobArray()) return;
+        
+        // Each task's variables are exported only by that task.
+        var tasks = parmSet.getJobArray().getTasks();
+        _cmdBuilder.append("# Export the environment variables assigned to this job array task.\n");
+        _cmdBuilder.append("case \"$").append(JobExecutionUtils.SLURM_ARRAY_TASK_ID).append("\" in\n");
+        for (int i = 0; i < tasks.size(); i++) {
+            var task = tasks.get(i);
+            if (task == null || task.isEmpty()) continue;
+            _cmdBuilder.append("  ").append(i).append(")\n");
+            for (var kv : task) {
+                _cmdBuilder.append("    export ").append(kv.getKey()).append("=");
+                var value = kv.getValue();
+                if (value != null && !value.isEmpty()) 
+                    _cmdBuilder.append(TapisUtils.conditionalQuote(value));
+                _cmdBuilder.append("\n");
+            }
+            _cmdBuilder.append("    ;;\n");
+        }
+        _cmdBuilder.append("esac\n\n");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* appendJobArrayEnvFile:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Append the commands that write each job array task's environment
+     * variables to its own env file, which runtimes that don't inherit the
+     * wrapper script's environment read directly.  The file is always created,
+     * even for tasks with no variables, and the quoted here-document keeps the 
+     * shell from expanding the values.  Nothing is appended if the job is not 
+     * a job array.
+     * 
+     * @param envFile the env file path, which may reference the task id variable
+     */
+    protected void appendJobArrayEnvFile(String envFile)
+    {
+        // Is this a job array?
+        var parmSet = _job.getParameterSetModel();
+        if (!parmSet.isJobArray()) return;
+        
+        // Each task writes only its own variables.
+        var tasks = parmSet.getJobArray().getTasks();
+        String target = "\"" + envFile + "\"";
+        _cmdBuilder.append("# Write the environment variables assigned to this job array task to its env file.\n");
+        _cmdBuilder.append(": > ").append(target).append("\n");
+        _cmdBuilder.append("case \"$").append(JobExecutionUtils.SLURM_ARRAY_TASK_ID).append("\" in\n");
+        for (int i = 0; i < tasks.size(); i++) {
+            var task = tasks.get(i);
+            if (task == null || task.isEmpty()) continue;
+            var pairs = new ArrayList<Pair<String,String>>(task.size());
+            for (var kv : task) 
+                pairs.add(Pair.of(kv.getKey(), kv.getValue() == null ? "" : kv.getValue()));
+            _cmdBuilder.append("  ").append(i).append(")\n");
+            _cmdBuilder.append("    cat > ").append(target).append(" <<'").append(TASK_ENV_EOF).append("'\n");
+            _cmdBuilder.append(JobUtils.generateEnvVarFileContentForSingularity(pairs, true));
+            _cmdBuilder.append(TASK_ENV_EOF).append("\n");
+            _cmdBuilder.append("    ;;\n");
+        }
+        _cmdBuilder.append("esac\n\n");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* appendForegroundCompletionCallback:                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Append the commands that notify the Jobs service that an application
+     * run in the foreground of the wrapper script has completed.  The script
+     * exits with the application's exit code whether or not the notice is
+     * delivered.  Nothing is appended if callbacks are not used for the job.
+     */
+    protected void appendForegroundCompletionCallback()
+    {
+        // Capture the application's exit code before anything else runs.
+        if (!canUseCompletionCallback()) return;
+        startNewLine();
+        _cmdBuilder.append("\ntapis_rc=$?\n");
+        if (!appendCompletionCallbackFunction()) {
+            _cmdBuilder.append("exit $tapis_rc\n");
+            return;
+        }
+        _cmdBuilder.append("tapis_notify_completion\n");
+        _cmdBuilder.append("exit $tapis_rc\n");
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* appendBackgroundCompletionCallback:                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Append the commands that start a detached process that waits for a
+     * background application to complete and then notifies the Jobs service.
+     * The detached process writes nothing to the wrapper script's output,
+     * which is parsed by the launcher.  Nothing is
+     * appended if callbacks are not used for the job.
+     * 
+     * @param waitCmd the command that returns when the application completes
+     */
+    protected void appendBackgroundCompletionCallback(String waitCmd)
+    {
+        if (!canUseCompletionCallback()) return;
+        startNewLine();
+        _cmdBuilder.append("\n");
+        if (!appendCompletionCallbackFunction()) return;
+        _cmdBuilder.append("( trap '' HUP; ").append(waitCmd)
+                   .append("; tapis_notify_completion ) </dev/null >/dev/null 2>&1 &\n");
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getEnvVariables:                                                       */
     /* ---------------------------------------------------------------------- */
@@ -247,6 +408,77 @@ public abstract class AbstractJobExecStager
     /* ********************************************************************** */
     /*                            Private Methods                             */
     /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* canUseCompletionCallback:                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Completion callbacks are used when a callback secret is configured.
+     * Job arrays are excluded since the completion of one task says nothing
+     * about the others.
+     */
+    private boolean canUseCompletionCallback()
+    {
+        if (!JobCallbackToken.isEnabled()) return false;
+        var parmSet = _job.getParameterSetModel();
+        return parmSet == null || !parmSet.isJobArray();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* appendCompletionCallbackFunction:                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Append the definition of the tapis_notify_completion shell function,
+     * which posts the job's callback token to the Jobs service.  The callback
+     * only wakes the job's monitor, which still reads the application's exit
+     * code from the exit code file.  The token never appears in the script or 
+     * on a command line; curl reads the request body from the owner-only 
+     * callback file, which is removed after the first attempt.  Since
+     * monitoring also polls the execution system, failures are ignored here.
+     * 
+     * @return true if the function was appended, false otherwise
+     */
+    private boolean appendCompletionCallbackFunction()
+    {
+        // Assemble the callback parameters.
+        String url, callbackFile;
+        try {
+            var expires = JobCallbackToken.getExpiration(_job.getMaxMinutes());
+            String token = JobCallbackToken.create(_job.getUuid(), expires);
+            String baseUrl = TenantManager.getInstance().getTenant(_job.getTenant()).getBaseUrl();
+            url = StringUtils.removeEnd(baseUrl, "/") + CALLBACK_PATH.formatted(_job.getUuid());
+            callbackFile = _jobCtx.getJobFileManager().makeAbsExecSysExecPath(
+                                JobExecutionUtils.JOB_CALLBACK_FILE);
+            _callbackBody = "{\"token\":\"" + token + "\"}";
+        }
+        catch (Exception e) {
+            // Monitoring will detect completion by polling.
+            _log.warn(MsgUtils.getMsg("JOBS_CALLBACK_SCRIPT_ERROR", _job.getUuid(), e.getMessage()));
+            return false;
+        }
+        
+        // The function never fails.
+        String quotedFile = TapisUtils.alwaysSingleQuote(callbackFile);
+        _cmdBuilder.append("# Notify the Tapis Jobs service that the application completed so\n");
+        _cmdBuilder.append("# that monitoring does not wait for its next status check.\n");
+        _cmdBuilder.append("tapis_notify_completion() {\n");
+        _cmdBuilder.append("  command -v curl >/dev/null 2>&1 || return 0\n");
+        _cmdBuilder.append("  curl -s -m 30 -X POST -H 'Content-Type: application/json' \\\n");
+        _cmdBuilder.append("    -d @").append(quotedFile).append(" ")
+                   .append(TapisUtils.alwaysSingleQuote(url)).append(" >/dev/null 2>&1\n");
+        _cmdBuilder.append("  rm -f ").append(quotedFile).append("\n");
+        _cmdBuilder.append("  return 0\n");
+        _cmdBuilder.append("}\n");
+        return true;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* startNewLine:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Terminate the last line of the command buffer if necessary. */
+    private void startNewLine()
+    {
+        int len = _cmdBuilder.length();
+        if (len > 0 && _cmdBuilder.charAt(len - 1) != '\n') _cmdBuilder.append('\n');
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* appendDescription:                                                     */
     /* ---------------------------------------------------------------------- */
@@ -80,6 +80,10 @@ public class DockerStager
         
         // Add the docker command.
         _cmdBuilder.append(dockerCmd);
+        
+        // Optionally notify Jobs when the container exits.
+        appendBackgroundCompletionCallback("docker wait " + _dockerRunCmd.getName() + 
+                                           " >/dev/null 2>&1");
                 
         return _cmdBuilder.toString();
     }
@@ -125,6 +129,9 @@ public class DockerStager
         // Containers are named after the job uuid.
         dockerRunCmd.setName(_job.getUuid());
         
+        // Label the container so monitors can find all Tapis containers at once.
+        dockerRunCmd.getLabels().add(Pair.of(JobExecutionUtils.DOCKER_JOB_LABEL, _job.getUuid()));
+        
         // Set the user id under which the container runs.
         dockerRunCmd.setUser("$(id -u):$(id -g)");
         
@@ -46,6 +46,11 @@ public final class SingularityRunSlurmCmd
 
         // ------ Fill in environment variables.
         buf.append(JobUtils.generateEnvVarCommandLineArgs(getEnv()));
+        
+        // ------ Fill in the job array task's env file, which is double quoted
+        //        so that the task id variable in its name is expanded.
+        if (!StringUtils.isBlank(getEnvFile()))
+            buf.append(" --env-file \"").append(getEnvFile()).append("\"");
 
         // ------ Fill in the common user-specified arguments.
         addCommonExecArgs(buf);
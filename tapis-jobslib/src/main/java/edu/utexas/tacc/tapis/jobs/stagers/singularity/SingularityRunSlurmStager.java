@@ -5,6 +5,7 @@ import org.slf4j.LoggerFactory;
 
 import edu.utexas.tacc.tapis.jobs.stagers.JobExecCmd;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerTypeEnum;
 
@@ -55,12 +56,19 @@ public class SingularityRunSlurmStager
         // Add batch directives and any module load commands.
         _cmdBuilder.append(_jobScheduler.getBatchDirectives());
         _cmdBuilder.append(_jobScheduler.getModuleLoadCalls());
+        // Singularity doesn't pass the wrapper's environment to the container
+        // when --cleanenv is set, so job array task variables are written to
+        // the env file named on the command line.
+        if (_slurmRunCmd.getEnvFile() != null) appendJobArrayEnvFile(_slurmRunCmd.getEnvFile());
 
         // Generate the basic single line command text for singularity RUN under slurm
         String cmdText = _slurmRunCmd.generateExecCmd(_job);
 
         // Add the exec command.
         _cmdBuilder.append(cmdText);
+        
+        // Optionally notify Jobs when the application exits.
+        appendForegroundCompletionCallback();
 
         return _cmdBuilder.toString();
     }
@@ -104,6 +112,11 @@ public class SingularityRunSlurmStager
 
         // Set all environment variables.
         singularityCmd.setEnv(getEnvVariables());
+        
+        // Job array tasks each read their own variables from a file.
+        if (_job.getParameterSetModel().isJobArray())
+            singularityCmd.setEnvFile(JobExecutionUtils.makeArrayTaskPath(JobExecutionUtils.JOB_ENV_FILE,
+                                          "${" + JobExecutionUtils.SLURM_ARRAY_TASK_ID + "}"));
 
         // Set the singularity options.
         setSingularityOptions(singularityCmd);
@@ -58,6 +58,9 @@ public class SingularityRunStager
 
         // Add the command to the content
         _cmdBuilder.append(cmdText);
+        
+        // Optionally notify Jobs when the background process exits.
+        appendBackgroundCompletionCallback(WAIT_FOR_PID_CMD);
 
         return _cmdBuilder.toString();
     }
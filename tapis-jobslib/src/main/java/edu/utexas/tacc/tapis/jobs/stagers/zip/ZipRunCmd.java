@@ -6,6 +6,7 @@ import edu.utexas.tacc.tapis.jobs.model.submit.LogConfig;
 import edu.utexas.tacc.tapis.jobs.stagers.JobExecCmd;
 import edu.utexas.tacc.tapis.jobs.utils.JobUtils;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
@@ -37,6 +38,9 @@ public final class ZipRunCmd
 
     // Relative path to app executable. Relative to execSystemExecDir.
     private String                    appExecPath;
+    
+    // Job array tasks redirect output to their own files.
+    private boolean                   jobArray;
 
     // Job info, needed for batch jobs
     private final JobExecutionContext _jobCtx;
@@ -136,16 +140,36 @@ public final class ZipRunCmd
     {
         if (getLogConfig().canMerge()) {
             buf.append(" > ");
-            buf.append(alwaysSingleQuote(getLogConfig().getStdoutFilename()));
+            buf.append(quoteLogPath(getLogConfig().getStdoutFilename()));
             buf.append(" 2>&1");
         } else {
             buf.append(" 2> ");
-            buf.append(alwaysSingleQuote(getLogConfig().getStderrFilename()));
+            buf.append(quoteLogPath(getLogConfig().getStderrFilename()));
             buf.append(" 1> ");
-            buf.append(alwaysSingleQuote(getLogConfig().getStdoutFilename()));
+            buf.append(quoteLogPath(getLogConfig().getStdoutFilename()));
         }
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* quoteLogPath:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Quote a log file path.  For job arrays, the task index variable is 
+     * inserted into the path outside of the single quotes so that the shell
+     * expands it. 
+     * 
+     * @param path the absolute log file path
+     * @return the quoted path text
+     */
+    private String quoteLogPath(String path)
+    {
+        if (!jobArray) return alwaysSingleQuote(path);
+        int index = JobExecutionUtils.getArrayTaskInsertionIndex(path);
+        String quoted = alwaysSingleQuote(path.substring(0, index)) + 
+                        "_\"${" + JobExecutionUtils.SLURM_ARRAY_TASK_ID + "}\"";
+        if (index < path.length()) quoted += alwaysSingleQuote(path.substring(index));
+        return quoted;
+    }
+
     /* ********************************************************************** */
     /*                          Top-Level Accessors                           */
     /* ********************************************************************** */
@@ -182,4 +206,12 @@ public final class ZipRunCmd
     public void setAppExecPath(String appExecPath) {
         this.appExecPath = appExecPath;
     }
+
+    public boolean isJobArray() {
+        return jobArray;
+    }
+
+    public void setJobArray(boolean jobArray) {
+        this.jobArray = jobArray;
+    }
 }
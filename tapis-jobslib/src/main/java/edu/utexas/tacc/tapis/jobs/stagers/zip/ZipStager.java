@@ -7,6 +7,7 @@ import edu.utexas.tacc.tapis.jobs.stagers.JobExecCmd;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager;
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager.ExecFile;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerTypeEnum;
@@ -16,6 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.Optional;
 import java.util.regex.Matcher;
 
@@ -79,9 +81,11 @@ public class ZipStager
      *  2. Stage the zip/tar file. Will be a no-op if containerImage is an absolute path,
      *     otherwise it will be a file transfer.
      *  3. Run command to extract the zip/tar file into the execSystemExecDir
-     *  4. Run command to determine the app executable.
+     *  4. Install and run a script to determine the app executable.
      *  5. Create and install the wrapper script tapisjob.sh
      *  6. Create and install the environment variable file tapisjob.env
+     *  
+     *  Steps 4 and 5-6 each use a single remote command when possible.
      */
     @Override
     public void stageJob() throws TapisException
@@ -100,23 +104,21 @@ public class ZipStager
 
         // Now that app archive is unpacked, we can determine the app executable
         // 4. Get the relative path to the app executable.
-        // Generate and run a script to determine the executable
+        // Generate and run a script to determine the executable.  Since the set_exec
+        // script is an unchanging script, no need to keep it around after it runs.
         String setAppExecutableScript = generateSetAppExecutableScript();
-        jobFileManager.installExecFile(setAppExecutableScript, JobExecutionUtils.JOB_ZIP_SET_EXEC_SCRIPT, JobFileManager.RWXRWX);
-        String appExecPath = jobFileManager.runZipSetAppExecutable(JobExecutionUtils.JOB_ZIP_SET_EXEC_SCRIPT);
+        String appExecPath = jobFileManager.installAndRunZipSetAppExecutable(
+            new ExecFile(setAppExecutableScript, JobExecutionUtils.JOB_ZIP_SET_EXEC_SCRIPT, JobFileManager.RWXRWX));
         _zipRunCmd.setAppExecPath(appExecPath);
-        // Since the set_exec script is an unchanging script, no need to keep it around.
-        // Best effort to remove it. Ignore exceptions
-        try { jobFileManager.removeFileFromExecDir(JobExecutionUtils.JOB_ZIP_SET_EXEC_SCRIPT); }
-        catch (Exception e) { /* ignore exceptions */ }
 
-        // 5. Create and install the wrapper script: tapisjob.sh
+        // 5. Create the wrapper script: tapisjob.sh
         String wrapperScript = generateWrapperScriptContent();
-        jobFileManager.installExecFile(wrapperScript, JobExecutionUtils.JOB_WRAPPER_SCRIPT, JobFileManager.RWXRWX);
 
-        // 6. Create and install the environment variable definition file: tapisjob.env
+        // 6. Create the environment variable definition file: tapisjob.env
         String envVarFile = generateEnvVarFileContent();
-        jobFileManager.installExecFile(envVarFile, JobExecutionUtils.JOB_ENV_FILE, JobFileManager.RWRW);
+        
+        // Install the files.
+        jobFileManager.installExecFiles(getExecFiles(wrapperScript, envVarFile));
     }
 
     /* ---------------------------------------------------------------------- */
@@ -136,11 +138,16 @@ public class ZipStager
         if (_isBatch) {
             _cmdBuilder.append(_jobScheduler.getBatchDirectives());
             _cmdBuilder.append(_jobScheduler.getModuleLoadCalls());
+            appendJobArrayEnvVariables();
         }
 
         // Construct the command and append it to get the full command script
         String zipCmd = _zipRunCmd.generateExecCmd(_job);
         _cmdBuilder.append(zipCmd);
+        
+        // Optionally notify Jobs when the application exits.
+        if (_isBatch) appendForegroundCompletionCallback();
+          else appendBackgroundCompletionCallback(WAIT_FOR_PID_CMD);
 
         return _cmdBuilder.toString();
     }
@@ -191,7 +198,10 @@ public class ZipStager
             # Script to determine Tapis application executable for application defined as runtime type of ZIP.
             # If successful echo result and exit with 0.
             # If unsuccessful echo a message and exit with 1 or 2.
+            # The script removes itself since it's only run once.
             #
+            rm -f "$0"
+            
             # Set a default
             APP_EXEC="tapisjob_app.sh"
             
@@ -241,6 +251,9 @@ public class ZipStager
 
         // Set the application arguments.
         zipRunCmd.setAppArguments(concatAppArguments());
+        
+        // Job array tasks write to their own log files.
+        zipRunCmd.setJobArray(_isBatch && _job.getParameterSetModel().isJobArray());
 
         return zipRunCmd;
     }
@@ -8,6 +8,7 @@ public enum JobFSMEvents
 {
     // Events with the format T0_<status> 
     // request a change to the target status
+    TO_PENDING_VALIDATION,
     TO_PENDING,
     TO_PROCESSING_INPUTS,
     
@@ -24,6 +24,8 @@ public final class JobFSMStates
     /*                                 Fields                                 */
     /* ********************************************************************** */
     // All states known to the state machine.
+    public static final State<JobFSMStatefulEntity> PendingValidation = 
+            new StateImpl<JobFSMStatefulEntity>(JobStatusType.PENDING_VALIDATION.name());
     public static final State<JobFSMStatefulEntity> Pending = 
             new StateImpl<JobFSMStatefulEntity>(JobStatusType.PENDING.name());
     public static final State<JobFSMStatefulEntity> ProcessingInputs = 
@@ -93,6 +95,7 @@ public final class JobFSMStates
         // Don't forget to update the initial capacity to match the number of states.
         // Also, add new state to JobFSMUtils methods that switch on state.
         List<State<JobFSMStatefulEntity>> states = new ArrayList<State<JobFSMStatefulEntity>>(16);
+        states.add(PendingValidation);
         states.add(Pending);
         states.add(ProcessingInputs);
         states.add(StagingInputs);
@@ -133,6 +136,14 @@ public final class JobFSMStates
         // legal, we don't need to specify actions on transitions.  When used
         // with the JobFSM, exceptions are thrown on undefined transitions.
         
+        // ------ From PendingValidation (initial state of asynchronous submissions)
+        // The job's definition is still being resolved, so the job can only become
+        // pending once validation succeeds or end.  It has never been queued.
+        JobFSMStates.PendingValidation.addTransition(JobFSMEvents.TO_PENDING_VALIDATION.name(), JobFSMStates.PendingValidation);
+        JobFSMStates.PendingValidation.addTransition(JobFSMEvents.TO_PENDING.name(), JobFSMStates.Pending);
+        JobFSMStates.PendingValidation.addTransition(JobFSMEvents.TO_FAILED.name(), JobFSMStates.Failed);
+        JobFSMStates.PendingValidation.addTransition(JobFSMEvents.TO_CANCELLED.name(), JobFSMStates.Cancelled);
+        
         // ------ From Pending (initial state)
         JobFSMStates.Pending.addTransition(JobFSMEvents.TO_PENDING.name(), JobFSMStates.Pending);
         JobFSMStates.Pending.addTransition(JobFSMEvents.TO_PROCESSING_INPUTS.name(), JobFSMStates.ProcessingInputs);
@@ -100,6 +100,7 @@ public final class JobFSMUtils
         // Only translate the statuses that have associated states.
         switch (status)
         {
+            case PENDING_VALIDATION:    return JobFSMStates.PendingValidation;
             case PENDING:               return JobFSMStates.Pending;
             case PROCESSING_INPUTS:     return JobFSMStates.ProcessingInputs;
             case STAGING_INPUTS:        return JobFSMStates.StagingInputs;
@@ -135,6 +136,7 @@ public final class JobFSMUtils
         // Only translate the statuses that have associated events.
         switch (status)
         {
+            case PENDING_VALIDATION:    return JobFSMEvents.TO_PENDING_VALIDATION;
             case PENDING:               return JobFSMEvents.TO_PENDING;
             case PROCESSING_INPUTS:     return JobFSMEvents.TO_PROCESSING_INPUTS;
             case STAGING_INPUTS:        return JobFSMEvents.TO_STAGING_INPUTS;
@@ -0,0 +1,121 @@
+package edu.utexas.tacc.tapis.jobs.tracing;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.gson.Gson;
+
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/** Span exporter that appends each completed span as a single line of json to
+ * a local file.  This exporter is intended for development and for hosts that
+ * don't have access to a collector; the resulting file can be analyzed directly
+ * or replayed into a tracing backend.
+ *
+ * @author rcardone
+ */
+final class JobSpanFileExporter
+ implements SpanExporter
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobSpanFileExporter.class);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    private final Gson           _gson = TapisGsonUtils.getGson();
+    private final BufferedWriter _writer;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    JobSpanFileExporter(String fileName) throws IOException
+    {
+        _writer = Files.newBufferedWriter(Path.of(fileName), StandardCharsets.UTF_8,
+                                          StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* export:                                                                */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> spans)
+    {
+        try {
+            for (var span : spans) {
+                _writer.write(_gson.toJson(toRecord(span)));
+                _writer.newLine();
+            }
+            _writer.flush();
+            return CompletableResultCode.ofSuccess();
+        }
+        catch (Exception e) {
+            _log.error("Unable to write spans: " + e.getMessage(), e);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* flush:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public synchronized CompletableResultCode flush()
+    {
+        try {_writer.flush(); return CompletableResultCode.ofSuccess();}
+            catch (Exception e) {return CompletableResultCode.ofFailure();}
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* shutdown:                                                              */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public synchronized CompletableResultCode shutdown()
+    {
+        try {_writer.close(); return CompletableResultCode.ofSuccess();}
+            catch (Exception e) {return CompletableResultCode.ofFailure();}
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* toRecord:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private LinkedHashMap<String,Object> toRecord(SpanData span)
+    {
+        var rec = new LinkedHashMap<String,Object>();
+        rec.put("traceId", span.getTraceId());
+        rec.put("spanId", span.getSpanId());
+        rec.put("parentSpanId", span.getParentSpanId());
+        rec.put("name", span.getName());
+        rec.put("kind", span.getKind().name());
+        rec.put("startEpochNanos", span.getStartEpochNanos());
+        rec.put("durationMillis", TimeUnit.NANOSECONDS.toMillis(
+                                    span.getEndEpochNanos() - span.getStartEpochNanos()));
+        rec.put("status", span.getStatus().getStatusCode().name());
+        var attrs = new TreeMap<String,Object>();
+        span.getAttributes().forEach((k, v) -> attrs.put(k.getKey(), v));
+        rec.put("attributes", attrs);
+        return rec;
+    }
+}
@@ -0,0 +1,292 @@
+package edu.utexas.tacc.tapis.jobs.tracing;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import io.opentelemetry.api.OpenTelemetry;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.api.trace.propagation.W3CTraceContextPropagator;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.context.propagation.ContextPropagators;
+import io.opentelemetry.context.propagation.TextMapGetter;
+import io.opentelemetry.context.propagation.TextMapSetter;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.resources.Resource;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+/** This class manages distributed tracing for the jobs api and the jobs
+ * back-end processes.  Spans are created for job submission, message
+ * publication, each job processing phase, remote commands and calls to other
+ * services.  The trace context crosses process boundaries in the traceContext
+ * field of JobSubmitMsg and CmdMsg using the W3C trace context format.
+ *
+ * Tracing is disabled by default, in which case all operations are no-ops and
+ * no trace context is added to messages.  When enabled, completed spans are
+ * either written as json lines to a local file or exported to an OpenTelemetry
+ * collector using OTLP over http.
+ *
+ * @author rcardone
+ */
+public final class JobTracing
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobTracing.class);
+
+    // The instrumentation scope name.
+    private static final String INSTRUMENTATION_NAME = "edu.utexas.tacc.tapis.jobs";
+
+    // Exporter types.
+    public static final String EXPORTER_NONE = "none";
+    public static final String EXPORTER_FILE = "file";
+    public static final String EXPORTER_OTLP = "otlp";
+
+    // Span names.
+    public static final String SPAN_SUBMIT                     = "jobs.submit";
+    public static final String SPAN_SUBMIT_ASYNC               = "jobs.submit.async";
+    public static final String SPAN_QUEUE_PUBLISH              = "jobs.queue.publish";
+    public static final String SPAN_PROCESS                    = "jobs.process";
+    public static final String SPAN_PHASE_PREFIX               = "jobs.phase.";
+    public static final String SPAN_COMMAND_PREFIX             = "jobs.command.";
+    public static final String SPAN_MONITOR_CMD                = "jobs.ssh.monitor";
+    public static final String SPAN_GET_SYSTEM                 = "systems.getSystem";
+    public static final String SPAN_GET_APP                    = "apps.getApp";
+    public static final String SPAN_FILES_MKDIR                = "files.mkdir";
+    public static final String SPAN_FILES_LIST                 = "files.listFiles";
+    public static final String SPAN_FILES_TRANSFER             = "files.createTransferTask";
+    public static final String SPAN_FILES_GET_TRANSFER         = "files.getTransferTask";
+    public static final String SPAN_NOTIF_POST_EVENT           = "notifications.postEvent";
+    public static final String SPAN_NOTIF_POST_SUBSCRIPTION    = "notifications.postSubscription";
+    public static final String SPAN_NOTIF_DELETE_SUBSCRIPTIONS = "notifications.deleteSubscriptions";
+
+    // Span attributes.
+    public static final AttributeKey<String> ATTR_JOB_UUID    = AttributeKey.stringKey("tapis.job.uuid");
+    public static final AttributeKey<String> ATTR_TENANT      = AttributeKey.stringKey("tapis.tenant");
+    public static final AttributeKey<String> ATTR_EXEC_SYSTEM = AttributeKey.stringKey("tapis.exec_system");
+    public static final AttributeKey<String> ATTR_PHASE       = AttributeKey.stringKey("tapis.job.phase");
+    public static final AttributeKey<String> ATTR_TARGET      = AttributeKey.stringKey("tapis.target");
+
+    // Carrier accessors used for context propagation through messages.
+    private static final TextMapSetter<Map<String,String>> MAP_SETTER =
+        (carrier, key, value) -> {if (carrier != null) carrier.put(key, value);};
+    private static final TextMapGetter<Map<String,String>> MAP_GETTER =
+        new TextMapGetter<Map<String,String>>() {
+            @Override
+            public Iterable<String> keys(Map<String,String> carrier) {return carrier.keySet();}
+            @Override
+            public String get(Map<String,String> carrier, String key)
+            {return carrier == null ? null : carrier.get(key);}
+        };
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Noop until initialized.
+    private static volatile OpenTelemetry _openTelemetry = OpenTelemetry.noop();
+    private static volatile Tracer        _tracer = _openTelemetry.getTracer(INSTRUMENTATION_NAME);
+    private static SdkTracerProvider      _tracerProvider;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private JobTracing() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* initialize:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Configure tracing for this process using the runtime parameters.  This
+     * method should be called once during process start up.  Configuration
+     * errors are logged and leave tracing disabled.
+     *
+     * @param serviceName the name reported for spans created in this process
+     */
+    public static synchronized void initialize(String serviceName)
+    {
+        // Only initialize once.
+        if (_tracerProvider != null) return;
+
+        // Is tracing enabled?
+        var parms = RuntimeParameters.getInstance();
+        String exporterType = parms.getTracingExporter();
+        if (StringUtils.isBlank(exporterType) || EXPORTER_NONE.equalsIgnoreCase(exporterType))
+            return;
+
+        // Create the exporter.
+        SpanExporter exporter;
+        try {
+            if (EXPORTER_FILE.equalsIgnoreCase(exporterType))
+                exporter = new JobSpanFileExporter(parms.getTracingFile());
+            else if (EXPORTER_OTLP.equalsIgnoreCase(exporterType))
+                exporter = OtlpHttpSpanExporter.builder()
+                             .setEndpoint(parms.getTracingOtlpEndpoint()).build();
+            else {
+                _log.error("Unknown tracing exporter type \"" + exporterType + "\", tracing is disabled.");
+                return;
+            }
+        }
+        catch (Exception e) {
+            _log.error("Unable to create the " + exporterType + " span exporter, tracing is disabled: "
+                       + e.getMessage(), e);
+            return;
+        }
+
+        // Assemble the sdk.
+        var resource = Resource.getDefault().merge(Resource.create(
+                         Attributes.of(AttributeKey.stringKey("service.name"), serviceName)));
+        _tracerProvider = SdkTracerProvider.builder()
+                            .setResource(resource)
+                            .addSpanProcessor(BatchSpanProcessor.builder(exporter).build())
+                            .build();
+        _openTelemetry = OpenTelemetrySdk.builder()
+                            .setTracerProvider(_tracerProvider)
+                            .setPropagators(ContextPropagators.create(
+                                 W3CTraceContextPropagator.getInstance()))
+                            .build();
+        _tracer = _openTelemetry.getTracer(INSTRUMENTATION_NAME);
+
+        // Flush remaining spans on exit.
+        Runtime.getRuntime().addShutdownHook(new Thread(JobTracing::shutdown, "JobTracingShutdown"));
+
+        if (_log.isInfoEnabled())
+            _log.info("Tracing enabled for " + serviceName + " using the " + exporterType + " exporter.");
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* shutdown:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Flush and close the exporter. */
+    public static synchronized void shutdown()
+    {
+        if (_tracerProvider == null) return;
+        _tracerProvider.close();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* inject:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Capture the current trace context for inclusion in an outgoing message.
+     *
+     * @return the context map or null when tracing is disabled or no span is active
+     */
+    public static Map<String,String> inject()
+    {
+        var carrier = new HashMap<String,String>();
+        _openTelemetry.getPropagators().getTextMapPropagator()
+            .inject(Context.current(), carrier, MAP_SETTER);
+        return carrier.isEmpty() ? null : carrier;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* extract:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Reconstitute the trace context received in a message.
+     *
+     * @param carrier the context map from a message or null
+     * @return the parent context, which is the root context if there's none
+     */
+    public static Context extract(Map<String,String> carrier)
+    {
+        if (carrier == null || carrier.isEmpty()) return Context.root();
+        return _openTelemetry.getPropagators().getTextMapPropagator()
+                 .extract(Context.root(), carrier, MAP_GETTER);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* startSpan:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Start a span with the given parent.  The caller is responsible for
+     * making the span current if needed and for ending it.
+     *
+     * @param name the span name
+     * @param kind the span kind
+     * @param parent the parent context
+     * @return the started span
+     */
+    public static Span startSpan(String name, SpanKind kind, Context parent)
+    {
+        return _tracer.spanBuilder(name).setSpanKind(kind).setParent(parent).startSpan();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* startJobSpan:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Start a span that's a child of the current span and that's tagged with
+     * the job's attributes.
+     *
+     * @param name the span name
+     * @param kind the span kind
+     * @param job the job being processed or null
+     * @return the started span
+     */
+    public static Span startJobSpan(String name, SpanKind kind, Job job)
+    {
+        Span span = startSpan(name, kind, Context.current());
+        setJobAttributes(span, job);
+        return span;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* startClientSpan:                                                       */
+    /* ---------------------------------------------------------------------- */
+    /** Start a CLIENT span for a call to another service that's a child of the
+     * current span.  The span is tagged with the job's attributes, if a job is
+     * given, and with the target of the call.
+     *
+     * @param name the span name
+     * @param job the job being processed or null
+     * @param target the system, job or other resource targeted by the call
+     * @return the started span
+     */
+    public static Span startClientSpan(String name, Job job, String target)
+    {
+        Span span = startJobSpan(name, SpanKind.CLIENT, job);
+        if (target != null && span.isRecording()) span.setAttribute(ATTR_TARGET, target);
+        return span;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* setJobAttributes:                                                      */
+    /* ---------------------------------------------------------------------- */
+    public static void setJobAttributes(Span span, Job job)
+    {
+        if (span == null || job == null || !span.isRecording()) return;
+        if (job.getUuid() != null) span.setAttribute(ATTR_JOB_UUID, job.getUuid());
+        if (job.getTenant() != null) span.setAttribute(ATTR_TENANT, job.getTenant());
+        if (job.getExecSystemId() != null) span.setAttribute(ATTR_EXEC_SYSTEM, job.getExecSystemId());
+        if (job.getStatus() != null) span.setAttribute(ATTR_PHASE, job.getStatus().name());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* endSpan:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** End the span, marking it as an error if the operation failed.
+     *
+     * @param span the span to end
+     * @param success whether the traced operation succeeded
+     */
+    public static void endSpan(Span span, boolean success)
+    {
+        if (span == null) return;
+        if (!success) span.setStatus(StatusCode.ERROR);
+        span.end();
+    }
+}
@@ -10,6 +10,7 @@ import edu.utexas.tacc.tapis.client.shared.exceptions.TapisClientException;
 import edu.utexas.tacc.tapis.files.client.FilesClient;
 import edu.utexas.tacc.tapis.files.client.FilesClient.StreamedFile;
 import edu.utexas.tacc.tapis.files.client.gen.model.FileInfo;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobRemoteOutcome;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
@@ -109,6 +110,45 @@ public class DataLocator {
     	return outputList;
      }
      
+     /* ---------------------------------------------------------------------- */
+     /* getJobOutputListingPager:                                              */
+     /* ---------------------------------------------------------------------- */
+     /** Create a pager that retrieves the same listing as getJobOutputListings()
+      * one page at a time.  No listing request is issued by this method.
+      */
+     public FilesListingPager getJobOutputListingPager(JobOutputInfo jobOutputInfo, String tenant, 
+                                                       String user, int limit, int skip,
+                                                       String impersonationId, String sharedAppCtx,
+                                                       boolean recursiveFlag) 
+      throws TapisImplException
+     {
+         // Get the File Service client 
+         FilesClient filesClient = getServiceClient(FilesClient.class, user, tenant);
+         int pageSize = RuntimeParameters.getInstance().getFilesListPageSize();
+         return FilesListingPager.forListing(filesClient, jobOutputInfo.getSystemId(), 
+                                             jobOutputInfo.getSystemUrl(), limit, skip, 
+                                             recursiveFlag, pageSize, impersonationId, sharedAppCtx);
+     }
+     
+     /* ---------------------------------------------------------------------- */
+     /* getNextJobOutputListingPage:                                           */
+     /* ---------------------------------------------------------------------- */
+     /** Retrieve the next page from a pager created by getJobOutputListingPager().
+      * 
+      * @return the next page, empty when done, or null if the path was not found
+      */
+     public List<FileInfo> getNextJobOutputListingPage(FilesListingPager pager, int limit, int skip) 
+      throws TapisImplException
+     {
+         try {return pager.nextPage();}
+         catch (TapisClientException e) {
+            String msg = MsgUtils.getMsg("FILES_REMOTE_FILESLIST_ERROR", 
+            		pager.getSystemId(), pager.getPath(), 
+            		limit, skip, _job.getOwner(), _job.getTenant(), e.getCode());
+            throw new TapisImplException(msg, e, e.getCode());
+         }
+     }
+     
      /* ---------------------------------------------------------------------- */
      /* getJobOutputDownload:                                                  */
      /* ---------------------------------------------------------------------- */
@@ -0,0 +1,243 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.client.shared.exceptions.TapisClientException;
+import edu.utexas.tacc.tapis.files.client.FilesClient;
+import edu.utexas.tacc.tapis.files.client.gen.model.FileInfo;
+import edu.utexas.tacc.tapis.files.client.gen.model.FileTypeEnum;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
+import io.opentelemetry.api.trace.Span;
+
+/** Retrieve a Files service directory listing one page at a time so that
+ * callers can process each page before the next is fetched.  Only the current
+ * page is held in memory, which keeps memory use constant no matter how many
+ * files are listed.
+ *
+ * Two listing modes are supported:
+ *
+ *  - Listing mode issues the same Files listing request as a single call with
+ *    the given limit, skip and recursive flag, but splits it into page sized
+ *    requests.  A negative limit means there is no limit.
+ *
+ *  - Subtree mode lists every file in a directory subtree by listing one
+ *    directory at a time.  Directories are descended into but not returned,
+ *    so only the pending directory names are retained between pages.
+ *
+ * Instances are not thread-safe.
+ *
+ * @author rcardone
+ */
+public final class FilesListingPager
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(FilesListingPager.class);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Listing request parameters.
+    private final FilesClient _filesClient;
+    private final String      _systemId;
+    private final String      _path;
+    private final boolean     _recursive;
+    private final boolean     _subtree;
+    private final int         _pageSize;
+    private final String      _impersonationId;
+    private final String      _sharedAppCtx;
+
+    // Directories still to be listed; in listing mode there is only one.
+    private final ArrayDeque<String> _pendingDirs = new ArrayDeque<>();
+
+    // Position within the current directory.
+    private String  _currentDir;
+    private long    _offset;
+
+    // Number of entries still allowed, negative for unlimited.
+    private long    _remaining;
+
+    // Counters.
+    private int     _pagesFetched;
+    private long    _entriesReturned;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private FilesListingPager(FilesClient filesClient, String systemId, String path,
+                              boolean recursive, boolean subtree, int limit, int skip,
+                              int pageSize, String impersonationId, String sharedAppCtx)
+    {
+        _filesClient = filesClient;
+        _systemId = systemId;
+        _path = path;
+        _recursive = recursive;
+        _subtree = subtree;
+        _pageSize = Math.max(1, pageSize);
+        _impersonationId = impersonationId;
+        _sharedAppCtx = sharedAppCtx;
+        _currentDir = path;
+        _offset = Math.max(0, skip);
+        _remaining = limit;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* forListing:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Create a pager that returns the same entries as a single Files listing
+     * call with the same parameters.
+     *
+     * @param filesClient the client used to issue listing requests
+     * @param systemId the system to list
+     * @param path the path to list
+     * @param limit the maximum number of entries returned, negative for no limit
+     * @param skip the number of entries to skip
+     * @param recursive whether Files should list the path recursively
+     * @param pageSize the maximum number of entries requested in each call
+     * @param impersonationId the user impersonated by the request or null
+     * @param sharedAppCtx the shared application context or null
+     * @return the pager
+     */
+    public static FilesListingPager forListing(FilesClient filesClient, String systemId,
+                                               String path, int limit, int skip,
+                                               boolean recursive, int pageSize,
+                                               String impersonationId, String sharedAppCtx)
+    {
+        return new FilesListingPager(filesClient, systemId, path, recursive, false,
+                                     limit, skip, pageSize, impersonationId, sharedAppCtx);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* forSubtree:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Create a pager that returns all non-directory entries in the subtree
+     * rooted at path.
+     *
+     * @param filesClient the client used to issue listing requests
+     * @param systemId the system to list
+     * @param path the root of the subtree
+     * @param pageSize the maximum number of entries requested in each call
+     * @param sharedAppCtx the shared application context or null
+     * @return the pager
+     */
+    public static FilesListingPager forSubtree(FilesClient filesClient, String systemId,
+                                               String path, int pageSize, String sharedAppCtx)
+    {
+        return new FilesListingPager(filesClient, systemId, path, false, true,
+                                     -1, 0, pageSize, null, sharedAppCtx);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* nextPage:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Fetch the next page of entries.  An empty list indicates that there
+     * are no more entries.  Pages returned in subtree mode can be smaller than
+     * the page size even when more entries follow.
+     *
+     * Files returns null rather than a list when the listed path does not
+     * exist.  That response is passed through when it occurs on the first
+     * request so callers can distinguish a missing path from an empty one.
+     *
+     * @return the next page, an empty list when done, or null if the first
+     *         listing request returned null
+     * @throws TapisClientException if a Files call fails
+     */
+    public List<FileInfo> nextPage() throws TapisClientException
+    {
+        while (_currentDir != null) {
+            // Are we already done?
+            if (_remaining == 0) {_currentDir = null; break;}
+
+            // Request the next page of the current directory.
+            int count = _remaining < 0 ? _pageSize : (int) Math.min(_pageSize, _remaining);
+            final String pattern = null;
+            List<FileInfo> page;
+            Span span = JobTracing.startClientSpan(JobTracing.SPAN_FILES_LIST, null, _systemId);
+            boolean success = false;
+            try {
+                page = _filesClient.listFiles(_systemId, _currentDir, pattern, count,
+                                              _offset, _recursive, _impersonationId,
+                                              _sharedAppCtx);
+                success = true;
+            }
+            finally {JobTracing.endSpan(span, success);}
+            if (page == null) {
+                if (_pagesFetched == 0) {_currentDir = null; return null;}
+                page = new ArrayList<>(0);
+            }
+            _pagesFetched++;
+
+            // Position the next request.
+            boolean lastPage = page.size() < count;
+            _offset += page.size();
+            if (_remaining > 0) _remaining -= page.size();
+
+            // Directories are only descended into in subtree mode.  They
+            // are queued before moving on to the next pending directory.
+            if (_subtree) page = removeDirectories(page);
+            if (lastPage) nextDirectory();
+            if (page.isEmpty()) continue;
+
+            _entriesReturned += page.size();
+            return page;
+        }
+
+        // No more entries.
+        if (_log.isDebugEnabled())
+            _log.debug("Listing of " + _systemId + " completed with " + _entriesReturned +
+                       " entries in " + _pagesFetched + " pages.");
+        return new ArrayList<>(0);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* accessors:                                                             */
+    /* ---------------------------------------------------------------------- */
+    public String getSystemId() {return _systemId;}
+    public String getPath() {return _path;}
+    public int getPagesFetched() {return _pagesFetched;}
+    public long getEntriesReturned() {return _entriesReturned;}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* nextDirectory:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Advance to the next pending directory, if any. */
+    private void nextDirectory()
+    {
+        _currentDir = _pendingDirs.pollFirst();
+        _offset = 0;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* removeDirectories:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Queue the page's directories for listing and return its other entries. */
+    private List<FileInfo> removeDirectories(List<FileInfo> page)
+    {
+        List<FileInfo> files = null;
+        for (int i = 0; i < page.size(); i++) {
+            var info = page.get(i);
+            if (info.getType() == FileTypeEnum.DIR) {
+                _pendingDirs.addLast(info.getPath());
+                if (files == null) files = new ArrayList<>(page.subList(0, i));
+            }
+            else if (files != null) files.add(info);
+        }
+        return files == null ? page : files;
+    }
+}
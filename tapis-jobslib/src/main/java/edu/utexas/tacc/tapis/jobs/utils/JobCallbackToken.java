@@ -0,0 +1,186 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Create and verify the tokens that authenticate job completion callbacks.
+ * A job's wrapper script posts its token to the Jobs service when the
+ * application completes.  Since callbacks arrive without a JWT, the token
+ * is the only proof that the request came from the job's own script.
+ *
+ * A token has the form <expires>.<signature>, where expires is the epoch
+ * second after which the token is rejected and the signature is the HMAC of
+ * the token's purpose, the job uuid and the expiration keyed with the
+ * configured callback secret.  Tokens can be verified without storing them,
+ * can't be used for any other job or purpose and stop working once the job
+ * could no longer be running.  Callbacks are disabled when no secret is 
+ * configured.
+ *
+ * @author rcardone
+ */
+public final class JobCallbackToken
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // The signing algorithm.
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    
+    // The purpose is signed so that the same secret can't authorize other uses.
+    private static final String PURPOSE = "tapis-job-completion";
+    
+    // Tokens stay valid this long beyond the job's maximum run time to allow 
+    // for the time spent waiting in a batch queue.
+    private static final Duration QUEUE_ALLOWANCE = Duration.ofDays(14);
+    
+    // Separates the expiration from the signature.
+    private static final char SEPARATOR = '.';
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* isEnabled:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether completion callbacks are configured.
+     *
+     * @return true if a callback secret is configured
+     */
+    public static boolean isEnabled()
+    {
+        return RuntimeParameters.getInstance().getCallbackSecret() != null;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getExpiration:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Calculate the expiration of a callback token for a job that is about to
+     * be submitted.
+     *
+     * @param maxMinutes the job's maximum run time in minutes
+     * @return the time after which the token is rejected
+     */
+    public static Instant getExpiration(int maxMinutes)
+    {
+        return Instant.now().plus(QUEUE_ALLOWANCE).plus(Duration.ofMinutes(Math.max(maxMinutes, 0)));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* create:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Create the callback token for a job using the configured secret.
+     *
+     * @param jobUuid the job's uuid
+     * @param expires the time after which the token is rejected
+     * @return the url-safe token
+     * @throws JobException if callbacks are disabled or signing fails
+     */
+    public static String create(String jobUuid, Instant expires) throws JobException
+    {
+        return create(RuntimeParameters.getInstance().getCallbackSecret(), jobUuid, expires);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* create:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Create the callback token for a job using the given secret.
+     *
+     * @param secret the signing secret
+     * @param jobUuid the job's uuid
+     * @param expires the time after which the token is rejected
+     * @return the url-safe token
+     * @throws JobException if the secret is missing or signing fails
+     */
+    public static String create(String secret, String jobUuid, Instant expires) 
+     throws JobException
+    {
+        long expiresSeconds = expires.getEpochSecond();
+        return expiresSeconds + String.valueOf(SEPARATOR) + sign(secret, jobUuid, expiresSeconds);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* verify:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Verify a job's callback token using the configured secret.
+     *
+     * @param jobUuid the job's uuid
+     * @param token the token received in the callback
+     * @return true if the token is valid, false otherwise
+     */
+    public static boolean verify(String jobUuid, String token)
+    {
+        return verify(RuntimeParameters.getInstance().getCallbackSecret(), jobUuid, token,
+                      Instant.now());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* verify:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Verify a job's callback token using the given secret.  The signature
+     * comparison takes the same time no matter where the signatures differ.
+     *
+     * @param secret the signing secret
+     * @param jobUuid the job's uuid
+     * @param token the token received in the callback
+     * @param now the current time
+     * @return true if the token is valid and unexpired, false otherwise
+     */
+    public static boolean verify(String secret, String jobUuid, String token, Instant now)
+    {
+        // Split the token into its expiration and signature.
+        if (StringUtils.isBlank(jobUuid) || StringUtils.isBlank(token)) return false;
+        int sep = token.indexOf(SEPARATOR);
+        if (sep <= 0) return false;
+        long expiresSeconds;
+        try {expiresSeconds = Long.parseLong(token.substring(0, sep));}
+            catch (NumberFormatException e) {return false;}
+        if (now.getEpochSecond() > expiresSeconds) return false;
+        
+        // Check the signature.
+        String expected;
+        try {expected = sign(secret, jobUuid, expiresSeconds);}
+            catch (Exception e) {return false;}
+        return MessageDigest.isEqual(expected.getBytes(StandardCharsets.UTF_8),
+                                     token.substring(sep + 1).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* sign:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Calculate the url-safe signature of a token's purpose, job and expiration. */
+    private static String sign(String secret, String jobUuid, long expiresSeconds) 
+     throws JobException
+    {
+        if (StringUtils.isBlank(secret)) {
+            String msg = MsgUtils.getMsg("JOBS_CALLBACK_DISABLED", jobUuid);
+            throw new JobException(msg);
+        }
+
+        try {
+            var mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM));
+            String data = PURPOSE + "\n" + jobUuid + "\n" + expiresSeconds;
+            byte[] sig = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(sig);
+        }
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("JOBS_CALLBACK_TOKEN_ERROR", jobUuid, e.getMessage());
+            throw new JobException(msg, e);
+        }
+    }
+}
@@ -13,6 +13,7 @@ import org.slf4j.LoggerFactory;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.exceptions.recoverable.JobRecoverableException;
 import edu.utexas.tacc.tapis.jobs.exceptions.runtime.JobAsyncCmdException;
+import edu.utexas.tacc.tapis.jobs.exceptions.runtime.JobThrottledException;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobEventCategoryFilter;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobEventType;
@@ -74,6 +75,7 @@ public final class JobUtils
      * from TapisException and are designed to stop or pause job processing.  As 
      * such they should NOT be passed into this method.  If one is passed in, we
      * simply rethrow it so that its effect on job processing will still occur.
+     * JobThrottledExceptions are treated the same way.
      * 
      * @param e any throwable that we might wrap in a tapis exception
      * @return a TapisException
@@ -89,6 +91,7 @@ public final class JobUtils
         if (e instanceof JobRecoverableException) 
             return JobUtils.tapisify((JobRecoverableException)e, msg);
         else if (e instanceof JobAsyncCmdException) throw (JobAsyncCmdException)e;
+        else if (e instanceof JobThrottledException) throw (JobThrottledException)e;
         else if (e instanceof TapisDBConnectionException) return (TapisDBConnectionException)e;
         else return TapisUtils.tapisify(e, msg);
     }
@@ -28,7 +28,7 @@ public final class MacroResolver
     // The character sequence that indicates the beginning of a macro definition.
     public static final String MACRO_DELIMITER = "${";
     
-    // Maximum number top level iterations allowed when resolving macros.
+    // Maximum macro nesting depth allowed when resolving macros.
     private static final int MAX_ITERATIONS = 16;
     
     // Host eval pattern. Group 1 = variable name, group 2 = suffix.
@@ -54,6 +54,11 @@ public final class MacroResolver
     // the environment variable value retrieved from the execution system.
     private final HashMap<String,String> _hostVariables = new HashMap<String, String>();
     
+    // Cache of fully resolved macro values keyed by macro name.  Only successfully
+    // resolved values are cached, so adding macro definitions never invalidates 
+    // the cache, but changing an existing definition requires clearResolvedValues().
+    private final HashMap<String,String> _resolvedValues = new HashMap<String, String>();
+    
     /* **************************************************************************** */
     /*                                Constructors                                  */
     /* **************************************************************************** */
@@ -130,47 +135,55 @@ public final class MacroResolver
     {
         // Avoid crashing.
         if (text == null) return null;
-        String newText = "";
+        int mstart = text.indexOf(MACRO_DELIMITER);
+        if (mstart < 0) return text;
+        
+        var newText = new StringBuilder(text.length() + 64);
         int startIndex = 0;
         while (startIndex < text.length()) {
             
             // Find the beginning of the next macro.
-            int mstart = text.indexOf(MACRO_DELIMITER, startIndex);
             if (mstart < 0) {
-                newText += text.substring(startIndex);
+                newText.append(text, startIndex, text.length());
                 break;
             }
                 
             // Find the macro termination.
             int mend = text.indexOf("}", mstart);
             if (mend < 0) {
-                newText += text.substring(startIndex);
+                newText.append(text, startIndex, text.length());
                 break;
             }
             
             // Avoid empty macros.
             if (mstart+2 == mend) {
-                newText += text.substring(startIndex, mend + 1);
-                startIndex = mend + 1;
-                continue;
-            }
-            
-            // Isolate the macro name.
-            String macroName = text.substring(mstart+2, mend);
-            String mvalue = _macros.get(macroName);
-            if (StringUtils.isBlank(mvalue)) {
-                newText += text.substring(startIndex, mend + 1);
+                newText.append(text, startIndex, mend + 1);
             } else {
-                newText += text.substring(startIndex, mstart) + mvalue; 
+                // Isolate the macro name.
+                String macroName = text.substring(mstart+2, mend);
+                String mvalue = _macros.get(macroName);
+                if (StringUtils.isBlank(mvalue)) 
+                    newText.append(text, startIndex, mend + 1);
+                  else newText.append(text, startIndex, mstart).append(mvalue); 
             }
             
             // Start the next iteration right after the closing brace.
             startIndex = mend + 1;
+            mstart = text.indexOf(MACRO_DELIMITER, startIndex);
         }
         
-        return newText;
+        return newText.toString();
     }
     
+    /* ---------------------------------------------------------------------------- */
+    /* clearResolvedValues:                                                         */
+    /* ---------------------------------------------------------------------------- */
+    /** Discard all cached macro values.  This method must be called whenever the
+     * value of an existing macro definition changes.  Adding new definitions does
+     * not require the cache to be cleared.
+     */
+    public void clearResolvedValues() {_resolvedValues.clear();}
+    
     /* **************************************************************************** */
     /*                               Private Methods                                */
     /* **************************************************************************** */
@@ -253,9 +266,11 @@ public final class MacroResolver
      * any values that may be referenced, directly or transitively, from macros
      * contained in the text.
      * 
-     * By calling a recursive routine, this method supports macros that resolve to 
-     * strings that themselves can contain macros.  The number of calls to the recursive
-     * routine are limited so as to avoid cycles not easily detected during recursion.  
+     * The text is parsed once into a template and expanded into a single buffer.
+     * Macro values that themselves contain macros are resolved by a depth-first 
+     * traversal of the macro reference graph that detects cycles and limits the 
+     * nesting depth.  Resolved values are cached so each macro is resolved at most
+     * once during the lifetime of this resolver.  
      * 
      * @param text that non-empty text that may contain one or more macros
      * @return a string with all macro definitions replaced with their concrete values
@@ -269,94 +284,89 @@ public final class MacroResolver
             throw new TapisException(msg);
         }
         
-        // Set up recursive processing.
-        final String originalText = text;
-        var macrosResolved = new ArrayList<String>();
-        int iterations = 1;
-        
-        while (true) {
-            // Cut things off to avoid infinite loop.
-            if (iterations > MAX_ITERATIONS) {
-                String msg = MsgUtils.getMsg("JOBS_MACRO_TOO_COMPLEX", originalText, MAX_ITERATIONS);
-                throw new TapisException(msg);
-            }
-            
-            // Call the recursive method.
-            macrosResolved.clear();
-            String newText = replaceFirstMacro(text, macrosResolved);
-            if (newText == text) break;
-            
-            // Use the new text on the next iteration. 
-            text = newText;
-            iterations++;
-        }
-        
-        return text;
+        // Parse the text and expand any macros it contains.
+        var template = MacroTemplate.compile(text);
+        if (!template.hasMacros()) return text;
+        return expand(template, text, new ArrayList<String>());
     }
     
     /* ---------------------------------------------------------------------------- */
-    /* replaceFirstMacro:                                                           */
+    /* expand:                                                                      */
     /* ---------------------------------------------------------------------------- */
-    /** Recursive method that replaces the first macro definition in the text with its 
-     * value.  The value can itself contain a macro definition, which causes this 
-     * method to recursively process the first macro of replacement strings.
+    /** Concatenate the template's literal segments with the resolved values of its
+     * macro references.
      * 
-     * Cycles are detected during any recursive call chain, but since this method
-     * only replaces the first (leftmost) macro in any string, it is possible for
-     * replacement strings containing multiple macros to escape cycle detection.  It
-     * is the caller's responsibility to detect such cycles or, at least, limit
-     * the number of times it calls this method to avoid infinite loops. 
-     * 
-     * @param text a string that may contain a macro definition
-     * @param macrosResolved the list of macro names already during recursion
-     * @return the string with its first macro replaced by its value
-     * @throws TapisException if value replacement fails
+     * @param template the compiled text
+     * @param text the original text used in error messages
+     * @param macrosResolving the macro names currently being resolved, outermost first
+     * @return the expanded text
+     * @throws TapisException if a macro cannot be resolved
      */
-    private String replaceFirstMacro(String text, ArrayList<String> macrosResolved)
+    private String expand(MacroTemplate template, String text, 
+                          ArrayList<String> macrosResolving)
      throws TapisException
     {
-        // Find the beginning of the first macro.
-        int mstart = text.indexOf(MACRO_DELIMITER);
-        if (mstart < 0) return text;
-            
-        // Find the macro termination.
-        int mend = text.indexOf("}", mstart);
-        if (mend < 0) {
-            String msg = MsgUtils.getMsg("JOBS_MACRO_ILL_FORMED", text);
-            throw new TapisException(msg);
+        final int count = template.getMacroCount();
+        var buf = new StringBuilder(template.getLiteralLength() + 32 * count);
+        for (int i = 0; i < count; i++) {
+            buf.append(template.getLiteral(i));
+            buf.append(resolveMacro(template.getMacroName(i), text, macrosResolving));
         }
-            
-        // Avoid empty macros or out-of-bounds indexing.  
-        if (mstart+2 >= mend) {
-            String msg = MsgUtils.getMsg("JOBS_MACRO_EMPTY", text);
-            throw new TapisException(msg);
-        }
-            
-        // Split the string into constituent parts.
-        String prefix = text.substring(0, mstart);
-        String macroName = text.substring(mstart+2, mend);
-        String suffix = text.substring(mend+1);
-            
+        buf.append(template.getLiteral(count));
+        return buf.toString();
+    }
+    
+    /* ---------------------------------------------------------------------------- */
+    /* resolveMacro:                                                                */
+    /* ---------------------------------------------------------------------------- */
+    /** Return the fully resolved value of a macro.  Values containing macros are
+     * recursively expanded, with the names of the macros on the current resolution
+     * path used to detect cycles.
+     * 
+     * @param macroName the macro to resolve
+     * @param text the original text used in error messages
+     * @param macrosResolving the macro names currently being resolved, outermost first
+     * @return the resolved value
+     * @throws TapisException if the macro cannot be resolved
+     */
+    private String resolveMacro(String macroName, String text, 
+                                ArrayList<String> macrosResolving)
+     throws TapisException
+    {
+        // Has this macro already been resolved?
+        String mvalue = _resolvedValues.get(macroName);
+        if (mvalue != null) return mvalue;
+        
         // Detect cycles.
-        if (macrosResolved.contains(macroName)) {
-            String flatList = String.join(", ", macrosResolved);
+        if (macrosResolving.contains(macroName)) {
+            String flatList = String.join(", ", macrosResolving);
             String msg = MsgUtils.getMsg("JOBS_MACRO_CYCLE_DETECTED", text, macroName, flatList);
             throw new TapisException(msg);
         }
+        
+        // Cut things off to avoid pathological nesting.
+        if (macrosResolving.size() >= MAX_ITERATIONS) {
+            String msg = MsgUtils.getMsg("JOBS_MACRO_TOO_COMPLEX", text, MAX_ITERATIONS);
+            throw new TapisException(msg);
+        }
             
         // Look up the macro's value.
-        String mvalue = _macros.get(macroName);
+        mvalue = _macros.get(macroName);
         if (StringUtils.isBlank(mvalue)) {
             String msg = MsgUtils.getMsg("JOBS_MACRO_MISSING_VALUE", text, macroName);
             throw new TapisException(msg);
         }
             
-        // Maybe the returned value contains a macro.
-        // Recursively call this method with cycle detection.
-        macrosResolved.add(macroName);
-        mvalue = replaceFirstMacro(mvalue, macrosResolved);
-            
-        // Substitute the value in for the macro.
-        return prefix + mvalue + suffix;
+        // Maybe the value contains macros.
+        var template = MacroTemplate.compile(mvalue);
+        if (template.hasMacros()) {
+            macrosResolving.add(macroName);
+            mvalue = expand(template, text, macrosResolving);
+            macrosResolving.remove(macrosResolving.size() - 1);
+        }
+        
+        // Cache the result.
+        _resolvedValues.put(macroName, mvalue);
+        return mvalue;
     }
 }
@@ -0,0 +1,110 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import java.util.ArrayList;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** The compiled form of a string that may contain macro references.  The text
+ * is scanned once and split into alternating literal and macro name segments
+ * so that expansion never has to rescan or rebuild intermediate strings.
+ *
+ * A template with n macro references has n+1 literal segments, any of which
+ * can be empty.  Literal segment i precedes macro reference i, and the last
+ * literal segment follows the last macro reference.
+ *
+ * @author rcardone
+ */
+final class MacroTemplate
+{
+    /* **************************************************************************** */
+    /*                                    Fields                                    */
+    /* **************************************************************************** */
+    // The literal text segments and the macro names that separate them.
+    private final String[] _literals;
+    private final String[] _macroNames;
+
+    // Total length of all literal segments.
+    private final int      _literalLength;
+
+    /* **************************************************************************** */
+    /*                                Constructors                                  */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* constructor:                                                                 */
+    /* ---------------------------------------------------------------------------- */
+    private MacroTemplate(String[] literals, String[] macroNames, int literalLength)
+    {
+        _literals = literals;
+        _macroNames = macroNames;
+        _literalLength = literalLength;
+    }
+
+    /* **************************************************************************** */
+    /*                                Public Methods                                */
+    /* **************************************************************************** */
+    /* ---------------------------------------------------------------------------- */
+    /* compile:                                                                     */
+    /* ---------------------------------------------------------------------------- */
+    /** Parse the text into its literal and macro segments.  Every macro delimiter
+     * must be followed by a non-empty macro name and a closing brace.
+     *
+     * @param text the non-null text to parse
+     * @return the compiled template
+     * @throws TapisException if the text contains an ill-formed or empty macro
+     */
+    static MacroTemplate compile(String text) throws TapisException
+    {
+        // Fast path for text without macros.
+        int mstart = text.indexOf(MacroResolver.MACRO_DELIMITER);
+        if (mstart < 0) return new MacroTemplate(new String[] {text}, new String[0], text.length());
+
+        // Split the text into segments.
+        var literals = new ArrayList<String>();
+        var macroNames = new ArrayList<String>();
+        int literalLength = 0;
+        int startIndex = 0;
+        while (mstart >= 0) {
+            // Find the macro termination.
+            int mend = text.indexOf("}", mstart);
+            if (mend < 0) {
+                String msg = MsgUtils.getMsg("JOBS_MACRO_ILL_FORMED", text);
+                throw new TapisException(msg);
+            }
+
+            // Avoid empty macros or out-of-bounds indexing.
+            if (mstart+2 >= mend) {
+                String msg = MsgUtils.getMsg("JOBS_MACRO_EMPTY", text);
+                throw new TapisException(msg);
+            }
+
+            // Save the literal that precedes the macro and the macro name.
+            String literal = text.substring(startIndex, mstart);
+            literals.add(literal);
+            literalLength += literal.length();
+            macroNames.add(text.substring(mstart+2, mend));
+
+            // Look for the next macro right after the closing brace.
+            startIndex = mend + 1;
+            mstart = text.indexOf(MacroResolver.MACRO_DELIMITER, startIndex);
+        }
+
+        // Save the trailing literal.
+        String literal = text.substring(startIndex);
+        literals.add(literal);
+        literalLength += literal.length();
+
+        return new MacroTemplate(literals.toArray(new String[literals.size()]),
+                                 macroNames.toArray(new String[macroNames.size()]),
+                                 literalLength);
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* accessors:                                                                   */
+    /* ---------------------------------------------------------------------------- */
+    boolean hasMacros() {return _macroNames.length > 0;}
+    int getMacroCount() {return _macroNames.length;}
+    String getMacroName(int index) {return _macroNames[index];}
+    String getLiteral(int index) {return _literals[index];}
+    int getLiteralLength() {return _literalLength;}
+}
@@ -0,0 +1,146 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+
+/** Encode and decode the job submission requests saved for resubmission.
+ * Requests are stored once per distinct content in the job_resubmit_blobs
+ * table, keyed by the SHA-256 hash of their UTF-8 bytes, so that the many
+ * identical requests of parameter sweeps share a single blob.
+ *
+ * Blobs are compressed with deflate at its fastest level, which suits the
+ * highly repetitive json of job requests.  Requests that don't shrink are
+ * stored as is.  The codec name is saved with each blob so that blobs written
+ * with other codecs, including any future ones, can be decoded.
+ *
+ * @author rcardone
+ */
+public final class ResubmitCodec
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Codec names saved with each blob.
+    public static final String CODEC_NONE    = "NONE";
+    public static final String CODEC_DEFLATE = "DEFLATE";
+
+    // Buffer size used when the decoded length is unknown.
+    private static final int BUFFER_SIZE = 4096;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private ResubmitCodec() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* encode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Hash and compress a request.
+     *
+     * @param json the non-null request
+     * @return the encoded request
+     */
+    public static Encoded encode(String json)
+    {
+        // The hash is always calculated on the uncompressed bytes.
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        String hash  = DigestUtils.sha256Hex(bytes);
+
+        // Compress the request.
+        var deflater = new Deflater(Deflater.BEST_SPEED);
+        byte[] compressed;
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            var out = new ByteArrayOutputStream(Math.max(64, bytes.length / 4));
+            byte[] buf = new byte[BUFFER_SIZE];
+            while (!deflater.finished()) out.write(buf, 0, deflater.deflate(buf));
+            compressed = out.toByteArray();
+        }
+        finally {deflater.end();}
+
+        // Only keep compressed content that's smaller.
+        if (compressed.length < bytes.length)
+            return new Encoded(hash, CODEC_DEFLATE, bytes.length, compressed);
+        return new Encoded(hash, CODEC_NONE, bytes.length, bytes);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* decode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Restore a request from its stored content.
+     *
+     * @param codec the codec used to encode the content
+     * @param length the decoded length in bytes
+     * @param content the stored content
+     * @return the request
+     * @throws JobException if the codec is unknown or the content is corrupt
+     */
+    public static String decode(String codec, int length, byte[] content)
+     throws JobException
+    {
+        // Uncompressed content.
+        if (CODEC_NONE.equals(codec)) return new String(content, StandardCharsets.UTF_8);
+
+        // Unknown codec.
+        if (!CODEC_DEFLATE.equals(codec)) {
+            String msg = MsgUtils.getMsg("JOBS_RESUBMIT_DECODE_ERROR", codec, "unknown codec");
+            throw new JobException(msg);
+        }
+
+        // Decompress into a buffer of the original length.
+        var inflater = new Inflater();
+        try {
+            inflater.setInput(content);
+            byte[] bytes = new byte[length];
+            int n = 0;
+            while (n < length && !inflater.finished()) {
+                int count = inflater.inflate(bytes, n, length - n);
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += count;
+            }
+            if (n != length || !inflater.finished()) {
+                String msg = MsgUtils.getMsg("JOBS_RESUBMIT_DECODE_ERROR", codec,
+                                             "expected " + length + " bytes, got " + n);
+                throw new JobException(msg);
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        catch (DataFormatException e) {
+            String msg = MsgUtils.getMsg("JOBS_RESUBMIT_DECODE_ERROR", codec, e.getMessage());
+            throw new JobException(msg, e);
+        }
+        finally {inflater.end();}
+    }
+
+    /* ********************************************************************** */
+    /*                              Encoded Class                             */
+    /* ********************************************************************** */
+    /** An encoded request and the values that identify it. */
+    public static final class Encoded
+    {
+        public final String hash;     // SHA-256 hex of the decoded bytes
+        public final String codec;    // codec name
+        public final int    length;   // decoded length in bytes
+        public final byte[] content;  // stored bytes
+
+        private Encoded(String hash, String codec, int length, byte[] content)
+        {
+            this.hash    = hash;
+            this.codec   = codec;
+            this.length  = length;
+            this.content = content;
+        }
+    }
+}
@@ -151,7 +151,9 @@ abstract class AbstractProcessor
     
       // Enter the queue read loop. Runtime 
       // exceptions can be thrown from here. 
-      readQueue();
+      var dispatcher = getFairShareDispatcher();
+      if (dispatcher == null) readQueue();
+        else readFairShareQueues(dispatcher);
     }
     finally {
       // Don't leave without cleaning up the channel.
@@ -166,62 +168,14 @@ abstract class AbstractProcessor
   }
   
   /* ---------------------------------------------------------------------- */
-  /* getNextJobSpecificMessage:                                             */
+  /* getFairShareDispatcher:                                                */
   /* ---------------------------------------------------------------------- */
-  /** Initiate the read loop for the job-specific command processor. This
-   * processor dynamically creates a non-durable, autoDelete topic that
-   * only exists when a job is actively processing. 
+  /** Subclasses that read fair share submit queues return the dispatcher 
+   * that selects their next message.  
    * 
-   * There are 3 ways for this method to end:
-   * 
-   *  1. Normal exit on shutdown interrupt.
-   *  2. AloeRuntimeException when we want a new thread to replace this one
-   *      because of some problem that we have detected.
-   *  3. Any other runtime exception, which will also cause a new thread
-   *      to replace this one.
-   * 
-   * @param p read parameters specific to processor
-   * @throws AloeRuntimeException runtime error that ends this thread and  
-   *            starts a new replacement thread
+   * @return the dispatcher or null to consume the configured queue
    */
-  protected void getNextJobSpecificMessage(NextMessageParms p)
-  {
-    // Tracing.
-    if (_log.isDebugEnabled()) {
-        String msg = MsgUtils.getMsg("JOBS_QUEUE_EXCHANGE_READER", _jobWorker.getParms().name,
-                                     Thread.currentThread().getName(), TapisUtils.toString(p));
-        _log.debug(msg);
-    }
-      
-    // No matter what, we clean up the channel..
-    try {
-      // Initialize our channel.
-      try {_channel = getJobSpecificChannel(p._exchangeName, p._exchangeType, p._queueName, p._bindingKeys);}
-        catch (Exception e) {
-          // This error terminates this thread.
-          String msg = MsgUtils.getMsg("JOBS_WORKER_CHANNEL_INIT_ERROR", 
-                                       _jobWorker.getParms().name,
-                                       p._queueName, 
-                                       e.getMessage());
-          _log.error(msg, e);
-          throw new TapisRuntimeException(msg, e);
-      }
-    
-      // Enter the queue read loop. Runtime 
-      // exceptions can be thrown from here. 
-      readQueue();
-    }
-    finally {
-      // Don't leave without cleaning up the channel.
-      if (_channel != null && _channel.isOpen())
-        try {_channel.close();}
-          catch (Exception e) {
-            String msg = MsgUtils.getMsg("JOBS_QMGR_CHANNEL_CLOSE_ERROR", 
-                _channel.getChannelNumber(), e.getMessage());
-            _log.error(msg, e);
-          }
-    }
-  }
+  protected FairShareDispatcher getFairShareDispatcher() {return null;}
   
   /* ---------------------------------------------------------------------- */
   /* getProcessorName:                                                      */
@@ -341,79 +295,6 @@ abstract class AbstractProcessor
     return channel;
   }
   
-  /* ---------------------------------------------------------------------- */
-  /* getChannel:                                                            */
-  /* ---------------------------------------------------------------------- */
-  /** One-time initialization of channel used by the job-specific command
-   * processing thread.  This specialized method assumes that the the 
-   * command exchange has already been set up for this tenant, so it does not
-   * try to create it.
-   * 
-   * It is the caller's responsibility to close the returned channel.
-   * 
-   * @param exchangeName the non-null exchange name used by the channel
-   * @param exchangeType "direct" or "topic" are the only ones used
-   * @param queueName the non-null job-specific topic name of the queue to read
-   * @param bindingKeys the list of exactly 1 binding key for the topic
-   * 
-   * @return the initialized channel 
-   * @throws JobException on error
-   */
-  private Channel getJobSpecificChannel(String exchangeName, BuiltinExchangeType exchangeType, 
-                                        String queueName, String[] bindingKeys)
-    throws JobException, TapisQueueException
-  {
-    // Save the queue name for use in other methods.
-    _queueName = queueName;
-    
-    // Create the channel.
-    Channel channel = null;
-    JobQueueManager qmgr = JobQueueManager.getInstance();
-    
-    try {
-      // Create the channel.
-      channel = qmgr.getNewInChannel();
-      
-      // Set the prefetch count so that the consumer using this 
-      // channel only receives the next request after the previous
-      // request has been acknowledged.
-      final int prefetchCount = 1;
-      try {channel.basicQos(prefetchCount);}
-          catch (IOException e) {
-              String msg = MsgUtils.getMsg("JOBS_WORKER_CHANNEL_PREFETCH_ERROR", 
-                              _jobWorker.getParms().name, 
-                              channel.getChannelNumber(), e.getMessage());
-              _log.error(msg, e);
-              throw new JobQueueException(msg, e);
-          }
-      
-      // Create the job-specific, non-durable, autoDeleted topic.  This topic is deleted when the channel is closed. 
-      try {qmgr.createAndBindAutoDeleteTopic(channel, exchangeName, queueName, bindingKeys[0]);}
-          catch (Exception e) {
-              // There's no point in continuing if we can't read the queue.
-              String msg = MsgUtils.getMsg("JOBS_QUEUE_JOB_SPECIFIC_THREAD_BIND", Thread.currentThread().getName(),
-                              _jobWorker.getParms().name, queueName, exchangeName, bindingKeys[0], e.getMessage());
-              _log.error(msg, e);
-              throw new JobQueueException(msg, e);
-          }
-    }
-    catch (Exception e) {
-      if (channel != null) {
-        try {channel.abort(AMQP.CHANNEL_ERROR, e.getMessage());} 
-          catch (Exception e1){
-            String msg = MsgUtils.getMsg("JOBS_QMGR_CHANNEL_ABORT_ERROR", 
-                                         channel.getChannelNumber(), e1.getMessage());
-            _log.warn(msg, e1);
-          }
-      }
-      
-      // Any exception causes the method to terminate.
-      throw e;
-    }
-    
-    return channel;
-  }
-  
   /* ---------------------------------------------------------------------- */
   /* readQueue:                                                             */
   /* ---------------------------------------------------------------------- */
@@ -459,42 +340,111 @@ abstract class AbstractProcessor
       boolean ack = process(delivery);
       
       // Acknowledge or reject the message.
-      // Determine whether to ack or nack the request.
-      if (ack) {
-        // Don't forget to send the ack!
-        final boolean multipleAck = false;
-        try {_channel.basicAck(delivery.envelope.getDeliveryTag(), multipleAck);}
-          catch (IOException e) {
-            String msg = MsgUtils.getMsg("JOBS_THREAD_ACK_ERROR",
-                                         Thread.currentThread().getName(),
-                                         Thread.currentThread().getId(),
-                                         _jobWorker.getParms().name,
-                                         _queueName, 
-                                         e.getMessage());
-            _log.error(msg, e);
-          }
-      }
-      else {
-        // Reject this unreadable message so that
-        // it gets discarded or dead-lettered.
-        final boolean requeue = false;
-        try {_channel.basicReject(delivery.envelope.getDeliveryTag(), requeue);} 
-          catch (IOException e) {
-            String msg = MsgUtils.getMsg("JOBS_THREAD_REJECT_ERROR",
-                                         Thread.currentThread().getName(),
-                                         Thread.currentThread().getId(),
-                                         _jobWorker.getParms().name,
-                                         _queueName, 
-                                         e.getMessage());
-            _log.error(msg, e);
-          }
-      }
+      acknowledge(delivery, ack);
+    }
+    
+    // Reassign the thread's base logging id.
+    if (baseId != null) MDC.put(TapisConstants.MDC_ID_KEY, baseId);
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* readFairShareQueues:                                                   */
+  /* ---------------------------------------------------------------------- */
+  /** Infinite read loop used on fair share submit queues.  Rather than 
+   * starting a consumer, this method asks the dispatcher for each message,
+   * which is then processed and acknowledged as in readQueue().
+   * 
+   * The infinite loop is broken if the thread is interrupted.
+   * 
+   * @param dispatcher the queue's fair share dispatcher
+   */
+  private void readFairShareQueues(FairShareDispatcher dispatcher)
+  {
+    // Save the thread's base logging identifier before 
+    // it gets reassigned on each loop iteration.
+    String baseId = MDC.get(TapisConstants.MDC_ID_KEY);
+    
+    // The queue read/job processing loop.
+    while (!Thread.currentThread().isInterrupted())
+    {
+      // Reassign the logging identifier on each loop iteration
+      // to distinguish between the processing of different requests. 
+      MDC.put(TapisConstants.MDC_ID_KEY, TapisUtils.getRandomString());
+        
+      // Wait for the dispatcher to select a message.
+      DeliveryResponse delivery = null;
+      try {delivery = dispatcher.next(_channel);}
+        catch (InterruptedException e) {
+          // Set the interrupt bit for this thread
+          // before breaking from the main loop.
+          Thread.currentThread().interrupt();
+          break;
+        }
+        catch (IOException e) {
+          // This error terminates this thread.
+          String msg = MsgUtils.getMsg("JOBS_THREAD_QUEUE_READ_ERROR",
+                                       Thread.currentThread().getName(),
+                                       Thread.currentThread().getId(),
+                                       _jobWorker.getParms().name,
+                                       _queueName, 
+                                       e.getMessage());
+          _log.error(msg, e);
+          throw new TapisRuntimeException(msg, e);
+        }
+    
+      // Let the subclass perform the actual message processing.
+      boolean ack = process(delivery);
+      
+      // Acknowledge or reject the message.
+      acknowledge(delivery, ack);
     }
     
     // Reassign the thread's base logging id.
     if (baseId != null) MDC.put(TapisConstants.MDC_ID_KEY, baseId);
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* acknowledge:                                                           */
+  /* ---------------------------------------------------------------------- */
+  /** Acknowledge or reject a processed message.
+   * 
+   * @param delivery the processed message
+   * @param ack true to acknowledge, false to reject and discard
+   */
+  private void acknowledge(DeliveryResponse delivery, boolean ack)
+  {
+    // Determine whether to ack or nack the request.
+    if (ack) {
+      // Don't forget to send the ack!
+      final boolean multipleAck = false;
+      try {_channel.basicAck(delivery.envelope.getDeliveryTag(), multipleAck);}
+        catch (IOException e) {
+          String msg = MsgUtils.getMsg("JOBS_THREAD_ACK_ERROR",
+                                       Thread.currentThread().getName(),
+                                       Thread.currentThread().getId(),
+                                       _jobWorker.getParms().name,
+                                       _queueName, 
+                                       e.getMessage());
+          _log.error(msg, e);
+        }
+    }
+    else {
+      // Reject this unreadable message so that
+      // it gets discarded or dead-lettered.
+      final boolean requeue = false;
+      try {_channel.basicReject(delivery.envelope.getDeliveryTag(), requeue);} 
+        catch (IOException e) {
+          String msg = MsgUtils.getMsg("JOBS_THREAD_REJECT_ERROR",
+                                       Thread.currentThread().getName(),
+                                       Thread.currentThread().getId(),
+                                       _jobWorker.getParms().name,
+                                       _queueName, 
+                                       e.getMessage());
+          _log.error(msg, e);
+        }
+    }
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* createConsumer:                                                        */
   /* ---------------------------------------------------------------------- */
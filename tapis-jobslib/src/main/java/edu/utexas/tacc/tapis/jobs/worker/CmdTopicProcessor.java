@@ -1,27 +1,37 @@
 package edu.utexas.tacc.tapis.jobs.worker;
 
+import java.nio.charset.StandardCharsets;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.google.gson.JsonParseException;
 import com.rabbitmq.client.BuiltinExchangeType;
 
+import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.queue.DeliveryResponse;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
+import edu.utexas.tacc.tapis.jobs.queue.QueueMsgCodec;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobCancelMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobPauseMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobStatusMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrResumeMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrShutdownMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrStatusMsg;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrSuspendMsg;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
-import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
 
 /** Processor that runs a worker thread and receives commands on the tenant
- * worker's topic.  The command can target all workers in the tenant or a
- * specific tenant worker.  The JobTopicProcessor handles command that target
- * the worker executing a specific job (if such a worker is running).
+ * worker's topic.  The command can target all workers in the tenant, a
+ * specific tenant worker or a specific job.  Every worker receives all job
+ * commands and delivers each one to its targeted job if that job is being
+ * processed by the worker, see JobCmdRegistry.
  * 
  * @author rcardone
  */
@@ -59,11 +69,13 @@ class CmdTopicProcessor
       //
       //    tapis.jobq.cmd.worker
       //    tapis.jobq.cmd.worker.wid.<worker-uuid>.#
+      //    tapis.jobq.cmd.worker.jid.#
       //
       String[] bindingKeys = new String[] 
           {
               JobQueueManagerNames.getCmdAllWorkerBindingKey(), 
-              JobQueueManagerNames.getCmdSpecificWorkerBindingKey(_jobWorker.getUUID().toString())
+              JobQueueManagerNames.getCmdSpecificWorkerBindingKey(_jobWorker.getUUID().toString()),
+              JobQueueManagerNames.getCmdAllJobBindingKey()
           };
       
       // All error handling is performed by super class. 
@@ -94,11 +106,11 @@ class CmdTopicProcessor
         _log.debug(msg);
     }
     
-    // Decode the input.
-    String body = new String(delivery.body);
+    // Decode the input into the command's concrete class.
     CmdMsg cmdMsg = null;
-    try {cmdMsg = TapisGsonUtils.getGson(true).fromJson(body, CmdMsg.class);}
+    try {cmdMsg = QueueMsgCodec.decode(delivery.body, CmdMsg.class);}
         catch (Exception e) {
+            String body = new String(delivery.body, StandardCharsets.UTF_8);
             if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
             String msg = MsgUtils.getMsg("ALOE_JSON_PARSE_ERROR", getProcessorName(), body, e.getMessage());
             _log.error(msg, e);
@@ -115,19 +127,36 @@ class CmdTopicProcessor
     // Determine the precise command type, populate an object of that type
     // and then call the command-specific processor.
     boolean ack = true;
+    Span cmdSpan = JobTracing.startSpan(JobTracing.SPAN_COMMAND_PREFIX + cmdMsg.msgType.name(),
+                                        SpanKind.CONSUMER, JobTracing.extract(cmdMsg.traceContext));
+    Scope cmdScope = cmdSpan.makeCurrent();
     try {
         switch (cmdMsg.msgType) {
             case WKR_STATUS:  
-                ack = processCommand(TapisGsonUtils.getGson(true).fromJson(body, WkrStatusMsg.class));
+                ack = processCommand((WkrStatusMsg) cmdMsg);
                 break;
             case WKR_SHUTDOWN: 
-                ack = processCommand(TapisGsonUtils.getGson(true).fromJson(body, WkrShutdownMsg.class));
+                ack = processCommand((WkrShutdownMsg) cmdMsg);
                 break;
             case WKR_SUSPEND: 
-                ack = processCommand(TapisGsonUtils.getGson(true).fromJson(body, WkrSuspendMsg.class));
+                ack = processCommand((WkrSuspendMsg) cmdMsg);
                 break;
             case WKR_RESUME: 
-                ack = processCommand(TapisGsonUtils.getGson(true).fromJson(body, WkrResumeMsg.class));
+                ack = processCommand((WkrResumeMsg) cmdMsg);
+                break;
+                
+            // Job commands are delivered to the targeted job if it's active in this worker.
+            case JOB_STATUS:  
+                ack = processCommand((JobStatusMsg) cmdMsg,
+                                     delivery.envelope.getRoutingKey());
+                break;
+            case JOB_CANCEL: 
+                ack = processJobCommand((JobCancelMsg) cmdMsg,
+                                        delivery.envelope.getRoutingKey());
+                break;
+            case JOB_PAUSE: 
+                ack = processJobCommand((JobPauseMsg) cmdMsg,
+                                        delivery.envelope.getRoutingKey());
                 break;
 
             // The binding keys should prevent all other commands from coming through here.
@@ -137,19 +166,18 @@ class CmdTopicProcessor
                 ack = processCommand(cmdMsg); // This should not happen.
         }
     }
-    catch (JsonParseException e) {
-        if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
-        String msg = MsgUtils.getMsg("ALOE_JSON_PARSE_ERROR", getProcessorName(), body, e.getMessage());
-        _log.error(msg, e);
-        ack = false;
-    }
     catch (Exception e) {
+        String body = new String(delivery.body, StandardCharsets.UTF_8);
         if (body.length() > JSON_DUMP_LEN) body = body.substring(0, JSON_DUMP_LEN - 1);
         String msg = MsgUtils.getMsg("JOBS_WORKER_MSG_PROCESSING_ERROR", getProcessorName(), 
                                      body, e.getMessage());
         _log.error(msg, e);
         ack = false;
     }
+    finally {
+        cmdScope.close();
+        JobTracing.endSpan(cmdSpan, ack);
+    }
 
     return ack;
   }
@@ -228,6 +256,75 @@ class CmdTopicProcessor
       return true;
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* processCommand:                                                        */
+  /* ---------------------------------------------------------------------- */
+  /** Completion notices sent by a job's wrapper script are delivered to the
+   * job's execution context if the job is active in this worker, which wakes
+   * up the job's monitor.  Other status requests report the job's current
+   * status.  Neither is placed in the job's command message field so that 
+   * they never displace a pending cancel or pause command. 
+   * 
+   * @param cmd the status command
+   * @param routingKey the job-specific routing key of the command
+   * @return true, commands are never rejected
+   */
+  private boolean processCommand(JobStatusMsg cmd, String routingKey)
+  {
+      // Trace command.
+      if (_log.isDebugEnabled())
+          _log.debug(MsgUtils.getMsg("JOBS_WORKER_CMD_RECEIVED", getProcessorName(),
+                                     TapisUtils.toString(cmd)));
+      
+      // Is the job active in this worker?
+      String jobUuid = JobQueueManagerNames.getJobUuidFromCmdRoutingKey(routingKey);
+      Job job = JobCmdRegistry.getJob(jobUuid);
+      if (job == null) return true;
+      
+      // Report the job's current status unless this is a completion notice.
+      if (!cmd.completed) {
+          _log.info(MsgUtils.getMsg("JOBS_WORKER_JOB_STATUS", getProcessorName(), job.getUuid(),
+                                    job.getStatus(), cmd.senderId, cmd.correlationId));
+          return true;
+      }
+      
+      // Wake up the job's monitor.
+      if (job.getJobCtx() != null) job.getJobCtx().postCompletionNotice();
+      
+      return true;
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* processJobCommand:                                                     */
+  /* ---------------------------------------------------------------------- */
+  /** Deliver an asynchronous command to the job targeted by the routing key.
+   * Commands for jobs not being processed by this worker are acknowledged
+   * and discarded.  Jobs that are in recovery are not registered, so they
+   * rely on the command that's also sent to the recovery queue.
+   * 
+   * @param cmd the cancel or pause command
+   * @param routingKey the job-specific routing key of the command
+   * @return true, commands are never rejected
+   */
+  private boolean processJobCommand(CmdMsg cmd, String routingKey)
+  {
+      // Is the job active in this worker?
+      String jobUuid = JobQueueManagerNames.getJobUuidFromCmdRoutingKey(routingKey);
+      Job job = JobCmdRegistry.getJob(jobUuid);
+      if (job == null) return true;
+      
+      // Trace command.
+      if (_log.isDebugEnabled())
+          _log.debug(MsgUtils.getMsg("JOBS_WORKER_CMD_RECEIVED", getProcessorName(),
+                                     TapisUtils.toString(cmd)));
+      
+      // Not a lot happening here--just set the field that
+      // indicates an asynchronous message was received.
+      job.setCmdMsg(cmd);
+      
+      return true;
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* processCommand:                                                        */
   /* ---------------------------------------------------------------------- */
@@ -0,0 +1,239 @@
+package edu.utexas.tacc.tapis.jobs.worker;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobQueuesDao;
+import edu.utexas.tacc.tapis.jobs.queue.DeficitRoundRobin;
+import edu.utexas.tacc.tapis.jobs.queue.DeliveryResponse;
+import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
+import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
+import edu.utexas.tacc.tapis.jobs.queue.SubmitQueues;
+import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
+import edu.utexas.tacc.tapis.shared.security.TenantManager;
+
+/** Chooses the next job for the worker threads of a fair share submit queue.
+ * Jobs posted to a queue with tenant weights are routed to per-tenant
+ * sub-queues (see JobQueueManager.getSubmitQueueName()).  Instead of consuming
+ * a single queue, each worker thread asks this dispatcher for its next job,
+ * which is read from the sub-queue selected by weighted deficit round-robin.
+ * The submit queue itself is included in the rotation with the default weight
+ * so that jobs posted before fair sharing was enabled are still processed.
+ *
+ * Sub-queues are read with basicGet, so at most one unacknowledged message
+ * is held by a worker thread, the same as with the consumer's prefetch of 1.
+ * When all sub-queues are empty, only one of the worker's threads keeps
+ * polling them while the others wait, so an idle worker reads the broker at
+ * the same rate no matter how many threads it has.  The polling thread's 
+ * first wait is short so that a job arriving at an idle queue is picked up
+ * quickly, and each further empty pass doubles the wait up to the configured 
+ * poll interval.  When the polling thread receives a job, it hands polling
+ * over to a waiting thread.  The tenant list and weights are reloaded
+ * periodically so that weight changes don't require a worker restart.
+ *
+ * @author rcardone
+ */
+final class FairShareDispatcher
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(FairShareDispatcher.class);
+
+    // How often tenants and weights are reloaded.
+    private static final long REFRESH_MILLIS = 5 * 60 * 1000;
+
+    // The first wait after finding all sub-queues empty.
+    private static final long MIN_POLL_MILLIS = 10;
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The submit queue assigned to the worker.
+    private final String _queueName;
+
+    // The longest wait after finding all sub-queues empty.
+    private final long   _pollMillis;
+
+    // Only one thread polls empty sub-queues at a time.
+    private final Object _pollLock = new Object();
+    private boolean      _polling;
+
+    // The current rotation, replaced on refresh.
+    private volatile DeficitRoundRobin _drr;
+    private long                       _lastRefresh;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private FairShareDispatcher(String queueName)
+    {
+        _queueName  = queueName;
+        _pollMillis = Math.max(MIN_POLL_MILLIS, RuntimeParameters.getInstance().getFairSharePollMillis());
+        refresh();
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* create:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Create a dispatcher if the queue has tenant weights.
+     *
+     * @param queueName the worker's submit queue
+     * @return the dispatcher or null if the queue is not a fair share queue
+     */
+    static FairShareDispatcher create(String queueName)
+    {
+        for (var queue : SubmitQueues.getQueues())
+            if (queue.getName().equals(queueName) && queue.getTenantWeights() != null)
+                return new FairShareDispatcher(queueName);
+        return null;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* next:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Wait for the next message from the sub-queues.  Each sub-queue is tried
+     * once, and if all are empty the thread waits to become the worker's only
+     * polling thread.  The polling thread's consecutive waits back off from
+     * MIN_POLL_MILLIS to the poll interval, and the backoff is reset when the
+     * next thread takes over polling.
+     *
+     * @param channel the calling thread's channel
+     * @return the delivered message
+     * @throws IOException if the broker can't be read
+     * @throws InterruptedException when the thread is interrupted while waiting
+     */
+    DeliveryResponse next(Channel channel)
+     throws IOException, InterruptedException
+    {
+        // Try the sub-queues once without waiting.
+        var delivery = poll(channel);
+        if (delivery != null) return delivery;
+
+        // Wait until no other thread is polling.
+        synchronized (_pollLock) {
+            while (_polling) _pollLock.wait();
+            _polling = true;
+        }
+
+        // Poll until a message arrives, backing off while all queues are empty.
+        try {
+            long waitMillis = MIN_POLL_MILLIS;
+            while (true) {
+                delivery = poll(channel);
+                if (delivery != null) return delivery;
+                Thread.sleep(waitMillis);
+                waitMillis = Math.min(waitMillis * 2, _pollMillis);
+            }
+        }
+        finally {
+            // Hand polling over to one of the waiting threads.
+            synchronized (_pollLock) {
+                _polling = false;
+                _pollLock.notify();
+            }
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* poll:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Try each sub-queue at most once in fair share order.
+     *
+     * @param channel the calling thread's channel
+     * @return the delivered message or null if all sub-queues are empty
+     * @throws IOException if the broker can't be read
+     */
+    private DeliveryResponse poll(Channel channel)
+     throws IOException
+    {
+        var drr = getRotation();
+        for (int i = 0; i < drr.size(); i++) {
+            String queueName = drr.next();
+            final boolean autoAck = false;
+            GetResponse resp = channel.basicGet(queueName, autoAck);
+            if (resp == null) {drr.empty(queueName); continue;}
+
+            // Package the message as the consumer does.
+            var delivery = new DeliveryResponse();
+            delivery.envelope   = resp.getEnvelope();
+            delivery.properties = resp.getProps();
+            delivery.body       = resp.getBody();
+            return delivery;
+        }
+        return null;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getRotation:                                                           */
+    /* ---------------------------------------------------------------------- */
+    private DeficitRoundRobin getRotation()
+    {
+        synchronized (this) {
+            if (System.currentTimeMillis() - _lastRefresh >= REFRESH_MILLIS) refresh();
+        }
+        return _drr;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* refresh:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Rebuild the rotation from the current tenants and queue weights.  The
+     * previous rotation is kept if the new one can't be built.
+     */
+    private synchronized void refresh()
+    {
+        _lastRefresh = System.currentTimeMillis();
+        try {
+            // Get the current weights; a missing queue leaves equal weights.
+            var queue = new JobQueuesDao().getJobQueueByName(_queueName);
+            var weights = DeficitRoundRobin.parseWeights(queue == null ? null : queue.getTenantWeights());
+
+            // The submit queue itself comes first.
+            var keyWeights = new LinkedHashMap<String,Integer>();
+            keyWeights.put(_queueName, DeficitRoundRobin.getWeight(weights, DeficitRoundRobin.WILDCARD_KEY));
+
+            // Add each tenant's sub-queue in a stable order.  Queues that don't
+            // exist on the broker are skipped since reading them closes the channel.
+            var qmgr = JobQueueManager.getInstance();
+            for (var tenantId : new TreeSet<>(TenantManager.getInstance().getTenants().keySet())) {
+                String subQueueName = JobQueueManagerNames.getFairShareQueueName(_queueName, tenantId);
+                if (qmgr.declareFairShareQueue(subQueueName))
+                    keyWeights.put(subQueueName, DeficitRoundRobin.getWeight(weights, tenantId));
+            }
+            _drr = new DeficitRoundRobin(keyWeights);
+
+            if (_log.isDebugEnabled())
+                _log.debug(MsgUtils.getMsg("JOBS_FAIR_SHARE_REFRESHED", _queueName, keyWeights));
+        }
+        catch (Exception e) {
+            String msg = MsgUtils.getMsg("JOBS_FAIR_SHARE_REFRESH_ERROR", _queueName, e.getMessage());
+            _log.error(msg, e);
+
+            // We need some rotation.
+            if (_drr == null) {
+                var keyWeights = new LinkedHashMap<String,Integer>();
+                keyWeights.put(_queueName, DeficitRoundRobin.DEFAULT_WEIGHT);
+                _drr = new DeficitRoundRobin(keyWeights);
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package edu.utexas.tacc.tapis.jobs.worker;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.utexas.tacc.tapis.jobs.model.Job;
+
+/** The registry of jobs actively being processed by this worker process.
+ * The worker's single command topic consumer receives commands for all jobs
+ * and uses this registry to deliver each command to the job that it targets.
+ * Commands for jobs not in the registry are meant for other workers or for
+ * jobs that are no longer being processed, including jobs that have been
+ * handed off to the recovery subsystem.
+ *
+ * A job is registered by the worker thread that processes it after the job's
+ * execution context is initialized, and it's unregistered when the worker
+ * thread stops processing the job for any reason.
+ *
+ * @author rcardone
+ */
+final class JobCmdRegistry
+{
+  /* ********************************************************************** */
+  /*                                 Fields                                 */
+  /* ********************************************************************** */
+  // Active jobs keyed by job uuid.
+  private static final ConcurrentHashMap<String,Job> _jobs = new ConcurrentHashMap<>();
+
+  /* ********************************************************************** */
+  /*                              Constructors                              */
+  /* ********************************************************************** */
+  private JobCmdRegistry() {}
+
+  /* ********************************************************************** */
+  /*                             Public Methods                             */
+  /* ********************************************************************** */
+  /* ---------------------------------------------------------------------- */
+  /* register:                                                              */
+  /* ---------------------------------------------------------------------- */
+  /** Begin receiving commands for the job.
+   *
+   * @param job the job being processed by the calling thread
+   */
+  static void register(Job job) {_jobs.put(job.getUuid(), job);}
+
+  /* ---------------------------------------------------------------------- */
+  /* unregister:                                                            */
+  /* ---------------------------------------------------------------------- */
+  /** Stop receiving commands for the job.  The job is only removed if it's
+   * the object that was registered, so a stale reference can never remove
+   * a newer registration of the same job uuid.
+   *
+   * @param job the job previously registered by the calling thread
+   */
+  static void unregister(Job job) {_jobs.remove(job.getUuid(), job);}
+
+  /* ---------------------------------------------------------------------- */
+  /* getJob:                                                                */
+  /* ---------------------------------------------------------------------- */
+  /** Get the active job with the uuid.
+   *
+   * @param jobUuid the job uuid
+   * @return the job or null if the job is not being processed by this worker
+   */
+  static Job getJob(String jobUuid) {return jobUuid == null ? null : _jobs.get(jobUuid);}
+}
@@ -0,0 +1,87 @@
+package edu.utexas.tacc.tapis.jobs.worker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobPartitionsDao;
+
+/** This thread periodically performs maintenance on the range partitioned jobs
+ * and job_events tables.  Each round creates partitions for upcoming months and
+ * moves aged partitions that contain no active jobs to the cold tier.  Any number
+ * of workers can run this thread; a database advisory lock guarantees that only
+ * one of them performs maintenance at a time.
+ *
+ * @author rcardone
+ */
+final class JobPartitionArchiver
+ extends Thread
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(JobPartitionArchiver.class);
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // Time between maintenance rounds.
+    private final long _intervalMillis;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    JobPartitionArchiver(ThreadGroup threadGroup, String threadName, int intervalMinutes)
+    {
+        super(threadGroup, threadName);
+        _intervalMillis = intervalMinutes * 60L * 1000L;
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* run:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    @Override
+    public void run()
+    {
+        // Tracing.
+        if (_log.isInfoEnabled())
+            _log.info("Starting partition archiver thread " + getName() +
+                      " with interval " + _intervalMillis + " milliseconds.");
+
+        // Perform maintenance immediately and then periodically.
+        var parms = RuntimeParameters.getInstance();
+        while (!isInterrupted()) {
+            try {
+                int cold = new JobPartitionsDao().maintainPartitions(
+                                    parms.getPartitionMonthsAhead(),
+                                    parms.getPartitionColdDays(),
+                                    parms.getPartitionColdTablespace());
+                if (cold < 0) {
+                    if (_log.isDebugEnabled())
+                        _log.debug("Partition maintenance is being performed by another process.");
+                }
+                else if (cold > 0 && _log.isInfoEnabled())
+                    _log.info("Partition maintenance moved " + cold + " partition(s) to the cold tier.");
+            }
+            catch (Exception e) {
+                // Try again next round.
+                _log.error(e.getMessage(), e);
+            }
+
+            // Wait for the next round.
+            try {Thread.sleep(_intervalMillis);}
+                catch (InterruptedException e) {break;}
+        }
+
+        // Say goodbye.
+        if (_log.isInfoEnabled())
+            _log.info("Stopping partition archiver thread " + getName() + ".");
+    }
+}
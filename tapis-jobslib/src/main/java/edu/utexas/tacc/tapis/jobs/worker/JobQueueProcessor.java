@@ -1,7 +1,5 @@
 package edu.utexas.tacc.tapis.jobs.worker;
 
-import java.util.concurrent.ThreadLocalRandom;
-
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -15,7 +13,9 @@ import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.exceptions.recoverable.JobRecoverableException;
 import edu.utexas.tacc.tapis.jobs.exceptions.recoverable.JobRecoveryDefinitions.BlockedJobActivity;
 import edu.utexas.tacc.tapis.jobs.exceptions.runtime.JobAsyncCmdException;
+import edu.utexas.tacc.tapis.jobs.exceptions.runtime.JobThrottledException;
 import edu.utexas.tacc.tapis.jobs.launchers.JobLauncherFactory;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetrics;
 import edu.utexas.tacc.tapis.jobs.model.Job;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobRemoteOutcome;
@@ -24,8 +24,10 @@ import edu.utexas.tacc.tapis.jobs.model.enumerations.JobType;
 import edu.utexas.tacc.tapis.jobs.queue.DeliveryResponse;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
+import edu.utexas.tacc.tapis.jobs.queue.QueueMsgCodec;
 import edu.utexas.tacc.tapis.jobs.queue.messages.JobSubmitMsg;
 import edu.utexas.tacc.tapis.jobs.recover.RecoveryUtils;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.jobs.utils.JobUtils;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionContext;
 import edu.utexas.tacc.tapis.jobs.worker.execjob.QuotaChecker;
@@ -36,8 +38,10 @@ import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.providers.email.EmailClient;
 import edu.utexas.tacc.tapis.shared.providers.email.EmailClientFactory;
 import edu.utexas.tacc.tapis.shared.utils.HTMLizer;
-import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.context.Scope;
 
 /** Main processing class for job worker.  Each instance of this class runs on
  * its own thread and pulls jobs off of the job submission queue.  The thread
@@ -68,15 +72,16 @@ final class JobQueueProcessor
   // Tracing.
   private static final Logger _log = LoggerFactory.getLogger(JobQueueProcessor.class);
   
-  // Job start delay when throttling is required.
-  private static final int JOB_START_DELAY_MS    = 1000;
-  private static final int JOB_START_MAX_SKEW_MS = 2000;
-  
   /* ********************************************************************** */
   /*                                 Fields                                 */
   /* ********************************************************************** */
-  // The job-specific topic thread spawned when processing a job.
-  private JobTopicThread _jobTopicThread;
+  // The processing phase in progress.  Each processor is used by a single
+  // worker thread, so these fields are not shared.
+  private Job           _phaseJob;
+  private JobStatusType _phase;
+  private long          _phaseStart;
+  private Span          _phaseSpan;
+  private Scope         _phaseScope;
   
   /* ********************************************************************** */
   /*                              Constructors                              */
@@ -86,6 +91,15 @@ final class JobQueueProcessor
   /* ---------------------------------------------------------------------- */
   JobQueueProcessor(JobWorker jobWorker){super(jobWorker);}
   
+  /* ---------------------------------------------------------------------- */
+  /* getFairShareDispatcher:                                                */
+  /* ---------------------------------------------------------------------- */
+  @Override
+  protected FairShareDispatcher getFairShareDispatcher() 
+  {
+      return _jobWorker.getFairShareDispatcher();
+  }
+  
   /* ********************************************************************** */
   /*                           Protected Methods                            */
   /* ********************************************************************** */
@@ -154,15 +168,22 @@ final class JobQueueProcessor
     JobExecutionContext jobCtx = null;
     boolean ack = true; // be optimistic that things will succeed.
     JobSubmitMsg jobMsg = null;
+    Span jobSpan = null;
+    Scope jobScope = null;
     
     try {
       // Reconstitute the job submit message.
-      String body = new String(delivery.body);
-      jobMsg = TapisGsonUtils.getGson(true).fromJson(body, JobSubmitMsg.class);
+      jobMsg = QueueMsgCodec.decode(delivery.body, JobSubmitMsg.class);
+      
+      // Continue the trace started by the submitter.
+      jobSpan = JobTracing.startSpan(JobTracing.SPAN_PROCESS, SpanKind.CONSUMER,
+                                     JobTracing.extract(jobMsg.getTraceContext()));
+      jobScope = jobSpan.makeCurrent();
       
       // Determine if new or existing job processing is required.
       JobsDao jobsDao = new JobsDao();
       Job job = jobsDao.getJobByUUID(jobMsg.getUuid());
+      JobTracing.setJobAttributes(jobSpan, job);
       
       // Do we have a record of this job?
       if (job == null) {
@@ -173,6 +194,10 @@ final class JobQueueProcessor
     	  throw new JobException(msg);
       }
       
+      // Record how long new jobs waited for a worker.
+      if (job.getStatus() == JobStatusType.PENDING && jobMsg.getThrottleRedeliveries() == 0)
+          JobMetrics.recordQueueWait(job);
+      
       // Create the execution context used for the remainder of job processing.
       // Threadlocal fields are set here and reference to the context is also
       // stored in the job.  
@@ -180,20 +205,29 @@ final class JobQueueProcessor
       // We also get a fresh notification list from the db, which is necessary
       // on resubmissions.
       jobCtx = new JobExecutionContext(job, jobsDao);
+      jobCtx.setThrottleRedeliveries(jobMsg.getThrottleRedeliveries());
       
       // Remove references to the job outside of the context object.
       job = null;
       
-      // Start the job-specific topic thread after completing job initialization so that
-      // the changes to the job on this thread happen before the topic thread starts.
-      startJobTopicThread(jobCtx.getJob());
+      // Receive asynchronous commands for this job from the worker's command topic.  
+      // The job is registered after its initialization is complete so that the
+      // changes to the job on this thread are visible to the command thread.
+      JobCmdRegistry.register(jobCtx.getJob());
 
       // Begin job processing.  Swallow exceptions that indicate an
       // asynchronous command has interrupted normal processing to
-      // put the job into a inactive or terminal state.  All other
-      // exceptions are handled by the enclosing try block.
+      // put the job into a inactive or terminal state.  Throttled 
+      // jobs are redelivered later without changing their status.
+      // All other exceptions are handled by the enclosing try block.
+      JobMetrics.jobStarted();
       try {ack = processJob(jobCtx);}
           catch (JobAsyncCmdException e) {}
+          catch (JobThrottledException e) {
+              endPhase(JobMetrics.OUTCOME_THROTTLED);
+              redeliverThrottledJob(jobMsg, delivery);
+          }
+          finally {endPhase(JobMetrics.OUTCOME_ERROR); JobMetrics.jobEnded();}
     }
     catch (Exception e) {
         // Initialize the job if one exists.
@@ -210,6 +244,11 @@ final class JobQueueProcessor
         // Leave now if we don't have a job.
         if (job == null) { setFinalMessageToNull(jobCtx); return false; }
         
+        // Stop receiving commands before the job can be handed off to the
+        // recovery subsystem, which receives its own copy of cancel commands.
+        // Any command delivered up to this point is checked next.
+        JobCmdRegistry.unregister(job);
+        
         // Check for a cancel command that occurred after the exception or
         // while the worker thread was blocked on i/o and never had a chance
         // to check again.  Cancellation takes precedence over recovery.
@@ -248,10 +287,13 @@ final class JobQueueProcessor
           jobCtx.close();
       }
     	
-      // Always interrupt and clear the job-specific thread 
-      // spawned by this thread (if it exists) when we are
-      // finished processing the current job.
-      interruptJobTopicThread();
+      // Always stop receiving commands for the job when
+      // we are finished processing it.
+      if (jobCtx != null) JobCmdRegistry.unregister(jobCtx.getJob());
+      
+      // End the job's processing span.
+      if (jobScope != null) jobScope.close();
+      JobTracing.endSpan(jobSpan, ack);
     }
     
     // TODO: need more than just ack and reject-discard; exception handling needs thought.
@@ -261,46 +303,6 @@ final class JobQueueProcessor
   /* ********************************************************************** */
   /*                            Private Methods                             */
   /* ********************************************************************** */
-  /* ---------------------------------------------------------------------- */
-  /* setJobTopicThread:                                                     */
-  /* ---------------------------------------------------------------------- */
-  /** Serialize access the job thread field whenever it's updated.
-   * 
-   * @param thread the job-specific thread spawned by this thread
-   */
-  private synchronized void setJobTopicThread(JobTopicThread thread) {_jobTopicThread = thread;}
-
-  /* ---------------------------------------------------------------------- */
-  /* startJobTopicThread:                                                   */
-  /* ---------------------------------------------------------------------- */
-  private void startJobTopicThread(Job job)
-  {
-    // Spawn the job-specific thread and save its reference in _jobTopicThread. 
-    JobTopicThread jobTopicWorker = new JobTopicThread(Thread.currentThread().getName(), job);
-    jobTopicWorker.setDaemon(true);
-    jobTopicWorker.setUncaughtExceptionHandler(_jobWorker);
-    jobTopicWorker.start();
-  }
-  
-  /* ---------------------------------------------------------------------- */
-  /* interruptJobTopicThread:                                               */
-  /* ---------------------------------------------------------------------- */
-  /** Serialize access to the job thread field whenever it's updated. */
-  private synchronized void interruptJobTopicThread()
-  {
-    if (_jobTopicThread == null) return;
-    _jobTopicThread.interrupt();
-    _jobTopicThread = null;
-  }
-  
-  /* ---------------------------------------------------------------------- */
-  /* createJobThreadName:                                                   */
-  /* ---------------------------------------------------------------------- */
-  /** The job-specific thread name uses the spawning thread name as prefix. */
-  private String createJobThreadName(String workerThreadName) {
-    return workerThreadName + JobWorker.JOB_TOPIC_THREAD_SUFFIX;
-  }
-  
   /* ---------------------------------------------------------------------- */
   /* checkFinalMessageField:                                                */
   /* ---------------------------------------------------------------------- */
@@ -409,6 +411,10 @@ final class JobQueueProcessor
       // The main processing loop advances state to state.
       boolean keepProcessing = true;
       while (keepProcessing) {
+          // Time and trace each phase of processing.  Phases that end with
+          // an exception are ended by the caller of this method.
+          startPhase(job);
+          
           // Use the result of each case to determine if we iterate.
           keepProcessing = switch (job.getStatus()) {
           
@@ -440,12 +446,46 @@ final class JobQueueProcessor
             	                         throw new JobException(MsgUtils.getMsg(
                                             "JOBS_UNKNOWN_STATUS", job.getUuid(), job.getStatus()));}
           };
+          endPhase(JobMetrics.OUTCOME_SUCCESS);
       }
       
       // Acknowledge the queue message.
       return rc;
   }
   
+  /* ---------------------------------------------------------------------- */
+  /* startPhase:                                                            */
+  /* ---------------------------------------------------------------------- */
+  /** Start timing and tracing the processing of the job in its current status. */
+  private void startPhase(Job job)
+  {
+      _phaseJob   = job;
+      _phase      = job.getStatus();
+      _phaseStart = System.nanoTime();
+      _phaseSpan  = JobTracing.startJobSpan(JobTracing.SPAN_PHASE_PREFIX + _phase.name(),
+                                            SpanKind.INTERNAL, job);
+      _phaseScope = _phaseSpan.makeCurrent();
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* endPhase:                                                              */
+  /* ---------------------------------------------------------------------- */
+  /** Record the phase in progress, if any, with the specified outcome.  Only
+   * the first call after startPhase() has an effect.  Throttled phases are 
+   * recorded separately from errors.
+   */
+  private void endPhase(String outcome)
+  {
+      if (_phaseSpan == null) return;
+      _phaseScope.close();
+      JobMetrics.recordPhase(_phaseJob, _phase, _phaseStart, outcome);
+      JobTracing.endSpan(_phaseSpan, !JobMetrics.OUTCOME_ERROR.equals(outcome));
+      _phaseJob   = null;
+      _phase      = null;
+      _phaseSpan  = null;
+      _phaseScope = null;
+  }
+  
   /* ---------------------------------------------------------------------- */
   /* doPending:                                                             */
   /* ---------------------------------------------------------------------- */
@@ -625,7 +665,10 @@ final class JobQueueProcessor
       jobCtx.checkCmdMsg();
     
       // Submit job.
+      // A throttled launch is not a launch failure, so the job's
+      // condition is left alone when it's redelivered.
       try {jobCtx.submitJob();}
+      catch (JobThrottledException e) {throw e;}
       catch (Exception e) {
     	  if (TapisUtils.findInChain(e, TapisRecoverableException.class) == null)
     		  job.setCondition(JobConditionCode.JOB_LAUNCH_FAILURE);
@@ -815,23 +858,56 @@ final class JobQueueProcessor
   /* ---------------------------------------------------------------------- */
   /* throttleJobStart:                                                      */
   /* ---------------------------------------------------------------------- */
+  /** Limit the number of jobs this worker starts in a short time interval. 
+   * Rather than delaying the job on this thread, jobs that exceed the limit
+   * are redelivered after a delay, possibly to a less busy worker.  A job is
+   * only redelivered once by this throttle.
+   * 
+   * @param job the job about to start
+   * @throws JobThrottledException when the job should be redelivered later
+   */
   private void throttleJobStart(Job job)
   {
       // If a new timestamp was recorded, then we haven't exceeded the 
-      // limit of job starts in the sliding window interval.  Otherwise, 
-      // we should delay this job's execution for a few seconds.
-      if (_jobWorker.getJobStartThrottle().record()) return;
-      
-      // Calculate a randomized but short delay in milliseconds.
-      var skewMs = ThreadLocalRandom.current().nextInt(JOB_START_MAX_SKEW_MS);
-      skewMs += JOB_START_DELAY_MS;
+      // limit of job starts in the sliding window interval.  Jobs that 
+      // have already been redelivered don't wait again.
+      if (_jobWorker.getJobStartThrottle().record() || 
+          job.getJobCtx().getThrottleRedeliveries() > 0) 
+      {
+          JobMetrics.recordThrottleWait(job, JobMetrics.THROTTLE_START, 0, JobMetrics.OUTCOME_GRANTED);
+          return;
+      }
       
-      // Log the delay.
+      // Redeliver the job.
+      int delayMs = RuntimeParameters.getInstance().getThrottleRedeliverySeconds() * 1000;
+      JobMetrics.recordThrottleWait(job, JobMetrics.THROTTLE_START, delayMs, JobMetrics.OUTCOME_REDELIVERED);
       if (_log.isDebugEnabled())
-          _log.debug(MsgUtils.getMsg("JOBS_DELAYED_START", job.getUuid(), skewMs));
+          _log.debug(MsgUtils.getMsg("JOBS_DELAYED_START", job.getUuid(), delayMs));
+      throw new JobThrottledException(MsgUtils.getMsg("JOBS_DELAYED_START", job.getUuid(), delayMs));
+  }
+  
+  /* ---------------------------------------------------------------------- */
+  /* redeliverThrottledJob:                                                 */
+  /* ---------------------------------------------------------------------- */
+  /** Post the job's submit message to the delay queue so that it's redelivered
+   * to this worker's submit queue later.  The job's status is unchanged.  
+   * 
+   * @param jobMsg the message that delivered the job to this worker
+   * @param delivery the delivery whose routing key identifies the submit queue
+   * @throws JobException if the message could not be posted
+   */
+  private void redeliverThrottledJob(JobSubmitMsg jobMsg, DeliveryResponse delivery) 
+   throws JobException
+  {
+      // Count the redelivery and keep the job's trace going.
+      jobMsg.setThrottleRedeliveries(jobMsg.getThrottleRedeliveries() + 1);
+      jobMsg.setTraceContext(JobTracing.inject());
       
-      // Delay for the randomized period.
-      try {Thread.sleep(skewMs);} catch (InterruptedException e) {}
+      // Return the job to the queue it came from, which is 
+      // a tenant sub-queue on fair share queues.
+      String queueName = delivery.envelope.getRoutingKey();
+      if (StringUtils.isBlank(queueName)) queueName = _jobWorker.getParms().queueName;
+      JobQueueManager.getInstance().requeueJobDelayed(jobMsg, queueName);
   }
   
   /* ---------------------------------------------------------------------- */
@@ -1079,40 +1155,4 @@ final class JobQueueProcessor
           _log.error(msg + " Failed to send support Email alert. Email client failed with exception.", ae);
         }
   }
-  
-  /* ********************************************************************** */
-  /*                           JobTopicThread Class                         */
-  /* ********************************************************************** */
-  /** This class reads the event topic for job-specific events. */
-  final class JobTopicThread extends JobWorkerThread
-  {
-    // Fields
-    private final Job _job;
-    
-    // Constructor
-    JobTopicThread(String workerThreadName, Job job) 
-    {
-      // Initialize superclass.
-      super(_jobWorker.getJobThreadGroup(), createJobThreadName(workerThreadName), _jobWorker,  
-            JobQueueManagerNames.getCmdSpecificJobTopicName(job.getUuid()), 
-            new JobTopicProcessor(_jobWorker, job));
-      
-      // Save the job uuid in this thread class for restart purposes.
-      _job = job;
-      
-      // Save a reference to this thread in enclosing class.
-      // Making the assignment here allows this job-specific
-      // thread's reference to be maintained in the enclosing 
-      // instance even if this thread dies unexpectedly.
-      setJobTopicThread(this);
-    }
-    
-    // Allow the JobWorker to access the enclosing instance 
-    // in case this thread needs to be restarted.  See 
-    // JobWorker.uncaughtException() for details.
-    JobQueueProcessor getEnclosing(){return JobQueueProcessor.this;}
-    
-    // Allow the JobWorker to access the job uuid for restart purposes.
-    Job getJob(){return _job;}
-  }
 }
@@ -13,10 +13,12 @@ import org.slf4j.MDC;
 import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.impl.JobsImpl;
+import edu.utexas.tacc.tapis.jobs.metrics.JobMetricsServer;
+import edu.utexas.tacc.tapis.jobs.monitors.StatusCheckWriter;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManager;
 import edu.utexas.tacc.tapis.jobs.queue.JobQueueManagerNames;
 import edu.utexas.tacc.tapis.jobs.queue.messages.event.WkrStatusResp;
-import edu.utexas.tacc.tapis.jobs.worker.JobQueueProcessor.JobTopicThread;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.security.ServiceContext;
@@ -51,7 +53,7 @@ public final class JobWorker
     
     // Thread name components.
     private static final String CMD_TOPIC_THREAD_SUFFIX = "-CmdTopic";
-    static final String         JOB_TOPIC_THREAD_SUFFIX   = "-Job";
+    private static final String PARTITION_ARCHIVER_THREAD_SUFFIX = "-PartitionArchiver";
     
     // The time to wait before actually shutting down after 
     // the shutdown() method is called.
@@ -76,6 +78,9 @@ public final class JobWorker
     // Limit the number of jobs immediately started within a short time period.
     private final Throttle      _jobStartThrottle = initJobStartThrottle();
     
+    // Selects the next job when the worker's queue has tenant weights.
+    private FairShareDispatcher _fairShareDispatcher;
+    
     // The thread group for all explicitly spawned worker threads in this program.
     private ThreadGroup         _workerThreadGroup;
     
@@ -151,6 +156,9 @@ public final class JobWorker
     {
       // Force runtime parameters to be initialized early.
       RuntimeParameters.getInstance();
+      
+      // Enable tracing if configured.
+      JobTracing.initialize(_parms.name);
         
       // Announce our arrival.
       if (_log.isInfoEnabled()) _log.info(getStartUpInfo());
@@ -168,6 +176,12 @@ public final class JobWorker
       // Start the worker threads.
       startJobQueueThreads();
       
+      // Start the partition maintenance thread if configured.
+      startPartitionArchiver();
+      
+      // Expose metrics if configured.
+      JobMetricsServer.start(RuntimeParameters.getInstance().getMetricsPort());
+      
       // Wait for the last thread to complete.
       waitForShutdown();
       
@@ -262,6 +276,12 @@ public final class JobWorker
     /* ---------------------------------------------------------------------- */
     Throttle getJobStartThrottle() {return _jobStartThrottle;}
     
+    /* ---------------------------------------------------------------------- */
+    /* getFairShareDispatcher:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Null unless the worker's queue is a fair share queue. */
+    FairShareDispatcher getFairShareDispatcher() {return _fairShareDispatcher;}
+    
     /* ********************************************************************** */
     /*                             Private Methods                            */
     /* ********************************************************************** */
@@ -395,6 +415,11 @@ public final class JobWorker
     /** Start the configured number of worker threads. */
     private void startJobQueueThreads()
     {
+      // All threads share the dispatcher of a fair share queue.
+      _fairShareDispatcher = FairShareDispatcher.create(_parms.queueName);
+      if (_fairShareDispatcher != null)
+          _log.info(MsgUtils.getMsg("JOBS_FAIR_SHARE_ENABLED", _parms.name, _parms.queueName));
+      
       // Create and start the required number of worker threads.
       for (int i = 0; i < _parms.numWorkers; i++) {
         // Create the new thread.
@@ -407,6 +432,24 @@ public final class JobWorker
       }
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* startPartitionArchiver:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Start the thread that maintains the jobs and job_events partitions unless
+     * partition maintenance is disabled in this worker.
+     */
+    private void startPartitionArchiver()
+    {
+      int minutes = RuntimeParameters.getInstance().getPartitionArchiverMinutes();
+      if (minutes <= 0) return;
+      
+      JobPartitionArchiver archiver = new JobPartitionArchiver(_topicThreadGroup,
+                                          _parms.name + PARTITION_ARCHIVER_THREAD_SUFFIX, 
+                                          minutes);
+      archiver.setDaemon(true);
+      archiver.start();
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* createThreadGroups:                                                    */
     /* ---------------------------------------------------------------------- */
@@ -489,6 +532,12 @@ public final class JobWorker
         // Shutdown the connections to the queue broker.
         qm.closeConnections(JobQueueManager.DEFAULT_CONN_CLOSE_TIMEOUT_MS);
         
+        // Stop serving metrics.
+        JobMetricsServer.stop();
+        
+        // Write any status check counts not yet in the database.
+        StatusCheckWriter.getInstance().shutdown();
+        
         // Shutdown the database connections.
         TapisDataSource.close();
     }
@@ -567,10 +616,6 @@ public final class JobWorker
                 newWorker = new JobQueueThread();
             else if (oldWorker instanceof CmdTopicThread)
                 newWorker = new CmdTopicThread();
-            else if (oldWorker instanceof JobTopicThread) {
-                JobTopicThread jobThread = (JobTopicThread) oldWorker;
-                newWorker = jobThread.getEnclosing().new JobTopicThread(jobThread.getName(), jobThread.getJob());
-            }
             else {
               // We have an unknown subclass of JobWorkerThread!
               // Log the information and return.
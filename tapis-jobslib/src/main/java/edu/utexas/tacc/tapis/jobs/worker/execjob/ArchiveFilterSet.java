@@ -0,0 +1,334 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+import java.util.stream.Collectors;
+
+import edu.utexas.tacc.tapis.files.client.gen.model.FileInfo;
+
+/** The compiled form of a job's archive include and exclude filters.  Each
+ * filter list is compiled once into at most three matchers that are applied
+ * to every output file path:
+ *
+ *  - a hash set of glob filters that contain no wildcards,
+ *  - a single regex that is the alternation of all other glob filters, and
+ *  - a single regex that is the alternation of all REGEX: filters.
+ *
+ * Glob filters are translated to regexes using the same rules as the default
+ * file system's glob PathMatcher, and they are matched against the normalized
+ * path just as a PathMatcher would match a Path object.  Regex filters are
+ * matched against the path as is.  Regex filters that use back references,
+ * unterminated quoting or comments mode are compiled individually since their
+ * meaning could change if combined.
+ *
+ * Exclude filters take precedence over include filters.  An empty include list
+ * or one that obviously matches all paths includes all files not excluded.
+ *
+ * Instances are immutable and can be used by multiple threads.
+ *
+ * @author rcardone
+ */
+final class ArchiveFilterSet
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // File lists at least this long are filtered in parallel.
+    static final int PARALLEL_THRESHOLD = 50000;
+
+    // Characters with special meaning in globs and regexes.
+    private static final String GLOB_META_CHARS  = "\\*?[{";
+    private static final String REGEX_META_CHARS = ".^$+{[]|()";
+    private static final char   EOL = 0;
+
+    // Detect regexes that cannot be safely combined: back references, quoting
+    // and embedded flags that enable comments.
+    private static final Pattern _uncombinablePattern =
+        Pattern.compile("\\\\([1-9]|k<|Q)|\\(\\?[a-zA-Z-]*x");
+
+    /* ********************************************************************** */
+    /*                                 Fields                                 */
+    /* ********************************************************************** */
+    // The compiled filter lists, null when the list has no effect.
+    private final CompiledFilters _excludes;
+    private final CompiledFilters _includes;
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* constructor:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Compile the include and exclude filters.
+     *
+     * @param includes the non-null list of include filters
+     * @param excludes the non-null list of exclude filters
+     * @throws PatternSyntaxException if a glob or regex filter is invalid
+     */
+    ArchiveFilterSet(List<String> includes, List<String> excludes)
+    {
+        _excludes = excludes.isEmpty() ? null : new CompiledFilters(excludes);
+        _includes = includes.isEmpty() || matchesAll(includes) ? null : new CompiledFilters(includes);
+    }
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* accept:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether a file is archived.
+     *
+     * @param path the file path relative to the job output directory
+     * @return true if the file is not excluded and is included
+     */
+    boolean accept(String path)
+    {
+        if (_excludes != null && _excludes.matches(path)) return false;
+        return _includes == null || _includes.matches(path);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* isNoop:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** @return true if every file is accepted */
+    boolean isNoop() {return _excludes == null && _includes == null;}
+
+    /* ---------------------------------------------------------------------- */
+    /* filter:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Return the accepted files in their original order.  Large lists are
+     * filtered in parallel.
+     *
+     * @param fileList the unfiltered file list
+     * @param relativizer maps a file's absolute path to its output relative path
+     * @return a new list of accepted files or the original list if no filtering
+     *         is needed
+     */
+    List<FileInfo> filter(List<FileInfo> fileList, UnaryOperator<String> relativizer)
+    {
+        if (isNoop() || fileList.isEmpty()) return fileList;
+        var stream = fileList.size() >= PARALLEL_THRESHOLD ? fileList.parallelStream() : fileList.stream();
+        return stream.filter(f -> accept(relativizer.apply(f.getPath())))
+                     .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* matchesAll:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Determine if the filter list will match any string.  Only the most
+     * common ways of specifying a pattern that matches all strings are tested.
+     *
+     * @param filters the list of glob or regex filters
+     * @return true if list contains a filter that will match all strings, false
+     *              if no single filter will match all strings
+     */
+    static boolean matchesAll(List<String> filters)
+    {
+        // Check the most common ways to express all strings using glob.
+        if (filters.contains("**/*")) return true;
+
+        // Check the common way to express all strings using a regex.
+        if (filters.contains("REGEX(.*)")) return true;
+
+        // No no-op filters found.
+        return false;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* globToRegex:                                                           */
+    /* ---------------------------------------------------------------------- */
+    /** Translate a glob into the regex used by the default unix file system's
+     * glob PathMatcher.  The regex is anchored at both ends.
+     *
+     * @param glob the glob
+     * @return the equivalent regex
+     * @throws PatternSyntaxException if the glob is invalid
+     */
+    static String globToRegex(String glob)
+    {
+        boolean inGroup = false;
+        var regex = new StringBuilder(glob.length() + 16).append('^');
+
+        int i = 0;
+        while (i < glob.length()) {
+            char c = glob.charAt(i++);
+            switch (c) {
+                case '\\':
+                    // Escape the next character.
+                    if (i == glob.length())
+                        throw new PatternSyntaxException("No character to escape", glob, i - 1);
+                    char next = glob.charAt(i);
+                    if (isGlobMeta(next) || isRegexMeta(next)) regex.append('\\');
+                    regex.append(next);
+                    i++;
+                    break;
+                case '/':
+                    regex.append(c);
+                    break;
+                case '[':
+                    // Character classes never match the separator.
+                    regex.append("[[^/]&&[");
+                    if (next(glob, i) == '^') {
+                        // Escape the regex negation char if it appears.
+                        regex.append("\\^");
+                        i++;
+                    } else {
+                        // Negation.
+                        if (next(glob, i) == '!') {regex.append('^'); i++;}
+                        // Hyphen allowed at start.
+                        if (next(glob, i) == '-') {regex.append('-'); i++;}
+                    }
+                    boolean hasRangeStart = false;
+                    char last = 0;
+                    while (i < glob.length()) {
+                        c = glob.charAt(i++);
+                        if (c == ']') break;
+                        if (c == '/')
+                            throw new PatternSyntaxException("Explicit 'name separator' in class", glob, i - 1);
+                        if (c == '\\' || c == '[' || c == '&' && next(glob, i) == '&') regex.append('\\');
+                        regex.append(c);
+                        if (c == '-') {
+                            if (!hasRangeStart)
+                                throw new PatternSyntaxException("Invalid range", glob, i - 1);
+                            if ((c = next(glob, i++)) == EOL || c == ']') break;
+                            if (c < last)
+                                throw new PatternSyntaxException("Invalid range", glob, i - 3);
+                            regex.append(c);
+                            hasRangeStart = false;
+                        } else {
+                            hasRangeStart = true;
+                            last = c;
+                        }
+                    }
+                    if (c != ']') throw new PatternSyntaxException("Missing ']", glob, i - 1);
+                    regex.append("]]");
+                    break;
+                case '{':
+                    if (inGroup) throw new PatternSyntaxException("Cannot nest groups", glob, i - 1);
+                    regex.append("(?:(?:");
+                    inGroup = true;
+                    break;
+                case '}':
+                    if (inGroup) {regex.append("))"); inGroup = false;}
+                      else regex.append('}');
+                    break;
+                case ',':
+                    if (inGroup) regex.append(")|(?:");
+                      else regex.append(',');
+                    break;
+                case '*':
+                    if (next(glob, i) == '*') {regex.append(".*"); i++;}
+                      else regex.append("[^/]*");
+                    break;
+                case '?':
+                    regex.append("[^/]");
+                    break;
+                default:
+                    if (isRegexMeta(c)) regex.append('\\');
+                    regex.append(c);
+            }
+        }
+
+        if (inGroup) throw new PatternSyntaxException("Missing '}", glob, i - 1);
+        return regex.append('$').toString();
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* normalize:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Normalize a path the way a unix Path object would, which only requires
+     * work if the path contains redundant or trailing slashes.
+     */
+    private static String normalize(String path)
+    {
+        if (path.contains("//") || (path.length() > 1 && path.endsWith("/")))
+            return Paths.get(path).toString();
+        return path;
+    }
+
+    private static boolean isGlobMeta(char c) {return GLOB_META_CHARS.indexOf(c) >= 0;}
+    private static boolean isRegexMeta(char c) {return REGEX_META_CHARS.indexOf(c) >= 0;}
+    private static char next(String glob, int i) {return i < glob.length() ? glob.charAt(i) : EOL;}
+
+    /* ********************************************************************** */
+    /*                         CompiledFilters Class                          */
+    /* ********************************************************************** */
+    /** The compiled form of a single include or exclude list. */
+    private static final class CompiledFilters
+    {
+        // Globs without wildcards match only themselves.
+        private final HashSet<String> _literalGlobs = new HashSet<>();
+
+        // Combined regexes, null if there are none of that kind.
+        private final Pattern         _globPattern;
+        private final Pattern         _regexPattern;
+
+        // Regexes that cannot be combined.
+        private final List<Pattern>   _separateRegexes = new ArrayList<>();
+
+        private CompiledFilters(List<String> filters)
+        {
+            var globRegexes = new ArrayList<String>();
+            var regexes = new ArrayList<String>();
+            for (var filter : filters) {
+                if (filter.startsWith(JobFileManager.REGEX_FILTER_PREFIX)) {
+                    var regex = filter.substring(JobFileManager.REGEX_FILTER_PREFIX.length());
+                    var pattern = Pattern.compile(regex); // validate before combining
+                    if (_uncombinablePattern.matcher(regex).find()) _separateRegexes.add(pattern);
+                      else regexes.add(regex);
+                } else if (isLiteralGlob(filter)) {
+                    _literalGlobs.add(filter);
+                } else {
+                    var regex = globToRegex(filter);
+                    globRegexes.add(regex.substring(1, regex.length() - 1));
+                }
+            }
+            _globPattern  = combine(globRegexes);
+            _regexPattern = combine(regexes);
+        }
+
+        private boolean matches(String path)
+        {
+            // Globs match normalized paths.
+            if (!_literalGlobs.isEmpty() || _globPattern != null) {
+                var normalized = normalize(path);
+                if (_literalGlobs.contains(normalized)) return true;
+                if (_globPattern != null && _globPattern.matcher(normalized).matches()) return true;
+            }
+
+            // Regexes match the path as is.
+            if (_regexPattern != null && _regexPattern.matcher(path).matches()) return true;
+            for (var p : _separateRegexes) if (p.matcher(path).matches()) return true;
+            return false;
+        }
+
+        private static boolean isLiteralGlob(String filter)
+        {
+            // The only normalized form of a literal glob is itself.
+            for (int i = 0; i < filter.length(); i++)
+                if (isGlobMeta(filter.charAt(i))) return false;
+            return !filter.isEmpty() && normalize(filter).equals(filter);
+        }
+
+        private static Pattern combine(List<String> regexes)
+        {
+            if (regexes.isEmpty()) return null;
+            if (regexes.size() == 1) return Pattern.compile(regexes.get(0));
+            var buf = new StringBuilder();
+            for (var regex : regexes) {
+                if (buf.length() > 0) buf.append('|');
+                buf.append("(?:").append(regex).append(')');
+            }
+            return Pattern.compile(buf.toString());
+        }
+    }
+}
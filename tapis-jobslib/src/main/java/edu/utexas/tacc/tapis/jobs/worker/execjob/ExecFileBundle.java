@@ -0,0 +1,196 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.List;
+import java.util.UUID;
+
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager.ExecFile;
+
+/** Packages generated job files into an in-memory tar archive so that all of
+ * them can be installed in the job's exec directory with one upload and one
+ * remote command.  Only the subset of the ustar format needed for small, flat
+ * files is implemented:  regular files with short names, permissions and
+ * modification time.  Ownership is left to the extracting user.
+ *
+ * The archive is uploaded to the exec directory under a unique hidden name
+ * and unpacked with a command of this form:
+ *
+ *    cd '<execDir>' && tar -xpf <bundleName> && rm -f <bundleName>
+ *
+ * File contents never appear on a command line, so they aren't visible to
+ * other users of the host and don't count against the command length limit.
+ * The command uses only operators common to sh and csh derived login shells.
+ *
+ * @author rcardone
+ */
+final class ExecFileBundle
+{
+    /* ********************************************************************** */
+    /*                               Constants                                */
+    /* ********************************************************************** */
+    // Tar block size and the maximum name length in a ustar header.
+    private static final int BLOCK_SIZE   = 512;
+    private static final int MAX_NAME_LEN = 100;
+
+    // Offsets and lengths of the ustar header fields we populate.
+    private static final int NAME_OFFSET     = 0;
+    private static final int MODE_OFFSET     = 100;
+    private static final int UID_OFFSET      = 108;
+    private static final int GID_OFFSET      = 116;
+    private static final int SIZE_OFFSET     = 124;
+    private static final int MTIME_OFFSET    = 136;
+    private static final int CHKSUM_OFFSET   = 148;
+    private static final int TYPEFLAG_OFFSET = 156;
+    private static final int MAGIC_OFFSET    = 257;
+    private static final int CHKSUM_LEN      = 8;
+
+    // Bundle file name prefix and suffix.  The bundle names contain no 
+    // characters that are special to the shell.
+    private static final String BUNDLE_PREFIX = ".tapis-bundle-";
+    private static final String BUNDLE_SUFFIX = ".tar";
+
+    // Unpack command template.
+    private static final String UNPACK_CMD_FMT = "cd %s && tar -xpf %s && rm -f %s";
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private ExecFileBundle() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* toTar:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Create a tar archive containing the files.
+     *
+     * @param files the non-empty list of files with simple names
+     * @return the archive bytes
+     * @throws IllegalArgumentException if a file name is too long or contains a path
+     */
+    static byte[] toTar(List<ExecFile> files)
+    {
+        var out = new ByteArrayOutputStream(BLOCK_SIZE * (2 * files.size() + 2));
+        long mtime = System.currentTimeMillis() / 1000;
+        for (var file : files) {
+            byte[] content = file.getContent().getBytes();
+            out.writeBytes(createHeader(file.getFileName(), toMode(file.getPermissions()),
+                                        content.length, mtime));
+            out.writeBytes(content);
+            int pad = (BLOCK_SIZE - (content.length % BLOCK_SIZE)) % BLOCK_SIZE;
+            out.writeBytes(new byte[pad]);
+        }
+
+        // Two empty blocks mark the end of the archive.
+        out.writeBytes(new byte[2 * BLOCK_SIZE]);
+        return out.toByteArray();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* newBundleName:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Create a unique name for an uploaded bundle.
+     *
+     * @return the simple file name
+     */
+    static String newBundleName()
+    {
+        return BUNDLE_PREFIX + UUID.randomUUID() + BUNDLE_SUFFIX;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* getUnpackCommand:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Create the remote command that unpacks an uploaded bundle in the
+     * directory and then removes it.
+     *
+     * @param quotedDir the single quoted absolute directory path
+     * @param bundleName the bundle's simple file name in the directory
+     * @return the command text
+     */
+    static String getUnpackCommand(String quotedDir, String bundleName)
+    {
+        return String.format(UNPACK_CMD_FMT, quotedDir, bundleName, bundleName);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* toMode:                                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Convert posix permissions into the numeric file mode.
+     *
+     * @param perms the permissions
+     * @return the file mode
+     */
+    static int toMode(List<PosixFilePermission> perms)
+    {
+        int mode = 0;
+        if (perms == null) return mode;
+        for (var perm : perms)
+            switch (perm) {
+                case OWNER_READ:     mode |= 0400; break;
+                case OWNER_WRITE:    mode |= 0200; break;
+                case OWNER_EXECUTE:  mode |= 0100; break;
+                case GROUP_READ:     mode |= 040;  break;
+                case GROUP_WRITE:    mode |= 020;  break;
+                case GROUP_EXECUTE:  mode |= 010;  break;
+                case OTHERS_READ:    mode |= 04;   break;
+                case OTHERS_WRITE:   mode |= 02;   break;
+                case OTHERS_EXECUTE: mode |= 01;   break;
+            }
+        return mode;
+    }
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* createHeader:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private static byte[] createHeader(String name, int mode, long size, long mtime)
+    {
+        // Only simple file names are supported.
+        byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+        if (nameBytes.length == 0 || nameBytes.length > MAX_NAME_LEN || name.contains("/"))
+            throw new IllegalArgumentException("Invalid bundled file name: " + name);
+
+        // Populate the header.
+        byte[] header = new byte[BLOCK_SIZE];
+        System.arraycopy(nameBytes, 0, header, NAME_OFFSET, nameBytes.length);
+        putOctal(header, MODE_OFFSET, 8, mode);
+        putOctal(header, UID_OFFSET, 8, 0);
+        putOctal(header, GID_OFFSET, 8, 0);
+        putOctal(header, SIZE_OFFSET, 12, size);
+        putOctal(header, MTIME_OFFSET, 12, mtime);
+        header[TYPEFLAG_OFFSET] = '0';
+        byte[] magic = "ustar\u000000".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(magic, 0, header, MAGIC_OFFSET, magic.length);
+
+        // The checksum is calculated with the checksum field set to spaces
+        // and written as six octal digits, a nul and a space.
+        for (int i = 0; i < CHKSUM_LEN; i++) header[CHKSUM_OFFSET + i] = ' ';
+        long sum = 0;
+        for (byte b : header) sum += (b & 0xff);
+        putOctal(header, CHKSUM_OFFSET, 7, sum);
+        header[CHKSUM_OFFSET + 7] = ' ';
+        return header;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* putOctal:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Write a zero padded octal number followed by a nul into the field. */
+    private static void putOctal(byte[] header, int offset, int len, long value)
+    {
+        String s = Long.toOctalString(value);
+        int digits = len - 1;
+        if (s.length() > digits)
+            throw new IllegalArgumentException("Value too large for tar header: " + value);
+        s = "0".repeat(digits - s.length()) + s;
+        byte[] bytes = s.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(bytes, 0, header, offset, digits);
+        header[offset + digits] = 0;
+    }
+}
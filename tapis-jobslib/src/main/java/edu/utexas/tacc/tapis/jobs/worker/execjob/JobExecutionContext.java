@@ -12,6 +12,8 @@ import edu.utexas.tacc.tapis.apps.client.gen.model.RuntimeEnum;
 import edu.utexas.tacc.tapis.apps.client.gen.model.RuntimeOptionEnum;
 import edu.utexas.tacc.tapis.apps.client.gen.model.TapisApp;
 import edu.utexas.tacc.tapis.client.shared.exceptions.TapisClientException;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
+import edu.utexas.tacc.tapis.jobs.dao.JobMonitorStatsDao;
 import edu.utexas.tacc.tapis.jobs.dao.JobsDao;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.exceptions.recoverable.JobRecoveryDefinitions;
@@ -26,6 +28,7 @@ import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg.CmdType;
 import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobStatusMsg;
 import edu.utexas.tacc.tapis.jobs.recover.RecoveryUtils;
 import edu.utexas.tacc.tapis.jobs.stagers.JobExecStageFactory;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
@@ -42,6 +45,9 @@ import edu.utexas.tacc.tapis.systems.client.gen.model.LogicalQueue;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerProfile;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerTypeEnum;
 import edu.utexas.tacc.tapis.systems.client.gen.model.TapisSystem;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.StatusCode;
 
 public final class JobExecutionContext
 {
@@ -70,7 +76,8 @@ public final class JobExecutionContext
 	// Cached dao's used throughout this file and by clients.
     private final JobsDao            _jobsDao;
     
-    // Tapis resources.
+    // Tapis resources.  Definitions are shared with other jobs and must not
+    // be modified (see SharedDefinitions).
     private TapisSystem              _executionSystem;
     private TapisSystem              _archiveSystem;
     private TapisSystem              _dtnSystem;
@@ -86,6 +93,16 @@ public final class JobExecutionContext
     
     // Treat authentication errors on the initial connection attempt specially.
     private boolean                  _execSysSSHFirstAttempt = true;
+    
+    // The number of times this job's submit message was redelivered because
+    // of throttling.  Throttles allow longer waits on each redelivery.
+    private int                      _throttleRedeliveries;
+    
+    // Completion notices posted by the job's wrapper script.  The notice
+    // fields are guarded by the lock, which monitors also wait on.
+    private final Object             _completionLock = new Object();
+    private boolean                  _completionNotified;
+    private boolean                  _completionNoticeSeen;
 
     /* ********************************************************************** */
     /*                              Constructors                              */
@@ -273,6 +290,7 @@ public final class JobExecutionContext
         // Load the exec, archive and dtn systems now
         // to avoid double faults in FileManager.
         initSystems();
+        compactForMonitoring();
         var monitor = JobMonitorFactory.getInstance(this);
         monitor.monitorQueuedJob();
     }
@@ -285,8 +303,12 @@ public final class JobExecutionContext
         // Load the exec, archive and dtn systems now
         // to avoid double faults in FileManager.
         initSystems();
+        compactForMonitoring();
         var monitor = JobMonitorFactory.getInstance(this);
         monitor.monitorRunningJob();
+        
+        // Monitoring of jobs like this one adapts to their timings.
+        recordMonitorStats();
     }
     
     /* ---------------------------------------------------------------------- */
@@ -297,6 +319,7 @@ public final class JobExecutionContext
         // Load the exec, archive and dtn systems now
         // to avoid double faults in FileManager.
         initSystems();
+        restoreFromMonitoring();
         getJobFileManager().archiveOutputs();
         archivePostProcess();
     }
@@ -405,7 +428,8 @@ public final class JobExecutionContext
         
         // Use the cached profile if it exists.
         if (_schedulerProfile == null) {
-            try {_schedulerProfile = getServiceClient(SystemsClient.class).getSchedulerProfile(profileName);}
+            try {_schedulerProfile = SharedDefinitions.internSchedulerProfile(_job.getTenant(),
+                      getServiceClient(SystemsClient.class).getSchedulerProfile(profileName));}
                 catch (Exception e) {
                     // Not found error.
                     if ((e instanceof TapisClientException) && 
@@ -468,6 +492,10 @@ public final class JobExecutionContext
     
     public String getFinalMessage() {return _finalMessage;}
     public void setFinalMessage(String finalMessage) {_finalMessage = finalMessage;}
+    
+    public int getThrottleRedeliveries() {return _throttleRedeliveries;}
+    public void setThrottleRedeliveries(int throttleRedeliveries) 
+       {_throttleRedeliveries = throttleRedeliveries;}
 
     /* ********************************************************************** */
     /*                      Asynchronous Command Methods                      */
@@ -533,6 +561,60 @@ public final class JobExecutionContext
         // so we can't say cancellation succeeded.
         return false;
     }
+    
+    /* ---------------------------------------------------------------------- */
+    /* postCompletionNotice:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Record that the job's wrapper script reported that the application 
+     * completed and wake up any monitor waiting for the notice.  The notice 
+     * only hastens the next status check; the job's status and exit code are
+     * always read from the execution system.
+     */
+    public void postCompletionNotice()
+    {
+        synchronized (_completionLock) {
+            if (_completionNotified) return;
+            _completionNotified = true;
+            _completionLock.notifyAll();
+        }
+        
+        if (_log.isDebugEnabled())
+            _log.debug(MsgUtils.getMsg("JOBS_CALLBACK_RECEIVED", _job.getUuid()));
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* awaitCompletionNotice:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Wait up to the specified number of milliseconds for a completion notice
+     * that the caller hasn't already seen.  Once a notice has been returned, 
+     * this method simply waits the full time.
+     * 
+     * @param millis the maximum time to wait
+     * @return true if a new completion notice arrived, false otherwise
+     * @throws InterruptedException if the thread is interrupted
+     */
+    public boolean awaitCompletionNotice(long millis)
+     throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + millis;
+        synchronized (_completionLock) {
+            while (!_completionNotified || _completionNoticeSeen) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) return false;
+                _completionLock.wait(remaining);
+            }
+            _completionNoticeSeen = true;
+            return true;
+        }
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* isCompletionNotified:                                                  */
+    /* ---------------------------------------------------------------------- */
+    public boolean isCompletionNotified()
+    {
+        synchronized (_completionLock) {return _completionNotified;}
+    }
 
     
     /* ---------------------------------------------------------------------- */
@@ -608,9 +690,12 @@ public final class JobExecutionContext
         final AuthnMethod authnMethod = null;
         final String selectAll = "allAttributes";
         final String impersonationId = null;
+        Span span = JobTracing.startJobSpan(JobTracing.SPAN_GET_SYSTEM, SpanKind.CLIENT, _job);
+        span.setAttribute(JobTracing.ATTR_TARGET, systemId);
         try {system = systemsClient.getSystem(systemId, authnMethod, requireExecPerm, selectAll, 
                                               returnCreds, impersonationId, sharedAppCtx);} 
         catch (TapisClientException e) {
+            span.setStatus(StatusCode.ERROR);
             // Look for a recoverable error in the exception chain. Recoverable
             // exceptions are those that might indicate a transient network
             // or server error, typically involving loss of connectivity.
@@ -647,17 +732,20 @@ public final class JobExecutionContext
             throw new TapisImplException(msg, e, e.getCode());
         }
         catch (Exception e) {
+            span.setStatus(StatusCode.ERROR);
             String msg = MsgUtils.getMsg("TAPIS_SYSCLIENT_INTERNAL_ERROR", systemId, _job.getOwner(), 
                                          _job.getTenant(), loadType.name());
             throw new TapisImplException(msg, e, HTTP_INTERNAL_SERVER_ERROR);
         }
+        finally {span.end();}
         
         // Check the enabled flag here for systems that we are definitely going to use.  The
         // DTN may or may not be used depending on what directories are specified for I/O.
         if (loadType == LoadSystemTypes.execution || loadType == LoadSystemTypes.archive) 
             JobExecutionUtils.checkSystemEnabled(system, _job);
         
-        return system;
+        // Share identical definitions with other jobs.
+        return SharedDefinitions.internSystem(system);
     }
     
     /* ---------------------------------------------------------------------------- */
@@ -668,8 +756,11 @@ public final class JobExecutionContext
     {
         // Load the system definition.
         TapisApp app = null;
+        Span span = JobTracing.startJobSpan(JobTracing.SPAN_GET_APP, SpanKind.CLIENT, _job);
+        span.setAttribute(JobTracing.ATTR_TARGET, appId + "-" + appVersion);
         try {app = appsClient.getApp(appId, appVersion);} 
         catch (TapisClientException e) {
+            span.setStatus(StatusCode.ERROR);
             // Look for a recoverable error in the exception chain. Recoverable
             // exceptions are those that might indicate a transient network
             // or server error, typically involving loss of connectivity.
@@ -707,16 +798,19 @@ public final class JobExecutionContext
             throw new TapisImplException(msg, e, e.getCode());
         }
         catch (Exception e) {
+            span.setStatus(StatusCode.ERROR);
             String appString = appId + "-" + appVersion;
             String msg = MsgUtils.getMsg("TAPIS_APPCLIENT_INTERNAL_ERROR", appString, _job.getOwner(), 
                                          _job.getTenant());
             throw new TapisImplException(msg, e, HTTP_INTERNAL_SERVER_ERROR);
         }
+        finally {span.end();}
         
         // Make sure the app is enabled.
         JobExecutionUtils.checkAppEnabled(app, _job);
         
-        return app;
+        // Share identical definitions with other jobs.
+        return SharedDefinitions.internApp(app);
     }
 
     /* ---------------------------------------------------------------------- */
@@ -750,6 +844,53 @@ public final class JobExecutionContext
     	catch (Exception e) {_log.error(e.getMessage(), e);}
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* recordMonitorStats:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Best effort attempt to add this job's queue wait and run time to the 
+     * statistics used by the adaptive monitoring policy.  Only jobs whose 
+     * remote execution completed normally are recorded.
+     */
+    private void recordMonitorStats()
+    {
+        // Jobs that timed out or whose outcome is unknown are not recorded.
+        if (_job.getRemoteOutcome() == null || _job.getRemoteEnded() == null) return;
+        if (RuntimeParameters.getInstance().getMonitorAdaptiveMinSamples() <= 0) return;
+        
+        try {new JobMonitorStatsDao().recordJob(_job);}
+        	catch (Exception e) {_log.warn(e.getMessage(), e);}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* compactForMonitoring:                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** Release the job request fields and the cached objects that are not used 
+     * while the remote job is monitored.  Workers can spend hours or days 
+     * monitoring a job, so reducing what each monitored job retains increases
+     * the number of jobs a worker can monitor.  The file manager and I/O targets
+     * are recreated on demand.
+     */
+    private void compactForMonitoring()
+    {
+        _job.compactForMonitoring();
+        _jobFileManager = null;
+        _jobIOTargets = null;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* restoreFromMonitoring:                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Reload the job request fields released during monitoring from the 
+     * database before they are needed for archiving.
+     * 
+     * @throws TapisException if the job cannot be read
+     */
+    private void restoreFromMonitoring() throws TapisException
+    {
+        if (!_job.isCompacted()) return;
+        _job.restoreFromMonitoring(_jobsDao.getJobByUUID(_job.getUuid()));
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* initSystems:                                                           */
     /* ---------------------------------------------------------------------- */
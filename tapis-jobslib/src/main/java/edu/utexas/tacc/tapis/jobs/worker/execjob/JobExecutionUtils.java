@@ -1,6 +1,7 @@
 package edu.utexas.tacc.tapis.jobs.worker.execjob;
 
 import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.regex.Pattern;
 
@@ -39,12 +40,21 @@ public final class JobExecutionUtils
     public static final String JOB_ZIP_APP_EXEC_DEFAULT  = "tapisjob_app.sh";
     public static final String JOB_ZIP_APP_MANIFEST      = "tapisjob.manifest";
     public static final String JOB_ZIP_SET_EXEC_SCRIPT   = "tapisjob_setexec.sh";
+    public static final String JOB_CALLBACK_FILE         = "tapisjob.callback";
 
     // ----------------------------- Docker Section -----------------------------
     // Docker command templates.
     private static final String DOCKER_ID = "docker ps -a --no-trunc -f \"%s\" --format \"{{.ID}}\"";
     private static final String DOCKER_STATUS = "docker ps -a --no-trunc -f \"name=%s\" --format \"{{.Status}}\"";
     private static final String DOCKER_RM = "docker rm -f %s";
+    
+    // Every container launched by Tapis is labeled with its job uuid so that the
+    // status of all Tapis containers on a host can be retrieved in one command.
+    // Each output line has the format name|status.
+    public static final String DOCKER_JOB_LABEL = "tapis.jobs.uuid";
+    public static final String DOCKER_STATUS_ALL = 
+        "docker ps -a --no-trunc --filter \"label=" + DOCKER_JOB_LABEL + "\" --format \"{{.Names}}|{{.Status}}\"";
+    public static final char   DOCKER_STATUS_ALL_SEPARATOR = '|';
 
     // Docker status return values.
     public static final String DOCKER_ACTIVE_STATUS_PREFIX = "Up ";
@@ -80,6 +90,16 @@ public final class JobExecutionUtils
     public static final String ZIP_SETEXEC_CMD_FMT = "cd %s; ./%s";
     public static final String ZIP_FILE_RM_FROM_EXECDIR_FMT = "cd %s; /bin/rm %s";
 
+    // --------------------------- Job Array Section ---------------------------
+    // Slurm assigns each job array task its index in this environment variable.
+    public static final String SLURM_ARRAY_TASK_ID = "SLURM_ARRAY_TASK_ID";
+    
+    // The slurm filename pattern replaced by the array task index.
+    public static final String SLURM_ARRAY_TASK_FILE_PATTERN = "%a";
+    
+    // The per-task results of a job array written to the output directory.
+    public static final String JOB_ARRAY_TASKS_FILE = "tapisjob.tasks";
+
     /* ********************************************************************** */
     /*                            Public Methods                              */
     /* ********************************************************************** */
@@ -101,12 +121,56 @@ public final class JobExecutionUtils
     public static String getDockerRmCommand(String containerName)
     {return String.format(DOCKER_RM, containerName);}
 
+    /* ---------------------------------------------------------------------- */
+    /* getDockerRmCommand:                                                    */
+    /* ---------------------------------------------------------------------- */
+    /** Remove any number of containers in a single docker command.
+     * 
+     * @param containerNames the non-empty container names
+     * @return the command text
+     */
+    public static String getDockerRmCommand(Collection<String> containerNames)
+    {return String.format(DOCKER_RM, String.join(" ", containerNames));}
+
     /* ---------------------------------------------------------------------- */
     /* getZipStatusCommand:                                                   */
     /* ---------------------------------------------------------------------- */
     public static String getZipStatusCommand(String processPid)
     {return String.format(ZIP_STATUS_CMD_FMT, processPid);}
 
+    /* ---------------------------------------------------------------------- */
+    /* getArrayTaskInsertionIndex:                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Get the position in a file path at which a job array task's index is 
+     * inserted to give each task its own file.  The index goes before the file 
+     * name's extension, so tapisjob.out becomes tapisjob_<index>.out. 
+     * 
+     * @param path a file name or path
+     * @return the insertion position, which may be the path length
+     */
+    public static int getArrayTaskInsertionIndex(String path)
+    {
+        int slash = path.lastIndexOf('/');
+        int dot   = path.lastIndexOf('.');
+        return dot > slash + 1 ? dot : path.length();
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* makeArrayTaskPath:                                                     */
+    /* ---------------------------------------------------------------------- */
+    /** Insert a job array task index, or a pattern that evaluates to it, into
+     * a file path as described in getArrayTaskInsertionIndex().
+     * 
+     * @param path a file name or path
+     * @param taskIndex the index text
+     * @return the task-specific path
+     */
+    public static String makeArrayTaskPath(String path, String taskIndex)
+    {
+        int index = getArrayTaskInsertionIndex(path);
+        return path.substring(0, index) + "_" + taskIndex + path.substring(index);
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* getExecDir:                                                            */
     /* ---------------------------------------------------------------------- */
@@ -6,20 +6,18 @@ import static edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils.ZIP_UN
 import static edu.utexas.tacc.tapis.jobs.worker.execjob.JobExecutionUtils.ZIP_UNZIP_CMD_FMT;
 import static edu.utexas.tacc.tapis.shared.utils.TapisUtils.alwaysSingleQuote;
 
-import java.nio.file.FileSystems;
 import java.nio.file.Path;
-import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.nio.file.attribute.PosixFilePermission;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -33,6 +31,7 @@ import edu.utexas.tacc.tapis.files.client.gen.model.ReqTransfer;
 import edu.utexas.tacc.tapis.files.client.gen.model.ReqTransferElement;
 import edu.utexas.tacc.tapis.files.client.gen.model.ReqTransferElement.TransferTypeEnum;
 import edu.utexas.tacc.tapis.files.client.gen.model.TransferTask;
+import edu.utexas.tacc.tapis.jobs.config.RuntimeParameters;
 import edu.utexas.tacc.tapis.jobs.dao.JobsDao.TransferValueType;
 import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
 import edu.utexas.tacc.tapis.jobs.filesmonitor.TransferMonitorFactory;
@@ -42,6 +41,8 @@ import edu.utexas.tacc.tapis.jobs.model.enumerations.JobConditionCode;
 import edu.utexas.tacc.tapis.jobs.model.enumerations.JobRemoteOutcome;
 import edu.utexas.tacc.tapis.jobs.model.submit.JobFileInput;
 import edu.utexas.tacc.tapis.jobs.recover.RecoveryUtils;
+import edu.utexas.tacc.tapis.jobs.tracing.JobTracing;
+import edu.utexas.tacc.tapis.jobs.utils.FilesListingPager;
 import edu.utexas.tacc.tapis.shared.TapisConstants;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
 import edu.utexas.tacc.tapis.shared.exceptions.TapisImplException;
@@ -50,9 +51,10 @@ import edu.utexas.tacc.tapis.shared.i18n.MsgUtils;
 import edu.utexas.tacc.tapis.shared.ssh.apache.SSHScpClient;
 import edu.utexas.tacc.tapis.shared.uri.TapisLocalUrl;
 import edu.utexas.tacc.tapis.shared.uri.TapisUrl;
-import edu.utexas.tacc.tapis.shared.utils.FilesListSubtree;
 import edu.utexas.tacc.tapis.shared.utils.TapisUtils;
 import edu.utexas.tacc.tapis.systems.client.gen.model.SystemTypeEnum;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.StatusCode;
 
 public final class JobFileManager 
 {
@@ -72,6 +74,17 @@ public final class JobFileManager
     public static final List<PosixFilePermission> RWRW   = SSHScpClient.RWRW_PERMS;
     public static final List<PosixFilePermission> RWXRWX = SSHScpClient.RWXRWX_PERMS;
     
+    // Uploaded bundles and files that contain secrets are only readable by their owner.
+    public static final List<PosixFilePermission> RW_OWNER = 
+        List.of(PosixFilePermission.OWNER_READ, PosixFilePermission.OWNER_WRITE);
+    
+    // How long bundling stays disabled on a system after a failed install.
+    private static final long BUNDLE_RETRY_MILLIS = 3600 * 1000;
+    
+    // A bundle costs one upload and one unpack command, so it only saves round
+    // trips when more files than this are installed.
+    private static final int BUNDLE_ROUND_TRIPS = 2;
+    
     // Placeholder values used in URLs for DTN support. 
     private static final String SYSTEM_PLACEHOLER = "{SYSTEM_PLACEHOLER}";
     private static final String PATH_PLACEHOLER   = "{PATH_PLACEHOLER}";
@@ -82,9 +95,6 @@ public final class JobFileManager
     // We transfer files in these phases of job processing.
     private enum JobTransferPhase {INPUT, ARCHIVE, STAGE_APP, DTN_IN, DTN_OUT}
     
-    // Archive filter types.
-    private enum FilterType {INCLUDES, EXCLUDES}
-    
     /* ********************************************************************** */
     /*                                Fields                                  */
     /* ********************************************************************** */
@@ -103,6 +113,11 @@ public final class JobFileManager
     // Derived path prefix value removed before filtering.
     private String                    _filterIgnoreOutputPrefix;
     
+    // Execution systems on which bundled staging has recently failed in this
+    // process mapped to the time at which bundling will be tried again.
+    private static final ConcurrentHashMap<String,Long> _bundleUnsupported = 
+        new ConcurrentHashMap<>();
+    
     /* ********************************************************************** */
     /*                              Constructors                              */
     /* ********************************************************************** */
@@ -150,8 +165,8 @@ public final class JobFileManager
         // ---------------------- Exec System Exec Dir ----------------------
         // Create the directory on the system.
         try {
-            filesClient.mkdir(ioTargets.getExecTarget().systemId, 
-                              ioTargets.getExecTarget().dir, _shareExecSystemExecDirAppOwner);
+            mkdir(filesClient, ioTargets.getExecTarget().systemId, 
+                  ioTargets.getExecTarget().dir, _shareExecSystemExecDirAppOwner);
         } catch (TapisClientException e) {
             String msg = MsgUtils.getMsg("FILES_REMOTE_MKDIRS_ERROR", 
                                          ioTargets.getExecTarget().host,
@@ -171,8 +186,8 @@ public final class JobFileManager
         if (!createdSet.contains(execSysOutputDirKey)) {
             // Create the directory on the system.
             try {
-                filesClient.mkdir(ioTargets.getOutputTarget().systemId, 
-                                  _job.getExecSystemOutputDir(), _shareExecSystemOutputDirAppOwner);
+                mkdir(filesClient, ioTargets.getOutputTarget().systemId, 
+                      _job.getExecSystemOutputDir(), _shareExecSystemOutputDirAppOwner);
             } catch (TapisClientException e) {
                 String msg = MsgUtils.getMsg("FILES_REMOTE_MKDIRS_ERROR", 
                                              ioTargets.getOutputTarget().host,
@@ -192,8 +207,8 @@ public final class JobFileManager
         if (!createdSet.contains(execSysInputDirKey)) {
             // Create the directory on the system.
             try {
-                filesClient.mkdir(ioTargets.getInputTarget().systemId, 
-                                  ioTargets.getInputTarget().dir, _shareExecSystemInputDirAppOwner);
+                mkdir(filesClient, ioTargets.getInputTarget().systemId, 
+                      ioTargets.getInputTarget().dir, _shareExecSystemInputDirAppOwner);
             } catch (TapisClientException e) {
                 String msg = MsgUtils.getMsg("FILES_REMOTE_MKDIRS_ERROR", 
                                              ioTargets.getInputTarget().host,
@@ -215,8 +230,8 @@ public final class JobFileManager
         	if (!createdSet.contains(dtnSysInputDirKey)) {
         		// Create the directory on the system.
         		try {
-        			filesClient.mkdir(ioTargets.getDtnInputTarget().systemId, 
-                                 	  ioTargets.getDtnInputTarget().dir, _shareDtnSystemInputDirAppOwner);
+        			mkdir(filesClient, ioTargets.getDtnInputTarget().systemId, 
+                          ioTargets.getDtnInputTarget().dir, _shareDtnSystemInputDirAppOwner);
         		} catch (TapisClientException e) {
         			String msg = MsgUtils.getMsg("FILES_REMOTE_MKDIRS_ERROR", 
                                              	 ioTargets.getDtnInputTarget().host,
@@ -239,8 +254,8 @@ public final class JobFileManager
         	if (!createdSet.contains(dtnSysOutputDirKey)) {
         		// Create the directory on the system.
         		try {
-        			filesClient.mkdir(ioTargets.getDtnOutputTarget().systemId, 
-                                 	  ioTargets.getDtnOutputTarget().dir, _shareDtnSystemOutputDirAppOwner);
+        			mkdir(filesClient, ioTargets.getDtnOutputTarget().systemId, 
+                          ioTargets.getDtnOutputTarget().dir, _shareDtnSystemOutputDirAppOwner);
         		} catch (TapisClientException e) {
         			String msg = MsgUtils.getMsg("FILES_REMOTE_MKDIRS_ERROR", 
                                              	 ioTargets.getDtnOutputTarget().host,
@@ -265,8 +280,8 @@ public final class JobFileManager
             // Create the directory on the system.
             try {
                 var sharedAppCtx = _jobCtx.getJobSharedAppCtx().getSharingArchiveSystemDirAppOwner();
-                filesClient.mkdir(_job.getArchiveSystemId(), 
-                                  _job.getArchiveSystemDir(), sharedAppCtx);
+                mkdir(filesClient, _job.getArchiveSystemId(), 
+                      _job.getArchiveSystemDir(), sharedAppCtx);
             } catch (TapisClientException e) {
                 String msg = MsgUtils.getMsg("FILES_REMOTE_MKDIRS_ERROR", 
                                              _jobCtx.getArchiveSystem().getHost(),
@@ -460,6 +475,55 @@ public final class JobFileManager
         } 
     }
 
+    /* ---------------------------------------------------------------------- */
+    /* installExecFiles:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Create all the files in ExecSystemExecDir.  When there are enough files
+     * for it to save round trips, the files are bundled into a tar archive that
+     * is uploaded and then unpacked with a single remote command.  Otherwise, or
+     * if the bundled command fails, each file is installed using installExecFile().
+     * 
+     * @param files the files to install
+     * @throws TapisException on error
+     */
+    public void installExecFiles(List<ExecFile> files) throws TapisException
+    {
+        // Try to install all files with one upload and one command.
+        if (files.size() > BUNDLE_ROUND_TRIPS) {
+            String bundleName = uploadBundle(files);
+            if (bundleName != null && runBundleCommand(bundleName)) return;
+        }
+        
+        // Upload each file separately.
+        for (var file : files) 
+            installExecFile(file.getContent(), file.getFileName(), file.getPermissions());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* installAndRunZipSetAppExecutable:                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Install and run the script that determines the app executable for ZIP
+     * runtime applications.  The script removes itself when it runs, so only an
+     * upload and one remote command are needed.  The script is removed 
+     * separately only if running it fails. 
+     * 
+     * @param script the set executable script
+     * @return the relative path to the app executable
+     * @throws TapisException on error
+     */
+    public String installAndRunZipSetAppExecutable(ExecFile script) throws TapisException
+    {
+        // Install and run the script.
+        installExecFile(script.getContent(), script.getFileName(), script.getPermissions());
+        try {return runZipSetAppExecutable(script.getFileName());}
+            catch (TapisException e) {
+                // Best effort to remove it. Ignore exceptions.
+                try {removeFileFromExecDir(script.getFileName());}
+                    catch (Exception e1) { /* ignore exceptions */ }
+                throw e;
+            }
+    }
+
     /* ---------------------------------------------------------------------- */
     /* extractZipAppArchive:                                                  */
     /* ---------------------------------------------------------------------- */
@@ -937,9 +1001,12 @@ public final class JobFileManager
         //
         // This block schedules the filtered contents of the execSystemOutputDir
         // to be transfered.
-        if (!archiveSameAsOutput && !matchesAll(excludes)) {
+        if (!archiveSameAsOutput && !ArchiveFilterSet.matchesAll(excludes)) {
+            // Compile the filters once for all files.
+            var filterSet = new ArchiveFilterSet(includes, excludes);
+            
             // Will any filtering be necessary at all?
-            if (excludes.isEmpty() && (includes.isEmpty() || matchesAll(includes))) 
+            if (filterSet.isNoop()) 
             {
                 // We only need to specify the whole output directory subtree 
             	// to archive all files.  The element contains placeholders.
@@ -956,27 +1023,39 @@ public final class JobFileManager
             {
             	// We need to filter each and every file, so we need to retrieve 
             	// the output directory file listing.  Get the client from the 
-            	// context now to catch errors early.  We initialize the unfiltered list.
+            	// context now to catch errors early.  The listing is retrieved 
+            	// one page at a time so the complete listing is never in memory.
             	FilesClient filesClient = _jobCtx.getServiceClient(FilesClient.class);
-            	var listSubtree = new FilesListSubtree(filesClient, _job.getExecSystemId(), 
-            			                               _job.getExecSystemOutputDir());
-            	listSubtree.setSharedAppCtx(_shareExecSystemOutputDirAppOwner);
-            	var fileInfoList = listSubtree.list(); // Replace empty r/o list
-                
-            	// Apply the excludes list first since it has precedence, then
-            	// the includes list.  The fileList can be modified in both calls.
-            	applyArchiveFilters(excludes, fileInfoList, FilterType.EXCLUDES);
-            	applyArchiveFilters(includes, fileInfoList, FilterType.INCLUDES);
-            
-            	// Size the list of names relative to the execSystemOutputDir
-            	// to be what's left after filtering when using a DTN.  Otherwise,
-            	// leave it as null so that it won't get populated.
-            	if (useDtn && fileInfoList.size() > 0) {
-            		mvOutputFileList = new ArrayList<>(fileInfoList.size());
-            	}
+            	var pager = FilesListingPager.forSubtree(filesClient, _job.getExecSystemId(), 
+            			                                 _job.getExecSystemOutputDir(),
+            			                                 RuntimeParameters.getInstance().getFilesListPageSize(),
+            			                                 _shareExecSystemOutputDirAppOwner);
+            	
+            	// The list of names relative to the execSystemOutputDir is only
+            	// populated when using a DTN.  Otherwise, leave it as null.
+            	if (useDtn) mvOutputFileList = new ArrayList<>();
+            	
+            	// Use a set to detect duplicates. Populate the dupSet with 
+            	// any launch files that might already be in tasks.
+            	var dupSet = new HashSet<String>();
+            	for (var task : tasks.getElements()) dupSet.add(task.getSourceURI());
+            	
+            	// The path prefix is assigned first since large pages are 
+            	// filtered in parallel.
+            	getOutputPathPrefix();
+            	List<FileInfo> fileInfoList;
+            	while ((fileInfoList = pager.nextPage()) != null && !fileInfoList.isEmpty()) {
+            		// Apply the excludes and includes lists in a single pass, with 
+            		// excludes taking precedence.  
+            		fileInfoList = filterSet.filter(fileInfoList, this::getOutputRelativePath);
              
-            	// Create a task entry for each of the filtered output files.
-            	addOutputFiles(tasks, fileInfoList, mvOutputFileList);
+            		// Create a task entry for each of the filtered output files.
+            		addOutputFiles(tasks, fileInfoList, mvOutputFileList, dupSet);
+            	}
+            	
+            	if (_log.isDebugEnabled())
+            		_log.debug("Job " + _job.getUuid() + " listed " + pager.getEntriesReturned() +
+            				   " output files in " + pager.getPagesFetched() + " pages.");
             }
         }
         
@@ -1266,19 +1345,17 @@ public final class JobFileManager
      * not harmful, if Files concurrently copies sets of files it's possible that
      * launch files could get corrupted.  
      * 
+     * This method is called once for each page of the output directory listing.
+     * 
      * @param tasks (i/o) the archive tasks
      * @param fileInfoList (input) the filtered list of files from the job output directory
      * @param outputFileList (i/o) the list of relative file names, can be null
+     * @param dupSet (i/o) the source uris already in tasks
      */
     private void addOutputFiles(ReqTransfer tasks, List<FileInfo> fileInfoList,
-    		                    List<String> outputFileList) 
+    		                    List<String> outputFileList, Set<String> dupSet) 
      throws TapisException
     {
-    	// Use a set to detect duplicates. Populate the dupSet with 
-    	// any launch files that might already be in tasks.
-    	var dupSet = new HashSet<String>(2*fileInfoList.size()+1);
-    	for (var task : tasks.getElements()) dupSet.add(task.getSourceURI());
-    	    	
         // Add each output file as a placeholder task element,
     	// skipping those we detect as duplicates.
     	for (var f : fileInfoList) {
@@ -1296,85 +1373,6 @@ public final class JobFileManager
       }
     }
     
-    /* ---------------------------------------------------------------------- */
-    /* matchesAll:                                                            */
-    /* ---------------------------------------------------------------------- */
-    /** Determine if the filter list will match any string.  Only the most 
-     * common way of specifying a pattern that matches all strings are tested. 
-     * In addition, combinations of filters whose effect would be to match all
-     * strings are not considered.  Simplistic as it may be, filters specified
-     * in a reasonable, straightforward manner to match all strings are identified.   
-     * 
-     * @param filters the list of glob or regex filters
-     * @return true if list contains a filter that will match all strings, false 
-     *              if no single filter will match all strings
-     */
-    private boolean matchesAll(List<String> filters)
-    {
-        // Check the most common ways to express all strings using glob.
-        if (filters.contains("**/*")) return true;
-        
-        // Check the common way to express all strings using a regex.
-        if (filters.contains("REGEX(.*)")) return true;
-        
-        // No no-op filters found.
-        return false;
-    }
-    
-    /* ---------------------------------------------------------------------- */
-    /* applyArchiveFilters:                                                   */
-    /* ---------------------------------------------------------------------- */
-    /** Apply either the includes or excludes list to the file list.  In either
-     * case, the file list can be modified by having items deleted.
-     * 
-     * The filter items can either be in glob or regex format.  Each item is 
-     * applied to the path of a file info object.  When a match occurs the 
-     * appropriate action is taken based on the filter type being processed.
-     * 
-     * @param filterList the includes or excludes list as identified by the filterType 
-     * @param fileList the file list that may have items deleted
-     * @param filterType filter indicator
-     */
-    private void applyArchiveFilters(List<String> filterList, List<FileInfo> fileList, 
-                                     FilterType filterType)
-    {
-        // Is there any work to do?
-        if (filterType == FilterType.EXCLUDES) {
-            if (filterList.isEmpty()) return;
-        } else 
-            if (filterList.isEmpty() || matchesAll(filterList)) return;
-        
-        // Local cache of compiled regexes.  The keys are the filters
-        // exactly as defined by users and the values are the compiled 
-        // form of those filters.
-        HashMap<String,Pattern> regexes   = new HashMap<>();
-        HashMap<String,PathMatcher> globs = new HashMap<>();
-        
-        // Iterate through the file list.
-        final int lastFilterIndex = filterList.size() - 1;
-        var fileIt = fileList.listIterator();
-        while (fileIt.hasNext()) {
-            var fileInfo = fileIt.next();
-            var path = getOutputRelativePath(fileInfo.getPath());
-            for (int i = 0; i < filterList.size(); i++) {
-                // Get the current filter.
-                String filter = filterList.get(i);
-                
-                // Use cached filters to match paths.
-                boolean matches = matchFilter(filter, path, globs, regexes);
-                
-                // Removal depends on matches and the filter type.
-                if (filterType == FilterType.EXCLUDES) {
-                    if (matches) {fileIt.remove(); break;}
-                } else {
-                    // Remove item only after all include filters have failed to match.
-                    if (matches) break; // keep in list 
-                    if (!matches && (i == lastFilterIndex)) fileIt.remove();
-                }
-            }
-        }
-    }
-
     /* ---------------------------------------------------------------------- */
     /* getOutputRelativePath:                                                 */
     /* ---------------------------------------------------------------------- */
@@ -1417,44 +1415,6 @@ public final class JobFileManager
         return _filterIgnoreOutputPrefix;
     }
     
-    /* ---------------------------------------------------------------------- */
-    /* matchFilter:                                                           */
-    /* ---------------------------------------------------------------------- */
-    /** Determine if the path matches the filter, which can be either a glob
-     * or regex.  In each case, the appropriate cache is consulted and, if
-     * necessary, updated so that each filter is only compiled once per call
-     * to applyArchiveFilters().
-     * 
-     * @param filter the glob or regex
-     * @param path the path to be matched
-     * @param globs the glob cache
-     * @param regexes the regex cache
-     * @return true if the path matches the filter, false otherwise
-     */
-    private boolean matchFilter(String filter, String path, 
-                                HashMap<String,PathMatcher> globs,
-                                HashMap<String,Pattern> regexes)
-    {
-        // Check the cache for glob and regex filters.
-        if (filter.startsWith(REGEX_FILTER_PREFIX)) {
-            Pattern p = regexes.get(filter);
-            if (p == null) {
-                p = Pattern.compile(filter.substring(REGEX_FILTER_PREFIX.length()));
-                regexes.put(filter, p);
-            }
-            var m = p.matcher(path);
-            return m.matches();
-        } else {
-            PathMatcher m = globs.get(filter);
-            if (m == null) {
-                m = FileSystems.getDefault().getPathMatcher("glob:"+filter);
-                globs.put(filter, m);
-            }
-            var pathObj = Paths.get(path);
-            return m.matches(pathObj);
-        }
-    }
-    
     /* ---------------------------------------------------------------------- */
     /* createTransferTask:                                                    */
     /* ---------------------------------------------------------------------- */
@@ -1474,8 +1434,10 @@ public final class JobFileManager
         
         // Submit the transfer request.
         TransferTask task = null;
+        Span span = JobTracing.startClientSpan(JobTracing.SPAN_FILES_TRANSFER, _job, null);
         try {task = filesClient.createTransferTask(tasks);} 
         catch (Exception e) {
+            span.setStatus(StatusCode.ERROR);
             // Look for a recoverable error in the exception chain. Recoverable
             // exceptions are those that might indicate a transient network
             // or server error, typically involving loss of connectivity.
@@ -1500,6 +1462,7 @@ public final class JobFileManager
                 throw new TapisImplException(msg, e, 0);
             }
         }
+        finally {span.end();}
         
         // Get the transfer id.
         String transferId = null;
@@ -1516,6 +1479,23 @@ public final class JobFileManager
         return transferId;
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* mkdir:                                                                 */
+    /* ---------------------------------------------------------------------- */
+    /** Create a directory using Files inside a client span. */
+    private void mkdir(FilesClient filesClient, String systemId, String dir, 
+                       String sharedAppCtx)
+     throws TapisClientException
+    {
+        Span span = JobTracing.startClientSpan(JobTracing.SPAN_FILES_MKDIR, _job, systemId);
+        boolean success = false;
+        try {
+            filesClient.mkdir(systemId, dir, sharedAppCtx);
+            success = true;
+        }
+        finally {JobTracing.endSpan(span, success);}
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* moveDtnInputs:                                                         */
     /* ---------------------------------------------------------------------- */
@@ -1784,6 +1764,139 @@ public final class JobFileManager
         return Paths.get(first, more).toString();
     }
     
+    /* ---------------------------------------------------------------------- */
+    /* uploadBundle:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Upload a tar archive of the files to the exec directory under a unique
+     * name.  The file contents are transferred on the scp channel rather than
+     * on a command line.  Failures are not fatal since callers fall back to 
+     * the unbundled approach.
+     * 
+     * @param files the files to bundle
+     * @return the uploaded bundle's file name or null if bundling should not be used
+     * @throws TapisException on error
+     */
+    private String uploadBundle(List<ExecFile> files) 
+     throws TapisException
+    {
+        // Is bundling enabled and supported on this system?
+        int maxBytes = RuntimeParameters.getInstance().getStageBundleMaxBytes();
+        if (maxBytes <= 0 || isBundleUnsupported()) return null;
+        
+        // Create the archive.  Large bundles are uploaded file by file.
+        byte[] tar;
+        try {tar = ExecFileBundle.toTar(files);}
+            catch (IllegalArgumentException e) {
+                _log.warn(e.getMessage());
+                return null;
+            }
+        if (tar.length > maxBytes) return null;
+        
+        // Upload the archive.
+        String bundleName = ExecFileBundle.newBundleName();
+        String destPath = alwaysSingleQuote(makePath(JobExecutionUtils.getExecDir(_jobCtx, _job), 
+                                                     bundleName));
+        try {
+            var scpClient = _jobCtx.getExecSystemTapisSSH().getScpClient();
+            scpClient.uploadBytesToFile(tar, destPath, RW_OWNER, null);
+        }
+        catch (Exception e) {
+            _log.warn("Bundle upload failed for job " + _job.getUuid() + " on host " + 
+                      _jobCtx.getExecutionSystem().getHost() + ": " + e.getMessage());
+            return null;
+        }
+        return bundleName;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* runBundleCommand:                                                      */
+    /* ---------------------------------------------------------------------- */
+    /** Unpack a bundle created by uploadBundle().  Failures are not fatal since
+     * callers fall back to the unbundled approach.  A failed unpack command 
+     * temporarily disables bundling on the execution system.
+     * 
+     * @param bundleName the uploaded bundle's file name
+     * @return true on success, false on failure
+     * @throws TapisException on error
+     */
+    private boolean runBundleCommand(String bundleName)
+     throws TapisException
+    {
+        // Create the command.
+        String host = _jobCtx.getExecutionSystem().getHost();
+        String execDir = alwaysSingleQuote(JobExecutionUtils.getExecDir(_jobCtx, _job));
+        String cmd = ExecFileBundle.getUnpackCommand(execDir, bundleName);
+        
+        // Run the command.
+        int exitStatus;
+        String result;
+        try {
+            var runCmd = _jobCtx.getExecSystemTapisSSH().getRunCommand();
+            exitStatus = runCmd.execute(cmd);
+            result = runCmd.getOutAsTrimmedString();
+        }
+        catch (Exception e) {
+            _log.warn("Bundled staging command failed for job " + _job.getUuid() + 
+                      " on host " + host + ": " + e.getMessage());
+            removeBundle(bundleName);
+            return false;
+        }
+        
+        // Log exit code and result.
+        if (_log.isDebugEnabled())
+            _log.debug("Bundled staging command for job " + _job.getUuid() + " on host " + 
+                       host + " returned " + exitStatus + ": " + cmd + ": " + result);
+        if (exitStatus == 0) return true;
+        removeBundle(bundleName);
+        
+        // A failed install usually means the host lacks a tool or disallows the 
+        // command, but it could also be a transient condition like a full disk.
+        // Bundling is tried again on the system after a while.
+        _bundleUnsupported.put(getBundleSystemKey(), 
+                               System.currentTimeMillis() + BUNDLE_RETRY_MILLIS);
+        _log.warn("Bundled staging disabled for " + (BUNDLE_RETRY_MILLIS / 60000) + 
+                  " minutes on system " + _job.getExecSystemId() +
+                  " after job " + _job.getUuid() + " received exit code " + exitStatus + 
+                  ": " + result);
+        return false;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* removeBundle:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Best effort removal of a bundle that wasn't unpacked successfully. */
+    private void removeBundle(String bundleName)
+    {
+        try {removeFileFromExecDir(bundleName);}
+            catch (Exception e) {_log.warn(e.getMessage());}
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* isBundleUnsupported:                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Determine whether bundling is currently disabled on the job's execution
+     * system.  Expired entries are removed.
+     * 
+     * @return true if bundling should not be attempted
+     */
+    private boolean isBundleUnsupported()
+    {
+        String key = getBundleSystemKey();
+        Long retryAt = _bundleUnsupported.get(key);
+        if (retryAt == null) return false;
+        if (retryAt > System.currentTimeMillis()) return true;
+        _bundleUnsupported.remove(key, retryAt);
+        return false;
+    }
+    
+    /* ---------------------------------------------------------------------- */
+    /* getBundleSystemKey:                                                    */
+    /* ---------------------------------------------------------------------- */
+    private String getBundleSystemKey()
+    {
+        return _job.getTenant() + "|" + _job.getExecSystemId();
+    }
+    
     /* ---------------------------------------------------------------------- */
     /* printTasks:                                                            */
     /* ---------------------------------------------------------------------- */
@@ -1811,4 +1924,26 @@ public final class JobFileManager
         }
         return buf.toString();
     }
+    
+    /* ********************************************************************** */
+    /*                            ExecFile Class                              */
+    /* ********************************************************************** */
+    /** A generated file to be installed in the job's exec directory. */
+    public static final class ExecFile
+    {
+        private final String                    _content;
+        private final String                    _fileName;
+        private final List<PosixFilePermission> _permissions;
+        
+        public ExecFile(String content, String fileName, List<PosixFilePermission> permissions)
+        {
+            _content = content;
+            _fileName = fileName;
+            _permissions = permissions;
+        }
+        
+        public String getContent() {return _content;}
+        public String getFileName() {return _fileName;}
+        public List<PosixFilePermission> getPermissions() {return _permissions;}
+    }
 }
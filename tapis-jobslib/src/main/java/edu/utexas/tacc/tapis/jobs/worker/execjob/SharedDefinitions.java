@@ -0,0 +1,200 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+import edu.utexas.tacc.tapis.apps.client.gen.model.TapisApp;
+import edu.utexas.tacc.tapis.systems.client.gen.model.SchedulerProfile;
+import edu.utexas.tacc.tapis.systems.client.gen.model.TapisSystem;
+
+/** Worker-wide canonical store of the system, application and scheduler profile
+ * definitions used by running jobs.  Jobs that run the same application on the
+ * same systems receive identical definitions from the Systems and Apps services,
+ * so rather than have each job's execution context retain its own copy of the
+ * same object graph, contexts share a single canonical instance.  The batch
+ * logical queues and job environment variables of a system and the environment
+ * variables of an application are shared along with their containing definition.
+ *
+ * Definitions are keyed by tenant, id, version (applications only) and update
+ * timestamp.  Systems are also keyed by the identity of the credential returned
+ * with them--the effective user, authentication method and credential--so jobs
+ * with different credentials on the same system get distinct instances.  A
+ * freshly loaded definition is only replaced by the canonical instance when the
+ * two are equal, which guarantees that jobs never see data that differs from
+ * what their own service call returned.  When they differ, the new definition
+ * becomes canonical and the jobs that already hold the old one keep it.
+ *
+ * The store holds canonical instances through weak references, so definitions
+ * are discarded as soon as no job context refers to them.  Interned definitions
+ * are shared between threads and must be treated as immutable.
+ *
+ * @author rcardone
+ */
+public final class SharedDefinitions
+{
+    /* ********************************************************************** */
+    /*                                Fields                                  */
+    /* ********************************************************************** */
+    // Canonical definitions by type.
+    private static final Interner<TapisSystem>      _systems  = new Interner<>();
+    private static final Interner<TapisApp>         _apps     = new Interner<>();
+    private static final Interner<SchedulerProfile> _profiles = new Interner<>();
+
+    /* ********************************************************************** */
+    /*                              Constructors                              */
+    /* ********************************************************************** */
+    private SharedDefinitions() {}
+
+    /* ********************************************************************** */
+    /*                             Public Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* internSystem:                                                          */
+    /* ---------------------------------------------------------------------- */
+    /** Return the canonical instance of a system definition.
+     *
+     * @param system a system definition loaded with its credential
+     * @return the canonical definition equal to the parameter, or null if the
+     *         parameter is null
+     */
+    public static TapisSystem internSystem(TapisSystem system)
+    {
+        if (system == null) return null;
+        String key = makeKey(system.getTenant(), system.getId(), system.getUpdated(),
+                             system.getEffectiveUserId(), system.getDefaultAuthnMethod(),
+                             Objects.hashCode(system.getAuthnCredential()));
+        return _systems.intern(key, system);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* internApp:                                                             */
+    /* ---------------------------------------------------------------------- */
+    /** Return the canonical instance of an application definition.
+     *
+     * @param app an application definition
+     * @return the canonical definition equal to the parameter, or null if the
+     *         parameter is null
+     */
+    public static TapisApp internApp(TapisApp app)
+    {
+        if (app == null) return null;
+        String key = makeKey(app.getTenant(), app.getId(), app.getVersion(), app.getUpdated());
+        return _apps.intern(key, app);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* internSchedulerProfile:                                                */
+    /* ---------------------------------------------------------------------- */
+    /** Return the canonical instance of a scheduler profile.
+     *
+     * @param tenant the tenant from which the profile was loaded
+     * @param profile a scheduler profile
+     * @return the canonical profile equal to the parameter, or null if the
+     *         parameter is null
+     */
+    public static SchedulerProfile internSchedulerProfile(String tenant, SchedulerProfile profile)
+    {
+        if (profile == null) return null;
+        String key = makeKey(tenant, profile.getName(), profile.getUpdated());
+        return _profiles.intern(key, profile);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* size:                                                                  */
+    /* ---------------------------------------------------------------------- */
+    /** The number of canonical definitions currently in the store, including
+     * ones that have been collected but not yet purged.
+     */
+    public static int size() {return _systems.size() + _apps.size() + _profiles.size();}
+
+    /* ********************************************************************** */
+    /*                            Private Methods                             */
+    /* ********************************************************************** */
+    /* ---------------------------------------------------------------------- */
+    /* makeKey:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Join the key components with a separator that doesn't appear in tapis
+     * identifiers.
+     */
+    private static String makeKey(Object... parts)
+    {
+        var buf = new StringBuilder(128);
+        for (int i = 0; i < parts.length; i++) {
+            if (i > 0) buf.append('|');
+            buf.append(parts[i]);
+        }
+        return buf.toString();
+    }
+
+    /* ********************************************************************** */
+    /*                            Interner Class                              */
+    /* ********************************************************************** */
+    /** A map of weakly referenced canonical values.  Entries whose values have
+     * been garbage collected are purged on each intern call.
+     */
+    static final class Interner<T>
+    {
+        // Key = definition key, value = weak reference to the canonical value.
+        private final ConcurrentHashMap<String,KeyedReference<T>> _map = new ConcurrentHashMap<>();
+        private final ReferenceQueue<T> _queue = new ReferenceQueue<>();
+
+        /* ------------------------------------------------------------------ */
+        /* intern:                                                            */
+        /* ------------------------------------------------------------------ */
+        /** Return the canonical value for the key if it equals the value,
+         * otherwise make the value canonical and return it.
+         */
+        T intern(String key, T value)
+        {
+            purge();
+            while (true) {
+                // Use the canonical value when it's still alive and identical.
+                var ref = _map.get(key);
+                T canonical = ref == null ? null : ref.get();
+                if (canonical != null && canonical.equals(value)) return canonical;
+
+                // Make the value canonical unless another thread beat us to it.
+                var newRef = new KeyedReference<T>(key, value, _queue);
+                if (ref == null) {
+                    if (_map.putIfAbsent(key, newRef) == null) return value;
+                }
+                else if (_map.replace(key, ref, newRef)) return value;
+            }
+        }
+
+        /* ------------------------------------------------------------------ */
+        /* size:                                                              */
+        /* ------------------------------------------------------------------ */
+        int size() {return _map.size();}
+
+        /* ------------------------------------------------------------------ */
+        /* purge:                                                             */
+        /* ------------------------------------------------------------------ */
+        /** Remove the entries of collected values. */
+        @SuppressWarnings("unchecked")
+        void purge()
+        {
+            KeyedReference<T> ref;
+            while ((ref = (KeyedReference<T>) _queue.poll()) != null)
+                _map.remove(ref._key, ref);
+        }
+    }
+
+    /* ********************************************************************** */
+    /*                          KeyedReference Class                          */
+    /* ********************************************************************** */
+    /** A weak reference that remembers its map key. */
+    private static final class KeyedReference<T>
+     extends WeakReference<T>
+    {
+        private final String _key;
+
+        private KeyedReference(String key, T referent, ReferenceQueue<T> queue)
+        {
+            super(referent, queue);
+            _key = key;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package edu.utexas.tacc.tapis.jobs.model;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+
+@Test(groups={"unit"})
+public class JobCompactionTest
+{
+    // A parameter set with a two task job array.
+    private static final String PARAMETER_SET =
+        "{\"appArgs\":[{\"arg\":\"--steps 100\"}]," +
+        "\"envVariables\":[{\"key\":\"MODE\",\"value\":\"fast\"}]," +
+        "\"jobArray\":{\"tasks\":[[{\"key\":\"X\",\"value\":\"1\"}],[{\"key\":\"X\",\"value\":\"2\"}]]}}";
+    private static final String FILE_INPUTS   = "[{\"sourceUrl\":\"tapis://corral/data.csv\"}]";
+    private static final String SUBSCRIPTIONS = "[{\"description\":\"all events\"}]";
+    private static final String NOTES         = "{\"project\":\"sweep\"}";
+
+    @Test
+    public void compactTest() throws JobException
+    {
+        var job = makeJob();
+        Assert.assertEquals(job.getFileInputsSpec().size(), 1);
+
+        // Monitoring keeps the job array and identifying fields only.
+        job.compactForMonitoring();
+        Assert.assertTrue(job.isCompacted());
+        Assert.assertNull(job.getParameterSet());
+        Assert.assertNull(job.getFileInputs());
+        Assert.assertNull(job.getSubscriptions());
+        Assert.assertNull(job.getNotes());
+        Assert.assertTrue(job.getParameterSetModel().isJobArray());
+        Assert.assertEquals(job.getParameterSetModel().getJobArray().getTaskCount(), 2);
+        Assert.assertNull(job.getParameterSetModel().getEnvVariables());
+        Assert.assertEquals(job.getExecSystemId(), "frontera");
+
+        // Restoration brings back the request fields.
+        var stored = makeJob();
+        stored.setUuid(job.getUuid());
+        job.restoreFromMonitoring(stored);
+        Assert.assertFalse(job.isCompacted());
+        Assert.assertEquals(job.getParameterSet(), PARAMETER_SET);
+        Assert.assertEquals(job.getNotes(), NOTES);
+        Assert.assertEquals(job.getParameterSetModel().getEnvVariables().size(), 1);
+        Assert.assertEquals(job.getFileInputsSpec().size(), 1);
+    }
+
+    @Test(expectedExceptions = JobException.class)
+    public void wrongJobTest() throws JobException
+    {
+        var job = makeJob();
+        job.compactForMonitoring();
+        job.restoreFromMonitoring(makeJob());
+    }
+
+    private Job makeJob()
+    {
+        var job = new Job();
+        job.setExecSystemId("frontera");
+        job.setParameterSet(PARAMETER_SET);
+        job.setFileInputs(FILE_INPUTS);
+        job.setSubscriptions(SUBSCRIPTIONS);
+        job.setNotes(NOTES);
+        return job;
+    }
+}
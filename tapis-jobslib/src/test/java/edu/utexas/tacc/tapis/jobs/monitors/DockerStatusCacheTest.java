@@ -0,0 +1,57 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class DockerStatusCacheTest 
+{
+    // Output of: docker ps -a --no-trunc --filter "label=tapis.jobs.uuid" --format "{{.Names}}|{{.Status}}"
+    private static final String PS_OUTPUT = 
+        "a1b2c3-007|Up 2 minutes\n" +
+        "d4e5f6-007|Exited (1) 41 seconds ago\n" +
+        "garbage\n" +
+        "\n";
+    
+    @Test
+    public void parseTest()
+    {
+        var snapshot = new DockerStatusSnapshot(PS_OUTPUT, 1000);
+        Assert.assertEquals(snapshot.size(), 2);
+        Assert.assertEquals(snapshot.getTakenAt(), 1000);
+        Assert.assertEquals(snapshot.getStatus("a1b2c3-007"), "Up 2 minutes");
+        Assert.assertEquals(snapshot.getStatus("d4e5f6-007"), "Exited (1) 41 seconds ago");
+        Assert.assertNull(snapshot.getStatus("garbage"));
+        Assert.assertNull(snapshot.getStatus(null));
+    }
+    
+    @Test
+    public void batchedRemovalTest() throws Exception
+    {
+        // Two monitors on the same host and user.
+        final String host = "batchedRemovalTest";
+        DockerStatusCache.register(host, "user");
+        DockerStatusCache.register(host, "user");
+        
+        // The first exited container is queued while another monitor is active.
+        Assert.assertTrue(DockerStatusCache.release(host, "user", "c1").isEmpty());
+        
+        // The next query removes it.
+        var removed = new ArrayList<String>();
+        var snapshot = DockerStatusCache.getSnapshot(host, "user", 0, 60000, 
+            removals -> {removed.addAll(removals); return "c2|Up 1 second";});
+        Assert.assertEquals(removed, List.of("c1"));
+        Assert.assertEquals(snapshot.getStatus("c2"), "Up 1 second");
+        
+        // The snapshot is shared.
+        var snapshot2 = DockerStatusCache.getSnapshot(host, "user", 0, 60000, 
+            removals -> {throw new IllegalStateException("unexpected query");});
+        Assert.assertSame(snapshot2, snapshot);
+        
+        // The last monitor removes its own container.
+        Assert.assertEquals(DockerStatusCache.release(host, "user", "c2"), List.of("c2"));
+    }
+}
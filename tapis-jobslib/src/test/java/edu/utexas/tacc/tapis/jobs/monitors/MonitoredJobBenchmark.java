@@ -0,0 +1,115 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import static edu.utexas.tacc.tapis.jobs.utils.HeapUsage.usedHeap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.model.Job;
+
+/** Heap harness that measures the job state retained per monitored job before
+ * and after the job is compacted for monitoring.  Each simulated job carries a
+ * request of the size typical of parameter sweep submissions, whose parameter
+ * set has been parsed during staging.
+ */
+@Test(groups={"performance"})
+public class MonitoredJobBenchmark
+{
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(MonitoredJobBenchmark.class);
+    
+    // Benchmark parameters.
+    private static final int JOBS          = 10000;
+    private static final int APP_ARGS      = 20;
+    private static final int ENV_VARIABLES = 40;
+    private static final int FILE_INPUTS   = 20;
+
+    @Test
+    public void footprintBenchmark()
+    {
+        // Retain the full jobs.
+        long base = usedHeap();
+        var jobs = makeJobs();
+        long fullBytes = usedHeap() - base;
+
+        // Compact each job in place.
+        for (var job : jobs) job.compactForMonitoring();
+        long compactBytes = usedHeap() - base;
+        Assert.assertEquals(jobs.size(), JOBS);
+        Assert.assertTrue(jobs.get(0).isCompacted());
+
+        _log.info(String.format("%d jobs: full %d bytes/job, compacted %d bytes/job",
+                                JOBS, fullBytes / JOBS, compactBytes / JOBS));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeJobs:                                                              */
+    /* ---------------------------------------------------------------------- */
+    private List<Job> makeJobs()
+    {
+        var jobs = new ArrayList<Job>(JOBS);
+        for (int i = 0; i < JOBS; i++) {
+            var job = new Job();
+            job.setName("sweep-" + i);
+            job.setOwner("testuser");
+            job.setTenant("tacc");
+            job.setAppId("simulation");
+            job.setAppVersion("1.0");
+            job.setExecSystemId("frontera");
+            job.setRemoteJobId(Integer.toString(1000000 + i));
+            job.setParameterSet(makeParameterSet(i));
+            job.setFileInputs(makeFileInputs(i));
+            job.setSubscriptions("[{\"description\":\"job status\",\"enabled\":true," +
+                                 "\"eventCategoryFilter\":\"JOB_NEW_STATUS\",\"ttlMinutes\":10080," +
+                                 "\"deliveryTargets\":[{\"deliveryMethod\":\"EMAIL\"," +
+                                 "\"deliveryAddress\":\"testuser@example.org\"}]}]");
+            job.setNotes("{\"project\":\"parameter-sweep\",\"run\":" + i + "}");
+            
+            // Staging parses the parameter set.
+            job.getParameterSetModel();
+            jobs.add(job);
+        }
+        return jobs;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeParameterSet:                                                      */
+    /* ---------------------------------------------------------------------- */
+    private String makeParameterSet(int i)
+    {
+        var buf = new StringBuilder("{\"appArgs\":[");
+        for (int a = 0; a < APP_ARGS; a++) {
+            if (a > 0) buf.append(',');
+            buf.append("{\"name\":\"arg").append(a).append("\",\"arg\":\"--option-").append(a)
+               .append(' ').append(i * APP_ARGS + a).append("\"}");
+        }
+        buf.append("],\"envVariables\":[");
+        for (int v = 0; v < ENV_VARIABLES; v++) {
+            if (v > 0) buf.append(',');
+            buf.append("{\"key\":\"SWEEP_VARIABLE_").append(v).append("\",\"value\":\"")
+               .append("/work/projects/sweep/run-").append(i).append("/value-").append(v).append("\"}");
+        }
+        buf.append("],\"archiveFilter\":{\"includes\":[\"**/*.csv\",\"**/*.log\"],\"excludes\":[\"**/*.tmp\"]}}");
+        return buf.toString();
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeFileInputs:                                                        */
+    /* ---------------------------------------------------------------------- */
+    private String makeFileInputs(int i)
+    {
+        var buf = new StringBuilder("[");
+        for (int f = 0; f < FILE_INPUTS; f++) {
+            if (f > 0) buf.append(',');
+            buf.append("{\"name\":\"input").append(f).append("\",\"sourceUrl\":\"tapis://corral/sweep/")
+               .append(i).append("/input-").append(f).append(".dat\",\"targetPath\":\"input-")
+               .append(f).append(".dat\"}");
+        }
+        return buf.append(']').toString();
+    }
+}
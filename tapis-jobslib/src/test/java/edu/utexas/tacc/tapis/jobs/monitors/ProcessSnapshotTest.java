@@ -0,0 +1,57 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class ProcessSnapshotTest 
+{
+    // Output of: ps --no-headers --sort=pid -eo pid,ppid,stat,euser,cmd
+    private static final String PS_OUTPUT = 
+        "      1       0 Ss   root     /sbin/init\n" +
+        " 624784    2286 Ssl  rcardone Singularity instance: rcardone [XXX]\n" +
+        " 624785  624784 Sl   rcardone sinit\n" +
+        " 624799       2 S<   root     [loop1]\n" +
+        " 624807  624785 S    rcardone /bin/sh /.singularity.d/startscript\n" +
+        " 624810  624807 Sl   rcardone java -cp /usr/local/bin/testapps.jar SleepSeconds 120\n" +
+        " 624811  624807 S    rcardone sleep 5\n";
+    
+    @Test
+    public void indexTest()
+    {
+        var snapshot = new ProcessSnapshot(PS_OUTPUT, 1000);
+        Assert.assertEquals(snapshot.size(), 7);
+        Assert.assertEquals(snapshot.getTakenAt(), 1000);
+        
+        // Lookup by pid.
+        var sinit = snapshot.getProcess("624785");
+        Assert.assertNotNull(sinit);
+        Assert.assertEquals(sinit.ppid, "624784");
+        Assert.assertEquals(sinit.rest, "Sl   rcardone sinit");
+        Assert.assertNull(snapshot.getProcess("999999"));
+        Assert.assertNull(snapshot.getProcess(null));
+        
+        // Children in ascending pid order.
+        var startscript = snapshot.getFirstChild(sinit.pid);
+        Assert.assertEquals(startscript.pid, "624807");
+        var children = snapshot.getChildren(startscript.pid);
+        Assert.assertEquals(children.size(), 2);
+        Assert.assertEquals(children.get(0).pid, "624810");
+        Assert.assertEquals(children.get(1).pid, "624811");
+        Assert.assertTrue(snapshot.getChildren("624810").isEmpty());
+        Assert.assertNull(snapshot.getFirstChild("624810"));
+        
+        // Singularity instances, but not kernel threads.
+        Assert.assertEquals(snapshot.getInstance("XXX").pid, "624784");
+        Assert.assertNull(snapshot.getInstance("loop1"));
+    }
+    
+    @Test
+    public void emptyTest()
+    {
+        var snapshot = new ProcessSnapshot("", 0);
+        Assert.assertEquals(snapshot.size(), 0);
+        Assert.assertNull(snapshot.getProcess("1"));
+        Assert.assertTrue(snapshot.getChildren("1").isEmpty());
+    }
+}
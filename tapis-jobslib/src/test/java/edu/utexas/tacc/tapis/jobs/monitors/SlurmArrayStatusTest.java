@@ -0,0 +1,68 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.monitors.parsers.JobRemoteStatus;
+
+@Test(groups={"unit"})
+public class SlurmArrayStatusTest 
+{
+    @Test
+    public void countTest()
+    {
+        Assert.assertEquals(SlurmArrayStatus.countTasks("4"), 1);
+        Assert.assertEquals(SlurmArrayStatus.countTasks("[5-9]"), 5);
+        Assert.assertEquals(SlurmArrayStatus.countTasks("[5-9%2]"), 5);
+        Assert.assertEquals(SlurmArrayStatus.countTasks("[1,3-7:2]"), 4);
+    }
+    
+    @Test
+    public void queuedTest()
+    {
+        var status = new SlurmArrayStatus("77", "banner\n77_[0-9%2]|PENDING|0:0\n");
+        Assert.assertEquals(status.getQueued(), 10);
+        Assert.assertEquals(status.getRemoteStatus(10), JobRemoteStatus.QUEUED);
+    }
+    
+    @Test
+    public void activeTest()
+    {
+        // Some tasks done and others pending means the array is running.
+        String result = "77_0|COMPLETED|0:0\n77_1|RUNNING|0:0\n77_[2-9]|PENDING|0:0\n";
+        Assert.assertEquals(new SlurmArrayStatus("77", result).getRemoteStatus(10), JobRemoteStatus.ACTIVE);
+        result = "77_0|COMPLETED|0:0\n77_[1-9]|PENDING|0:0\n";
+        Assert.assertEquals(new SlurmArrayStatus("77", result).getRemoteStatus(10), JobRemoteStatus.ACTIVE);
+        
+        // Missing tasks are not assumed to be done.
+        result = "77_0|COMPLETED|0:0\n";
+        Assert.assertEquals(new SlurmArrayStatus("77", result).getRemoteStatus(2), JobRemoteStatus.ACTIVE);
+    }
+    
+    @Test
+    public void terminalTest()
+    {
+        String result = "77_0|COMPLETED|0:0\n77_0.batch|COMPLETED|0:0\n77_1|COMPLETED|0:0\n";
+        var status = new SlurmArrayStatus("77", result);
+        Assert.assertEquals(status.getRemoteStatus(2), JobRemoteStatus.DONE);
+        Assert.assertEquals(status.getSummary(), "2 COMPLETED");
+        Assert.assertEquals(status.getExitCode(), "0:0");
+        
+        result = "77_0|COMPLETED|0:0\n77_1|FAILED|3:0\n77_[2-3]|CANCELLED by 500|0:0\n";
+        status = new SlurmArrayStatus("77", result);
+        Assert.assertEquals(status.getRemoteStatus(4), JobRemoteStatus.FAILED);
+        Assert.assertEquals(status.getFailed(), 3);
+        Assert.assertEquals(status.getExitCode(), "3:0");
+        Assert.assertEquals(status.getSummary(), "2 CANCELLED, 1 COMPLETED, 1 FAILED");
+        Assert.assertEquals(status.getTaskResults(), 
+                            "0|COMPLETED|0:0\n1|FAILED|3:0\n[2-3]|CANCELLED|0:0\n");
+    }
+    
+    @Test
+    public void unknownTest()
+    {
+        var status = new SlurmArrayStatus("77", "77_0|WEIRD|0:0\n");
+        Assert.assertEquals(status.getUnknownState(), "WEIRD");
+        Assert.assertEquals(new SlurmArrayStatus("77", "").getRemoteStatus(1), JobRemoteStatus.EMPTY);
+    }
+}
@@ -0,0 +1,137 @@
+package edu.utexas.tacc.tapis.jobs.monitors;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.dao.JobsDao.StatusCheckDelta;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+
+@Test(groups={"unit"})
+public class StatusCheckWriterTest
+{
+    // Long enough that the flushing thread never writes during a test.
+    private static final long FLUSH_MILLIS = 3600000;
+
+    private static final Instant CREATED = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant T1      = CREATED.plusSeconds(60);
+    private static final Instant T2      = CREATED.plusSeconds(120);
+
+    @Test
+    public void mergeTest()
+    {
+        // Deltas merge the same way in either order and keep the latest check.
+        var early = new StatusCheckDelta(7, CREATED, 2, 1, T1);
+        var late  = new StatusCheckDelta(7, CREATED, 1, 3, T2);
+        for (var delta : List.of(early.add(late), late.add(early))) {
+            Assert.assertEquals(delta.jobId, 7);
+            Assert.assertEquals(delta.created, CREATED);
+            Assert.assertEquals(delta.success, 3);
+            Assert.assertEquals(delta.failed, 4);
+            Assert.assertEquals(delta.lastCheck, T2);
+        }
+    }
+
+    @Test
+    public void recordTest() throws Exception
+    {
+        // Checks are accumulated per job.
+        var batches = new ArrayList<List<StatusCheckDelta>>();
+        var writer = new StatusCheckWriter(FLUSH_MILLIS, deltas -> {batches.add(deltas); return deltas.size();});
+        try {
+            var job1 = newJob(1);
+            var job2 = newJob(2);
+            writer.record(null, job1, true);
+            writer.record(null, job1, false);
+            writer.record(null, job1, true);
+            writer.record(null, job2, false);
+            Assert.assertEquals(writer.getPendingJobs(), 2);
+            Assert.assertTrue(batches.isEmpty());
+
+            // The in-memory job is updated immediately.
+            Assert.assertEquals(job1.getRemoteChecksSuccess(), 2);
+            Assert.assertEquals(job1.getRemoteChecksFailed(), 1);
+            Assert.assertNotNull(job1.getRemoteLastStatusCheck());
+
+            // Ending a job's monitoring phase writes only that job.
+            writer.flush(job1);
+            Assert.assertEquals(batches.size(), 1);
+            Assert.assertEquals(batches.get(0).size(), 1);
+            var delta = batches.get(0).get(0);
+            Assert.assertEquals(delta.jobId, 1);
+            Assert.assertEquals(delta.success, 2);
+            Assert.assertEquals(delta.failed, 1);
+            Assert.assertEquals(writer.getPendingJobs(), 1);
+
+            // Nothing is written for a job without pending checks.
+            writer.flush(job1);
+            Assert.assertEquals(batches.size(), 1);
+        }
+        finally {
+            // Shutdown writes the remaining job.
+            writer.shutdown();
+        }
+        Assert.assertEquals(batches.size(), 2);
+        Assert.assertEquals(batches.get(1).size(), 1);
+        Assert.assertEquals(batches.get(1).get(0).jobId, 2);
+        Assert.assertEquals(batches.get(1).get(0).failed, 1);
+        Assert.assertEquals(writer.getPendingJobs(), 0);
+    }
+
+    @Test
+    public void failedWriteTest() throws Exception
+    {
+        // The first write fails.
+        var batches = new ArrayList<List<StatusCheckDelta>>();
+        var fail = new boolean[] {true};
+        var writer = new StatusCheckWriter(FLUSH_MILLIS, deltas -> {
+            if (fail[0]) throw new IllegalStateException("database unavailable");
+            batches.add(deltas);
+            return deltas.size();
+        });
+        try {
+            var job = newJob(3);
+            writer.record(null, job, true);
+            writer.record(null, job, false);
+            writer.flushAll();
+            Assert.assertTrue(batches.isEmpty());
+            Assert.assertEquals(writer.getPendingJobs(), 1);
+
+            // Counts retained from the failed write merge with later checks,
+            // so the written totals never go backwards.
+            writer.record(null, job, true);
+            fail[0] = false;
+            writer.flushAll();
+            Assert.assertEquals(batches.size(), 1);
+            var delta = batches.get(0).get(0);
+            Assert.assertEquals(delta.success, 2);
+            Assert.assertEquals(delta.failed, 1);
+            Assert.assertEquals(delta.lastCheck, job.getRemoteLastStatusCheck());
+            Assert.assertEquals(writer.getPendingJobs(), 0);
+        }
+        finally {writer.shutdown();}
+    }
+
+    @Test
+    public void sortTest()
+    {
+        // Batch updates lock job rows in job id order.
+        var deltas = List.of(new StatusCheckDelta(9, CREATED, 1, 0, T1),
+                             new StatusCheckDelta(2, CREATED, 0, 1, T2),
+                             new StatusCheckDelta(5, CREATED, 1, 1, T1));
+        var sorted = StatusCheckDelta.sortByJobId(deltas);
+        Assert.assertEquals(sorted.stream().map(d -> d.jobId).toList(), List.of(2, 5, 9));
+        Assert.assertEquals(deltas.get(0).jobId, 9);
+    }
+
+    private Job newJob(int id)
+    {
+        var job = new Job();
+        job.setId(id);
+        job.setCreated(CREATED);
+        return job;
+    }
+}
@@ -0,0 +1,106 @@
+package edu.utexas.tacc.tapis.jobs.monitors.policies;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+import edu.utexas.tacc.tapis.jobs.model.Job;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobStatusType;
+
+@Test(groups={"unit"})
+public class AdaptiveBackoffPolicyTest
+{
+    // Queue wait statistics used in most tests:  6 hours +/- 1 hour, 
+    // so the window begins 4.5 hours after submission.
+    private static final double MEAN_SECS   = 6 * 3600;
+    private static final double STDDEV_SECS = 3600;
+
+    @Test
+    public void initialWaitTest() throws JobException
+    {
+        // A newly monitored job starts with the quick initial checks.
+        var policy = makePolicy(makeQueuedJob(0, 0), MEAN_SECS, STDDEV_SECS);
+        Assert.assertEquals(policy.millisToWait(false).longValue(), 1000L);
+        Assert.assertEquals(policy.millisToWait(false).longValue(), 10000L);
+        Assert.assertTrue(policy.keepConnection());
+    }
+
+    @Test
+    public void queuedScheduleTest() throws JobException
+    {
+        // Far from the predicted start, checks are rare.
+        var policy = makePolicy(makeQueuedJob(0, 10), MEAN_SECS, STDDEV_SECS);
+        Assert.assertEquals(policy.millisToWait(false).longValue(), MonitorPolicy.DEFAULT_ADAPTIVE_MAX_WAIT_MS);
+        Assert.assertFalse(policy.keepConnection());
+
+        // Just before the window, the wait is the dense interval plus a
+        // fraction of the distance to the window, but never past the window.
+        long wait = makePolicy(makeQueuedJob(260, 10), MEAN_SECS, STDDEV_SECS).millisToWait(false);
+        Assert.assertTrue(wait > 325000L && wait <= 330000L, "wait " + wait);
+        wait = makePolicy(makeQueuedJob(269, 10), MEAN_SECS, STDDEV_SECS).millisToWait(false);
+        Assert.assertTrue(wait > 55000L && wait <= 60000L, "wait " + wait);
+
+        // Inside the window, checks are dense.
+        policy = makePolicy(makeQueuedJob(360, 10), MEAN_SECS, STDDEV_SECS);
+        Assert.assertEquals(policy.millisToWait(false).longValue(), 180000L);
+
+        // Overdue jobs are checked at least every 10 minutes.
+        policy = makePolicy(makeQueuedJob(1200, 10), MEAN_SECS, STDDEV_SECS);
+        Assert.assertEquals(policy.millisToWait(false).longValue(), 600000L);
+    }
+
+    @Test
+    public void runningLimitTest() throws JobException
+    {
+        // The predicted end of a running job is limited by its maximum run time.
+        var job = makeQueuedJob(0, 10);
+        job.setStatus(JobStatusType.RUNNING);
+        job.setRemoteStarted(job.getRemoteSubmitted());
+        job.setMaxMinutes(60);
+        var policy = makePolicy(job, 10 * 3600, 600);
+        policy.millisToWait(false);
+        Assert.assertFalse(policy.getPredictedTransition().isAfter(
+                           job.getRemoteStarted().plus(60, ChronoUnit.MINUTES)));
+
+        // Checks are also scheduled to detect the time limit.
+        Assert.assertTrue(policy.millisToWait(false) <= 3600000L);
+    }
+
+    @Test(expectedExceptions = JobException.class)
+    public void noStatisticsTest() throws JobException
+    {
+        // The policy requires statistics.
+        new AdaptiveBackoffPolicy(makeQueuedJob(0, 0), new MonitorPolicyParameters());
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeQueuedJob:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Create a job that was submitted the given number of minutes ago and
+     * that has already been checked the given number of times.
+     */
+    private Job makeQueuedJob(int minutesAgo, int checks)
+    {
+        var job = new Job();
+        job.setStatus(JobStatusType.QUEUED);
+        job.setRemoteSubmitted(Instant.now().minus(minutesAgo, ChronoUnit.MINUTES));
+        job.setRemoteChecksSuccess(checks);
+        return job;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makePolicy:                                                            */
+    /* ---------------------------------------------------------------------- */
+    private AdaptiveBackoffPolicy makePolicy(Job job, double meanSecs, double stdDevSecs)
+     throws JobException
+    {
+        var parms = new MonitorPolicyParameters();
+        parms.setDefaultMaxElapsedSecond(job);
+        parms.transitionMeanSeconds = meanSecs;
+        parms.transitionStdDevSeconds = stdDevSecs;
+        return new AdaptiveBackoffPolicy(job, parms);
+    }
+}
@@ -0,0 +1,30 @@
+package edu.utexas.tacc.tapis.jobs.queue;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class CmdRoutingKeyTest 
+{
+    private static final String JOB_UUID = "0b5f7a33-30c2-4c3a-b21a-5a5e5c2e9a4c-007";
+    
+    @Test
+    public void routingKeyTest()
+    {
+        // Round trip the job-specific routing key.
+        String key = JobQueueManagerNames.getCmdSpecificJobRoutingKey(JOB_UUID);
+        Assert.assertEquals(JobQueueManagerNames.getJobUuidFromCmdRoutingKey(key), JOB_UUID);
+        Assert.assertEquals(JobQueueManagerNames.getJobUuidFromCmdRoutingKey(key + ".cancel"), JOB_UUID);
+        
+        // The wildcard binding covers the job-specific routing keys.
+        String binding = JobQueueManagerNames.getCmdAllJobBindingKey();
+        Assert.assertTrue(key.startsWith(binding.substring(0, binding.length() - 1)));
+        
+        // Worker keys don't target jobs.
+        Assert.assertNull(JobQueueManagerNames.getJobUuidFromCmdRoutingKey(
+                              JobQueueManagerNames.getCmdAllWorkerRoutingKey()));
+        Assert.assertNull(JobQueueManagerNames.getJobUuidFromCmdRoutingKey(
+                              JobQueueManagerNames.getCmdSpecificWorkerRoutingKey("wid")));
+        Assert.assertNull(JobQueueManagerNames.getJobUuidFromCmdRoutingKey(null));
+    }
+}
@@ -0,0 +1,69 @@
+package edu.utexas.tacc.tapis.jobs.queue;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class DeficitRoundRobinTest
+{
+    @Test
+    public void weightedTest()
+    {
+        // Busy keys are selected in proportion to their weights.
+        var keyWeights = new LinkedHashMap<String,Integer>();
+        keyWeights.put("big", 1);
+        keyWeights.put("small", 3);
+        var drr = new DeficitRoundRobin(keyWeights);
+
+        var counts = new HashMap<String,Integer>();
+        for (int i = 0; i < 400; i++) counts.merge(drr.next(), 1, Integer::sum);
+        Assert.assertEquals(counts.get("big").intValue(), 100);
+        Assert.assertEquals(counts.get("small").intValue(), 300);
+    }
+
+    @Test
+    public void emptyTest()
+    {
+        // An empty key forfeits its turn and doesn't accumulate credit.
+        var keyWeights = new LinkedHashMap<String,Integer>();
+        keyWeights.put("a", 5);
+        keyWeights.put("b", 1);
+        var drr = new DeficitRoundRobin(keyWeights);
+
+        Assert.assertEquals(drr.next(), "a");
+        drr.empty("a");
+        Assert.assertEquals(drr.next(), "b");
+        Assert.assertEquals(drr.next(), "a");
+        for (int i = 0; i < 4; i++) Assert.assertEquals(drr.next(), "a");
+        Assert.assertEquals(drr.next(), "b");
+    }
+
+    @Test
+    public void parseTest()
+    {
+        var weights = DeficitRoundRobin.parseWeights(" tacc=4, designsafe = 2 ,*=3 ");
+        Assert.assertEquals(DeficitRoundRobin.getWeight(weights, "tacc"), 4);
+        Assert.assertEquals(DeficitRoundRobin.getWeight(weights, "designsafe"), 2);
+        Assert.assertEquals(DeficitRoundRobin.getWeight(weights, "other"), 3);
+
+        // Empty specifications use the default weight.
+        weights = DeficitRoundRobin.parseWeights("");
+        Assert.assertEquals(DeficitRoundRobin.getWeight(weights, "tacc"),
+                            DeficitRoundRobin.DEFAULT_WEIGHT);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void badWeightTest()
+    {
+        DeficitRoundRobin.parseWeights("tacc=0");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void badSyntaxTest()
+    {
+        DeficitRoundRobin.parseWeights("tacc:4");
+    }
+}
@@ -0,0 +1,145 @@
+package edu.utexas.tacc.tapis.jobs.queue;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.function.Function;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.model.JobEvent;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobEventType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.JobSubmitMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg.CmdType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobCancelMsg;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+/** Throughput and allocation harness that compares the reflective TapisGsonUtils
+ * string path used by the queue readers and writers with the QueueMsgCodec byte
+ * path.  Each iteration encodes a message to bytes and decodes it back, which is
+ * the work done for a message on its way through the broker.  The reflective
+ * path decodes commands twice, once as a CmdMsg and once as the concrete type,
+ * just as the command processor did.
+ */
+@Test(groups={"performance"})
+public class QueueMsgCodecBenchmark
+{
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(QueueMsgCodecBenchmark.class);
+    
+    // Benchmark parameters.
+    private static final int WARMUP_ITERATIONS = 50000;
+    private static final int ITERATIONS        = 200000;
+
+    @Test
+    public void submitMsgBenchmark()
+    {
+        var msg = new JobSubmitMsg();
+        msg.setCreated("2024-10-15T12:00:00Z");
+        msg.setUuid("6c7e0e7a-3f44-4c3e-9a5d-4d8f2c1b0e7a-007");
+        msg.setThrottleRedeliveries(1);
+        var traceContext = new HashMap<String,String>();
+        traceContext.put("traceparent", "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01");
+        msg.setTraceContext(traceContext);
+
+        run("JobSubmitMsg",
+            m -> TapisGsonUtils.getGson().fromJson(toBytesString(m), JobSubmitMsg.class),
+            m -> QueueMsgCodec.decode(QueueMsgCodec.encode(m), JobSubmitMsg.class),
+            msg);
+    }
+
+    @Test
+    public void cmdMsgBenchmark()
+    {
+        var msg = new JobCancelMsg();
+        msg.jobuuid  = "6c7e0e7a-3f44-4c3e-9a5d-4d8f2c1b0e7a-007";
+        msg.senderId = "jobs-api-1";
+
+        run("JobCancelMsg",
+            m -> {
+                String body = toBytesString(m);
+                CmdMsg cmd = TapisGsonUtils.getGson().fromJson(body, CmdMsg.class);
+                Assert.assertEquals(cmd.msgType, CmdType.JOB_CANCEL);
+                return TapisGsonUtils.getGson().fromJson(body, JobCancelMsg.class);
+            },
+            m -> QueueMsgCodec.decode(QueueMsgCodec.encode(m), CmdMsg.class),
+            msg);
+    }
+
+    @Test
+    public void jobEventBenchmark()
+    {
+        var event = new JobEvent();
+        event.setId(123456);
+        event.setEvent(JobEventType.JOB_NEW_STATUS);
+        event.setCreated(Instant.parse("2024-10-15T12:00:00.123Z"));
+        event.setJobUuid("6c7e0e7a-3f44-4c3e-9a5d-4d8f2c1b0e7a-007");
+        event.setEventDetail("RUNNING");
+        event.setOthUuid(null);
+        event.setTenant("tacc");
+        event.setDescription("{\"newJobStatus\":\"RUNNING\",\"oldJobStatus\":\"QUEUED\"," +
+                             "\"jobName\":\"sweep-0042\",\"jobOwner\":\"testuser\"," +
+                             "\"message\":\"The job has transitioned to a new status: RUNNING.\"}");
+
+        run("JobEvent",
+            m -> TapisGsonUtils.getGson().fromJson(toBytesString(m), JobEvent.class),
+            m -> QueueMsgCodec.decode(QueueMsgCodec.encode(m), JobEvent.class),
+            event);
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* run:                                                                   */
+    /* ---------------------------------------------------------------------- */
+    /** Warm up and time both paths, then print the results. */
+    private <T> void run(String name, Function<T,Object> reflective,
+                         Function<T,Object> codec, T msg)
+    {
+        // Both paths must produce the same class.
+        Assert.assertEquals(reflective.apply(msg).getClass(), msg.getClass());
+        Assert.assertEquals(codec.apply(msg).getClass(), msg.getClass());
+
+        measure(reflective, msg, WARMUP_ITERATIONS);
+        measure(codec, msg, WARMUP_ITERATIONS);
+        long[] r = measure(reflective, msg, ITERATIONS);
+        long[] c = measure(codec, msg, ITERATIONS);
+
+        _log.info(String.format(
+            "%s: reflective %d ns/msg %d bytes/msg, codec %d ns/msg %d bytes/msg",
+            name, r[0] / ITERATIONS, r[1] / ITERATIONS, c[0] / ITERATIONS, c[1] / ITERATIONS));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* measure:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Return the elapsed nanoseconds and the bytes allocated by this thread. */
+    private <T> long[] measure(Function<T,Object> f, T msg, int iterations)
+    {
+        var mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long startBytes = mx.getThreadAllocatedBytes(threadId);
+        long startTime  = System.nanoTime();
+        Object last = null;
+        for (int i = 0; i < iterations; i++) last = f.apply(msg);
+        long elapsed = System.nanoTime() - startTime;
+        long bytes   = mx.getThreadAllocatedBytes(threadId) - startBytes;
+        Assert.assertNotNull(last);
+        return new long[] {elapsed, bytes};
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* toBytesString:                                                         */
+    /* ---------------------------------------------------------------------- */
+    /** Serialize the way the queue manager did and decode the bytes the way
+     * the readers did.
+     */
+    private static String toBytesString(Object msg)
+    {
+        byte[] bytes = TapisGsonUtils.getGson().toJson(msg).getBytes(StandardCharsets.UTF_8);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
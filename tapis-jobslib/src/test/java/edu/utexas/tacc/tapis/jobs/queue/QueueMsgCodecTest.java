@@ -0,0 +1,170 @@
+package edu.utexas.tacc.tapis.jobs.queue;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.utexas.tacc.tapis.jobs.events.JobEventData.JobEventLivenessData;
+import edu.utexas.tacc.tapis.jobs.model.JobEvent;
+import edu.utexas.tacc.tapis.jobs.model.enumerations.JobEventType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.JobSubmitMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.CmdMsg.CmdType;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.JobCancelMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.cmd.WkrShutdownMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverMsg;
+import edu.utexas.tacc.tapis.jobs.queue.messages.recover.RecoverShutdownMsg;
+import edu.utexas.tacc.tapis.shared.utils.TapisGsonUtils;
+
+@Test(groups={"unit"})
+public class QueueMsgCodecTest
+{
+    @Test
+    public void submitMsgTest()
+    {
+        var msg = new JobSubmitMsg();
+        msg.setCreated("2024-10-15T12:00:00Z");
+        msg.setUuid("6c7e0e7a-job");
+        msg.setThrottleRedeliveries(2);
+        var traceContext = new HashMap<String,String>();
+        traceContext.put("traceparent", "00-abc-def-01");
+        msg.setTraceContext(traceContext);
+
+        // Round trip.
+        var decoded = QueueMsgCodec.decode(QueueMsgCodec.encode(msg), JobSubmitMsg.class);
+        Assert.assertEquals(decoded.getUuid(), msg.getUuid());
+        Assert.assertEquals(decoded.getCreated(), msg.getCreated());
+        Assert.assertEquals(decoded.getThrottleRedeliveries(), 2);
+        Assert.assertEquals(decoded.getTraceContext(), traceContext);
+
+        // Messages written by the reflective serializer are understood and vice versa.
+        var json = TapisGsonUtils.getGson().toJson(msg);
+        decoded = QueueMsgCodec.decode(json.getBytes(StandardCharsets.UTF_8), JobSubmitMsg.class);
+        Assert.assertEquals(decoded.getUuid(), msg.getUuid());
+        Assert.assertEquals(decoded.getTraceContext(), traceContext);
+        var old = TapisGsonUtils.getGson().fromJson(new String(QueueMsgCodec.encode(msg),
+                                                    StandardCharsets.UTF_8), JobSubmitMsg.class);
+        Assert.assertEquals(old.getUuid(), msg.getUuid());
+        Assert.assertEquals(old.msgType, msg.msgType);
+    }
+
+    @Test
+    public void cmdMsgTest()
+    {
+        // Commands are decoded into their concrete classes in one pass.
+        var cancel = new JobCancelMsg();
+        cancel.jobuuid = "6c7e0e7a-job";
+        cancel.senderId = "tester";
+        CmdMsg cmd = QueueMsgCodec.decode(QueueMsgCodec.encode(cancel), CmdMsg.class);
+        Assert.assertTrue(cmd instanceof JobCancelMsg);
+        Assert.assertEquals(((JobCancelMsg)cmd).jobuuid, cancel.jobuuid);
+        Assert.assertEquals(cmd.senderId, "tester");
+
+        var shutdown = new WkrShutdownMsg();
+        shutdown.force = false;
+        cmd = QueueMsgCodec.decode(QueueMsgCodec.encode(shutdown), CmdMsg.class);
+        Assert.assertTrue(cmd instanceof WkrShutdownMsg);
+        Assert.assertFalse(((WkrShutdownMsg)cmd).force);
+
+        // Unknown and unmapped types produce base messages.
+        cmd = QueueMsgCodec.decode("{\"msgType\":\"BOGUS\"}".getBytes(StandardCharsets.UTF_8), CmdMsg.class);
+        Assert.assertEquals(cmd.getClass(), CmdMsg.class);
+        cmd = QueueMsgCodec.decode("{\"msgType\":\"WKR_SHUTDOWN_QUIESCE\"}".getBytes(StandardCharsets.UTF_8),
+                                   CmdMsg.class);
+        Assert.assertEquals(cmd.getClass(), CmdMsg.class);
+        Assert.assertEquals(cmd.msgType, CmdType.WKR_SHUTDOWN_QUIESCE);
+    }
+
+    @Test
+    public void recoverMsgTest()
+    {
+        var shutdown = new RecoverShutdownMsg("tester");
+        shutdown.setQueueName("tapis.jobs.recovery");
+        RecoverMsg msg = QueueMsgCodec.decode(QueueMsgCodec.encode(shutdown), RecoverMsg.class);
+        Assert.assertTrue(msg instanceof RecoverShutdownMsg);
+        Assert.assertEquals(((RecoverShutdownMsg)msg).getQueueName(), "tapis.jobs.recovery");
+        Assert.assertEquals(msg.getCorrelationId(), shutdown.getCorrelationId());
+    }
+
+    @Test
+    public void jobEventTest()
+    {
+        var event = new JobEvent();
+        event.setId(42);
+        event.setEvent(JobEventType.JOB_NEW_STATUS);
+        event.setCreated(Instant.parse("2024-10-15T12:00:00.123Z"));
+        event.setJobUuid("6c7e0e7a-job");
+        event.setEventDetail("RUNNING");
+        event.setDescription("{\"message\":\"caf\u00e9 \\\"quoted\\\"\"}");
+        event.setTenant("tacc");
+
+        var decoded = QueueMsgCodec.decode(QueueMsgCodec.encode(event), JobEvent.class);
+        Assert.assertEquals(decoded.getId(), 42);
+        Assert.assertEquals(decoded.getEvent(), JobEventType.JOB_NEW_STATUS);
+        Assert.assertEquals(decoded.getCreated(), event.getCreated());
+        Assert.assertEquals(decoded.getDescription(), event.getDescription());
+        Assert.assertNull(decoded.getOthUuid());
+
+        // Compatible with the reflective serializer.
+        var json = TapisGsonUtils.getGson().toJson(event);
+        decoded = QueueMsgCodec.decode(json.getBytes(StandardCharsets.UTF_8), JobEvent.class);
+        Assert.assertEquals(decoded.getCreated(), event.getCreated());
+        Assert.assertEquals(decoded.getTenant(), "tacc");
+    }
+
+    @Test
+    public void reflectiveParityTest()
+    {
+        // Every field of a submit message is populated.
+        var msg = new JobSubmitMsg();
+        msg.setCreated("2024-10-15T12:00:00.123456Z");
+        msg.setUuid("6c7e0e7a-job");
+        msg.setThrottleRedeliveries(3);
+        var traceContext = new HashMap<String,String>();
+        traceContext.put("traceparent", "00-abc-def-01");
+        traceContext.put("tracestate", "tapis=1");
+        msg.setTraceContext(traceContext);
+        assertSameJson(msg);
+
+        // Every field of an event is populated, including text that needs escaping.
+        var event = new JobEvent();
+        event.setId(Long.MAX_VALUE);
+        event.setEvent(JobEventType.JOB_NEW_STATUS);
+        event.setCreated(Instant.parse("2024-10-15T12:00:00.123456789Z"));
+        event.setJobUuid("6c7e0e7a-job");
+        event.setEventDetail("RUNNING");
+        event.setOthUuid("7d8f1f8b-other");
+        event.setDescription("{\"message\":\"caf\u00e9 <b>\\\"quoted\\\"</b>\n\ttab\"}");
+        event.setTenant("tacc");
+        assertSameJson(event);
+
+        // Event detail content is serialized reflectively by the same instance.
+        var data = new JobEventLivenessData();
+        data.jobUuid    = "6c7e0e7a-job";
+        data.jobName    = "caf\u00e9 <job>";
+        data.jobOwner   = "testuser";
+        data.message    = "line1\n\"line2\"";
+        data.eventnum   = 7;
+        data.createtime = "2024-10-15T12:00:00Z";
+        Assert.assertEquals(QueueMsgCodec.toJson(data), TapisGsonUtils.getGson().toJson(data));
+    }
+
+    /** The codec writes the same fields in the same order with the same values
+     * as the reflective serializer.
+     */
+    private void assertSameJson(Object msg)
+    {
+        var codecJson = JsonParser.parseString(new String(QueueMsgCodec.encode(msg), StandardCharsets.UTF_8));
+        var reflectiveJson = JsonParser.parseString(TapisGsonUtils.getGson().toJson(msg));
+        Assert.assertEquals(codecJson, reflectiveJson);
+        Assert.assertEquals(new ArrayList<>(((JsonObject)codecJson).keySet()), 
+                            new ArrayList<>(((JsonObject)reflectiveJson).keySet()));
+    }
+}
@@ -0,0 +1,39 @@
+package edu.utexas.tacc.tapis.jobs.recover;
+
+import java.util.HashSet;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class RecoveryPartitionsTest
+{
+    @Test
+    public void partitionTest()
+    {
+        // A single partition holds everything.
+        Assert.assertEquals(RecoveryPartitions.getPartition("tacc", "abc", 1), 0);
+
+        // Partitions are stable and in range.
+        var seen = new HashSet<Integer>();
+        for (int i = 0; i < 1000; i++) {
+            int p = RecoveryPartitions.getPartition("tacc", "hash" + i, 8);
+            Assert.assertTrue(p >= 0 && p < 8);
+            Assert.assertEquals(RecoveryPartitions.getPartition("tacc", "hash" + i, 8), p);
+            seen.add(p);
+        }
+
+        // All partitions are used.
+        Assert.assertEquals(seen.size(), 8);
+    }
+
+    @Test
+    public void shareTest()
+    {
+        Assert.assertEquals(RecoveryPartitions.getShare(16, 0), 16);
+        Assert.assertEquals(RecoveryPartitions.getShare(16, 1), 16);
+        Assert.assertEquals(RecoveryPartitions.getShare(16, 3), 6);
+        Assert.assertEquals(RecoveryPartitions.getShare(16, 4), 4);
+        Assert.assertEquals(RecoveryPartitions.getShare(2, 5), 1);
+    }
+}
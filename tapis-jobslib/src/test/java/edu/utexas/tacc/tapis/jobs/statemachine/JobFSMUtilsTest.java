@@ -40,6 +40,12 @@ public class JobFSMUtilsTest
         result = JobFSMUtils.hasTransition(JobStatusType.ARCHIVING, JobStatusType.FINISHED);
         Assert.assertTrue(result, "Failed on a legal transaction!");
 
+        result = JobFSMUtils.hasTransition(JobStatusType.PENDING_VALIDATION, JobStatusType.PENDING);
+        Assert.assertTrue(result, "Failed on a legal transaction!");
+
+        result = JobFSMUtils.hasTransition(JobStatusType.PENDING_VALIDATION, JobStatusType.FAILED);
+        Assert.assertTrue(result, "Failed on a legal transaction!");
+
         // ----- Illegal transitions.
         result = JobFSMUtils.hasTransition(JobStatusType.FINISHED, JobStatusType.RUNNING);
         Assert.assertFalse(result, "Failed to identify an illegal transaction!");
@@ -55,5 +61,11 @@ public class JobFSMUtilsTest
         
         result = JobFSMUtils.hasTransition(JobStatusType.FAILED, JobStatusType.FINISHED);
         Assert.assertFalse(result, "Failed to identify an illegal transaction!");
+
+        result = JobFSMUtils.hasTransition(JobStatusType.PENDING_VALIDATION, JobStatusType.PROCESSING_INPUTS);
+        Assert.assertFalse(result, "Failed to identify an illegal transaction!");
+        
+        result = JobFSMUtils.hasTransition(JobStatusType.PENDING, JobStatusType.PENDING_VALIDATION);
+        Assert.assertFalse(result, "Failed to identify an illegal transaction!");
    }
 }
@@ -0,0 +1,29 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+/** Heap measurement shared by the performance benchmarks. */
+public final class HeapUsage
+{
+    // Number of collections requested before each measurement.
+    private static final int  GC_PASSES       = 5;
+    private static final long GC_PAUSE_MILLIS = 100;
+
+    private HeapUsage() {}
+
+    /* ---------------------------------------------------------------------- */
+    /* usedHeap:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Return the bytes in use on the heap after repeatedly requesting garbage
+     * collection so that only reachable objects are counted.
+     *
+     * @return the used heap bytes
+     */
+    public static long usedHeap()
+    {
+        var rt = Runtime.getRuntime();
+        for (int i = 0; i < GC_PASSES; i++) {
+            System.gc();
+            try {Thread.sleep(GC_PAUSE_MILLIS);} catch (InterruptedException e) {}
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
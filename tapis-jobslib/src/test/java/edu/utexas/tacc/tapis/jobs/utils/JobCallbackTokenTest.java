@@ -0,0 +1,65 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import java.time.Instant;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+
+@Test(groups={"unit"})
+public class JobCallbackTokenTest
+{
+    private static final String  SECRET  = "callback-test-secret";
+    private static final String  JOBUUID = "d0f6c4f2-6a1b-4a2e-9c1d-3f7e2b8a5c10-007";
+    private static final Instant NOW     = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Instant EXPIRES = NOW.plusSeconds(3600);
+
+    @Test
+    public void roundTripTest() throws JobException
+    {
+        // A token verifies for its own job only.
+        String token = JobCallbackToken.create(SECRET, JOBUUID, EXPIRES);
+        Assert.assertEquals(JobCallbackToken.create(SECRET, JOBUUID, EXPIRES), token);
+        Assert.assertTrue(JobCallbackToken.verify(SECRET, JOBUUID, token, NOW));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID + "x", token, NOW));
+        Assert.assertFalse(JobCallbackToken.verify("other-secret", JOBUUID, token, NOW));
+
+        // The token can be embedded in a url or json without quoting.
+        Assert.assertTrue(token.matches("[0-9]+\\.[A-Za-z0-9_-]+"), token);
+    }
+
+    @Test
+    public void expirationTest() throws JobException
+    {
+        // Tokens are rejected after they expire.
+        String token = JobCallbackToken.create(SECRET, JOBUUID, EXPIRES);
+        Assert.assertTrue(JobCallbackToken.verify(SECRET, JOBUUID, token, EXPIRES));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, token, EXPIRES.plusSeconds(1)));
+
+        // The expiration can't be extended without the secret.
+        String extended = (EXPIRES.getEpochSecond() + 86400) + token.substring(token.indexOf('.'));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, extended, NOW));
+
+        // Expirations allow for the job's maximum run time.
+        Instant expires = JobCallbackToken.getExpiration(600);
+        Assert.assertTrue(expires.isAfter(Instant.now().plusSeconds(600 * 60)));
+    }
+
+    @Test
+    public void invalidTokenTest()
+    {
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, null, NOW));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, "", NOW));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, "abc", NOW));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, ".abc", NOW));
+        Assert.assertFalse(JobCallbackToken.verify(SECRET, JOBUUID, "x.abc", NOW));
+        Assert.assertFalse(JobCallbackToken.verify(null, JOBUUID, EXPIRES.getEpochSecond() + ".abc", NOW));
+    }
+
+    @Test(expectedExceptions = JobException.class)
+    public void noSecretTest() throws JobException
+    {
+        JobCallbackToken.create(null, JOBUUID, EXPIRES);
+    }
+}
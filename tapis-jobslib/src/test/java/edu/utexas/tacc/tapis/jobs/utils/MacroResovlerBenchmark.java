@@ -0,0 +1,110 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.shared.exceptions.TapisException;
+
+/** Timing harness for macro resolution of job submissions with large numbers
+ * of environment variables.  Each env variable value references the macros
+ * used in MacroResovlerTest, some of which are nested several levels deep.
+ */
+@Test(groups={"performance"})
+public class MacroResovlerBenchmark
+{
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(MacroResovlerBenchmark.class);
+    
+    // Benchmark parameters.
+    private static final int ENV_VARIABLES = 500;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int TIMED_ROUNDS  = 1000;
+
+    // Initialize fake macro definitions and env variable values.
+    private final HashMap<String,String> _macroMap = initMacroMap();
+    private final List<String>           _envValues = initEnvValues();
+
+    @Test
+    public void resolveBenchmark() throws TapisException
+    {
+        // Each round simulates one submission with its own resolver.
+        for (int i = 0; i < WARMUP_ROUNDS; i++) resolveAll();
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_ROUNDS; i++) resolveAll();
+        report("resolve", System.nanoTime() - start);
+    }
+
+    @Test
+    public void replaceBenchmark()
+    {
+        // Each round simulates one submission with its own resolver.
+        for (int i = 0; i < WARMUP_ROUNDS; i++) replaceAll();
+        long start = System.nanoTime();
+        for (int i = 0; i < TIMED_ROUNDS; i++) replaceAll();
+        report("replaceMacros", System.nanoTime() - start);
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* resolveAll:                                                                  */
+    /* ---------------------------------------------------------------------------- */
+    private void resolveAll() throws TapisException
+    {
+        var resolver = new MacroResolver(null, _macroMap);
+        for (int i = 0; i < _envValues.size(); i++) {
+            String result = resolver.resolve(_envValues.get(i));
+            if (i == 0) Assert.assertEquals(result, "v0:x$xxyellow/red/yy:aaablue/red/pink/yellow/red/purple");
+        }
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* replaceAll:                                                                  */
+    /* ---------------------------------------------------------------------------- */
+    private void replaceAll()
+    {
+        var resolver = new MacroResolver(null, _macroMap);
+        for (var value : _envValues) resolver.replaceMacros(value);
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* report:                                                                      */
+    /* ---------------------------------------------------------------------------- */
+    private void report(String name, long elapsedNanos)
+    {
+        double usPerSubmission = elapsedNanos / 1000.0 / TIMED_ROUNDS;
+        _log.info(String.format("%s: %d env variables, %.1f us per submission",
+                                name, ENV_VARIABLES, usPerSubmission));
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* initEnvValues:                                                               */
+    /* ---------------------------------------------------------------------------- */
+    private List<String> initEnvValues()
+    {
+        var list = new ArrayList<String>(ENV_VARIABLES);
+        for (int i = 0; i < ENV_VARIABLES; i++)
+            list.add("v" + i + ":x$xx${_banana}/${_apple}/yy:${_tangerine}");
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------------- */
+    /* initMacroMap:                                                                */
+    /* ---------------------------------------------------------------------------- */
+    private HashMap<String,String> initMacroMap()
+    {
+        var macroMap = new HashMap<String,String>();
+        macroMap.put("_banana", "yellow");
+        macroMap.put("_apple", "red");
+        macroMap.put("_peach", "purple");
+        macroMap.put("_plum", "blue/${_apple}");
+        macroMap.put("_orange", "${_plum}/pink/${_banana}");
+        macroMap.put("_tangerine", "aaa${_orange}/${_apple}/${_peach}");
+
+        return macroMap;
+    }
+}
@@ -70,6 +70,40 @@ public class MacroResovlerTest
         String result = resolver.resolve(text);
     }
     
+    @Test(expectedExceptions = TapisException.class)
+    public void macroParseTest7() throws TapisException
+    {
+        // Cycle introduced through a macro that is not the first in its value.
+        var macroMap = initMacroMap();
+        macroMap.put("_lime", "green/${_apple}/${_lemon}");
+        macroMap.put("_lemon", "${_banana}${_lime}");
+        var resolver = new MacroResolver(null, macroMap);
+        String text = "${_lime}";
+        String result = resolver.resolve(text);
+    }
+    
+    @Test
+    public void macroParseTest8() throws TapisException
+    {
+        // More macros in one string than the maximum nesting depth.
+        var resolver = new MacroResolver(null, _macroMap);
+        String text = "${_apple}".repeat(40) + "/${_tangerine}";
+        String result = resolver.resolve(text);
+        Assert.assertEquals(result, "red".repeat(40) + "/aaablue/red/pink/yellow/red/purple");
+    }
+    
+    @Test
+    public void macroParseTest9() throws TapisException
+    {
+        // Cached values are discarded when a definition changes.
+        var macroMap = initMacroMap();
+        var resolver = new MacroResolver(null, macroMap);
+        Assert.assertEquals(resolver.resolve("${_orange}"), "blue/red/pink/yellow");
+        macroMap.put("_apple", "green");
+        resolver.clearResolvedValues();
+        Assert.assertEquals(resolver.resolve("${_orange}"), "blue/green/pink/yellow");
+    }
+    
     @Test
     public void hostEvalTest1()
     {
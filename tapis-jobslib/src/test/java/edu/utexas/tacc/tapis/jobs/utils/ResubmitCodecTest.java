@@ -0,0 +1,53 @@
+package edu.utexas.tacc.tapis.jobs.utils;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.exceptions.JobException;
+
+@Test(groups={"unit"})
+public class ResubmitCodecTest
+{
+    // A request with the repetition typical of sweep submissions.
+    private static final String REQUEST;
+    static {
+        var buf = new StringBuilder("{\"name\":\"sweep\",\"appId\":\"sleep\",\"appVersion\":\"1.0\",\"parameterSet\":{\"appArgs\":[");
+        for (int i = 0; i < 100; i++) {
+            if (i > 0) buf.append(',');
+            buf.append("{\"arg\":\"--value ").append(i).append("\",\"name\":\"arg").append(i).append("\"}");
+        }
+        buf.append("]},\"description\":\"caf\u00e9\"}");
+        REQUEST = buf.toString();
+    }
+
+    @Test
+    public void roundTripTest() throws JobException
+    {
+        // Repetitive requests are compressed.
+        var encoded = ResubmitCodec.encode(REQUEST);
+        Assert.assertEquals(encoded.codec, ResubmitCodec.CODEC_DEFLATE);
+        Assert.assertTrue(encoded.content.length < encoded.length);
+        Assert.assertEquals(ResubmitCodec.decode(encoded.codec, encoded.length, encoded.content), REQUEST);
+
+        // Identical requests have the same hash, different requests don't.
+        Assert.assertEquals(ResubmitCodec.encode(REQUEST).hash, encoded.hash);
+        Assert.assertNotEquals(ResubmitCodec.encode(REQUEST + " ").hash, encoded.hash);
+        Assert.assertEquals(encoded.hash.length(), 64);
+    }
+
+    @Test
+    public void uncompressedTest() throws JobException
+    {
+        // Tiny requests don't shrink and are stored as is.
+        var encoded = ResubmitCodec.encode("{}");
+        Assert.assertEquals(encoded.codec, ResubmitCodec.CODEC_NONE);
+        Assert.assertEquals(ResubmitCodec.decode(encoded.codec, encoded.length, encoded.content), "{}");
+    }
+
+    @Test(expectedExceptions = JobException.class)
+    public void corruptTest() throws JobException
+    {
+        var encoded = ResubmitCodec.encode(REQUEST);
+        ResubmitCodec.decode(encoded.codec, encoded.length + 1, encoded.content);
+    }
+}
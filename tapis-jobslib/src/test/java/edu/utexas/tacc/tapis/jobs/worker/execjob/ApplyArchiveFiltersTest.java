@@ -4,6 +4,7 @@ import java.nio.file.FileSystems;
 import java.nio.file.PathMatcher;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -29,6 +30,7 @@ public class ApplyArchiveFiltersTest
 	private List<String>   _excludes;
 	private List<String>   _includes;
 	private List<FileInfo> _fileInfoList;
+	private List<String>   _fileInfoListPaths;
 	private int            _excludedCount;
 	
     /* ---------------------------------------------------------------------- */
@@ -80,12 +82,8 @@ public class ApplyArchiveFiltersTest
 	    };
 	    
 	    // Wrap each file path in an info object and add to list.
-	    _fileInfoList = new ArrayList<FileInfo>();
-	    for (var src : srcFiles) {
-	    	var info = new FileInfo();
-	    	info.setPath(src);
-	    	_fileInfoList.add(info);
-	    }
+	    _fileInfoListPaths = Arrays.asList(srcFiles);
+	    _fileInfoList = makeFileInfoList(_fileInfoListPaths);
 	}  
 	
     /* ---------------------------------------------------------------------- */
@@ -103,6 +101,105 @@ public class ApplyArchiveFiltersTest
     			            "We didn't exclude as many files as expected!"); 
 	}
 	
+    /* ---------------------------------------------------------------------- */
+    /* testCompiledExcludes:                                                  */
+    /* ---------------------------------------------------------------------- */
+	@Test
+	public void testCompiledExcludes()
+	{
+		// The compiled filter set should exclude the same 3 files.
+		var fileList = makeFileInfoList(_fileInfoListPaths);
+		var filterSet = new ArchiveFilterSet(_includes, _excludes);
+		var filtered = filterSet.filter(fileList, this::getOutputRelativePath);
+		Assert.assertEquals(filtered.size(), fileList.size() - 3);
+	}
+	
+    /* ---------------------------------------------------------------------- */
+    /* testCompiledMatchesOriginal:                                           */
+    /* ---------------------------------------------------------------------- */
+	@Test
+	public void testCompiledMatchesOriginal()
+	{
+		// Paths relative to the output directory, including unusual ones.
+		String[] relPaths = {
+			"tapisjob.out", "tapisjob.err", "tapisjob.env", "tapisjob.sh", "out.log",
+			"inputDirectory/pisoFoam.log", "inputDirectory//blockMesh.log", 
+			"inputDirectory/system/controlDict", "inputDirectory/0/U", "a.b", "axb",
+			"results/run-1/data.csv", "results/run-12/data.csv", "results/", 
+			"weird{name}.txt", "comma,name", "[bracket].dat", "dollar$sign", "aa/x",
+		};
+		var absPaths = new ArrayList<String>();
+		for (var p : relPaths) absPaths.add(_outputPathPrefix + p);
+		
+		// Filter combinations as includes/excludes pairs.
+		List<List<List<String>>> cases = Arrays.asList(
+			Arrays.asList(Arrays.asList(), Arrays.asList("tapisjob.env", "a.b", "results/")),
+			Arrays.asList(Arrays.asList("*.log", "**/*.csv"), Arrays.asList()),
+			Arrays.asList(Arrays.asList("**.log"), Arrays.asList("inputDirectory/*")),
+			Arrays.asList(Arrays.asList("tapisjob.{out,err}", "results/run-?/*"), Arrays.asList("*.err")),
+			Arrays.asList(Arrays.asList("[a-c]*", "weird\\{name\\}.txt", "comma,name"), Arrays.asList("[!a]*")),
+			Arrays.asList(Arrays.asList("REGEX:.*\\.log", "REGEX:results/run-\\d+/.*"), Arrays.asList("REGEX:(?i)TAPISJOB.*")),
+			Arrays.asList(Arrays.asList("REGEX:(a)\\1/.*", "\\[bracket\\].dat"), Arrays.asList("REGEX:\\Q$\\E.*", "*$*")),
+			Arrays.asList(Arrays.asList("**/*"), Arrays.asList("inputDirectory/**", "REGEX:.*\\.sh"))
+		);
+		
+		// The compiled filters must produce the same results as the original code.
+		int savedCount = _excludedCount;
+		for (var c : cases) {
+			var expected = makeFileInfoList(absPaths);
+	    	applyArchiveFilters(c.get(1), expected, FilterType.EXCLUDES);
+	    	applyArchiveFilters(c.get(0), expected, FilterType.INCLUDES);
+	    	
+	    	var filterSet = new ArchiveFilterSet(c.get(0), c.get(1));
+	    	var actual = filterSet.filter(makeFileInfoList(absPaths), this::getOutputRelativePath);
+	    	Assert.assertEquals(getPaths(actual), getPaths(expected), "Failed on filters " + c);
+		}
+		_excludedCount = savedCount;
+	}
+	
+    /* ---------------------------------------------------------------------- */
+    /* testGlobToRegex:                                                       */
+    /* ---------------------------------------------------------------------- */
+	@Test
+	public void testGlobToRegex()
+	{
+		String[] globs = {"*", "**", "*.txt", "**/*.txt", "a?c", "[abc]x", "[!abc]x", "[a-c]x", 
+				          "{a,b}/*", "x{1,22,333}y", "\\*", "a.b", "(a)|b", "^a$", "a+"};
+		String[] paths = {"a", "abc", "a.txt", "d/a.txt", "d/e/a.txt", "bx", "dx", "a/z", "b/z",
+				          "x22y", "x4y", "*", "a.b", "axb", "(a)|b", "^a$", "a+", "aa"};
+		for (var glob : globs) {
+			var pattern = Pattern.compile(ArchiveFilterSet.globToRegex(glob));
+			var matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob);
+			for (var path : paths)
+				Assert.assertEquals(pattern.matcher(path).matches(), matcher.matches(Paths.get(path)),
+						            "Failed on glob " + glob + " and path " + path);
+		}
+	}
+	
+    /* ---------------------------------------------------------------------- */
+    /* makeFileInfoList:                                                      */
+    /* ---------------------------------------------------------------------- */
+	private List<FileInfo> makeFileInfoList(List<String> paths)
+	{
+	    var list = new ArrayList<FileInfo>(paths.size());
+	    for (var src : paths) {
+	    	var info = new FileInfo();
+	    	info.setPath(src);
+	    	list.add(info);
+	    }
+	    return list;
+	}
+	
+    /* ---------------------------------------------------------------------- */
+    /* getPaths:                                                              */
+    /* ---------------------------------------------------------------------- */
+	private List<String> getPaths(List<FileInfo> fileList)
+	{
+		var list = new ArrayList<String>(fileList.size());
+		for (var f : fileList) list.add(f.getPath());
+		return list;
+	}
+	
 	// ************************************************************************
 	// CODE COPIED FROM JobFileManager 
 	// ************************************************************************
@@ -0,0 +1,117 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import java.nio.file.FileSystems;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.files.client.gen.model.FileInfo;
+
+/** Timing harness that compares the compiled archive filters with per-file,
+ * per-filter matching over a synthetic output tree of one million files.
+ */
+@Test(groups={"performance"})
+public class ArchiveFiltersBenchmark
+{
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(ArchiveFiltersBenchmark.class);
+    
+    // Benchmark parameters.
+    private static final String OUTPUT_PREFIX = "/scratch/tapis/job-0001/";
+    private static final int    DIRECTORIES   = 1000;
+    private static final int    FILES_PER_DIR = 1000;
+
+    // A dozen filters of the kinds users typically specify.
+    private static final List<String> EXCLUDES = Arrays.asList(
+        "tapisjob.env", "tapisjob.sh", "**/*.tmp", "**/core.*", "scratch/**",
+        "REGEX:.*/checkpoint-\\d+\\.bin");
+    private static final List<String> INCLUDES = Arrays.asList(
+        "**/*.csv", "**/*.log", "summary.txt", "run-1*/**", "{plots,figures}/**",
+        "REGEX:.*/result-[0-9]+\\.h5");
+
+    @Test
+    public void filterBenchmark()
+    {
+        // Create the synthetic tree.
+        var fileList = makeFileList();
+
+        // Time the original approach.
+        long start = System.nanoTime();
+        int original = filterOriginal(fileList);
+        long originalNanos = System.nanoTime() - start;
+
+        // Time the compiled filters.
+        start = System.nanoTime();
+        var filterSet = new ArchiveFilterSet(INCLUDES, EXCLUDES);
+        var filtered = filterSet.filter(fileList, p -> p.substring(OUTPUT_PREFIX.length()));
+        long compiledNanos = System.nanoTime() - start;
+
+        Assert.assertEquals(filtered.size(), original);
+        _log.info(String.format("%d files, %d archived: original %d ms, compiled %d ms",
+                                fileList.size(), original, originalNanos / 1000000,
+                                compiledNanos / 1000000));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeFileList:                                                          */
+    /* ---------------------------------------------------------------------- */
+    private List<FileInfo> makeFileList()
+    {
+        String[] suffixes = {".csv", ".log", ".tmp", ".h5", ".dat", ".bin", ".txt", ".png"};
+        String[] stems = {"data-", "result-", "checkpoint-", "core.", "plot-"};
+        String[] dirs  = {"run-", "plots/run-", "scratch/run-", "figures/", "out/"};
+        var list = new ArrayList<FileInfo>(DIRECTORIES * FILES_PER_DIR);
+        for (int d = 0; d < DIRECTORIES; d++)
+            for (int f = 0; f < FILES_PER_DIR; f++) {
+                var info = new FileInfo();
+                info.setPath(OUTPUT_PREFIX + dirs[d % dirs.length] + d + "/" +
+                             stems[f % stems.length] + f + suffixes[(d + f) % suffixes.length]);
+                list.add(info);
+            }
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* filterOriginal:                                                        */
+    /* ---------------------------------------------------------------------- */
+    /** Count the files accepted by matching each file against each filter. */
+    private int filterOriginal(List<FileInfo> fileList)
+    {
+        var excludes = compile(EXCLUDES);
+        var includes = compile(INCLUDES);
+        int count = 0;
+        for (var f : fileList) {
+            String path = f.getPath().substring(OUTPUT_PREFIX.length());
+            if (matchesAny(excludes, path)) continue;
+            if (matchesAny(includes, path)) count++;
+        }
+        return count;
+    }
+
+    private List<Object> compile(List<String> filters)
+    {
+        var list = new ArrayList<Object>(filters.size());
+        for (var filter : filters)
+            if (filter.startsWith(JobFileManager.REGEX_FILTER_PREFIX))
+                list.add(Pattern.compile(filter.substring(JobFileManager.REGEX_FILTER_PREFIX.length())));
+              else list.add(FileSystems.getDefault().getPathMatcher("glob:" + filter));
+        return list;
+    }
+
+    private boolean matchesAny(List<Object> matchers, String path)
+    {
+        for (var m : matchers)
+            if (m instanceof Pattern) {
+                if (((Pattern)m).matcher(path).matches()) return true;
+            } else if (((PathMatcher)m).matches(Paths.get(path))) return true;
+        return false;
+    }
+}
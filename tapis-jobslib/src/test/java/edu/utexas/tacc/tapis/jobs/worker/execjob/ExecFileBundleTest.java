@@ -0,0 +1,64 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.jobs.worker.execjob.JobFileManager.ExecFile;
+
+@Test(groups={"unit"})
+public class ExecFileBundleTest 
+{
+    @Test
+    public void tarLayoutTest()
+    {
+        var files = List.of(new ExecFile("#!/bin/bash\necho hi\n", "tapisjob.sh", JobFileManager.RWXRWX),
+                            new ExecFile("", "tapisjob.env", JobFileManager.RWRW));
+        byte[] tar = ExecFileBundle.toTar(files);
+        
+        // Header + 1 content block, header only, 2 end blocks.
+        Assert.assertEquals(tar.length, 5 * 512);
+        Assert.assertEquals(field(tar, 0, 11), "tapisjob.sh");
+        Assert.assertEquals(field(tar, 100, 7), "0000770");
+        Assert.assertEquals(field(tar, 124, 11), "00000000024");
+        Assert.assertEquals(field(tar, 257, 5), "ustar");
+        Assert.assertEquals(field(tar, 512, 20), "#!/bin/bash\necho hi\n");
+        Assert.assertEquals(field(tar, 1024, 12), "tapisjob.env");
+        Assert.assertEquals(field(tar, 1124, 7), "0000660");
+        
+        // Verify the first header's checksum.
+        long sum = 0;
+        for (int i = 0; i < 512; i++) sum += (i >= 148 && i < 156) ? ' ' : (tar[i] & 0xff);
+        Assert.assertEquals(Long.parseLong(field(tar, 148, 6), 8), sum);
+        
+        // The end blocks are empty.
+        for (int i = 3 * 512; i < tar.length; i++) Assert.assertEquals(tar[i], 0);
+    }
+    
+    @Test
+    public void unpackCommandTest()
+    {
+        String name = ExecFileBundle.newBundleName();
+        Assert.assertTrue(name.matches("\\.tapis-bundle-[0-9a-f-]+\\.tar"), name);
+        Assert.assertNotEquals(ExecFileBundle.newBundleName(), name);
+        
+        String cmd = ExecFileBundle.getUnpackCommand("'/a b'", name);
+        Assert.assertEquals(cmd, "cd '/a b' && tar -xpf " + name + " && rm -f " + name);
+    }
+    
+    @Test
+    public void invalidNameTest()
+    {
+        Assert.expectThrows(IllegalArgumentException.class, 
+            () -> ExecFileBundle.toTar(List.of(new ExecFile("x", "a/b", JobFileManager.RWRW))));
+        Assert.expectThrows(IllegalArgumentException.class, 
+            () -> ExecFileBundle.toTar(List.of(new ExecFile("x", "n".repeat(101), JobFileManager.RWRW))));
+    }
+    
+    private static String field(byte[] tar, int offset, int len)
+    {
+        return new String(tar, offset, len, StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,124 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import static edu.utexas.tacc.tapis.jobs.utils.HeapUsage.usedHeap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import edu.utexas.tacc.tapis.apps.client.gen.model.TapisApp;
+import edu.utexas.tacc.tapis.systems.client.gen.model.KeyValuePair;
+import edu.utexas.tacc.tapis.systems.client.gen.model.LogicalQueue;
+import edu.utexas.tacc.tapis.systems.client.gen.model.TapisSystem;
+
+/** Heap harness that measures the definitions retained per monitored job with
+ * and without SharedDefinitions.  Each simulated job loads its own copies of
+ * the execution system and application, as the service clients do, for 20,000
+ * jobs running on two systems.
+ */
+@Test(groups={"performance"})
+public class SharedDefinitionsBenchmark
+{
+    // Tracing.
+    private static final Logger _log = LoggerFactory.getLogger(SharedDefinitionsBenchmark.class);
+    
+    // Benchmark parameters.
+    private static final int JOBS           = 20000;
+    private static final int SYSTEMS        = 2;
+    private static final int LOGICAL_QUEUES = 12;
+    private static final int ENV_VARIABLES  = 40;
+
+    @Test
+    public void heapBenchmark()
+    {
+        // Retain each job's own copies.
+        long base = usedHeap();
+        var separate = loadJobs(false);
+        long separateBytes = usedHeap() - base;
+        Assert.assertEquals(separate.size(), JOBS * 2);
+        separate = null;
+
+        // Retain the interned copies.
+        base = usedHeap();
+        var shared = loadJobs(true);
+        long sharedBytes = usedHeap() - base;
+        Assert.assertEquals(shared.size(), JOBS * 2);
+        Assert.assertSame(shared.get(0), shared.get(SYSTEMS * 2));
+
+        _log.info(String.format("%d jobs: separate %d bytes/job, shared %d bytes/job",
+                                JOBS, separateBytes / JOBS, sharedBytes / JOBS));
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* loadJobs:                                                              */
+    /* ---------------------------------------------------------------------- */
+    /** Return the system and application referenced by each job. */
+    private List<Object> loadJobs(boolean intern)
+    {
+        var list = new ArrayList<Object>(JOBS * 2);
+        for (int i = 0; i < JOBS; i++) {
+            var system = makeSystem("cluster-" + (i % SYSTEMS));
+            var app    = makeApp("app-" + (i % SYSTEMS));
+            if (intern) {
+                system = SharedDefinitions.internSystem(system);
+                app    = SharedDefinitions.internApp(app);
+            }
+            list.add(system);
+            list.add(app);
+        }
+        return list;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeSystem:                                                            */
+    /* ---------------------------------------------------------------------- */
+    /** Create a new batch system with the same content for the same id. */
+    private TapisSystem makeSystem(String id)
+    {
+        var queues = new ArrayList<LogicalQueue>(LOGICAL_QUEUES);
+        for (int q = 0; q < LOGICAL_QUEUES; q++) {
+            var queue = new LogicalQueue();
+            queue.setName(new String("queue-" + q));
+            queue.setHpcQueueName(new String("hpc-queue-" + q));
+            queue.setMaxJobs(Integer.valueOf(1000 + q));
+            queue.setMaxNodeCount(Integer.valueOf(512 + q));
+            queues.add(queue);
+        }
+        var env = new ArrayList<KeyValuePair>(ENV_VARIABLES);
+        for (int v = 0; v < ENV_VARIABLES; v++) {
+            var pair = new KeyValuePair();
+            pair.setKey(new String("ENV_VARIABLE_" + v));
+            pair.setValue(new String("/work/projects/shared/software/version-" + v));
+            env.add(pair);
+        }
+
+        var system = new TapisSystem();
+        system.setTenant(new String("tacc"));
+        system.setId(new String(id));
+        system.setHost(new String(id + ".tacc.utexas.edu"));
+        system.setEffectiveUserId(new String("testuser"));
+        system.setRootDir(new String("/"));
+        system.setBatchLogicalQueues(queues);
+        system.setJobEnvVariables(env);
+        return system;
+    }
+
+    /* ---------------------------------------------------------------------- */
+    /* makeApp:                                                               */
+    /* ---------------------------------------------------------------------- */
+    /** Create a new application with the same content for the same id. */
+    private TapisApp makeApp(String id)
+    {
+        var app = new TapisApp();
+        app.setTenant(new String("tacc"));
+        app.setId(new String(id));
+        app.setVersion(new String("1.0"));
+        app.setDescription(new String("Simulation application used by parameter sweeps."));
+        app.setContainerImage(new String("docker://tacc/simulation:1.0"));
+        return app;
+    }
+}
@@ -0,0 +1,34 @@
+package edu.utexas.tacc.tapis.jobs.worker.execjob;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+@Test(groups={"unit"})
+public class SharedDefinitionsTest
+{
+    @Test
+    public void internTest()
+    {
+        var interner = new SharedDefinitions.Interner<ArrayList<String>>();
+
+        // Equal values share the first instance.
+        var first  = new ArrayList<String>(Arrays.asList("normal", "debug"));
+        var second = new ArrayList<String>(Arrays.asList("normal", "debug"));
+        Assert.assertSame(interner.intern("tacc|frontera|1", first), first);
+        Assert.assertSame(interner.intern("tacc|frontera|1", second), first);
+
+        // Different keys don't share.
+        Assert.assertSame(interner.intern("tacc|frontera|2", second), second);
+        Assert.assertEquals(interner.size(), 2);
+
+        // A value that differs from the canonical one replaces it.
+        var changed = new ArrayList<String>(Arrays.asList("normal"));
+        Assert.assertSame(interner.intern("tacc|frontera|1", changed), changed);
+        var again = new ArrayList<String>(Arrays.asList("normal"));
+        Assert.assertSame(interner.intern("tacc|frontera|1", again), changed);
+        Assert.assertEquals(interner.size(), 2);
+    }
+}
@@ -0,0 +1,164 @@
+-- Range partition the jobs and job_events tables by their created timestamps.
+--
+-- Workers only touch recently created, active jobs, but every hot-path query
+-- used to run against tables and indexes that span the whole job history.
+-- After this migration each table consists of monthly partitions plus a
+-- default partition.  The job_partitions table catalogs the monthly partitions
+-- and records whether each is HOT or COLD.  A COLD partition contains only jobs
+-- in terminal states and is never touched by workers; the JobPartitionArchiver
+-- marks partitions COLD once they age out and creates future partitions ahead
+-- of time.
+--
+-- Since postgres requires unique constraints on partitioned tables to include
+-- the partition key, job uuids are no longer globally unique in the jobs table.
+-- The job_uuids table maintains global uniqueness, maps each job uuid to its
+-- creation time (i.e., its partition) and is now the target of the foreign keys
+-- that used to reference jobs (uuid).
+--
+-- TIMEZONE Convention: all timestamps are UTC without timezone information.
+
+-- ----------------------------------------------------------------------------------------
+--                                       Job UUIDs
+-- ----------------------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS job_uuids
+(
+  uuid                        character varying(64) PRIMARY KEY,
+  created                     timestamp without time zone NOT NULL
+);
+ALTER TABLE job_uuids OWNER TO tapis;
+INSERT INTO job_uuids (uuid, created) SELECT uuid, created FROM jobs ON CONFLICT DO NOTHING;
+
+-- Repoint the foreign keys that referenced the jobs table.
+ALTER TABLE job_resubmit DROP CONSTRAINT IF EXISTS job_resubmit_job_uuid_fkey;
+ALTER TABLE job_resubmit ADD CONSTRAINT job_resubmit_job_uuid_fkey
+  FOREIGN KEY (job_uuid) REFERENCES job_uuids (uuid) ON DELETE CASCADE ON UPDATE CASCADE;
+ALTER TABLE job_blocked DROP CONSTRAINT IF EXISTS job_blocked_job_uuid_fkey;
+ALTER TABLE job_blocked ADD CONSTRAINT job_blocked_job_uuid_fkey
+  FOREIGN KEY (job_uuid) REFERENCES job_uuids (uuid) ON DELETE CASCADE ON UPDATE CASCADE;
+ALTER TABLE job_events DROP CONSTRAINT IF EXISTS job_events_job_uuid_fkey;
+
+-- ----------------------------------------------------------------------------------------
+--                                     Job Partitions
+-- ----------------------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS job_partitions
+(
+  partition_name              character varying(64) PRIMARY KEY,
+  table_name                  character varying(64) NOT NULL,
+  range_start                 timestamp without time zone NOT NULL,
+  range_end                   timestamp without time zone NOT NULL,
+  tier                        character varying(8) NOT NULL DEFAULT 'HOT',
+  created                     timestamp without time zone NOT NULL DEFAULT (now() at time zone 'utc'),
+  last_updated                timestamp without time zone NOT NULL DEFAULT (now() at time zone 'utc')
+);
+ALTER TABLE job_partitions OWNER TO tapis;
+CREATE INDEX IF NOT EXISTS job_partitions_table_tier_idx ON job_partitions (table_name, tier, range_start);
+
+-- Create the monthly partition of the parent table that contains the specified
+-- timestamp if it doesn't already exist and record it in job_partitions.
+-- Returns the partition name, which has the form <parent>_YYYY_MM.
+--
+-- Postgres refuses to create a range partition when the default partition holds
+-- rows in that range.  In that case the default partition is detached, the new
+-- partition is created, the rows in its range are moved out of the detached
+-- default partition and the default partition is reattached.  All of this
+-- happens in the caller's transaction.
+CREATE OR REPLACE FUNCTION job_create_month_partition(parent text, ts timestamp without time zone)
+  RETURNS text AS $$
+DECLARE
+  pstart  timestamp without time zone := date_trunc('month', ts);
+  pend    timestamp without time zone := date_trunc('month', ts) + interval '1 month';
+  pname   text := parent || '_' || to_char(date_trunc('month', ts), 'YYYY_MM');
+  dname   text := parent || '_default';
+  rehome  boolean := false;
+BEGIN
+  IF to_regclass(pname) IS NULL THEN
+    IF to_regclass(dname) IS NOT NULL THEN
+      EXECUTE format('SELECT EXISTS (SELECT 1 FROM %I WHERE created >= %L AND created < %L)',
+                     dname, pstart, pend) INTO rehome;
+    END IF;
+    IF rehome THEN
+      EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, dname);
+    END IF;
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+                   pname, parent, pstart, pend);
+    EXECUTE format('ALTER TABLE %I OWNER TO tapis', pname);
+    IF rehome THEN
+      EXECUTE format('WITH moved AS (DELETE FROM %I WHERE created >= %L AND created < %L RETURNING *)'
+                     ' INSERT INTO %I SELECT * FROM moved', dname, pstart, pend, pname);
+      EXECUTE format('ALTER TABLE %I ATTACH PARTITION %I DEFAULT', parent, dname);
+    END IF;
+  END IF;
+  INSERT INTO job_partitions (partition_name, table_name, range_start, range_end)
+    VALUES (pname, parent, pstart, pend) ON CONFLICT (partition_name) DO NOTHING;
+  RETURN pname;
+END;
+$$ LANGUAGE plpgsql;
+ALTER FUNCTION job_create_month_partition(text, timestamp without time zone) OWNER TO tapis;
+
+-- ----------------------------------------------------------------------------------------
+--                                          Jobs
+-- ----------------------------------------------------------------------------------------
+-- Detach the sequence so it survives dropping the unpartitioned table.
+ALTER TABLE jobs RENAME TO jobs_unpartitioned;
+ALTER SEQUENCE jobs_id_seq OWNED BY NONE;
+
+CREATE TABLE jobs (LIKE jobs_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+  PARTITION BY RANGE (created);
+ALTER TABLE jobs OWNER TO tapis;
+
+-- Monthly partitions from the oldest job through 3 months from now.
+SELECT job_create_month_partition('jobs', m)
+  FROM generate_series(date_trunc('month', COALESCE((SELECT min(created) FROM jobs_unpartitioned),
+                                                     now() at time zone 'utc')),
+                       date_trunc('month', now() at time zone 'utc') + interval '3 months',
+                       interval '1 month') AS m;
+CREATE TABLE jobs_default PARTITION OF jobs DEFAULT;
+ALTER TABLE jobs_default OWNER TO tapis;
+
+INSERT INTO jobs SELECT * FROM jobs_unpartitioned;
+DROP TABLE jobs_unpartitioned;
+ALTER SEQUENCE jobs_id_seq OWNED BY jobs.id;
+
+-- Unique constraints must include the partition key.
+ALTER TABLE jobs ADD PRIMARY KEY (id, created);
+CREATE UNIQUE INDEX jobs_uuid_idx ON jobs (uuid, created);
+CREATE INDEX jobs_tenant_owner_idx ON jobs (tenant, owner);
+CREATE INDEX jobs_created_idx ON jobs (created);
+CREATE INDEX jobs_tenant_createdby_idx ON jobs (createdby_tenant, createdby);
+CREATE INDEX jobs_status_idx ON jobs (status);
+CREATE INDEX jobs_app_id_idx ON jobs (app_id, tenant);
+CREATE INDEX jobs_exec_system_idx ON jobs (exec_system_id);
+CREATE INDEX jobs_archive_system_idx ON jobs (archive_system_id);
+CREATE INDEX jobs_dtn_system_idx ON jobs (dtn_system_id);
+CREATE INDEX jobs_tags_idx ON jobs USING gin (tags);
+CREATE INDEX jobs_shared_app_ctx_idx ON jobs (shared_app_ctx);
+
+-- ----------------------------------------------------------------------------------------
+--                                       Job Events
+-- ----------------------------------------------------------------------------------------
+ALTER TABLE job_events RENAME TO job_events_unpartitioned;
+ALTER SEQUENCE job_events_id_seq OWNED BY NONE;
+
+CREATE TABLE job_events (LIKE job_events_unpartitioned INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+  PARTITION BY RANGE (created);
+ALTER TABLE job_events OWNER TO tapis;
+
+SELECT job_create_month_partition('job_events', m)
+  FROM generate_series(date_trunc('month', COALESCE((SELECT min(created) FROM job_events_unpartitioned),
+                                                     now() at time zone 'utc')),
+                       date_trunc('month', now() at time zone 'utc') + interval '3 months',
+                       interval '1 month') AS m;
+CREATE TABLE job_events_default PARTITION OF job_events DEFAULT;
+ALTER TABLE job_events_default OWNER TO tapis;
+
+INSERT INTO job_events SELECT * FROM job_events_unpartitioned;
+DROP TABLE job_events_unpartitioned;
+ALTER SEQUENCE job_events_id_seq OWNED BY job_events.id;
+
+ALTER TABLE job_events ADD PRIMARY KEY (id, created);
+ALTER TABLE job_events ADD CONSTRAINT job_events_job_uuid_fkey
+  FOREIGN KEY (job_uuid) REFERENCES job_uuids (uuid) ON DELETE CASCADE ON UPDATE CASCADE;
+CREATE INDEX job_events_event_idx ON job_events (event);
+CREATE INDEX job_events_created_idx ON job_events (created);
+CREATE INDEX job_events_job_uuid_idx ON job_events (job_uuid);
+CREATE INDEX job_events_event_detail_idx ON job_events (event_detail);
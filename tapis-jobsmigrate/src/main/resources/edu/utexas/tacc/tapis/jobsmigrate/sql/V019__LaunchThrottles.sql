@@ -0,0 +1,22 @@
+-- Cluster-wide job launch throttling.
+--
+-- Each row is a token bucket that paces the launch commands issued to one
+-- execution host by all workers.  A worker locks the host's row, refills the
+-- bucket based on the time elapsed since last_refill, and takes a token.  The
+-- token count can go negative, in which case the launch is reserved for the
+-- time at which the bucket will again hold a token.  Since reservations are
+-- granted in row lock order, launches to a busy host are scheduled first come,
+-- first served across the whole cluster.
+--
+-- TIMEZONE Convention: all timestamps are UTC without timezone information.
+
+-- ----------------------------------------------------------------------------------------
+--                                   Launch Throttles
+-- ----------------------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS job_launch_throttles
+(
+  host                        character varying(256) PRIMARY KEY,
+  tokens                      double precision NOT NULL,
+  last_refill                 timestamp without time zone NOT NULL
+);
+ALTER TABLE job_launch_throttles OWNER TO tapis;
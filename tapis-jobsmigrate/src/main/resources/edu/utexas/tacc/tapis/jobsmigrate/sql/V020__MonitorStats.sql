@@ -0,0 +1,31 @@
+-- Remote job timing statistics used by the adaptive monitoring policy.
+--
+-- Each row summarizes the queue wait (remote_started - remote_submitted) and
+-- run time (remote_ended - remote_started) of the jobs that completed for an
+-- application on an execution system's logical queue.  Jobs without a logical
+-- queue use the empty string.  Rows are maintained incrementally as each job's
+-- remote execution completes:  the first samples are averaged equally, after
+-- which the mean and variance become exponentially weighted so that the
+-- statistics follow changes in queue load.
+--
+-- TIMEZONE Convention: all timestamps are UTC without timezone information.
+
+-- ----------------------------------------------------------------------------------------
+--                                   Monitor Stats
+-- ----------------------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS job_monitor_stats
+(
+  tenant                      character varying(24) NOT NULL,
+  exec_system_id              character varying(80) NOT NULL,
+  queue                       character varying(80) NOT NULL,
+  app_id                      character varying(80) NOT NULL,
+  wait_samples                integer NOT NULL DEFAULT 0,
+  wait_mean_secs              double precision NOT NULL DEFAULT 0,
+  wait_var_secs               double precision NOT NULL DEFAULT 0,
+  run_samples                 integer NOT NULL DEFAULT 0,
+  run_mean_secs               double precision NOT NULL DEFAULT 0,
+  run_var_secs                double precision NOT NULL DEFAULT 0,
+  last_updated                timestamp without time zone NOT NULL,
+  PRIMARY KEY (tenant, exec_system_id, queue, app_id)
+);
+ALTER TABLE job_monitor_stats OWNER TO tapis;
@@ -0,0 +1,5 @@
+-- Add the initial status of asynchronously submitted jobs to the job_status_enum
+-- used by the job tables.  Such jobs are recorded with placeholder values when
+-- their requests are accepted and replaced by their fully resolved definitions
+-- once validation completes.
+ALTER TYPE job_status_enum ADD VALUE IF NOT EXISTS 'PENDING_VALIDATION' BEFORE 'PENDING';
@@ -0,0 +1,16 @@
+-- Tenant fair-share weights for submit queues.
+--
+-- When tenant_weights is not null, jobs selected for the queue are routed to
+-- per-tenant sub-queues and the queue's workers choose among the sub-queues
+-- using weighted deficit round-robin.  The value is a comma separated list of
+-- tenant=weight assignments with positive integer weights, such as 
+--
+--     tacc=4, designsafe=2, *=1
+--
+-- where * assigns the weight of tenants not listed (default 1).  An empty
+-- string enables fair sharing with equal weights.  Null disables fair sharing.
+
+-- ----------------------------------------------------------------------------------------
+--                                       Job Queues
+-- ----------------------------------------------------------------------------------------
+ALTER TABLE job_queues ADD COLUMN IF NOT EXISTS tenant_weights character varying(4096);
@@ -0,0 +1,35 @@
+-- Partitioned job recovery ownership.
+--
+-- Recovery records are assigned to one of tapis.jobs.recovery.partitions
+-- partitions by a hash of their tenant and tester hash.  Each row grants the
+-- recovery reader named by owner exclusive ownership of a partition until the
+-- lease expires.  Readers renew their leases well before expiration; when a
+-- reader stops renewing, a surviving reader acquires its partitions, loads their
+-- recovery records and starts reading their recovery queues.  Rows are created
+-- by the readers for the configured number of partitions.
+--
+-- TIMEZONE Convention: all timestamps are UTC without timezone information.
+
+-- ----------------------------------------------------------------------------------------
+--                                   Recovery Leases
+-- ----------------------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS job_recovery_leases
+(
+  partition_id                integer PRIMARY KEY,
+  owner                       character varying(128),
+  expires                     timestamp without time zone NOT NULL DEFAULT '1970-01-01 00:00:00'
+);
+ALTER TABLE job_recovery_leases OWNER TO tapis;
+
+-- ----------------------------------------------------------------------------------------
+--                                   Recovery Readers
+-- ----------------------------------------------------------------------------------------
+-- Each running recovery reader, whether or not it owns partitions, refreshes its
+-- row on every lease renewal.  Readers divide the partitions evenly among the
+-- readers with unexpired rows.
+CREATE TABLE IF NOT EXISTS job_recovery_readers
+(
+  owner                       character varying(128) PRIMARY KEY,
+  expires                     timestamp without time zone NOT NULL
+);
+ALTER TABLE job_recovery_readers OWNER TO tapis;
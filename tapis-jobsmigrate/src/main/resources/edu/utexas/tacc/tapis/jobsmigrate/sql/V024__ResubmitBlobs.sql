@@ -0,0 +1,47 @@
+-- Content-addressed storage of saved job requests.
+--
+-- Each distinct request is stored once in job_resubmit_blobs, keyed by the
+-- SHA-256 hash of its UTF-8 bytes, and job_resubmit rows reference their
+-- request by hash.  The Jobs service compresses requests (codec DEFLATE).
+--
+-- This migration only changes the schema.  The Jobs service converts existing
+-- rows in small batches, each committed separately, so the conversion can be
+-- interrupted and resumed without holding locks on job_resubmit.  The inline
+-- job_definition becomes nullable: new rows don't write it and converted rows
+-- have it cleared in the same transaction that sets their definition_hash, so 
+-- each saved request is only stored in its blob.  Older services can't read
+-- the requests of converted or new rows, so services must not be rolled back
+-- to a version before this migration once conversion has started.  A later
+-- migration will drop the column.
+--
+-- Blobs no longer referenced by any job_resubmit row, such as those of
+-- deleted jobs, are periodically removed by the Jobs service once they
+-- haven't been used for a grace period.  last_used is refreshed whenever a 
+-- new request reuses an existing blob.
+--
+-- TIMEZONE Convention: all timestamps are UTC without timezone information.
+
+-- ----------------------------------------------------------------------------------------
+--                                   Resubmit Blobs
+-- ----------------------------------------------------------------------------------------
+CREATE TABLE IF NOT EXISTS job_resubmit_blobs
+(
+  hash                        character(64) PRIMARY KEY,
+  codec                       character varying(16) NOT NULL,
+  length                      integer NOT NULL,
+  content                     bytea NOT NULL,
+  created                     timestamp without time zone NOT NULL DEFAULT (now() at time zone 'utc'),
+  last_used                   timestamp without time zone NOT NULL DEFAULT (now() at time zone 'utc')
+);
+ALTER TABLE job_resubmit_blobs OWNER TO tapis;
+CREATE INDEX IF NOT EXISTS job_resubmit_blobs_last_used_idx ON job_resubmit_blobs (last_used);
+
+ALTER TABLE job_resubmit ALTER COLUMN job_definition DROP NOT NULL;
+
+ALTER TABLE job_resubmit ADD COLUMN IF NOT EXISTS definition_hash character(64)
+  REFERENCES job_resubmit_blobs (hash) ON UPDATE CASCADE;
+CREATE INDEX IF NOT EXISTS job_resubmit_definition_hash_idx ON job_resubmit (definition_hash);
+
+-- Find the rows that still need to be converted without rescanning converted ones.
+CREATE INDEX IF NOT EXISTS job_resubmit_unconverted_idx ON job_resubmit (id) 
+  WHERE definition_hash IS NULL;